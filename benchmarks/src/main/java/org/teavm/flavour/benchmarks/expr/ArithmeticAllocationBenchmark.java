@@ -0,0 +1,107 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.benchmarks.expr;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teavm.flavour.expr.Evaluator;
+import org.teavm.flavour.expr.InterpretingEvaluatorBuilder;
+
+/**
+ * <p>Measures garbage produced by interpreter on numeric-heavy expressions.
+ * Run with <code>-prof gc</code> and look at <code>gc.alloc.rate.norm</code>.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArithmeticAllocationBenchmark {
+    private DoubleFunction pricing;
+    private BooleanFunction eligibility;
+    private LongFunction checksum;
+
+    @Setup
+    public void setup() {
+        pricing = build(DoubleFunction.class, "price * quantity * (100 - discount) / 100 "
+                + "+ (quantity > 10 ? shipping : shipping * 2) - price * 0.05");
+        eligibility = build(BooleanFunction.class, "quantity * price >= 1000 && discount < 30 "
+                + "|| quantity > 100 && -discount > -50");
+        checksum = build(LongFunction.class, "(id * 31 + quantity) * 17 % 1000003 + id / 7");
+    }
+
+    private <F> F build(Class<F> functionType, String expr) {
+        Evaluator<F, Vars> evaluator = new InterpretingEvaluatorBuilder()
+                .importPackage("java.lang")
+                .build(functionType, Vars.class, expr);
+        Vars vars = evaluator.getVariables();
+        vars.price(123.45);
+        vars.quantity(17);
+        vars.discount(15);
+        vars.shipping(9.99);
+        vars.id(987654321L);
+        return evaluator.getFunction();
+    }
+
+    @Benchmark
+    public double pricing() {
+        return pricing.compute();
+    }
+
+    @Benchmark
+    public boolean eligibility() {
+        return eligibility.compute();
+    }
+
+    @Benchmark
+    public long checksum() {
+        return checksum.compute();
+    }
+
+    public interface Vars {
+        void price(double price);
+
+        void quantity(int quantity);
+
+        void discount(int discount);
+
+        void shipping(double shipping);
+
+        void id(long id);
+    }
+
+    public interface DoubleFunction {
+        double compute();
+    }
+
+    public interface BooleanFunction {
+        boolean compute();
+    }
+
+    public interface LongFunction {
+        long compute();
+    }
+}
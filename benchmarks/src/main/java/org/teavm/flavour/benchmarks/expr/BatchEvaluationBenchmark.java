@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.benchmarks.expr;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teavm.flavour.benchmarks.expr.EvaluationBenchmark.IntFunction;
+import org.teavm.flavour.benchmarks.expr.EvaluationBenchmark.Vars;
+import org.teavm.flavour.expr.BatchEvaluator;
+import org.teavm.flavour.expr.Evaluator;
+import org.teavm.flavour.expr.InterpretingEvaluatorBuilder;
+
+/**
+ * <p>Measures evaluation of a single expression over many rows, either row by row through regular evaluator
+ * or at once through {@link BatchEvaluator}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchEvaluationBenchmark {
+    private static final String EXPR = "(a * 3 + b) % 7 - a / 2 + name.length()";
+    private static final int SIZE = 100000;
+    private int[] a = new int[SIZE];
+    private int[] b = new int[SIZE];
+    private String[] names = new String[SIZE];
+    private Map<String, Object> columns = new HashMap<>();
+    private Evaluator<IntFunction, Vars> evaluator;
+    private BatchEvaluator<Vars> batch;
+    private BatchEvaluator<Vars> parallelBatch;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < SIZE; ++i) {
+            a[i] = i;
+            b[i] = i * 7;
+            names[i] = "name" + (i % 100);
+        }
+        columns.put("a", a);
+        columns.put("b", b);
+        columns.put("name", names);
+        InterpretingEvaluatorBuilder builder = new InterpretingEvaluatorBuilder().importPackage("java.lang");
+        evaluator = builder.build(IntFunction.class, Vars.class, EXPR);
+        batch = builder.buildBatch(IntFunction.class, Vars.class, EXPR);
+        parallelBatch = builder.buildBatch(IntFunction.class, Vars.class, EXPR).setPool(ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public int[] rowByRow() {
+        int[] results = new int[SIZE];
+        Vars vars = evaluator.getVariables();
+        IntFunction function = evaluator.getFunction();
+        for (int i = 0; i < SIZE; ++i) {
+            vars.a(a[i]);
+            vars.b(b[i]);
+            vars.name(names[i]);
+            results[i] = function.compute();
+        }
+        return results;
+    }
+
+    @Benchmark
+    public int[] columns() {
+        return (int[]) batch.evaluate(columns);
+    }
+
+    @Benchmark
+    public int[] parallelColumns() {
+        return (int[]) parallelBatch.evaluate(columns);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.benchmarks.expr;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.teavm.flavour.expr.type.GenericClass;
+import org.teavm.flavour.expr.type.TypeVar;
+import org.teavm.flavour.expr.type.meta.ClassDescriber;
+import org.teavm.flavour.expr.type.meta.ClassDescriberRepository;
+import org.teavm.flavour.expr.type.meta.ClassFileClassDescriberRepository;
+import org.teavm.flavour.expr.type.meta.ClassPathClassDescriberRepository;
+import org.teavm.flavour.expr.type.meta.FieldDescriber;
+import org.teavm.flavour.expr.type.meta.MethodDescriber;
+
+/**
+ * <p>Measures cold start of class describer repositories, i.e. time it takes a fresh JVM to describe
+ * a set of library classes the way type checker does. Every fork measures a single shot, since
+ * reflection-based repository only pays for class loading once per JVM. Run with <code>-prof cl</code>
+ * to see how many classes each repository loads and with <code>-prof gc</code> to see memory churn.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class ClassDescriberBenchmark {
+    private static final String[] CLASS_NAMES = {
+            "java.time.LocalDate", "java.time.LocalTime", "java.time.LocalDateTime", "java.time.ZonedDateTime",
+            "java.time.OffsetDateTime", "java.time.Instant", "java.time.Duration", "java.time.Period",
+            "java.time.ZoneId", "java.time.ZoneOffset", "java.time.Year", "java.time.YearMonth",
+            "java.time.MonthDay", "java.time.format.DateTimeFormatter", "java.time.format.DateTimeFormatterBuilder",
+            "java.time.temporal.ChronoUnit", "java.time.temporal.ChronoField", "java.time.temporal.TemporalAdjusters",
+            "java.time.temporal.WeekFields", "java.time.chrono.JapaneseDate", "java.time.chrono.HijrahDate",
+            "java.time.chrono.ThaiBuddhistDate", "java.time.chrono.MinguoDate",
+            "java.util.concurrent.ConcurrentSkipListMap", "java.util.concurrent.ConcurrentSkipListSet",
+            "java.util.concurrent.CopyOnWriteArrayList", "java.util.concurrent.LinkedBlockingDeque",
+            "java.util.concurrent.LinkedTransferQueue", "java.util.concurrent.PriorityBlockingQueue",
+            "java.util.concurrent.DelayQueue", "java.util.concurrent.Exchanger", "java.util.concurrent.Phaser",
+            "java.util.concurrent.CompletableFuture", "java.util.concurrent.ForkJoinPool",
+            "java.util.concurrent.ScheduledThreadPoolExecutor", "java.util.concurrent.CyclicBarrier",
+            "java.util.concurrent.Semaphore", "java.util.concurrent.atomic.LongAdder",
+            "java.util.concurrent.atomic.DoubleAccumulator", "java.util.concurrent.atomic.AtomicReferenceArray",
+            "java.util.concurrent.locks.StampedLock", "java.util.concurrent.locks.ReentrantReadWriteLock",
+            "java.text.DecimalFormat", "java.text.SimpleDateFormat", "java.text.MessageFormat",
+            "java.text.ChoiceFormat", "java.text.Collator", "java.text.BreakIterator", "java.text.Normalizer",
+            "java.text.Bidi", "java.text.StringCharacterIterator", "java.math.BigDecimal", "java.math.BigInteger",
+            "java.math.MathContext", "java.net.URI", "java.net.URL", "java.net.URLEncoder", "java.net.URLDecoder",
+            "java.net.InetAddress", "java.net.InetSocketAddress", "java.net.HttpCookie", "java.net.IDN",
+            "java.nio.file.Files", "java.nio.file.Paths", "java.nio.file.FileSystems", "java.nio.file.Path",
+            "java.nio.ByteBuffer", "java.nio.CharBuffer", "java.nio.LongBuffer", "java.nio.charset.Charset",
+            "java.util.BitSet", "java.util.Base64", "java.util.Currency", "java.util.Formatter",
+            "java.util.GregorianCalendar", "java.util.IdentityHashMap", "java.util.PriorityQueue",
+            "java.util.Scanner", "java.util.StringJoiner", "java.util.TreeMap", "java.util.UUID",
+            "java.util.WeakHashMap", "java.util.regex.Pattern", "java.util.stream.IntStream",
+            "java.util.stream.Collectors", "java.util.zip.ZipFile", "java.util.zip.Deflater"
+    };
+
+    @Param({ "reflection", "classfile" })
+    private String repository;
+
+    @Benchmark
+    public void describe(Blackhole blackhole) {
+        ClassDescriberRepository classes = repository.equals("reflection")
+                ? new ClassPathClassDescriberRepository()
+                : new ClassFileClassDescriberRepository();
+        for (String className : CLASS_NAMES) {
+            ClassDescriber cls = classes.describe(className);
+            blackhole.consume(cls.getSupertype());
+            for (GenericClass itf : cls.getInterfaces()) {
+                blackhole.consume(itf);
+            }
+            for (TypeVar typeVar : cls.getTypeVariables()) {
+                blackhole.consume(typeVar);
+            }
+            for (MethodDescriber method : cls.getMethods()) {
+                blackhole.consume(method.getTypeVariables());
+                blackhole.consume(method.getParameterTypes());
+                blackhole.consume(method.getRawParameterTypes());
+                blackhole.consume(method.getReturnType());
+                blackhole.consume(method.getRawReturnType());
+            }
+            for (FieldDescriber field : cls.getFields()) {
+                blackhole.consume(field.getType());
+            }
+        }
+    }
+}
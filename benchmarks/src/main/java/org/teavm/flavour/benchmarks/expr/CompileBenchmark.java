@@ -0,0 +1,120 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.benchmarks.expr;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teavm.flavour.expr.ClassPathClassResolver;
+import org.teavm.flavour.expr.ClassResolver;
+import org.teavm.flavour.expr.Compiler;
+import org.teavm.flavour.expr.ImportingClassResolver;
+import org.teavm.flavour.expr.Parser;
+import org.teavm.flavour.expr.TypedPlan;
+import org.teavm.flavour.expr.ast.Expr;
+import org.teavm.flavour.expr.type.GenericClass;
+import org.teavm.flavour.expr.type.GenericTypeNavigator;
+import org.teavm.flavour.expr.type.Primitive;
+import org.teavm.flavour.expr.type.TypeArgument;
+import org.teavm.flavour.expr.type.ValueType;
+import org.teavm.flavour.expr.type.meta.ClassPathClassDescriberRepository;
+
+/**
+ * <p>Measures latency of type checking and compilation of already parsed expressions into plans.
+ * Most of the expressions pass lambdas to generic methods, so they mostly measure type inference.
+ * With <code>shared</code> navigator, class hierarchy queries are memoized by previous compilations,
+ * like they are in evaluator builders, with <code>fresh</code> every compilation starts from scratch.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompileBenchmark {
+    private static final Map<String, String> EXPRESSIONS = new HashMap<>();
+
+    static {
+        EXPRESSIONS.put("arithmetic", "(a * 3 + b) % 7 - a / 2");
+        EXPRESSIONS.put("invocation", "name.substring(1).length() + name.hashCode() % 10");
+        EXPRESSIONS.put("stream", "items.stream().map(x -> x * a).filter(x -> x > b).count()");
+        EXPRESSIONS.put("collect", "Arrays.asList(2, 3, 4).stream().filter(num -> num % 2 == 0)"
+                + ".map(num -> num.toString()).collect(Collectors.joining(','))");
+        EXPRESSIONS.put("findFirst", "names.stream().filter(n -> n.length() > a).map(n -> n.toUpperCase())"
+                + ".findFirst().orElse('')");
+        EXPRESSIONS.put("comparator", "Collections.max(items, (p, q) -> Integer.compare(q, p))");
+        EXPRESSIONS.put("optional", "Optional.ofNullable(name).map(s -> s.trim()).orElse('')");
+    }
+
+    @Param({ "arithmetic", "invocation", "stream", "collect", "findFirst", "comparator", "optional" })
+    public String expression;
+
+    @Param({ "shared", "fresh" })
+    public String navigator;
+
+    private ClassPathClassDescriberRepository classes = new ClassPathClassDescriberRepository();
+    private GenericTypeNavigator sharedNavigator = new GenericTypeNavigator(classes);
+    private ClassResolver classResolver;
+    private Map<String, ValueType> variables = new HashMap<>();
+    private Expr expr;
+
+    @Setup
+    public void setup() {
+        classResolver = new ImportingClassResolver(new ClassPathClassResolver())
+                .importPackage("java.lang")
+                .importPackage("java.util")
+                .importPackage("java.util.stream");
+        GenericClass integerType = new GenericClass(Integer.class.getName());
+        GenericClass stringType = new GenericClass(String.class.getName());
+        variables.put("a", Primitive.INT);
+        variables.put("b", Primitive.INT);
+        variables.put("name", stringType);
+        variables.put("items", new GenericClass(List.class.getName(), TypeArgument.invariant(integerType)));
+        variables.put("names", new GenericClass(List.class.getName(), TypeArgument.invariant(stringType)));
+
+        Parser parser = new Parser(classResolver);
+        expr = parser.parse(EXPRESSIONS.get(expression));
+        if (!parser.getDiagnostics().isEmpty()) {
+            throw new IllegalStateException("Can't parse " + expression);
+        }
+        compile();
+    }
+
+    @Benchmark
+    public TypedPlan compile() {
+        GenericTypeNavigator typeNavigator = navigator.equals("shared") ? sharedNavigator
+                : new GenericTypeNavigator(classes);
+        Compiler compiler = new Compiler(typeNavigator, classResolver, variables::get);
+        TypedPlan plan = compiler.compile(expr);
+        if (!compiler.wasSuccessful()) {
+            throw new IllegalStateException("Can't compile " + expression + ": "
+                    + compiler.getDiagnostics().get(0).getMessage());
+        }
+        return plan;
+    }
+}
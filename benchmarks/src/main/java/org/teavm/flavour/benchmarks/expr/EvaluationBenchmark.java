@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.benchmarks.expr;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teavm.flavour.expr.CompilingEvaluatorBuilder;
+import org.teavm.flavour.expr.Evaluator;
+import org.teavm.flavour.expr.EvaluatorBuilder;
+import org.teavm.flavour.expr.InterpretingEvaluatorBuilder;
+
+/**
+ * <p>Measures cost of a single call of an already built evaluator.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+    @Param({ "interpreting", "compiling" })
+    public String builder;
+
+    private IntFunction arithmetic;
+    private IntFunction invocation;
+    private LongFunction lambda;
+    private LongFunction largeLambda;
+
+    @Setup
+    public void setup() {
+        arithmetic = build(IntFunction.class, "(a * 3 + b) % 7 - a / 2");
+        invocation = build(IntFunction.class, "name.substring(1).length() + name.hashCode() % 10");
+        lambda = build(LongFunction.class, "items.stream().map(x -> x * a).filter(x -> x > b).count()");
+        largeLambda = build(LongFunction.class, "largeItems.stream().filter(x -> x % a > 1).count()");
+    }
+
+    private <F> F build(Class<F> functionType, String expr) {
+        Evaluator<F, Vars> evaluator = createBuilder().build(functionType, Vars.class, expr);
+        Vars vars = evaluator.getVariables();
+        vars.a(5);
+        vars.b(11);
+        vars.name("foobar");
+        vars.items(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8));
+        vars.largeItems(IntStream.range(0, 10000).boxed().collect(Collectors.toList()));
+        return evaluator.getFunction();
+    }
+
+    private EvaluatorBuilder createBuilder() {
+        switch (builder) {
+            case "interpreting":
+                return new InterpretingEvaluatorBuilder().importPackage("java.lang").importPackage("java.util");
+            case "compiling":
+                return new CompilingEvaluatorBuilder().importPackage("java.lang").importPackage("java.util");
+            default:
+                throw new IllegalArgumentException("Unknown builder: " + builder);
+        }
+    }
+
+    @Benchmark
+    public int arithmetic() {
+        return arithmetic.compute();
+    }
+
+    @Benchmark
+    public int invocation() {
+        return invocation.compute();
+    }
+
+    @Benchmark
+    public long lambda() {
+        return lambda.compute();
+    }
+
+    @Benchmark
+    public long largeLambda() {
+        return largeLambda.compute();
+    }
+
+    public interface Vars {
+        void a(int a);
+
+        void b(int b);
+
+        void name(String name);
+
+        void items(List<Integer> items);
+
+        void largeItems(List<Integer> items);
+    }
+
+    public interface IntFunction {
+        int compute();
+    }
+
+    public interface LongFunction {
+        long compute();
+    }
+}
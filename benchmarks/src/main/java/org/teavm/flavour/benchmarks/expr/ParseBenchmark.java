@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.benchmarks.expr;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.teavm.flavour.expr.ClassPathClassResolver;
+import org.teavm.flavour.expr.Parser;
+
+/**
+ * <p>Measures parse throughput over expressions taken from evaluator and parser tests.
+ * Score is expressions parsed per millisecond.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    private static final String[] EXPRESSIONS = {
+            "23",
+            "foo",
+            "x * q.f(2 + u, -v)",
+            "true",
+            "'foo'",
+            "intValue - 3",
+            "3 - 2 + 1",
+            "longWrapper - byteValue",
+            "byteValue + '-' + stringValue + '!' + longWrapper",
+            "intValue > 3 ? longWrapper * 2 : -intValue + byteValue",
+            "-byteValue",
+            "byteValue == intValue",
+            "object == null and intValue == 3",
+            "object == null or intValue == 3",
+            "not intValue == 3",
+            "(int) longWrapper",
+            "(Long) object",
+            "((int[]) object)[0]",
+            "object instanceof Long",
+            "intArray[0]",
+            "stringIntMap['k']",
+            "object.getClass().getName()",
+            "Integer.valueOf('23')",
+            "foo.extract(stringIntMap, (String) null)",
+            "object.getClass().simpleName",
+            "stringArray.length",
+            "EvaluatorTest.STATIC_FIELD",
+            "stringValue.length() > 3 ? byteValue : intArray[0]",
+            "EvaluatorTest.map(stringList, s -> '!' + s)",
+            "EvaluatorTest.reduce(integerList, 0, (Integer a, b) -> a + b)",
+            "EvaluatorTest.sort(integerList, (a, b) -> Integer.compare(a, b))",
+            "s -> '!' + s",
+            "EvaluatorTest.map(Arrays.asList(2, 3, 4),  i -> Integer.toBinaryString(i))",
+            "EvaluatorTest.reduce(Collections.emptyList(), '', (a, b) -> a + b)",
+            "Arrays.asList(2, 3, 4).stream().filter(num -> num % 2 == 0).map(num -> num.toString())"
+                    + ".collect(Collectors.joining(','))",
+            "bean.foo = 'qwe'",
+            "bean.bar = 123"
+    };
+
+    private Parser parser = new Parser(new ClassPathClassResolver());
+
+    @Benchmark
+    @OperationsPerInvocation(37)
+    public void parse(Blackhole blackhole) {
+        for (String expression : EXPRESSIONS) {
+            blackhole.consume(parser.parse(expression));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.benchmarks.templates;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teavm.flavour.components.standard.KeyedReconciliation;
+
+/**
+ * <p>Measures reconciliation of keyed <code>std:foreach</code> for common changes of a 2000-item list.
+ * Only the part that does not depend on DOM is measured. Each invocation returns number of components
+ * that would be created or moved, which is what DOM cost depends on.</p>
+ *
+ * <p>Since templates module depends on TeaVM, this benchmark is only built with <code>templates</code>
+ * profile.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyedReconciliationBenchmark {
+    private static final int SIZE = 2000;
+    @Param({ "append", "prepend", "insertMiddle", "removeMiddle", "swap", "reverse", "shuffle" })
+    private String operation;
+    private List<Object> oldKeys = new ArrayList<>();
+    private List<Object> newKeys;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < SIZE; ++i) {
+            oldKeys.add("row" + i);
+        }
+        newKeys = new ArrayList<>(oldKeys);
+        switch (operation) {
+            case "append":
+                newKeys.add("new");
+                break;
+            case "prepend":
+                newKeys.add(0, "new");
+                break;
+            case "insertMiddle":
+                newKeys.add(SIZE / 2, "new");
+                break;
+            case "removeMiddle":
+                newKeys.remove(SIZE / 2);
+                break;
+            case "swap":
+                Collections.swap(newKeys, 1, SIZE - 2);
+                break;
+            case "reverse":
+                Collections.reverse(newKeys);
+                break;
+            case "shuffle":
+                Collections.shuffle(newKeys, new Random(0));
+                break;
+            default:
+                throw new IllegalArgumentException(operation);
+        }
+    }
+
+    @Benchmark
+    public int reconcile() {
+        int[] sources = KeyedReconciliation.match(oldKeys, newKeys);
+        boolean[] stable = KeyedReconciliation.findStable(sources);
+        int changes = 0;
+        for (int i = 0; i < sources.length; ++i) {
+            if (sources[i] < 0 || !stable[i]) {
+                ++changes;
+            }
+        }
+        return changes;
+    }
+}
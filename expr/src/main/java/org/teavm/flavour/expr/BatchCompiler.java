@@ -0,0 +1,157 @@
+/*
+ *  Copyright 2015 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.teavm.flavour.expr.ast.Expr;
+import org.teavm.flavour.expr.type.GenericTypeNavigator;
+import org.teavm.flavour.expr.type.ValueType;
+import org.teavm.flavour.expr.type.meta.ClassDescriberRepository;
+
+/**
+ * <p>Parses and compiles many expressions in parallel on a {@link ForkJoinPool}. Every expression gets
+ * its own {@link Parser} and {@link Compiler}, while all of them share single {@link GenericTypeNavigator}
+ * with its memoized class hierarchy queries, and therefore single {@link ClassDescriberRepository}.</p>
+ *
+ * <p>Class resolver and scope are shared by all workers as well, so they must be thread-safe.
+ * {@link ClassPathClassResolver} and {@link ImportingClassResolver} are. Imports added to the latter during
+ * compilation are seen by some expressions and not by others.</p>
+ */
+public class BatchCompiler {
+    private static final int THRESHOLD = 8;
+    private final GenericTypeNavigator typeNavigator;
+    private final ClassResolver classResolver;
+    private final Scope scope;
+    private volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    public BatchCompiler(ClassDescriberRepository classRepository, ClassResolver classResolver, Scope scope) {
+        this(new GenericTypeNavigator(classRepository), classResolver, scope);
+    }
+
+    public BatchCompiler(GenericTypeNavigator typeNavigator, ClassResolver classResolver, Scope scope) {
+        this.typeNavigator = typeNavigator;
+        this.classResolver = classResolver;
+        this.scope = scope;
+    }
+
+    /**
+     * <p>Sets pool to run compilation on. By default, common pool is used.</p>
+     *
+     * @param pool pool to run compilation on.
+     * @return this instance.
+     */
+    public BatchCompiler setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * <p>Compiles expressions. Equivalent to <code>compile(sources, null)</code>.</p>
+     *
+     * @param sources source code of expressions.
+     * @return compilation results in the same order as sources.
+     */
+    public List<Result> compile(List<String> sources) {
+        return compile(sources, null);
+    }
+
+    /**
+     * <p>Compiles expressions, trying to cast each of them to the given type, like
+     * {@link Compiler#compile(Expr, ValueType)} does.</p>
+     *
+     * @param sources source code of expressions.
+     * @param type if not null, compiler will try to cast results of expressions to this type.
+     * @return compilation results in the same order as sources.
+     */
+    public List<Result> compile(List<String> sources, ValueType type) {
+        String[] sourceArray = sources.toArray(new String[0]);
+        Result[] results = new Result[sourceArray.length];
+        pool.invoke(new CompilationTask(sourceArray, type, results, 0, results.length));
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    Result compile(String source, ValueType type) {
+        Parser parser = new Parser(classResolver);
+        Expr expr = parser.parse(source);
+        if (!parser.getDiagnostics().isEmpty()) {
+            return new Result(null, parser.getDiagnostics());
+        }
+        Compiler compiler = new Compiler(typeNavigator, classResolver, scope);
+        TypedPlan plan = compiler.compile(expr, type);
+        return new Result(plan, compiler.getDiagnostics());
+    }
+
+    class CompilationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final String[] sources;
+        private final ValueType type;
+        private final Result[] results;
+        private final int start;
+        private final int end;
+
+        CompilationTask(String[] sources, ValueType type, Result[] results, int start, int end) {
+            this.sources = sources;
+            this.type = type;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > THRESHOLD) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new CompilationTask(sources, type, results, start, middle),
+                        new CompilationTask(sources, type, results, middle, end));
+            } else {
+                for (int i = start; i < end; ++i) {
+                    results[i] = compile(sources[i], type);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Outcome of compilation of a single expression. When expression has syntax errors, there is no plan.
+     * When it has type errors, plan is present, but should not be executed.</p>
+     */
+    public static class Result {
+        private final TypedPlan plan;
+        private final List<Diagnostic> diagnostics;
+
+        Result(TypedPlan plan, List<Diagnostic> diagnostics) {
+            this.plan = plan;
+            this.diagnostics = Collections.unmodifiableList(new ArrayList<>(diagnostics));
+        }
+
+        public TypedPlan getPlan() {
+            return plan;
+        }
+
+        public List<Diagnostic> getDiagnostics() {
+            return diagnostics;
+        }
+
+        public boolean wasSuccessful() {
+            return diagnostics.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ *  Copyright 2015 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>Evaluates single expression over many sets of variable values at once. Variable values come either
+ * as a list of rows, each of them bound to variables by a callback, or as columns, i.e. arrays of values
+ * of each variable. Results are stored in an array whose component type is the return type of
+ * the function method, so that primitive results are not boxed.</p>
+ *
+ * <p>Unless plan creates lambdas, all rows evaluated by one worker share single frame, therefore variables
+ * not bound for a row keep their values from the previous row. Large batches are split between threads
+ * when pool is set by {@link #setPool(ForkJoinPool)}. This is only safe if the expression does not
+ * mutate shared state.</p>
+ *
+ * @param <V> type of variables, as passed to {@link InterpretingEvaluatorBuilder#buildBatch(Class, Class, String)}.
+ */
+public class BatchEvaluator<V> {
+    private static final int THRESHOLD = 1024;
+    private Interpreter interpreter;
+    private Class<V> variablesType;
+    private Map<Method, Integer> variableIndexes;
+    private Class<?>[] variableTypes;
+    private Class<?> resultType;
+    private ForkJoinPool pool;
+
+    BatchEvaluator(Interpreter interpreter, Class<V> variablesType, Map<Method, Integer> variableIndexes,
+            Class<?> resultType) {
+        this.interpreter = interpreter;
+        this.variablesType = variablesType;
+        this.variableIndexes = variableIndexes;
+        this.resultType = resultType;
+        variableTypes = new Class<?>[interpreter.createVariables().length];
+        for (Map.Entry<Method, Integer> entry : variableIndexes.entrySet()) {
+            if (entry.getValue() >= 0) {
+                variableTypes[entry.getValue()] = entry.getKey().getParameterTypes()[0];
+            }
+        }
+    }
+
+    /**
+     * <p>Gets component type of arrays returned by <code>evaluate</code> methods.</p>
+     */
+    public Class<?> getResultType() {
+        return resultType;
+    }
+
+    /**
+     * <p>Sets pool to split large batches on. By default, batches are evaluated on the calling thread.</p>
+     *
+     * @param pool pool to run evaluation on or <code>null</code> to evaluate on the calling thread.
+     * @return this instance.
+     */
+    public BatchEvaluator<V> setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * <p>Evaluates expression for each row.</p>
+     *
+     * @param rows rows to evaluate expression for.
+     * @param binder sets variables from row. It is called on the same thread that evaluates the row
+     * immediately before evaluation.
+     * @return array of results with {@link #getResultType()} component type, in the same order as rows.
+     */
+    public <R> Object evaluate(List<? extends R> rows, BiConsumer<? super V, ? super R> binder) {
+        return evaluate(rows.size(), () -> {
+            FrameVariables handler = new FrameVariables(variableIndexes);
+            @SuppressWarnings("unchecked")
+            V variables = (V) Proxy.newProxyInstance(ClassLoader.getSystemClassLoader(),
+                    new Class<?>[] { variablesType }, handler);
+            return (frame, index) -> {
+                handler.frame = frame;
+                binder.accept(variables, rows.get(index));
+            };
+        });
+    }
+
+    /**
+     * <p>Evaluates expression for each row. Equivalent to
+     * <code>evaluate(Arrays.asList(rows), binder)</code>.</p>
+     */
+    public <R> Object evaluate(R[] rows, BiConsumer<? super V, ? super R> binder) {
+        return evaluate(Arrays.asList(rows), binder);
+    }
+
+    /**
+     * <p>Evaluates expression over columns of variable values. The <i>i</i>-th result is computed from
+     * the <i>i</i>-th elements of columns. Columns of variables that expression does not use are ignored.</p>
+     *
+     * @param columns maps names of variables to arrays of their values. Arrays of primitives are accepted
+     * as well. All arrays must have the same length. Elements of arrays must be assignable to variables
+     * without conversions, except for boxing, i.e. <code>int[]</code> is not accepted for
+     * <code>long</code> variable.
+     * @return array of results with {@link #getResultType()} component type.
+     */
+    public Object evaluate(Map<String, ?> columns) {
+        int size = -1;
+        List<Column> usedColumns = new ArrayList<>();
+        for (Map.Entry<String, ?> entry : columns.entrySet()) {
+            Object array = entry.getValue();
+            if (array == null || !array.getClass().isArray()) {
+                throw new IllegalArgumentException("Column " + entry.getKey() + " is not an array");
+            }
+            int length = Array.getLength(array);
+            if (size >= 0 && length != size) {
+                throw new IllegalArgumentException("Column " + entry.getKey() + " has " + length
+                        + " elements, other columns have " + size);
+            }
+            size = length;
+            int slot = interpreter.getVariableIndex(entry.getKey());
+            if (slot >= 0) {
+                Class<?> variableType = variableTypes[slot];
+                Class<?> componentType = array.getClass().getComponentType();
+                if (variableType != null && !box(variableType).isAssignableFrom(box(componentType))) {
+                    throw new IllegalArgumentException("Column " + entry.getKey() + " of type "
+                            + componentType.getName() + " does not match variable type " + variableType.getName());
+                }
+                usedColumns.add(createColumn(slot, array));
+            }
+        }
+        Column[] columnArray = usedColumns.toArray(new Column[0]);
+        return evaluate(Math.max(size, 0), () -> (frame, index) -> {
+            for (Column column : columnArray) {
+                column.copy(frame, index);
+            }
+        });
+    }
+
+    private Object evaluate(int size, RowSourceFactory sourceFactory) {
+        Object results = Array.newInstance(resultType, size);
+        if (pool == null || size <= THRESHOLD) {
+            evaluateRange(sourceFactory.create(), results, 0, size);
+        } else {
+            pool.invoke(new EvaluationTask(sourceFactory, results, 0, size));
+        }
+        return results;
+    }
+
+    private void evaluateRange(RowSource source, Object results, int start, int end) {
+        LinkedNode node = interpreter.getNode();
+        boolean reuseFrame = !interpreter.createsLambdas();
+        Object[] frame = interpreter.createVariables();
+        if (resultType == int.class) {
+            int[] array = (int[]) results;
+            for (int i = start; i < end; ++i) {
+                frame = nextFrame(frame, reuseFrame, source, i);
+                array[i] = node.evalInt(frame);
+            }
+        } else if (resultType == long.class) {
+            long[] array = (long[]) results;
+            for (int i = start; i < end; ++i) {
+                frame = nextFrame(frame, reuseFrame, source, i);
+                array[i] = node.evalLong(frame);
+            }
+        } else if (resultType == float.class) {
+            float[] array = (float[]) results;
+            for (int i = start; i < end; ++i) {
+                frame = nextFrame(frame, reuseFrame, source, i);
+                array[i] = node.evalFloat(frame);
+            }
+        } else if (resultType == double.class) {
+            double[] array = (double[]) results;
+            for (int i = start; i < end; ++i) {
+                frame = nextFrame(frame, reuseFrame, source, i);
+                array[i] = node.evalDouble(frame);
+            }
+        } else if (resultType == boolean.class) {
+            boolean[] array = (boolean[]) results;
+            for (int i = start; i < end; ++i) {
+                frame = nextFrame(frame, reuseFrame, source, i);
+                array[i] = node.evalBoolean(frame);
+            }
+        } else if (resultType.isPrimitive()) {
+            // byte, short and char results are rare enough to store them reflectively
+            for (int i = start; i < end; ++i) {
+                frame = nextFrame(frame, reuseFrame, source, i);
+                Array.set(results, i, node.evaluate(frame));
+            }
+        } else {
+            Object[] array = (Object[]) results;
+            for (int i = start; i < end; ++i) {
+                frame = nextFrame(frame, reuseFrame, source, i);
+                array[i] = node.evaluate(frame);
+            }
+        }
+    }
+
+    private static Object[] nextFrame(Object[] frame, boolean reuse, RowSource source, int index) {
+        if (!reuse) {
+            frame = frame.clone();
+        }
+        source.bind(frame, index);
+        return frame;
+    }
+
+    private static Column createColumn(int slot, Object array) {
+        if (array instanceof Object[]) {
+            Object[] values = (Object[]) array;
+            return (frame, index) -> frame[slot] = values[index];
+        } else if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            return (frame, index) -> frame[slot] = values[index];
+        } else if (array instanceof long[]) {
+            long[] values = (long[]) array;
+            return (frame, index) -> frame[slot] = values[index];
+        } else if (array instanceof double[]) {
+            double[] values = (double[]) array;
+            return (frame, index) -> frame[slot] = values[index];
+        } else if (array instanceof boolean[]) {
+            boolean[] values = (boolean[]) array;
+            return (frame, index) -> frame[slot] = values[index];
+        } else {
+            return (frame, index) -> frame[slot] = Array.get(array, index);
+        }
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        switch (type.getName()) {
+            case "boolean":
+                return Boolean.class;
+            case "byte":
+                return Byte.class;
+            case "short":
+                return Short.class;
+            case "char":
+                return Character.class;
+            case "int":
+                return Integer.class;
+            case "long":
+                return Long.class;
+            case "float":
+                return Float.class;
+            case "double":
+                return Double.class;
+            default:
+                return Void.class;
+        }
+    }
+
+    interface RowSource {
+        void bind(Object[] frame, int index);
+    }
+
+    interface RowSourceFactory {
+        RowSource create();
+    }
+
+    interface Column {
+        void copy(Object[] frame, int index);
+    }
+
+    static class FrameVariables implements InvocationHandler {
+        private Map<Method, Integer> variableIndexes;
+        Object[] frame;
+
+        FrameVariables(Map<Method, Integer> variableIndexes) {
+            this.variableIndexes = variableIndexes;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+                return InterpretingEvaluatorBuilder.invokeObjectMethod(proxy, method, args);
+            }
+            int index = variableIndexes.get(method);
+            if (index >= 0) {
+                frame[index] = args[0];
+            }
+            return null;
+        }
+    }
+
+    class EvaluationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private RowSourceFactory sourceFactory;
+        private Object results;
+        private int start;
+        private int end;
+
+        EvaluationTask(RowSourceFactory sourceFactory, Object results, int start, int end) {
+            this.sourceFactory = sourceFactory;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= THRESHOLD) {
+                evaluateRange(sourceFactory.create(), results, start, end);
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new EvaluationTask(sourceFactory, results, start, middle),
+                        new EvaluationTask(sourceFactory, results, middle, end));
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Stores entries of a persistent cache as files in a directory, one file per key. Each file starts with
+ * a header of magic number, version of the code that wrote the entry and the key itself, so that entries
+ * of other caches, entries written by other versions and colliding file names are reported as missing.</p>
+ *
+ * <p>Cache never fails: unreadable entries are reported as missing and entries that can't be written are
+ * skipped. Entries are written to temporary files and then moved into place, so that several threads and
+ * several processes can use the same directory at once.</p>
+ */
+public class CacheDirectory {
+    private static final int MAX_NAME_COUNT = 65536;
+    private Path directory;
+    private int magic;
+    private String suffix;
+    private String version;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @param magic number that distinguishes files of this cache from files of other caches.
+     * @param suffix extension of files of entries.
+     * @param version version of the code that reads and writes entries, for example, {@link CodeFingerprint}.
+     */
+    public CacheDirectory(Path directory, int magic, String suffix, String version) {
+        this.directory = directory;
+        this.magic = magic;
+        this.suffix = suffix;
+        this.version = version;
+    }
+
+    /**
+     * <p>Reads entry and counts either hit or miss.</p>
+     *
+     * @param reader reads body of entry, after header. Returns <code>null</code> when entry is stale.
+     * @return read value or <code>null</code> when entry is missing, stale or corrupted.
+     */
+    public <T> T read(String key, EntryReader<T> reader) {
+        T value = readEntry(key, reader);
+        if (value != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return value;
+    }
+
+    private <T> T readEntry(String key, EntryReader<T> reader) {
+        try (InputStream fileInput = Files.newInputStream(entryPath(key))) {
+            DataInputStream input = new DataInputStream(fileInput);
+            if (input.readInt() != magic || !readString(input, version) || !readString(input, key)) {
+                return null;
+            }
+            return reader.read(input);
+        } catch (IOException | RuntimeException e) {
+            // Missing, corrupted or concurrently replaced entry
+            return null;
+        }
+    }
+
+    /**
+     * <p>Writes entry, replacing the previous one.</p>
+     *
+     * @param writer writes body of entry, after header.
+     */
+    public void write(String key, EntryWriter writer) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(magic);
+            writeString(output, version);
+            writeString(output, key);
+            writer.write(output);
+            output.flush();
+
+            Files.createDirectories(directory);
+            Path target = entryPath(key);
+            Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temp, bytes.toByteArray());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Entry will be computed again next time
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(toHex(sha256().digest(key.getBytes(StandardCharsets.UTF_8))) + suffix);
+    }
+
+    public static void writeNames(DataOutputStream output, List<String> names) throws IOException {
+        output.writeInt(names.size());
+        for (String name : names) {
+            output.writeUTF(name);
+        }
+    }
+
+    /**
+     * <p>Reads names written by {@link #writeNames(DataOutputStream, List)}.</p>
+     *
+     * @throws IOException if input is malformed, including the case of wrong number of names.
+     */
+    public static List<String> readNames(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        if (count < 0 || count > MAX_NAME_COUNT) {
+            throw new IOException("Wrong number of names: " + count);
+        }
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            names.add(input.readUTF());
+        }
+        return names;
+    }
+
+    public static void writeDigest(DataOutputStream output, byte[] digest) throws IOException {
+        output.writeByte(digest.length);
+        output.write(digest);
+    }
+
+    /**
+     * <p>Reads digest written by {@link #writeDigest(DataOutputStream, byte[])} and compares it with
+     * expected one.</p>
+     */
+    public static boolean readDigest(DataInputStream input, byte[] expected) throws IOException {
+        byte[] digest = new byte[input.readUnsignedByte()];
+        input.readFully(digest);
+        return Arrays.equals(digest, expected);
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is not supported by JVM", e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static boolean readString(DataInputStream input, String expected) throws IOException {
+        byte[] expectedBytes = expected.getBytes(StandardCharsets.UTF_8);
+        if (input.readInt() != expectedBytes.length) {
+            return false;
+        }
+        byte[] bytes = new byte[expectedBytes.length];
+        input.readFully(bytes);
+        return Arrays.equals(bytes, expectedBytes);
+    }
+
+    public interface EntryReader<T> {
+        T read(DataInputStream input) throws IOException;
+    }
+
+    public interface EntryWriter {
+        void write(DataOutputStream output) throws IOException;
+    }
+}
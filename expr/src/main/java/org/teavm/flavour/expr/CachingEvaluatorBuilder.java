@@ -0,0 +1,245 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * <p>Evaluator builder that remembers compiled expressions, so that building the same expression again
+ * only instantiates a new evaluator. Expressions are identified by their text, function type,
+ * variables type and imports of the underlying builder. Only successfully compiled expressions are
+ * remembered.</p>
+ *
+ * <p>The number of remembered expressions is bounded, when the bound is reached, the least recently used
+ * expression is evicted. This builder may be used by several threads at once, different expressions are
+ * compiled concurrently, while concurrent requests for the same expression compile it once. Underlying
+ * builder should not be used directly while this builder is in use.</p>
+ *
+ * <p>Compiled expressions are attached to their function or variables type, so the cache does not prevent
+ * class loaders of these types from being collected. Expressions of collected types are forgotten.</p>
+ */
+public class CachingEvaluatorBuilder implements EvaluatorBuilder {
+    private final Object lock = new Object();
+    private final Preparer preparer;
+    private final Supplier<List<String>> imports;
+    private final Map<Key, Boolean> keys;
+    private final ReferenceQueue<Class<?>> collectedTypes = new ReferenceQueue<>();
+    private final ClassValue<Map<Key, FutureTask<PreparedEvaluator<?, ?>>>> entries = new ClassValue<>() {
+        @Override
+        protected Map<Key, FutureTask<PreparedEvaluator<?, ?>>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public CachingEvaluatorBuilder(InterpretingEvaluatorBuilder builder, int maxSize) {
+        this(builder::prepare, builder::getImports, maxSize);
+    }
+
+    public CachingEvaluatorBuilder(CompilingEvaluatorBuilder builder, int maxSize) {
+        this(builder::prepare, builder::getImports, maxSize);
+    }
+
+    private CachingEvaluatorBuilder(Preparer preparer, Supplier<List<String>> imports, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.preparer = preparer;
+        this.imports = imports;
+        keys = new LinkedHashMap<Key, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+                if (size() > maxSize) {
+                    forget(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public <F, V> Evaluator<F, V> build(Class<F> functionType, Class<V> variablesType, String expr) {
+        Key key = new Key(functionType, variablesType, expr, imports.get(), collectedTypes);
+        Map<Key, FutureTask<PreparedEvaluator<?, ?>>> ownerEntries = entries.get(key.getOwner());
+        FutureTask<PreparedEvaluator<?, ?>> task;
+        boolean created = false;
+        synchronized (lock) {
+            expungeCollected();
+            task = ownerEntries.get(key);
+            if (task == null) {
+                task = new FutureTask<>(() -> preparer.prepare(functionType, variablesType, expr));
+                ownerEntries.put(key, task);
+                created = true;
+            }
+            keys.put(key, Boolean.TRUE);
+        }
+
+        // Compile outside of the lock, concurrent requests for the same expression wait for the first one
+        if (created) {
+            missCount.incrementAndGet();
+            task.run();
+        }
+        PreparedEvaluator<?, ?> prepared;
+        try {
+            prepared = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for expression to compile: " + expr, e);
+        } catch (ExecutionException e) {
+            if (created) {
+                synchronized (lock) {
+                    ownerEntries.remove(key, task);
+                    keys.remove(key);
+                }
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Error compiling expression: " + expr, cause);
+        }
+        if (!created) {
+            hitCount.incrementAndGet();
+        }
+        @SuppressWarnings("unchecked")
+        PreparedEvaluator<F, V> result = (PreparedEvaluator<F, V>) prepared;
+        return result.createEvaluator();
+    }
+
+    private void forget(Key key) {
+        Class<?> owner = key.getOwner();
+        if (owner != null) {
+            entries.get(owner).remove(key);
+        }
+    }
+
+    private void expungeCollected() {
+        for (Reference<?> reference = collectedTypes.poll(); reference != null;
+                reference = collectedTypes.poll()) {
+            keys.remove(((TypeReference) reference).key);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public int size() {
+        synchronized (lock) {
+            expungeCollected();
+            return keys.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            for (Key key : new ArrayList<>(keys.keySet())) {
+                forget(key);
+            }
+            keys.clear();
+        }
+    }
+
+    interface Preparer {
+        <F, V> PreparedEvaluator<F, V> prepare(Class<F> functionType, Class<V> variablesType, String expr);
+    }
+
+    static final class Key {
+        private final TypeReference functionType;
+        private final TypeReference variablesType;
+        private final boolean ownedByVariables;
+        private final String expr;
+        private final List<String> imports;
+        private final int hash;
+
+        Key(Class<?> functionType, Class<?> variablesType, String expr, List<String> imports,
+                ReferenceQueue<Class<?>> queue) {
+            this.functionType = new TypeReference(functionType, this, queue);
+            this.variablesType = new TypeReference(variablesType, this, queue);
+            ownedByVariables = isAncestor(functionType.getClassLoader(), variablesType.getClassLoader());
+            this.expr = expr;
+            this.imports = imports;
+            hash = Objects.hash(functionType, variablesType, expr, imports);
+        }
+
+        // Compiled expression refers to both types, so it is attached to the one with the shorter lifetime
+        Class<?> getOwner() {
+            return ownedByVariables ? variablesType.get() : functionType.get();
+        }
+
+        private static boolean isAncestor(ClassLoader ancestor, ClassLoader loader) {
+            if (ancestor == null) {
+                return true;
+            }
+            for (; loader != null; loader = loader.getParent()) {
+                if (loader == ancestor) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            Class<?> function = functionType.get();
+            Class<?> variables = variablesType.get();
+            return hash == other.hash && function != null && variables != null
+                    && function == other.functionType.get() && variables == other.variablesType.get()
+                    && expr.equals(other.expr) && imports.equals(other.imports);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    static final class TypeReference extends WeakReference<Class<?>> {
+        final Key key;
+
+        TypeReference(Class<?> type, Key key, ReferenceQueue<Class<?>> queue) {
+            super(type, queue);
+            this.key = key;
+        }
+    }
+}
@@ -15,8 +15,8 @@
  */
 package org.teavm.flavour.expr;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>A {@link ClassResolver} that searches classes in {@link ClassLoader}.</p>
@@ -25,7 +25,7 @@ import java.util.Map;
  */
 public class ClassPathClassResolver implements ClassResolver {
     private ClassLoader classLoader;
-    private Map<String, String> cache = new HashMap<>();
+    private Map<String, String> cache = new ConcurrentHashMap<>();
 
     public ClassPathClassResolver() {
         this(ClassLoader.getSystemClassLoader());
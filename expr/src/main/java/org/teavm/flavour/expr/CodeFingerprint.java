@@ -0,0 +1,82 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>Identifies build of the code a class was loaded from, i.e. of the JAR file or of the class directory.
+ * Caches that store results of this code put the identifier into their entries, so that entries written
+ * by another build, even by another build of the same snapshot version, are ignored.</p>
+ */
+public final class CodeFingerprint {
+    private static final ClassValue<String> FINGERPRINTS = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return compute(type);
+        }
+    };
+
+    private CodeFingerprint() {
+    }
+
+    /**
+     * <p>Gets SHA-256 digest of the contents of the code source of given class, as a hex string. When code
+     * source is not available, falls back to implementation version of the package, which is less
+     * precise.</p>
+     */
+    public static String of(Class<?> cls) {
+        return FINGERPRINTS.get(cls);
+    }
+
+    private static String compute(Class<?> cls) {
+        MessageDigest digest = CacheDirectory.sha256();
+        try {
+            CodeSource codeSource = cls.getProtectionDomain().getCodeSource();
+            if (codeSource != null && codeSource.getLocation() != null) {
+                Path path = Paths.get(codeSource.getLocation().toURI());
+                if (Files.isDirectory(path)) {
+                    List<Path> files;
+                    try (Stream<Path> stream = Files.walk(path)) {
+                        files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                    }
+                    for (Path file : files) {
+                        digest.update(path.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                        digest.update(Files.readAllBytes(file));
+                    }
+                    return CacheDirectory.toHex(digest.digest());
+                } else if (Files.isRegularFile(path)) {
+                    return CacheDirectory.toHex(digest.digest(Files.readAllBytes(path)));
+                }
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            // Code source is not a local file, fall back to version
+        }
+        Package pkg = cls.getPackage();
+        String version = pkg != null ? pkg.getImplementationVersion() : null;
+        return "version:" + version;
+    }
+}
@@ -25,6 +25,7 @@ import org.teavm.flavour.expr.ast.Expr;
 import org.teavm.flavour.expr.ast.LambdaExpr;
 import org.teavm.flavour.expr.ast.PropertyExpr;
 import org.teavm.flavour.expr.ast.VariableExpr;
+import org.teavm.flavour.expr.plan.PlanOptimizer;
 import org.teavm.flavour.expr.type.GenericClass;
 import org.teavm.flavour.expr.type.GenericMethod;
 import org.teavm.flavour.expr.type.GenericTypeNavigator;
@@ -44,9 +45,17 @@ public class Compiler {
     private GenericTypeNavigator typeNavigator;
 
     public Compiler(ClassDescriberRepository classRepository, ClassResolver classResolver, Scope scope) {
+        this(new GenericTypeNavigator(classRepository), classResolver, scope);
+    }
+
+    /**
+     * <p>Creates compiler that shares type navigator, and therefore its memoized class hierarchy queries,
+     * with other compilers.</p>
+     */
+    public Compiler(GenericTypeNavigator typeNavigator, ClassResolver classResolver, Scope scope) {
         this.classResolver = classResolver;
         this.scope = scope;
-        this.typeNavigator = new GenericTypeNavigator(classRepository);
+        this.typeNavigator = typeNavigator;
     }
 
     /**
@@ -65,6 +74,8 @@ public class Compiler {
      * return the full list of found errors. Tries to implicitly cast expression result to the given type,
      * if specified. If this cast is unsuccessful, compiler reports type error.</p>
      *
+     * <p>Successfully compiled plan is simplified by {@link PlanOptimizer}.</p>
+     *
      * @param expr expression AST to compile.
      * @param type if not null, compiler will try to cast expression result to this type.
      * @return evaluation plan and its type.
@@ -78,6 +89,9 @@ public class Compiler {
             plan = visitor.convert(expr, plan, type);
         }
         diagnostics.addAll(visitor.getDiagnostics());
+        if (diagnostics.isEmpty()) {
+            plan = new TypedPlan(new PlanOptimizer().optimize(plan.getPlan()), plan.getType());
+        }
         return plan;
     }
 
@@ -0,0 +1,187 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.teavm.flavour.expr.plan.Plan;
+
+/**
+ * <p>Evaluator builder that compiles expressions to JVM bytecode instead of interpreting them.
+ * Generated classes implement function interface directly, so evaluation costs no more than an ordinary
+ * method call.</p>
+ *
+ * <p>When function interface is not public, generated classes are defined in its package, otherwise they
+ * get their own class loader and can be collected together with evaluator.</p>
+ */
+public class CompilingEvaluatorBuilder implements EvaluatorBuilder {
+    private static final AtomicInteger classIndex = new AtomicInteger();
+    private ImportingClassResolver classResolver = new ImportingClassResolver(
+            new ClassPathClassResolver(ClassLoader.getSystemClassLoader()));
+    private PlanCache planCache;
+
+    public CompilingEvaluatorBuilder importClass(String name) {
+        classResolver.importClass(name);
+        return this;
+    }
+
+    public CompilingEvaluatorBuilder importPackage(String name) {
+        classResolver.importPackage(name);
+        return this;
+    }
+
+    /**
+     * <p>Sets cache of compiled plans, which lets builder skip compilation of expressions compiled
+     * before, possibly by another process.</p>
+     */
+    public CompilingEvaluatorBuilder setPlanCache(PlanCache planCache) {
+        this.planCache = planCache;
+        return this;
+    }
+
+    @Override
+    public <F, V> Evaluator<F, V> build(Class<F> functionType, Class<V> variablesType, String exprString) {
+        return prepare(functionType, variablesType, exprString).createEvaluator();
+    }
+
+    <F, V> PreparedEvaluator<F, V> prepare(Class<F> functionType, Class<V> variablesType, String exprString) {
+        EvaluatorSignature signature = EvaluatorSignature.of(functionType, variablesType);
+        Plan plan = signature.compilePlan(classResolver, exprString, planCache);
+
+        boolean definedInPackage = !Modifier.isPublic(functionType.getModifiers());
+        ClassLoader classLoader = functionType.getClassLoader();
+        if (classLoader == null) {
+            classLoader = ClassLoader.getSystemClassLoader();
+        }
+        String className = definedInPackage
+                ? functionType.getName() + "$$Evaluator" + classIndex.incrementAndGet()
+                : Evaluator.class.getName() + "$$Impl" + classIndex.incrementAndGet();
+        boolean implementsVariables = canImplement(variablesType, functionType, classLoader, definedInPackage);
+
+        EvaluatorClassBuilder classBuilder = new EvaluatorClassBuilder(signature, classLoader, className,
+                implementsVariables);
+        Map<String, byte[]> classes = classBuilder.build(plan);
+        Class<?> evaluatorClass = definedInPackage
+                ? defineInPackage(functionType, classes)
+                : defineInLoader(classLoader, classes, className);
+
+        Map<Method, Field> setters = new HashMap<>();
+        if (!implementsVariables) {
+            Map<String, String> fieldNames = classBuilder.getVariableFieldNames();
+            try {
+                for (Map.Entry<Method, String> entry : signature.getMethodToVariableMap().entrySet()) {
+                    setters.put(entry.getKey(), evaluatorClass.getField(fieldNames.get(entry.getValue())));
+                }
+            } catch (NoSuchFieldException e) {
+                throw new AssertionError("Generated evaluator misses variable field", e);
+            }
+        }
+
+        return () -> {
+            Object instance;
+            try {
+                instance = evaluatorClass.getConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new AssertionError("Could not instantiate generated evaluator", e);
+            }
+
+            F function = functionType.cast(instance);
+            V variables = implementsVariables
+                    ? variablesType.cast(instance)
+                    : variablesType.cast(Proxy.newProxyInstance(variablesType.getClassLoader(),
+                            new Class<?>[] { variablesType }, new VariablesProxy(instance, setters)));
+            return new Evaluator<>(function, variables);
+        };
+    }
+
+    List<String> getImports() {
+        return classResolver.getImports();
+    }
+
+    private static boolean canImplement(Class<?> variablesType, Class<?> functionType, ClassLoader classLoader,
+            boolean definedInPackage) {
+        if (definedInPackage && variablesType.getClassLoader() == functionType.getClassLoader()
+                && variablesType.getPackageName().equals(functionType.getPackageName())) {
+            return true;
+        }
+        if (!Modifier.isPublic(variablesType.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(variablesType.getName(), false, classLoader) == variablesType;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static Class<?> defineInPackage(Class<?> hostType, Map<String, byte[]> classes) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(hostType, MethodHandles.lookup());
+            Class<?> lastClass = null;
+            for (byte[] data : classes.values()) {
+                lastClass = lookup.defineClass(data);
+            }
+            return lastClass;
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Can't define evaluator in package of " + hostType.getName(), e);
+        }
+    }
+
+    private static Class<?> defineInLoader(ClassLoader parent, Map<String, byte[]> classes, String className) {
+        ClassLoader loader = new ClassLoader(parent) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] data = classes.get(name);
+                if (data == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, data, 0, data.length);
+            }
+        };
+        try {
+            return Class.forName(className, true, loader);
+        } catch (ClassNotFoundException e) {
+            throw new AssertionError("Generated evaluator class not found", e);
+        }
+    }
+
+    static class VariablesProxy implements InvocationHandler {
+        private Object target;
+        private Map<Method, Field> fields;
+
+        VariablesProxy(Object target, Map<Method, Field> fields) {
+            this.target = target;
+            this.fields = fields;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return InterpretingEvaluatorBuilder.invokeObjectMethod(proxy, method, args);
+            }
+            fields.get(method).set(target, args[0]);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,1123 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.teavm.flavour.expr.plan.ArithmeticCastPlan;
+import org.teavm.flavour.expr.plan.ArithmeticType;
+import org.teavm.flavour.expr.plan.ArrayConstructionPlan;
+import org.teavm.flavour.expr.plan.ArrayLengthPlan;
+import org.teavm.flavour.expr.plan.BinaryPlan;
+import org.teavm.flavour.expr.plan.CastFromIntegerPlan;
+import org.teavm.flavour.expr.plan.CastPlan;
+import org.teavm.flavour.expr.plan.CastToIntegerPlan;
+import org.teavm.flavour.expr.plan.ConditionalPlan;
+import org.teavm.flavour.expr.plan.ConstantPlan;
+import org.teavm.flavour.expr.plan.ConstructionPlan;
+import org.teavm.flavour.expr.plan.FieldAssignmentPlan;
+import org.teavm.flavour.expr.plan.FieldPlan;
+import org.teavm.flavour.expr.plan.GetArrayElementPlan;
+import org.teavm.flavour.expr.plan.InstanceOfPlan;
+import org.teavm.flavour.expr.plan.IntegerSubtype;
+import org.teavm.flavour.expr.plan.InvocationPlan;
+import org.teavm.flavour.expr.plan.LambdaPlan;
+import org.teavm.flavour.expr.plan.LogicalBinaryPlan;
+import org.teavm.flavour.expr.plan.NegatePlan;
+import org.teavm.flavour.expr.plan.NotPlan;
+import org.teavm.flavour.expr.plan.ObjectPlan;
+import org.teavm.flavour.expr.plan.ObjectPlanEntry;
+import org.teavm.flavour.expr.plan.Plan;
+import org.teavm.flavour.expr.plan.PlanVisitor;
+import org.teavm.flavour.expr.plan.ReferenceEqualityPlan;
+import org.teavm.flavour.expr.plan.ThisPlan;
+import org.teavm.flavour.expr.plan.VariablePlan;
+
+/**
+ * <p>Translates execution plan into JVM classes. The main class implements function interface and, if requested,
+ * variables interface, keeping every variable in a typed field. Each lambda of the plan gets its own class
+ * which captures bound variables of enclosing lambdas by value and refers to the main class to read
+ * variables.</p>
+ *
+ * <p>Plans don't carry JVM types of intermediate values, so builder infers them from method and field
+ * descriptors and inserts boxing, unboxing and casts where the inferred type does not match the expected one,
+ * mirroring what {@link Linker} gets from reflection for free.</p>
+ *
+ * @author Alexey Andreev
+ */
+class EvaluatorClassBuilder {
+    private static final Type OBJECT_TYPE = Type.getType(Object.class);
+    private static final String OWNER_FIELD = "owner";
+    private EvaluatorSignature signature;
+    private ClassLoader classLoader;
+    private String className;
+    private boolean implementsVariables;
+    private Map<String, VariableField> variableFields = new LinkedHashMap<>();
+    private Map<String, byte[]> classes = new LinkedHashMap<>();
+    private Map<String, Class<?>> classCache = new HashMap<>();
+    private int lambdaIndex;
+
+    EvaluatorClassBuilder(EvaluatorSignature signature, ClassLoader classLoader, String className,
+            boolean implementsVariables) {
+        this.signature = signature;
+        this.classLoader = classLoader;
+        this.className = className.replace('.', '/');
+        this.implementsVariables = implementsVariables;
+        for (Map.Entry<Method, String> entry : signature.getMethodToVariableMap().entrySet()) {
+            if (!variableFields.containsKey(entry.getValue())) {
+                Type type = Type.getType(entry.getKey().getParameterTypes()[0]);
+                variableFields.put(entry.getValue(), new VariableField("var" + variableFields.size(), type));
+            }
+        }
+    }
+
+    /**
+     * <p>Generates classes for the given plan.</p>
+     *
+     * @return map from binary class name to class file. Main class goes last.
+     */
+    Map<String, byte[]> build(Plan plan) {
+        ClassWriter writer = createWriter();
+        String[] interfaces = implementsVariables
+                ? new String[] { Type.getInternalName(signature.getFunctionType()),
+                        Type.getInternalName(signature.getVariablesType()) }
+                : new String[] { Type.getInternalName(signature.getFunctionType()) };
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, className, null,
+                "java/lang/Object", interfaces);
+
+        for (VariableField field : variableFields.values()) {
+            writer.visitField(Opcodes.ACC_PUBLIC, field.name, field.type.getDescriptor(), null, null).visitEnd();
+        }
+
+        buildMainConstructor(writer);
+        buildFunctionMethod(writer, plan);
+        if (implementsVariables) {
+            for (Method method : signature.getMethodToVariableMap().keySet()) {
+                buildSetter(writer, method);
+            }
+        }
+
+        writer.visitEnd();
+        classes.put(className.replace('/', '.'), writer.toByteArray());
+        return classes;
+    }
+
+    Map<String, String> getVariableFieldNames() {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Map.Entry<String, VariableField> entry : variableFields.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().name);
+        }
+        return result;
+    }
+
+    private void buildMainConstructor(ClassWriter writer) {
+        MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(1, 1);
+        mv.visitEnd();
+    }
+
+    private void buildFunctionMethod(ClassWriter writer, Plan plan) {
+        Method method = signature.getFunctionMethod();
+        MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC, method.getName(),
+                Type.getMethodDescriptor(method), null, null);
+        mv.visitCode();
+
+        MethodContext context = new MethodContext(null, className);
+        Type returnType = Type.getReturnType(method);
+        new PlanEmitter(context, mv).emit(plan, returnType);
+        mv.visitInsn(returnType.getOpcode(Opcodes.IRETURN));
+
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void buildSetter(ClassWriter writer, Method method) {
+        MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC, method.getName(),
+                Type.getMethodDescriptor(method), null, null);
+        mv.visitCode();
+
+        VariableField field = variableFields.get(signature.getMethodToVariableMap().get(method));
+        Type parameterType = Type.getArgumentTypes(method)[0];
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(parameterType.getOpcode(Opcodes.ILOAD), 1);
+        coerce(mv, parameterType, field.type);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, className, field.name, field.type.getDescriptor());
+        mv.visitInsn(Opcodes.RETURN);
+
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private MethodContext buildLambda(LambdaPlan plan, MethodContext outer) {
+        String lambdaClassName = className + "$Lambda" + lambdaIndex++;
+        ClassWriter writer = createWriter();
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, lambdaClassName,
+                null, "java/lang/Object", new String[] { internalName(plan.getClassName()) });
+        String ownerDesc = Type.getObjectType(className).getDescriptor();
+        writer.visitField(Opcodes.ACC_FINAL, OWNER_FIELD, ownerDesc, null, null).visitEnd();
+
+        MethodContext context = new MethodContext(outer, lambdaClassName);
+        Type[] parameterTypes = Type.getArgumentTypes(plan.getMethodDesc());
+        int slot = 1;
+        for (int i = 0; i < parameterTypes.length; ++i) {
+            String name = i < plan.getBoundVars().size() ? plan.getBoundVars().get(i) : "";
+            if (!name.isEmpty()) {
+                context.locals.put(name, new LocalVariable(slot, parameterTypes[i]));
+            }
+            slot += parameterTypes[i].getSize();
+        }
+
+        MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC, plan.getMethodName(), plan.getMethodDesc(),
+                null, null);
+        mv.visitCode();
+        Type returnType = Type.getReturnType(plan.getMethodDesc());
+        new PlanEmitter(context, mv).emit(plan.getBody(), returnType);
+        mv.visitInsn(returnType.getOpcode(Opcodes.IRETURN));
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        // Captured variables are only known after the body has been emitted
+        StringBuilder ctorDesc = new StringBuilder("(").append(ownerDesc);
+        for (Map.Entry<String, Type> capture : context.captures.entrySet()) {
+            writer.visitField(Opcodes.ACC_FINAL, capture.getKey(), capture.getValue().getDescriptor(), null, null)
+                    .visitEnd();
+            ctorDesc.append(capture.getValue().getDescriptor());
+        }
+        ctorDesc.append(")V");
+        context.constructorDesc = ctorDesc.toString();
+
+        mv = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", context.constructorDesc, null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, lambdaClassName, OWNER_FIELD, ownerDesc);
+        slot = 2;
+        for (Map.Entry<String, Type> capture : context.captures.entrySet()) {
+            Type type = capture.getValue();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitVarInsn(type.getOpcode(Opcodes.ILOAD), slot);
+            mv.visitFieldInsn(Opcodes.PUTFIELD, lambdaClassName, capture.getKey(), type.getDescriptor());
+            slot += type.getSize();
+        }
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        writer.visitEnd();
+        classes.put(lambdaClassName.replace('/', '.'), writer.toByteArray());
+        return context;
+    }
+
+    private ClassWriter createWriter() {
+        return new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected ClassLoader getClassLoader() {
+                return classLoader;
+            }
+
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                try {
+                    return super.getCommonSuperClass(type1, type2);
+                } catch (TypeNotPresentException e) {
+                    // One of the types is being generated right now
+                    return "java/lang/Object";
+                }
+            }
+        };
+    }
+
+    private Class<?> loadClass(String name) {
+        return classCache.computeIfAbsent(name, n -> {
+            try {
+                return Class.forName(n, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Class not found: " + n, e);
+            }
+        });
+    }
+
+    private static String internalName(String className) {
+        return className.replace('.', '/');
+    }
+
+    private static Type arithmeticType(ArithmeticType type) {
+        switch (type) {
+            case INT:
+                return Type.INT_TYPE;
+            case LONG:
+                return Type.LONG_TYPE;
+            case FLOAT:
+                return Type.FLOAT_TYPE;
+            case DOUBLE:
+                return Type.DOUBLE_TYPE;
+        }
+        throw new AssertionError("Unexpected arithmetic type: " + type);
+    }
+
+    private static Type integerSubtype(IntegerSubtype type) {
+        switch (type) {
+            case BYTE:
+                return Type.BYTE_TYPE;
+            case SHORT:
+                return Type.SHORT_TYPE;
+            case CHAR:
+                return Type.CHAR_TYPE;
+        }
+        throw new AssertionError("Unexpected integer subtype: " + type);
+    }
+
+    private static Type constantType(Object value) {
+        if (value == null) {
+            return OBJECT_TYPE;
+        } else if (value instanceof Boolean) {
+            return Type.BOOLEAN_TYPE;
+        } else if (value instanceof Character) {
+            return Type.CHAR_TYPE;
+        } else if (value instanceof Byte) {
+            return Type.BYTE_TYPE;
+        } else if (value instanceof Short) {
+            return Type.SHORT_TYPE;
+        } else if (value instanceof Integer) {
+            return Type.INT_TYPE;
+        } else if (value instanceof Long) {
+            return Type.LONG_TYPE;
+        } else if (value instanceof Float) {
+            return Type.FLOAT_TYPE;
+        } else if (value instanceof Double) {
+            return Type.DOUBLE_TYPE;
+        } else if (value instanceof String) {
+            return Type.getType(String.class);
+        }
+        throw new IllegalArgumentException("Don't know how to emit constant: " + value);
+    }
+
+    private static boolean isPrimitive(Type type) {
+        return type.getSort() >= Type.BOOLEAN && type.getSort() <= Type.DOUBLE;
+    }
+
+    private static Type merge(Type a, Type b) {
+        return a.equals(b) ? a : OBJECT_TYPE;
+    }
+
+    static void coerce(MethodVisitor mv, Type from, Type to) {
+        if (from.equals(to)) {
+            return;
+        }
+        if (to.getSort() == Type.VOID) {
+            mv.visitInsn(from.getSize() == 2 ? Opcodes.POP2 : Opcodes.POP);
+            return;
+        }
+        if (isPrimitive(from)) {
+            if (isPrimitive(to)) {
+                convertPrimitive(mv, from, to);
+            } else {
+                Type wrapper = box(mv, from);
+                if (!to.equals(OBJECT_TYPE) && !to.equals(wrapper)) {
+                    mv.visitTypeInsn(Opcodes.CHECKCAST, to.getInternalName());
+                }
+            }
+        } else if (isPrimitive(to)) {
+            unbox(mv, to);
+        } else if (!to.equals(OBJECT_TYPE)) {
+            mv.visitTypeInsn(Opcodes.CHECKCAST, to.getInternalName());
+        }
+    }
+
+    private static Type box(MethodVisitor mv, Type type) {
+        Type wrapper = Type.getObjectType(wrapperName(type));
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, wrapper.getInternalName(), "valueOf",
+                Type.getMethodDescriptor(wrapper, type), false);
+        return wrapper;
+    }
+
+    private static void unbox(MethodVisitor mv, Type type) {
+        String owner;
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+            case Type.CHAR:
+                owner = wrapperName(type);
+                break;
+            default:
+                owner = "java/lang/Number";
+                break;
+        }
+        mv.visitTypeInsn(Opcodes.CHECKCAST, owner);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, owner, type.getClassName() + "Value",
+                Type.getMethodDescriptor(type), false);
+    }
+
+    private static String wrapperName(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                return "java/lang/Boolean";
+            case Type.CHAR:
+                return "java/lang/Character";
+            case Type.BYTE:
+                return "java/lang/Byte";
+            case Type.SHORT:
+                return "java/lang/Short";
+            case Type.INT:
+                return "java/lang/Integer";
+            case Type.LONG:
+                return "java/lang/Long";
+            case Type.FLOAT:
+                return "java/lang/Float";
+            case Type.DOUBLE:
+                return "java/lang/Double";
+            default:
+                throw new AssertionError("Not a primitive type: " + type);
+        }
+    }
+
+    private static void convertPrimitive(MethodVisitor mv, Type from, Type to) {
+        int fromSort = stackSort(from);
+        int toSort = stackSort(to);
+        if (fromSort != toSort) {
+            switch (fromSort) {
+                case Type.INT:
+                    mv.visitInsn(toSort == Type.LONG ? Opcodes.I2L : toSort == Type.FLOAT ? Opcodes.I2F
+                            : Opcodes.I2D);
+                    break;
+                case Type.LONG:
+                    mv.visitInsn(toSort == Type.INT ? Opcodes.L2I : toSort == Type.FLOAT ? Opcodes.L2F
+                            : Opcodes.L2D);
+                    break;
+                case Type.FLOAT:
+                    mv.visitInsn(toSort == Type.INT ? Opcodes.F2I : toSort == Type.LONG ? Opcodes.F2L
+                            : Opcodes.F2D);
+                    break;
+                case Type.DOUBLE:
+                    mv.visitInsn(toSort == Type.INT ? Opcodes.D2I : toSort == Type.LONG ? Opcodes.D2L
+                            : Opcodes.D2F);
+                    break;
+            }
+        }
+        switch (to.getSort()) {
+            case Type.BYTE:
+                mv.visitInsn(Opcodes.I2B);
+                break;
+            case Type.SHORT:
+                mv.visitInsn(Opcodes.I2S);
+                break;
+            case Type.CHAR:
+                mv.visitInsn(Opcodes.I2C);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static int stackSort(Type type) {
+        switch (type.getSort()) {
+            case Type.LONG:
+            case Type.FLOAT:
+            case Type.DOUBLE:
+                return type.getSort();
+            default:
+                return Type.INT;
+        }
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    static class VariableField {
+        final String name;
+        final Type type;
+
+        VariableField(String name, Type type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    static class LocalVariable {
+        final int index;
+        final Type type;
+
+        LocalVariable(int index, Type type) {
+            this.index = index;
+            this.type = type;
+        }
+    }
+
+    static class MethodContext {
+        final MethodContext outer;
+        final String className;
+        final Map<String, LocalVariable> locals = new HashMap<>();
+        final Map<String, Type> captures = new LinkedHashMap<>();
+        String constructorDesc;
+
+        MethodContext(MethodContext outer, String className) {
+            this.outer = outer;
+            this.className = className;
+        }
+
+        Type boundVariableType(String name) {
+            LocalVariable local = locals.get(name);
+            if (local != null) {
+                return local.type;
+            }
+            Type captured = captures.get(name);
+            if (captured != null) {
+                return captured;
+            }
+            return outer != null ? outer.boundVariableType(name) : null;
+        }
+
+        boolean loadBoundVariable(MethodVisitor mv, String name) {
+            LocalVariable local = locals.get(name);
+            if (local != null) {
+                mv.visitVarInsn(local.type.getOpcode(Opcodes.ILOAD), local.index);
+                return true;
+            }
+            Type type = captures.get(name);
+            if (type == null) {
+                type = outer != null ? outer.boundVariableType(name) : null;
+                if (type == null) {
+                    return false;
+                }
+                captures.put(name, type);
+            }
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, className, name, type.getDescriptor());
+            return true;
+        }
+    }
+
+    class PlanEmitter implements PlanVisitor {
+        private MethodContext context;
+        private MethodVisitor mv;
+        private Type type;
+
+        PlanEmitter(MethodContext context, MethodVisitor mv) {
+            this.context = context;
+            this.mv = mv;
+        }
+
+        Type emit(Plan plan) {
+            plan.acceptVisitor(this);
+            return type;
+        }
+
+        void emit(Plan plan, Type expectedType) {
+            coerce(mv, emit(plan), expectedType);
+            type = expectedType;
+        }
+
+        private Type typeOf(Plan plan) {
+            TypeResolver resolver = new TypeResolver(context);
+            plan.acceptVisitor(resolver);
+            return resolver.type;
+        }
+
+        private void loadOwner() {
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            if (context.outer != null) {
+                mv.visitFieldInsn(Opcodes.GETFIELD, context.className, OWNER_FIELD,
+                        Type.getObjectType(className).getDescriptor());
+            }
+        }
+
+        private void loadVariable(String name) {
+            if (context.loadBoundVariable(mv, name)) {
+                type = context.boundVariableType(name);
+                return;
+            }
+            VariableField field = variableFields.get(name);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown variable: " + name);
+            }
+            loadOwner();
+            mv.visitFieldInsn(Opcodes.GETFIELD, className, field.name, field.type.getDescriptor());
+            type = field.type;
+        }
+
+        @Override
+        public void visit(ConstantPlan plan) {
+            Object value = plan.getValue();
+            type = constantType(value);
+            if (value == null) {
+                mv.visitInsn(Opcodes.ACONST_NULL);
+            } else if (value instanceof Boolean) {
+                pushInt(mv, (Boolean) value ? 1 : 0);
+            } else if (value instanceof Character) {
+                pushInt(mv, (Character) value);
+            } else if (value instanceof Byte || value instanceof Short || value instanceof Integer) {
+                pushInt(mv, ((Number) value).intValue());
+            } else {
+                mv.visitLdcInsn(value);
+            }
+        }
+
+        @Override
+        public void visit(VariablePlan plan) {
+            loadVariable(plan.getName());
+        }
+
+        @Override
+        public void visit(BinaryPlan plan) {
+            Type operandType = arithmeticType(plan.getValueType());
+            emit(plan.getFirstOperand(), operandType);
+            emit(plan.getSecondOperand(), operandType);
+            switch (plan.getType()) {
+                case ADD:
+                    mv.visitInsn(operandType.getOpcode(Opcodes.IADD));
+                    type = operandType;
+                    break;
+                case SUBTRACT:
+                    mv.visitInsn(operandType.getOpcode(Opcodes.ISUB));
+                    type = operandType;
+                    break;
+                case MULTIPLY:
+                    mv.visitInsn(operandType.getOpcode(Opcodes.IMUL));
+                    type = operandType;
+                    break;
+                case DIVIDE:
+                    mv.visitInsn(operandType.getOpcode(Opcodes.IDIV));
+                    type = operandType;
+                    break;
+                case REMAINDER:
+                    mv.visitInsn(operandType.getOpcode(Opcodes.IREM));
+                    type = operandType;
+                    break;
+                default:
+                    emitComparison(plan, operandType);
+                    type = Type.BOOLEAN_TYPE;
+                    break;
+            }
+        }
+
+        private void emitComparison(BinaryPlan plan, Type operandType) {
+            boolean less = false;
+            int jump;
+            switch (plan.getType()) {
+                case EQUAL:
+                    jump = Opcodes.IFEQ;
+                    break;
+                case NOT_EQUAL:
+                    jump = Opcodes.IFNE;
+                    break;
+                case LESS:
+                    jump = Opcodes.IFLT;
+                    less = true;
+                    break;
+                case LESS_OR_EQUAL:
+                    jump = Opcodes.IFLE;
+                    less = true;
+                    break;
+                case GREATER:
+                    jump = Opcodes.IFGT;
+                    break;
+                case GREATER_OR_EQUAL:
+                    jump = Opcodes.IFGE;
+                    break;
+                default:
+                    throw new AssertionError("Unexpected comparison: " + plan.getType());
+            }
+
+            switch (operandType.getSort()) {
+                case Type.INT:
+                    jump += Opcodes.IF_ICMPEQ - Opcodes.IFEQ;
+                    break;
+                case Type.LONG:
+                    mv.visitInsn(Opcodes.LCMP);
+                    break;
+                case Type.FLOAT:
+                    // Any comparison with NaN must yield false, so NaN is ordered towards the failing side
+                    mv.visitInsn(less ? Opcodes.FCMPG : Opcodes.FCMPL);
+                    break;
+                case Type.DOUBLE:
+                    mv.visitInsn(less ? Opcodes.DCMPG : Opcodes.DCMPL);
+                    break;
+            }
+            emitBooleanFromJump(jump);
+        }
+
+        private void emitBooleanFromJump(int jump) {
+            Label trueLabel = new Label();
+            Label endLabel = new Label();
+            mv.visitJumpInsn(jump, trueLabel);
+            mv.visitInsn(Opcodes.ICONST_0);
+            mv.visitJumpInsn(Opcodes.GOTO, endLabel);
+            mv.visitLabel(trueLabel);
+            mv.visitInsn(Opcodes.ICONST_1);
+            mv.visitLabel(endLabel);
+        }
+
+        @Override
+        public void visit(NegatePlan plan) {
+            Type operandType = arithmeticType(plan.getValueType());
+            emit(plan.getOperand(), operandType);
+            mv.visitInsn(operandType.getOpcode(Opcodes.INEG));
+            type = operandType;
+        }
+
+        @Override
+        public void visit(ReferenceEqualityPlan plan) {
+            emit(plan.getFirstOperand(), OBJECT_TYPE);
+            emit(plan.getSecondOperand(), OBJECT_TYPE);
+            switch (plan.getType()) {
+                case EQUAL:
+                    emitBooleanFromJump(Opcodes.IF_ACMPEQ);
+                    break;
+                case NOT_EQUAL:
+                    emitBooleanFromJump(Opcodes.IF_ACMPNE);
+                    break;
+            }
+            type = Type.BOOLEAN_TYPE;
+        }
+
+        @Override
+        public void visit(LogicalBinaryPlan plan) {
+            Label shortCircuitLabel = new Label();
+            Label endLabel = new Label();
+            switch (plan.getType()) {
+                case AND:
+                    emit(plan.getFirstOperand(), Type.BOOLEAN_TYPE);
+                    mv.visitJumpInsn(Opcodes.IFEQ, shortCircuitLabel);
+                    emit(plan.getSecondOperand(), Type.BOOLEAN_TYPE);
+                    mv.visitJumpInsn(Opcodes.GOTO, endLabel);
+                    mv.visitLabel(shortCircuitLabel);
+                    mv.visitInsn(Opcodes.ICONST_0);
+                    break;
+                case OR:
+                    emit(plan.getFirstOperand(), Type.BOOLEAN_TYPE);
+                    mv.visitJumpInsn(Opcodes.IFNE, shortCircuitLabel);
+                    emit(plan.getSecondOperand(), Type.BOOLEAN_TYPE);
+                    mv.visitJumpInsn(Opcodes.GOTO, endLabel);
+                    mv.visitLabel(shortCircuitLabel);
+                    mv.visitInsn(Opcodes.ICONST_1);
+                    break;
+            }
+            mv.visitLabel(endLabel);
+            type = Type.BOOLEAN_TYPE;
+        }
+
+        @Override
+        public void visit(NotPlan plan) {
+            emit(plan.getOperand(), Type.BOOLEAN_TYPE);
+            mv.visitInsn(Opcodes.ICONST_1);
+            mv.visitInsn(Opcodes.IXOR);
+            type = Type.BOOLEAN_TYPE;
+        }
+
+        @Override
+        public void visit(CastPlan plan) {
+            emit(plan.getOperand(), Type.getType(plan.getTargetType()));
+        }
+
+        @Override
+        public void visit(ArithmeticCastPlan plan) {
+            Type sourceType = arithmeticType(plan.getSourceType());
+            Type targetType = arithmeticType(plan.getTargetType());
+            emit(plan.getOperand(), sourceType);
+            convertPrimitive(mv, sourceType, targetType);
+            type = targetType;
+        }
+
+        @Override
+        public void visit(CastFromIntegerPlan plan) {
+            Type targetType = integerSubtype(plan.getType());
+            emit(plan.getOperand(), Type.INT_TYPE);
+            convertPrimitive(mv, Type.INT_TYPE, targetType);
+            type = targetType;
+        }
+
+        @Override
+        public void visit(CastToIntegerPlan plan) {
+            emit(plan.getOperand(), integerSubtype(plan.getType()));
+            type = Type.INT_TYPE;
+        }
+
+        @Override
+        public void visit(GetArrayElementPlan plan) {
+            Type arrayType = emit(plan.getArray());
+            if (arrayType.getSort() == Type.ARRAY) {
+                Type elementType = Type.getType(arrayType.getDescriptor().substring(1));
+                emit(plan.getIndex(), Type.INT_TYPE);
+                mv.visitInsn(elementType.getOpcode(Opcodes.IALOAD));
+                type = elementType;
+            } else {
+                coerce(mv, arrayType, OBJECT_TYPE);
+                emit(plan.getIndex(), Type.INT_TYPE);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/reflect/Array", "get",
+                        "(Ljava/lang/Object;I)Ljava/lang/Object;", false);
+                type = OBJECT_TYPE;
+            }
+        }
+
+        @Override
+        public void visit(ArrayLengthPlan plan) {
+            Type arrayType = emit(plan.getArray());
+            if (arrayType.getSort() == Type.ARRAY) {
+                mv.visitInsn(Opcodes.ARRAYLENGTH);
+            } else {
+                coerce(mv, arrayType, OBJECT_TYPE);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/reflect/Array", "getLength",
+                        "(Ljava/lang/Object;)I", false);
+            }
+            type = Type.INT_TYPE;
+        }
+
+        @Override
+        public void visit(FieldPlan plan) {
+            String owner = internalName(plan.getClassName());
+            if (plan.getInstance() != null) {
+                emit(plan.getInstance(), Type.getObjectType(owner));
+                mv.visitFieldInsn(Opcodes.GETFIELD, owner, plan.getFieldName(), plan.getFieldDesc());
+            } else {
+                mv.visitFieldInsn(Opcodes.GETSTATIC, owner, plan.getFieldName(), plan.getFieldDesc());
+            }
+            type = Type.getType(plan.getFieldDesc());
+        }
+
+        @Override
+        public void visit(FieldAssignmentPlan plan) {
+            String owner = internalName(plan.getClassName());
+            Type fieldType = Type.getType(plan.getFieldDesc());
+            if (plan.getInstance() != null) {
+                emit(plan.getInstance(), Type.getObjectType(owner));
+                emit(plan.getValue(), fieldType);
+                mv.visitFieldInsn(Opcodes.PUTFIELD, owner, plan.getFieldName(), plan.getFieldDesc());
+            } else {
+                emit(plan.getValue(), fieldType);
+                mv.visitFieldInsn(Opcodes.PUTSTATIC, owner, plan.getFieldName(), plan.getFieldDesc());
+            }
+            mv.visitInsn(Opcodes.ACONST_NULL);
+            type = OBJECT_TYPE;
+        }
+
+        @Override
+        public void visit(InstanceOfPlan plan) {
+            emit(plan.getOperand(), OBJECT_TYPE);
+            mv.visitTypeInsn(Opcodes.INSTANCEOF, Type.getType(plan.getClassName()).getInternalName());
+            type = Type.BOOLEAN_TYPE;
+        }
+
+        @Override
+        public void visit(InvocationPlan plan) {
+            String owner = internalName(plan.getClassName());
+            boolean isInterface = loadClass(plan.getClassName()).isInterface();
+            if (plan.getInstance() != null) {
+                emit(plan.getInstance(), Type.getObjectType(owner));
+            }
+            emitArguments(plan.getArguments(), Type.getArgumentTypes(plan.getMethodDesc()));
+
+            int opcode;
+            if (plan.getInstance() == null) {
+                opcode = Opcodes.INVOKESTATIC;
+            } else {
+                opcode = isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL;
+            }
+            mv.visitMethodInsn(opcode, owner, plan.getMethodName(), plan.getMethodDesc(), isInterface);
+
+            type = Type.getReturnType(plan.getMethodDesc());
+            if (type.getSort() == Type.VOID) {
+                mv.visitInsn(Opcodes.ACONST_NULL);
+                type = OBJECT_TYPE;
+            }
+        }
+
+        private void emitArguments(List<Plan> arguments, Type[] parameterTypes) {
+            for (int i = 0; i < arguments.size(); ++i) {
+                emit(arguments.get(i), parameterTypes[i]);
+            }
+        }
+
+        @Override
+        public void visit(ConstructionPlan plan) {
+            String owner = internalName(plan.getClassName());
+            mv.visitTypeInsn(Opcodes.NEW, owner);
+            mv.visitInsn(Opcodes.DUP);
+            emitArguments(plan.getArguments(), Type.getArgumentTypes(plan.getMethodDesc()));
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, owner, "<init>", plan.getMethodDesc(), false);
+            type = Type.getObjectType(owner);
+        }
+
+        @Override
+        public void visit(ArrayConstructionPlan plan) {
+            Type elementType = Type.getType(plan.getElementType());
+            pushInt(mv, plan.getElements().size());
+            if (isPrimitive(elementType)) {
+                mv.visitIntInsn(Opcodes.NEWARRAY, newArrayCode(elementType));
+            } else {
+                mv.visitTypeInsn(Opcodes.ANEWARRAY, elementType.getInternalName());
+            }
+            for (int i = 0; i < plan.getElements().size(); ++i) {
+                mv.visitInsn(Opcodes.DUP);
+                pushInt(mv, i);
+                emit(plan.getElements().get(i), elementType);
+                mv.visitInsn(elementType.getOpcode(Opcodes.IASTORE));
+            }
+            type = Type.getType("[" + plan.getElementType());
+        }
+
+        private int newArrayCode(Type elementType) {
+            switch (elementType.getSort()) {
+                case Type.BOOLEAN:
+                    return Opcodes.T_BOOLEAN;
+                case Type.CHAR:
+                    return Opcodes.T_CHAR;
+                case Type.BYTE:
+                    return Opcodes.T_BYTE;
+                case Type.SHORT:
+                    return Opcodes.T_SHORT;
+                case Type.INT:
+                    return Opcodes.T_INT;
+                case Type.LONG:
+                    return Opcodes.T_LONG;
+                case Type.FLOAT:
+                    return Opcodes.T_FLOAT;
+                case Type.DOUBLE:
+                    return Opcodes.T_DOUBLE;
+                default:
+                    throw new AssertionError("Not a primitive type: " + elementType);
+            }
+        }
+
+        @Override
+        public void visit(ConditionalPlan plan) {
+            Type resultType = merge(typeOf(plan.getConsequent()), typeOf(plan.getAlternative()));
+            Label alternativeLabel = new Label();
+            Label endLabel = new Label();
+            emit(plan.getCondition(), Type.BOOLEAN_TYPE);
+            mv.visitJumpInsn(Opcodes.IFEQ, alternativeLabel);
+            emit(plan.getConsequent(), resultType);
+            mv.visitJumpInsn(Opcodes.GOTO, endLabel);
+            mv.visitLabel(alternativeLabel);
+            emit(plan.getAlternative(), resultType);
+            mv.visitLabel(endLabel);
+            type = resultType;
+        }
+
+        @Override
+        public void visit(ThisPlan plan) {
+            loadVariable("this");
+        }
+
+        @Override
+        public void visit(LambdaPlan plan) {
+            MethodContext lambdaContext = buildLambda(plan, context);
+            mv.visitTypeInsn(Opcodes.NEW, lambdaContext.className);
+            mv.visitInsn(Opcodes.DUP);
+            loadOwner();
+            for (String capture : lambdaContext.captures.keySet()) {
+                context.loadBoundVariable(mv, capture);
+            }
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, lambdaContext.className, "<init>",
+                    lambdaContext.constructorDesc, false);
+            type = Type.getObjectType(internalName(plan.getClassName()));
+        }
+
+        @Override
+        public void visit(ObjectPlan plan) {
+            String owner = internalName(plan.getClassName());
+            mv.visitTypeInsn(Opcodes.NEW, owner);
+            mv.visitInsn(Opcodes.DUP);
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, owner, "<init>", "()V", false);
+            for (ObjectPlanEntry entry : plan.getEntries()) {
+                mv.visitInsn(Opcodes.DUP);
+                emit(entry.getValue(), Type.getArgumentTypes(entry.getSetterDesc())[0]);
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, owner, entry.getSetterName(), entry.getSetterDesc(),
+                        false);
+                coerce(mv, Type.getReturnType(entry.getSetterDesc()), Type.VOID_TYPE);
+            }
+            type = Type.getObjectType(owner);
+        }
+    }
+
+    class TypeResolver implements PlanVisitor {
+        private MethodContext context;
+        Type type;
+
+        TypeResolver(MethodContext context) {
+            this.context = context;
+        }
+
+        private Type resolve(Plan plan) {
+            plan.acceptVisitor(this);
+            return type;
+        }
+
+        private void resolveVariable(String name) {
+            type = context.boundVariableType(name);
+            if (type == null) {
+                VariableField field = variableFields.get(name);
+                if (field == null) {
+                    throw new IllegalArgumentException("Unknown variable: " + name);
+                }
+                type = field.type;
+            }
+        }
+
+        @Override
+        public void visit(ConstantPlan plan) {
+            type = constantType(plan.getValue());
+        }
+
+        @Override
+        public void visit(VariablePlan plan) {
+            resolveVariable(plan.getName());
+        }
+
+        @Override
+        public void visit(BinaryPlan plan) {
+            switch (plan.getType()) {
+                case ADD:
+                case SUBTRACT:
+                case MULTIPLY:
+                case DIVIDE:
+                case REMAINDER:
+                    type = arithmeticType(plan.getValueType());
+                    break;
+                default:
+                    type = Type.BOOLEAN_TYPE;
+                    break;
+            }
+        }
+
+        @Override
+        public void visit(NegatePlan plan) {
+            type = arithmeticType(plan.getValueType());
+        }
+
+        @Override
+        public void visit(ReferenceEqualityPlan plan) {
+            type = Type.BOOLEAN_TYPE;
+        }
+
+        @Override
+        public void visit(LogicalBinaryPlan plan) {
+            type = Type.BOOLEAN_TYPE;
+        }
+
+        @Override
+        public void visit(NotPlan plan) {
+            type = Type.BOOLEAN_TYPE;
+        }
+
+        @Override
+        public void visit(CastPlan plan) {
+            type = Type.getType(plan.getTargetType());
+        }
+
+        @Override
+        public void visit(ArithmeticCastPlan plan) {
+            type = arithmeticType(plan.getTargetType());
+        }
+
+        @Override
+        public void visit(CastFromIntegerPlan plan) {
+            type = integerSubtype(plan.getType());
+        }
+
+        @Override
+        public void visit(CastToIntegerPlan plan) {
+            type = Type.INT_TYPE;
+        }
+
+        @Override
+        public void visit(GetArrayElementPlan plan) {
+            Type arrayType = resolve(plan.getArray());
+            type = arrayType.getSort() == Type.ARRAY
+                    ? Type.getType(arrayType.getDescriptor().substring(1))
+                    : OBJECT_TYPE;
+        }
+
+        @Override
+        public void visit(ArrayLengthPlan plan) {
+            type = Type.INT_TYPE;
+        }
+
+        @Override
+        public void visit(FieldPlan plan) {
+            type = Type.getType(plan.getFieldDesc());
+        }
+
+        @Override
+        public void visit(FieldAssignmentPlan plan) {
+            type = OBJECT_TYPE;
+        }
+
+        @Override
+        public void visit(InstanceOfPlan plan) {
+            type = Type.BOOLEAN_TYPE;
+        }
+
+        @Override
+        public void visit(InvocationPlan plan) {
+            type = Type.getReturnType(plan.getMethodDesc());
+            if (type.getSort() == Type.VOID) {
+                type = OBJECT_TYPE;
+            }
+        }
+
+        @Override
+        public void visit(ConstructionPlan plan) {
+            type = Type.getObjectType(internalName(plan.getClassName()));
+        }
+
+        @Override
+        public void visit(ArrayConstructionPlan plan) {
+            type = Type.getType("[" + plan.getElementType());
+        }
+
+        @Override
+        public void visit(ConditionalPlan plan) {
+            type = merge(resolve(plan.getConsequent()), resolve(plan.getAlternative()));
+        }
+
+        @Override
+        public void visit(ThisPlan plan) {
+            resolveVariable("this");
+        }
+
+        @Override
+        public void visit(LambdaPlan plan) {
+            type = Type.getObjectType(internalName(plan.getClassName()));
+        }
+
+        @Override
+        public void visit(ObjectPlan plan) {
+            type = Type.getObjectType(internalName(plan.getClassName()));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.teavm.flavour.expr.ast.Expr;
+import org.teavm.flavour.expr.plan.Plan;
+import org.teavm.flavour.expr.type.GenericTypeNavigator;
+import org.teavm.flavour.expr.type.ValueType;
+import org.teavm.flavour.expr.type.meta.ClassPathClassDescriberRepository;
+
+/**
+ * <p>Validated shape of a pair of function and variables interfaces passed to {@link EvaluatorBuilder}.
+ * Shared by all evaluator builders, which only differ in how they execute the compiled plan.</p>
+ */
+class EvaluatorSignature {
+    private Class<?> functionType;
+    private Class<?> variablesType;
+    private Method functionMethod;
+    private Map<String, Type> variableTypes = new LinkedHashMap<>();
+    private Map<Method, String> methodToVariableMap = new LinkedHashMap<>();
+
+    private EvaluatorSignature(Class<?> functionType, Class<?> variablesType) {
+        this.functionType = functionType;
+        this.variablesType = variablesType;
+    }
+
+    static EvaluatorSignature of(Class<?> functionType, Class<?> variablesType) {
+        if (!functionType.isInterface()) {
+            throw new IllegalArgumentException("Function type must be an interface");
+        }
+        Method[] functionMethods = functionType.getDeclaredMethods();
+        if (functionMethods.length != 1) {
+            throw new IllegalArgumentException("Function type must have exactly one method");
+        }
+
+        if (!variablesType.isInterface()) {
+            throw new IllegalArgumentException("Variables type must be an interface");
+        }
+
+        EvaluatorSignature signature = new EvaluatorSignature(functionType, variablesType);
+        signature.functionMethod = functionMethods[0];
+        for (Method method : variablesType.getDeclaredMethods()) {
+            if (!method.getReturnType().equals(void.class)) {
+                throw new IllegalArgumentException("Method " + method + " does not return void");
+            }
+            Type[] parameters = method.getGenericParameterTypes();
+            if (parameters.length != 1) {
+                throw new IllegalArgumentException("Method " + method + " does not take one parameter");
+            }
+            String variableName = method.getName();
+            if (method.isAnnotationPresent(VariableName.class)) {
+                variableName = method.getAnnotation(VariableName.class).value();
+            }
+            signature.methodToVariableMap.put(method, variableName);
+            signature.variableTypes.put(variableName, parameters[0]);
+        }
+        return signature;
+    }
+
+    Class<?> getFunctionType() {
+        return functionType;
+    }
+
+    Class<?> getVariablesType() {
+        return variablesType;
+    }
+
+    Method getFunctionMethod() {
+        return functionMethod;
+    }
+
+    Map<String, Type> getVariableTypes() {
+        return variableTypes;
+    }
+
+    Map<Method, String> getMethodToVariableMap() {
+        return methodToVariableMap;
+    }
+
+    TypedPlan compile(ClassResolver classResolver, String exprString) {
+        Parser parser = new Parser(classResolver);
+        Expr expr = parser.parse(exprString);
+        if (!parser.getDiagnostics().isEmpty()) {
+            throw new InvalidExpressionException(parser.getDiagnostics());
+        }
+
+        ClassPathClassDescriberRepository classes = SystemClasses.REPOSITORY;
+        Compiler compiler = new Compiler(SystemClasses.NAVIGATOR, classResolver, new ScopeImpl(classes,
+                variableTypes));
+        Type returnType = functionMethod.getGenericReturnType();
+        TypedPlan typedPlan = compiler.compile(expr, classes.convertGenericType(returnType));
+        if (!compiler.wasSuccessful()) {
+            throw new InvalidExpressionException(compiler.getDiagnostics());
+        }
+        return typedPlan;
+    }
+
+    /**
+     * <p>Gets execution plan of expression, either from cache or by compiling it. Compiled plan is put
+     * into cache.</p>
+     */
+    Plan compilePlan(ImportingClassResolver classResolver, String exprString, PlanCache planCache) {
+        if (planCache == null) {
+            return compile(classResolver, exprString).getPlan();
+        }
+        String key = functionType.getName() + "\n" + variablesType.getName() + "\n"
+                + String.join(",", classResolver.getImports()) + "\n" + exprString;
+        Plan plan = planCache.get(key);
+        if (plan == null) {
+            plan = compile(classResolver, exprString).getPlan();
+            planCache.put(key, plan, Arrays.asList(functionType.getName(), variablesType.getName()));
+        }
+        return plan;
+    }
+
+    static class SystemClasses {
+        static final ClassPathClassDescriberRepository REPOSITORY = ClassPathClassDescriberRepository.forClassLoader(
+                ClassLoader.getSystemClassLoader());
+        static final GenericTypeNavigator NAVIGATOR = new GenericTypeNavigator(REPOSITORY);
+
+        private SystemClasses() {
+        }
+    }
+
+    static class ScopeImpl implements Scope {
+        private ClassPathClassDescriberRepository classes;
+        private Map<String, Type> variables;
+
+        ScopeImpl(ClassPathClassDescriberRepository classes, Map<String, Type> variables) {
+            this.classes = classes;
+            this.variables = variables;
+        }
+
+        @Override
+        public ValueType variableType(String variableName) {
+            Type type = variables.get(variableName);
+            return type != null ? classes.convertGenericType(type) : null;
+        }
+    }
+}
@@ -16,23 +16,26 @@
 package org.teavm.flavour.expr;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>Class resolver that is capable of searching the class by its simple names, if it was imported directly or
  * its package was imported.</p>
  *
+ * <p>Resolver may be shared between threads. Adding an import replaces the whole set of imports together with
+ * the cache of resolved names, so each lookup sees either old or new imports.</p>
+ *
  * @see #importClass(String)
  * @see #importPackage(String)
  *
  * @author Alexey Andreev
  */
 public class ImportingClassResolver implements ClassResolver {
-    private ClassResolver underlyingClassResolver;
-    private Map<String, String> cache = new HashMap<>();
-    private List<Import> imports = new ArrayList<>();
+    private final ClassResolver underlyingClassResolver;
+    private volatile State state = new State(new Import[0]);
 
     public ImportingClassResolver(ClassResolver underlyingClassResolver) {
         this.underlyingClassResolver = underlyingClassResolver;
@@ -47,10 +50,7 @@ public class ImportingClassResolver implements ClassResolver {
     public ImportingClassResolver importClass(String name) {
         int index = name.lastIndexOf('.');
         if (index >= 0) {
-            Import imp = new Import();
-            imp.name = name;
-            imp.className = name.substring(index + 1);
-            imports.add(imp);
+            addImport(new Import(name, name.substring(index + 1)));
         }
         return this;
     }
@@ -62,24 +62,45 @@ public class ImportingClassResolver implements ClassResolver {
      * @return this instance.
      */
     public ImportingClassResolver importPackage(String name) {
-        Import imp = new Import();
-        imp.name = name;
-        imports.add(imp);
+        addImport(new Import(name, null));
         return this;
     }
 
+    private synchronized void addImport(Import imp) {
+        Import[] imports = state.imports;
+        Import[] newImports = Arrays.copyOf(imports, imports.length + 1);
+        newImports[imports.length] = imp;
+        state = new State(newImports);
+    }
+
+    /**
+     * <p>Gets list of imports in the order they were added. Imported classes are represented by their names,
+     * imported packages are represented in form <code>package.name.*</code>.</p>
+     *
+     * @return list of imports.
+     */
+    public List<String> getImports() {
+        Import[] imports = state.imports;
+        List<String> result = new ArrayList<>(imports.length);
+        for (Import imp : imports) {
+            result.add(imp.className != null ? imp.name : imp.name + ".*");
+        }
+        return result;
+    }
+
     @Override
     public String findClass(String name) {
-        String fullName = cache.get(name);
+        State current = state;
+        String fullName = current.cache.get(name);
         if (fullName == null) {
             fullName = underlyingClassResolver.findClass(name);
             if (fullName == null && isSimpleName(name)) {
-                fullName = findClassBySimpleName(name);
+                fullName = findClassBySimpleName(current.imports, name);
             }
             if (fullName == null) {
                 fullName = "";
             }
-            cache.put(name, fullName);
+            current.cache.put(name, fullName);
         }
         return !fullName.isEmpty() ? fullName : null;
     }
@@ -88,7 +109,7 @@ public class ImportingClassResolver implements ClassResolver {
         return name.indexOf('.') < 0;
     }
 
-    private String findClassBySimpleName(String name) {
+    private String findClassBySimpleName(Import[] imports, String name) {
         for (Import imp : imports) {
             if (imp.className != null) {
                 if (name.equals(imp.className)) {
@@ -104,8 +125,22 @@ public class ImportingClassResolver implements ClassResolver {
         return null;
     }
 
+    static class State {
+        final Import[] imports;
+        final Map<String, String> cache = new ConcurrentHashMap<>();
+
+        State(Import[] imports) {
+            this.imports = imports;
+        }
+    }
+
     static class Import {
-        String name;
-        String className;
+        final String name;
+        final String className;
+
+        Import(String name, String className) {
+            this.name = name;
+            this.className = className;
+        }
     }
 }
@@ -15,25 +15,95 @@
  */
 package org.teavm.flavour.expr;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
 import org.teavm.flavour.expr.plan.Plan;
 
+/**
+ * <p>Evaluates execution plan. Interpreter does not keep any state between evaluations, so a single instance
+ * may be used by several threads at once. Values of variables are passed to {@link #interpret(Object[])}
+ * as an array, where each variable occupies position given by {@link #getVariableIndex(String)}.</p>
+ */
 public class Interpreter {
-    private Map<String, Object> variables = new HashMap<>();
-    private Plan plan;
+    private LinkedNode node;
+    private Map<String, Integer> variableIndexes;
+    private int frameSize;
+    private boolean createsLambdas;
 
     public Interpreter(Plan plan) {
-        this.plan = plan;
+        Linker linker = new Linker();
+        node = linker.link(plan);
+        variableIndexes = linker.getVariableSlots();
+        frameSize = linker.getFrameSize();
+        createsLambdas = linker.createsLambdas();
+    }
+
+    /**
+     * <p>Gets position of variable in array of variable values.</p>
+     *
+     * @param name name of the variable.
+     * @return index of the variable or -1, if plan does not refer to the variable.
+     */
+    public int getVariableIndex(String name) {
+        Integer index = variableIndexes.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * <p>Creates array suitable for passing variable values to {@link #interpret(Object[])}.</p>
+     */
+    public Object[] createVariables() {
+        return new Object[frameSize];
+    }
+
+    public Object interpret(Object[] variables) {
+        return node.evaluate(createFrame(variables));
+    }
+
+    /**
+     * <p>Evaluates plan of <code>int</code> type without boxing the result.</p>
+     */
+    public int interpretInt(Object[] variables) {
+        return node.evalInt(createFrame(variables));
+    }
+
+    /**
+     * <p>Evaluates plan of <code>long</code> type without boxing the result.</p>
+     */
+    public long interpretLong(Object[] variables) {
+        return node.evalLong(createFrame(variables));
+    }
+
+    /**
+     * <p>Evaluates plan of <code>float</code> type without boxing the result.</p>
+     */
+    public float interpretFloat(Object[] variables) {
+        return node.evalFloat(createFrame(variables));
+    }
+
+    /**
+     * <p>Evaluates plan of <code>double</code> type without boxing the result.</p>
+     */
+    public double interpretDouble(Object[] variables) {
+        return node.evalDouble(createFrame(variables));
+    }
+
+    /**
+     * <p>Evaluates plan of <code>boolean</code> type without boxing the result.</p>
+     */
+    public boolean interpretBoolean(Object[] variables) {
+        return node.evalBoolean(createFrame(variables));
+    }
+
+    LinkedNode getNode() {
+        return node;
     }
 
-    public Object interpret() {
-        InterpreterVisitor visitor = new InterpreterVisitor(variables);
-        plan.acceptVisitor(visitor);
-        return visitor.value;
+    boolean createsLambdas() {
+        return createsLambdas;
     }
 
-    public Map<String, Object> getVariables() {
-        return variables;
+    private Object[] createFrame(Object[] variables) {
+        return Arrays.copyOf(variables, frameSize);
     }
 }
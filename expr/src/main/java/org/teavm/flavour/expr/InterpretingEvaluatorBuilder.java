@@ -18,16 +18,20 @@ package org.teavm.flavour.expr;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.lang.reflect.Type;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import org.teavm.flavour.expr.ast.Expr;
-import org.teavm.flavour.expr.type.ValueType;
-import org.teavm.flavour.expr.type.meta.ClassPathClassDescriberRepository;
+import org.teavm.flavour.expr.plan.Plan;
 
+/**
+ * <p>Evaluator builder that interprets compiled expressions. Evaluators it produces may be shared between
+ * threads: values of variables are kept per thread, so each thread sets variables and calls the function
+ * independently of others.</p>
+ */
 public class InterpretingEvaluatorBuilder implements EvaluatorBuilder {
     private ImportingClassResolver classResolver = new ImportingClassResolver(
             new ClassPathClassResolver(ClassLoader.getSystemClassLoader()));
+    private PlanCache planCache;
 
     public InterpretingEvaluatorBuilder importClass(String name) {
         classResolver.importClass(name);
@@ -39,105 +43,120 @@ public class InterpretingEvaluatorBuilder implements EvaluatorBuilder {
         return this;
     }
 
+    /**
+     * <p>Sets cache of compiled plans, which lets builder skip compilation of expressions compiled
+     * before, possibly by another process.</p>
+     */
+    public InterpretingEvaluatorBuilder setPlanCache(PlanCache planCache) {
+        this.planCache = planCache;
+        return this;
+    }
+
     @Override
     public <F, V> Evaluator<F, V> build(Class<F> functionType, Class<V> variablesType, String exprString) {
-        if (!functionType.isInterface()) {
-            throw new IllegalArgumentException("Function type must be an interface");
-        }
-        Method[] functionMethods = functionType.getDeclaredMethods();
-        if (functionMethods.length != 1) {
-            throw new IllegalArgumentException("Function type must have exactly one method");
-        }
+        return prepare(functionType, variablesType, exprString).createEvaluator();
+    }
 
-        if (!variablesType.isInterface()) {
-            throw new IllegalArgumentException("Variables type must be an interface");
-        }
-        Method[] variableMethods = variablesType.getDeclaredMethods();
-        Map<String, Type> variableTypes = new HashMap<>();
-        Map<Method, String> methodToVariableMap = new HashMap<>();
-        for (Method method : variableMethods) {
-            if (!method.getReturnType().equals(void.class)) {
-                throw new IllegalArgumentException("Method " + method + " does not return void");
-            }
-            Type[] parameters = method.getGenericParameterTypes();
-            if (parameters.length != 1) {
-                throw new IllegalArgumentException("Method " + method + " does not take one parameter");
-            }
-            String variableName = method.getName();
-            if (method.isAnnotationPresent(VariableName.class)) {
-                variableName = method.getAnnotation(VariableName.class).value();
-            }
-            methodToVariableMap.put(method, variableName);
-            variableTypes.put(variableName, parameters[0]);
+    /**
+     * <p>Builds evaluator that computes expression over many sets of variable values at once.</p>
+     *
+     * @param functionType functional interface that defines the result type of expression. Its method must
+     * not be <code>void</code>.
+     * @param variablesType interface that declares variables.
+     * @param exprString expression to evaluate.
+     */
+    public <F, V> BatchEvaluator<V> buildBatch(Class<F> functionType, Class<V> variablesType, String exprString) {
+        EvaluatorSignature signature = EvaluatorSignature.of(functionType, variablesType);
+        Class<?> resultType = signature.getFunctionMethod().getReturnType();
+        if (resultType == void.class) {
+            throw new IllegalArgumentException("Function " + functionType.getName() + " does not return value");
         }
+        Interpreter interpreter = new Interpreter(signature.compilePlan(classResolver, exprString, planCache));
+        return new BatchEvaluator<>(interpreter, variablesType, getVariableIndexes(signature, interpreter),
+                resultType);
+    }
 
-        Parser parser = new Parser(classResolver);
-        Expr expr = parser.parse(exprString);
-        if (!parser.getDiagnostics().isEmpty()) {
-            throw new InvalidExpressionException(parser.getDiagnostics());
-        }
+    <F, V> PreparedEvaluator<F, V> prepare(Class<F> functionType, Class<V> variablesType, String exprString) {
+        EvaluatorSignature signature = EvaluatorSignature.of(functionType, variablesType);
+        Plan plan = signature.compilePlan(classResolver, exprString, planCache);
 
-        ClassPathClassDescriberRepository classes = new ClassPathClassDescriberRepository();
-        Compiler compiler = new Compiler(classes, classResolver, new ScopeImpl(classes, variableTypes));
-        Type returnType = functionMethods[0].getGenericReturnType();
-        TypedPlan typedPlan = compiler.compile(expr, classes.convertGenericType(returnType));
-        if (!compiler.wasSuccessful()) {
-            throw new InvalidExpressionException(compiler.getDiagnostics());
-        }
+        Interpreter interpreter = new Interpreter(plan);
+        Map<Method, Integer> variableIndexes = getVariableIndexes(signature, interpreter);
 
-        Interpreter interpreter = new Interpreter(typedPlan.getPlan());
-        @SuppressWarnings("unchecked")
-        F function = (F) Proxy.newProxyInstance(ClassLoader.getSystemClassLoader(), new Class<?>[] { functionType },
-                new FunctionProxy(interpreter));
-        @SuppressWarnings("unchecked")
-        V variables = (V) Proxy.newProxyInstance(ClassLoader.getSystemClassLoader(), new Class<?>[] { variablesType },
-                new VariablesProxy(interpreter, methodToVariableMap));
+        return () -> {
+            ThreadLocal<Object[]> variableValues = ThreadLocal.withInitial(interpreter::createVariables);
 
-        return new Evaluator<>(function, variables);
-    }
+            @SuppressWarnings("unchecked")
+            F function = (F) Proxy.newProxyInstance(ClassLoader.getSystemClassLoader(),
+                    new Class<?>[] { functionType }, new FunctionProxy(interpreter, variableValues));
+            @SuppressWarnings("unchecked")
+            V variables = (V) Proxy.newProxyInstance(ClassLoader.getSystemClassLoader(),
+                    new Class<?>[] { variablesType }, new VariablesProxy(variableIndexes, variableValues));
 
-    class ScopeImpl implements Scope {
-        private ClassPathClassDescriberRepository classes;
-        private Map<String, Type> variables;
+            return new Evaluator<>(function, variables);
+        };
+    }
 
-        ScopeImpl(ClassPathClassDescriberRepository classes, Map<String, Type> variables) {
-            this.classes = classes;
-            this.variables = variables;
+    private static Map<Method, Integer> getVariableIndexes(EvaluatorSignature signature, Interpreter interpreter) {
+        Map<Method, Integer> variableIndexes = new HashMap<>();
+        for (Map.Entry<Method, String> entry : signature.getMethodToVariableMap().entrySet()) {
+            variableIndexes.put(entry.getKey(), interpreter.getVariableIndex(entry.getValue()));
         }
+        return variableIndexes;
+    }
 
-        @Override
-        public ValueType variableType(String variableName) {
-            Type type = variables.get(variableName);
-            return type != null ? classes.convertGenericType(type) : null;
+    List<String> getImports() {
+        return classResolver.getImports();
+    }
+
+    // Proxies only get equals, hashCode and toString from Object, which behave as in Object itself
+    static Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return proxy.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
         }
     }
 
     class FunctionProxy implements InvocationHandler {
         private Interpreter interpreter;
+        private ThreadLocal<Object[]> variableValues;
 
-        FunctionProxy(Interpreter interpreter) {
+        FunctionProxy(Interpreter interpreter, ThreadLocal<Object[]> variableValues) {
             this.interpreter = interpreter;
+            this.variableValues = variableValues;
         }
 
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-            return interpreter.interpret();
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, method, args);
+            }
+            return interpreter.interpret(variableValues.get());
         }
     }
 
     class VariablesProxy implements InvocationHandler {
-        private Interpreter interpreter;
-        private Map<Method, String> variables;
+        private Map<Method, Integer> variableIndexes;
+        private ThreadLocal<Object[]> variableValues;
 
-        VariablesProxy(Interpreter interpreter, Map<Method, String> variables) {
-            this.interpreter = interpreter;
-            this.variables = variables;
+        VariablesProxy(Map<Method, Integer> variableIndexes, ThreadLocal<Object[]> variableValues) {
+            this.variableIndexes = variableIndexes;
+            this.variableValues = variableValues;
         }
 
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-            String varName = variables.get(method);
-            interpreter.getVariables().put(varName, args[0]);
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, method, args);
+            }
+            int index = variableIndexes.get(method);
+            if (index >= 0) {
+                variableValues.get()[index] = args[0];
+            }
             return null;
         }
     }
@@ -0,0 +1,289 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * <p>Generates classes that implement functional interfaces on top of interpreted lambdas. For every functional
+ * interface, a single class is generated, which holds lambda node and frame of enclosing evaluation. Its
+ * method binds arguments into a copy of the frame and evaluates lambda body, so calling interpreted lambda
+ * costs no more than a virtual call and a frame copy.</p>
+ *
+ * <p>Classes are defined in this package, so they can only implement interfaces that are public and
+ * visible from this class loader. For other interfaces generator reports <code>null</code>, and caller
+ * should fall back to {@link java.lang.reflect.Proxy}.</p>
+ *
+ * <p>Factories are kept in a static map rather than in a {@link ClassValue}. Interfaces are visible from this
+ * class loader, so the map does not extend their lifetime. On the contrary, a class value of an interface
+ * from a parent loader, e.g. of a JDK one, would refer to classes generated in this loader and would never
+ * let it be unloaded.</p>
+ */
+final class LambdaClassGenerator {
+    private static final String NODE_TYPE = Type.getInternalName(Linker.LambdaNode.class);
+    private static final String LINKED_NODE_TYPE = Type.getInternalName(LinkedNode.class);
+    private static final String FRAME_DESC = "[Ljava/lang/Object;";
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class, Linker.LambdaNode.class,
+            Object[].class);
+    private static final AtomicInteger classIndex = new AtomicInteger();
+    private static final Map<Class<?>, Map<String, Factory>> factories = new ConcurrentHashMap<>();
+
+    private LambdaClassGenerator() {
+    }
+
+    /**
+     * <p>Gets factory of lambda instances.</p>
+     *
+     * @return method handle of type <code>(LambdaNode, Object[])Object</code> that creates instance of
+     * generated class, or <code>null</code> if generated class can't implement the interface.
+     */
+    static MethodHandle getFactory(Class<?> type, Method method) {
+        String key = method.getName() + Type.getMethodDescriptor(method);
+        return factories.computeIfAbsent(type, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key, k -> new Factory(generate(type, method))).handle;
+    }
+
+    private static MethodHandle generate(Class<?> type, Method method) {
+        if (!isAccessible(type)) {
+            return null;
+        }
+        for (Method other : type.getMethods()) {
+            if (isImplemented(other, method)) {
+                for (Class<?> parameterType : other.getParameterTypes()) {
+                    if (!isAccessible(parameterType)) {
+                        return null;
+                    }
+                }
+                if (!isAccessible(other.getReturnType())) {
+                    return null;
+                }
+            }
+        }
+
+        String className = LambdaClassGenerator.class.getPackage().getName().replace('.', '/')
+                + "/InterpretedLambda$" + classIndex.incrementAndGet();
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC, className, null,
+                "java/lang/Object", new String[] { Type.getInternalName(type) });
+        writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "node", "L" + NODE_TYPE + ";", null, null)
+                .visitEnd();
+        writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "frame", FRAME_DESC, null, null).visitEnd();
+        generateConstructor(writer, className);
+
+        // Bridges of generic interfaces are abstract, so every method that may be called instead of
+        // the functional one must be implemented. Several superinterfaces may declare the same bridge
+        Set<String> descriptors = new HashSet<>();
+        for (Method other : type.getMethods()) {
+            if (isImplemented(other, method) && descriptors.add(Type.getMethodDescriptor(other))) {
+                generateMethod(writer, className, other);
+            }
+        }
+        writer.visitEnd();
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> cls = lookup.defineClass(writer.toByteArray());
+            return lookup.findConstructor(cls, MethodType.methodType(void.class, Linker.LambdaNode.class,
+                    Object[].class)).asType(FACTORY_TYPE);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    // Either the functional method itself or an erased method of a generic superinterface it overrides
+    private static boolean isImplemented(Method candidate, Method method) {
+        if (!Modifier.isAbstract(candidate.getModifiers()) || !candidate.getName().equals(method.getName())
+                || candidate.getParameterCount() != method.getParameterCount()) {
+            return false;
+        }
+        Class<?>[] candidateParameters = candidate.getParameterTypes();
+        Class<?>[] parameters = method.getParameterTypes();
+        for (int i = 0; i < parameters.length; ++i) {
+            if (!isErasureOf(candidateParameters[i], parameters[i])) {
+                return false;
+            }
+        }
+        return isErasureOf(candidate.getReturnType(), method.getReturnType());
+    }
+
+    private static boolean isErasureOf(Class<?> erased, Class<?> type) {
+        return erased == type || !erased.isPrimitive() && !type.isPrimitive() && erased.isAssignableFrom(type);
+    }
+
+    private static boolean isAccessible(Class<?> cls) {
+        while (cls.isArray()) {
+            cls = cls.getComponentType();
+        }
+        if (cls.isPrimitive()) {
+            return true;
+        }
+        if (!Modifier.isPublic(cls.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(cls.getName(), false, LambdaClassGenerator.class.getClassLoader()) == cls;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static void generateConstructor(ClassWriter writer, String className) {
+        MethodVisitor mv = writer.visitMethod(0, "<init>", "(L" + NODE_TYPE + ";" + FRAME_DESC + ")V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, className, "node", "L" + NODE_TYPE + ";");
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, className, "frame", FRAME_DESC);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void generateMethod(ClassWriter writer, String className, Method method) {
+        String desc = Type.getMethodDescriptor(method);
+        MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC, method.getName(), desc, null, null);
+        mv.visitCode();
+
+        Type[] parameterTypes = Type.getArgumentTypes(desc);
+        int frameLocal = 1;
+        for (Type parameterType : parameterTypes) {
+            frameLocal += parameterType.getSize();
+        }
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, className, "node", "L" + NODE_TYPE + ";");
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, className, "frame", FRAME_DESC);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, NODE_TYPE, "enter", "(" + FRAME_DESC + ")" + FRAME_DESC, false);
+        mv.visitVarInsn(Opcodes.ASTORE, frameLocal);
+
+        int local = 1;
+        for (int i = 0; i < parameterTypes.length; ++i) {
+            Type parameterType = parameterTypes[i];
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, className, "node", "L" + NODE_TYPE + ";");
+            mv.visitVarInsn(Opcodes.ALOAD, frameLocal);
+            mv.visitLdcInsn(i);
+            mv.visitVarInsn(parameterType.getOpcode(Opcodes.ILOAD), local);
+            if (parameterType.getSort() != Type.OBJECT && parameterType.getSort() != Type.ARRAY) {
+                Type wrapper = wrapperType(parameterType);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, wrapper.getInternalName(), "valueOf",
+                        Type.getMethodDescriptor(wrapper, parameterType), false);
+            }
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, NODE_TYPE, "bind", "(" + FRAME_DESC + "ILjava/lang/Object;)V",
+                    false);
+            local += parameterType.getSize();
+        }
+
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, className, "node", "L" + NODE_TYPE + ";");
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, NODE_TYPE, "getBody", "()L" + LINKED_NODE_TYPE + ";", false);
+        mv.visitVarInsn(Opcodes.ALOAD, frameLocal);
+        Type returnType = Type.getReturnType(desc);
+        switch (returnType.getSort()) {
+            case Type.VOID:
+                invokeBody(mv, "evaluate", "Ljava/lang/Object;");
+                mv.visitInsn(Opcodes.POP);
+                break;
+            case Type.INT:
+                invokeBody(mv, "evalInt", "I");
+                break;
+            case Type.LONG:
+                invokeBody(mv, "evalLong", "J");
+                break;
+            case Type.FLOAT:
+                invokeBody(mv, "evalFloat", "F");
+                break;
+            case Type.DOUBLE:
+                invokeBody(mv, "evalDouble", "D");
+                break;
+            case Type.BOOLEAN:
+                invokeBody(mv, "evalBoolean", "Z");
+                break;
+            case Type.OBJECT:
+            case Type.ARRAY:
+                invokeBody(mv, "evaluate", "Ljava/lang/Object;");
+                if (!returnType.getDescriptor().equals("Ljava/lang/Object;")) {
+                    mv.visitTypeInsn(Opcodes.CHECKCAST, returnType.getInternalName());
+                }
+                break;
+            default: {
+                invokeBody(mv, "evaluate", "Ljava/lang/Object;");
+                Type wrapper = wrapperType(returnType);
+                mv.visitTypeInsn(Opcodes.CHECKCAST, wrapper.getInternalName());
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapper.getInternalName(),
+                        returnType.getClassName() + "Value", Type.getMethodDescriptor(returnType), false);
+                break;
+            }
+        }
+        mv.visitInsn(returnType.getOpcode(Opcodes.IRETURN));
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void invokeBody(MethodVisitor mv, String name, String resultDesc) {
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, LINKED_NODE_TYPE, name, "(" + FRAME_DESC + ")" + resultDesc,
+                false);
+    }
+
+    private static Type wrapperType(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                return Type.getType(Boolean.class);
+            case Type.CHAR:
+                return Type.getType(Character.class);
+            case Type.BYTE:
+                return Type.getType(Byte.class);
+            case Type.SHORT:
+                return Type.getType(Short.class);
+            case Type.INT:
+                return Type.getType(Integer.class);
+            case Type.LONG:
+                return Type.getType(Long.class);
+            case Type.FLOAT:
+                return Type.getType(Float.class);
+            case Type.DOUBLE:
+                return Type.getType(Double.class);
+            default:
+                throw new AssertionError("Not a primitive type: " + type);
+        }
+    }
+
+    // ConcurrentHashMap does not allow null values, and null is what we store for unsupported interfaces
+    static class Factory {
+        final MethodHandle handle;
+
+        Factory(MethodHandle handle) {
+            this.handle = handle;
+        }
+    }
+}
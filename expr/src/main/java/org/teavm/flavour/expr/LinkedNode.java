@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr;
+
+/**
+ * <p>Node of execution plan prepared for interpretation by {@link Linker}. Unlike plan, node refers to
+ * already resolved classes, fields and method handles, so evaluating it does not involve any lookups.</p>
+ *
+ * <p>Variables are kept in a frame, an array which is created per evaluation. Linker assigns each variable
+ * an index in the frame, so nodes never look variables up by name.</p>
+ *
+ * <p>Nodes that produce primitive values override corresponding <code>evalXxx</code> methods, so that
+ * arithmetic subtrees are computed without boxing intermediate results. Default implementations unbox
+ * result of {@link #evaluate(Object[])}. Caller must only use the method that matches static type
+ * of the node.</p>
+ */
+abstract class LinkedNode {
+    abstract Object evaluate(Object[] frame);
+
+    int evalInt(Object[] frame) {
+        return (Integer) evaluate(frame);
+    }
+
+    long evalLong(Object[] frame) {
+        return (Long) evaluate(frame);
+    }
+
+    float evalFloat(Object[] frame) {
+        return (Float) evaluate(frame);
+    }
+
+    double evalDouble(Object[] frame) {
+        return (Double) evaluate(frame);
+    }
+
+    boolean evalBoolean(Object[] frame) {
+        return (Boolean) evaluate(frame);
+    }
+}
@@ -0,0 +1,1513 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.teavm.flavour.expr.plan.ArithmeticCastPlan;
+import org.teavm.flavour.expr.plan.ArithmeticType;
+import org.teavm.flavour.expr.plan.ArrayConstructionPlan;
+import org.teavm.flavour.expr.plan.ArrayLengthPlan;
+import org.teavm.flavour.expr.plan.BinaryPlan;
+import org.teavm.flavour.expr.plan.BinaryPlanType;
+import org.teavm.flavour.expr.plan.CastFromIntegerPlan;
+import org.teavm.flavour.expr.plan.CastPlan;
+import org.teavm.flavour.expr.plan.CastToIntegerPlan;
+import org.teavm.flavour.expr.plan.ConditionalPlan;
+import org.teavm.flavour.expr.plan.ConstantPlan;
+import org.teavm.flavour.expr.plan.ConstructionPlan;
+import org.teavm.flavour.expr.plan.FieldAssignmentPlan;
+import org.teavm.flavour.expr.plan.FieldPlan;
+import org.teavm.flavour.expr.plan.GetArrayElementPlan;
+import org.teavm.flavour.expr.plan.InstanceOfPlan;
+import org.teavm.flavour.expr.plan.IntegerSubtype;
+import org.teavm.flavour.expr.plan.InvocationPlan;
+import org.teavm.flavour.expr.plan.LambdaPlan;
+import org.teavm.flavour.expr.plan.LogicalBinaryPlan;
+import org.teavm.flavour.expr.plan.LogicalBinaryPlanType;
+import org.teavm.flavour.expr.plan.NegatePlan;
+import org.teavm.flavour.expr.plan.NotPlan;
+import org.teavm.flavour.expr.plan.ObjectPlan;
+import org.teavm.flavour.expr.plan.ObjectPlanEntry;
+import org.teavm.flavour.expr.plan.Plan;
+import org.teavm.flavour.expr.plan.PlanVisitor;
+import org.teavm.flavour.expr.plan.ReferenceEqualityPlan;
+import org.teavm.flavour.expr.plan.ReferenceEqualityPlanType;
+import org.teavm.flavour.expr.plan.ThisPlan;
+import org.teavm.flavour.expr.plan.VariablePlan;
+
+/**
+ * <p>Turns execution plan into a tree of {@link LinkedNode}s. All reflective lookups happen here, once per
+ * plan, so that interpreter only walks the resulting tree.</p>
+ *
+ * <p>Members that can't be found or accessed don't fail linkage, since they may be on a branch that is never
+ * taken. Instead, they are linked to a node that reports the problem when evaluated.</p>
+ */
+class Linker implements PlanVisitor {
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private Map<String, Class<?>> classCache = new HashMap<>();
+    private Map<String, Integer> variableSlots = new LinkedHashMap<>();
+    private Map<String, Integer> boundVarSlots = new HashMap<>();
+    private int frameSize;
+    private boolean createsLambdas;
+    private LinkedNode node;
+
+    LinkedNode link(Plan plan) {
+        plan.acceptVisitor(this);
+        return node;
+    }
+
+    /**
+     * <p>Gets frame indexes of variables that linked plans refer to, other than ones bound by lambdas.</p>
+     */
+    Map<String, Integer> getVariableSlots() {
+        return variableSlots;
+    }
+
+    int getFrameSize() {
+        return frameSize;
+    }
+
+    /**
+     * <p>Tells whether linked plans contain lambdas. Lambdas keep reference to the frame they were created in,
+     * so such frames must not be reused.</p>
+     */
+    boolean createsLambdas() {
+        return createsLambdas;
+    }
+
+    private int slotOf(String name) {
+        Integer slot = boundVarSlots.get(name);
+        if (slot == null) {
+            slot = variableSlots.get(name);
+            if (slot == null) {
+                slot = frameSize++;
+                variableSlots.put(name, slot);
+            }
+        }
+        return slot;
+    }
+
+    private LinkedNode[] link(List<Plan> plans) {
+        LinkedNode[] nodes = new LinkedNode[plans.size()];
+        for (int i = 0; i < nodes.length; ++i) {
+            nodes[i] = link(plans.get(i));
+        }
+        return nodes;
+    }
+
+    @Override
+    public void visit(ConstantPlan plan) {
+        node = new ConstantNode(plan.getValue());
+    }
+
+    @Override
+    public void visit(VariablePlan plan) {
+        node = new VariableNode(slotOf(plan.getName()));
+    }
+
+    @Override
+    public void visit(BinaryPlan plan) {
+        LinkedNode first = link(plan.getFirstOperand());
+        LinkedNode second = link(plan.getSecondOperand());
+        switch (plan.getValueType()) {
+            case INT:
+                node = new IntBinaryNode(plan.getType(), first, second);
+                break;
+            case LONG:
+                node = new LongBinaryNode(plan.getType(), first, second);
+                break;
+            case FLOAT:
+                node = new FloatBinaryNode(plan.getType(), first, second);
+                break;
+            case DOUBLE:
+                node = new DoubleBinaryNode(plan.getType(), first, second);
+                break;
+        }
+    }
+
+    @Override
+    public void visit(NegatePlan plan) {
+        node = new NegateNode(plan.getValueType(), link(plan.getOperand()));
+    }
+
+    @Override
+    public void visit(ReferenceEqualityPlan plan) {
+        LinkedNode first = link(plan.getFirstOperand());
+        LinkedNode second = link(plan.getSecondOperand());
+        node = new ReferenceEqualityNode(plan.getType() == ReferenceEqualityPlanType.EQUAL, first, second);
+    }
+
+    @Override
+    public void visit(LogicalBinaryPlan plan) {
+        LinkedNode first = link(plan.getFirstOperand());
+        LinkedNode second = link(plan.getSecondOperand());
+        node = new LogicalBinaryNode(plan.getType() == LogicalBinaryPlanType.AND, first, second);
+    }
+
+    @Override
+    public void visit(NotPlan plan) {
+        node = new NotNode(link(plan.getOperand()));
+    }
+
+    @Override
+    public void visit(CastPlan plan) {
+        LinkedNode operand = link(plan.getOperand());
+        Class<?> type = decodeType(plan.getTargetType());
+        node = type != null
+                ? new CastNode(type, operand)
+                : new FailingNode("Can't find class " + plan.getTargetType(), null);
+    }
+
+    @Override
+    public void visit(ArithmeticCastPlan plan) {
+        node = new ArithmeticCastNode(plan.getSourceType(), plan.getTargetType(), link(plan.getOperand()));
+    }
+
+    @Override
+    public void visit(CastFromIntegerPlan plan) {
+        node = new CastFromIntegerNode(plan.getType(), link(plan.getOperand()));
+    }
+
+    @Override
+    public void visit(CastToIntegerPlan plan) {
+        node = new CastToIntegerNode(plan.getType(), link(plan.getOperand()));
+    }
+
+    @Override
+    public void visit(GetArrayElementPlan plan) {
+        LinkedNode array = link(plan.getArray());
+        LinkedNode index = link(plan.getIndex());
+        node = new ArrayElementNode(array, index);
+    }
+
+    @Override
+    public void visit(ArrayLengthPlan plan) {
+        node = new ArrayLengthNode(link(plan.getArray()));
+    }
+
+    @Override
+    public void visit(FieldPlan plan) {
+        LinkedNode instance = plan.getInstance() != null ? link(plan.getInstance()) : null;
+        Field field = getField(plan.getClassName(), plan.getFieldName());
+        node = field != null
+                ? new FieldNode(field, instance)
+                : new FailingNode("Can't find field " + plan.getClassName() + "." + plan.getFieldName(), null);
+    }
+
+    @Override
+    public void visit(FieldAssignmentPlan plan) {
+        LinkedNode instance = plan.getInstance() != null ? link(plan.getInstance()) : null;
+        LinkedNode value = link(plan.getValue());
+        Field field = getField(plan.getClassName(), plan.getFieldName());
+        node = field != null
+                ? new FieldAssignmentNode(field, instance, value)
+                : new FailingNode("Can't find field " + plan.getClassName() + "." + plan.getFieldName(), null);
+    }
+
+    @Override
+    public void visit(InstanceOfPlan plan) {
+        LinkedNode operand = link(plan.getOperand());
+        Class<?> type = decodeType(plan.getClassName());
+        node = type != null
+                ? new InstanceOfNode(type, operand)
+                : new FailingNode("Can't find class " + plan.getClassName(), null);
+    }
+
+    @Override
+    public void visit(InvocationPlan plan) {
+        List<Plan> operands = plan.getArguments();
+        if (plan.getInstance() != null) {
+            operands = new ArrayList<>(operands);
+            operands.add(0, plan.getInstance());
+        }
+        LinkedNode[] linkedOperands = link(operands);
+        String description = plan.getClassName() + "." + plan.getMethodName() + plan.getMethodDesc();
+        Method method = getMethod(plan.getClassName(), plan.getMethodName(), plan.getMethodDesc());
+        if (method == null) {
+            node = new FailingNode("Can't find method " + description, null);
+            return;
+        }
+        try {
+            node = createCall(lookup.unreflect(method).asFixedArity(), linkedOperands,
+                    "Error calling method " + description);
+        } catch (IllegalAccessException e) {
+            node = new FailingNode("Can't access method " + description, e);
+        }
+    }
+
+    @Override
+    public void visit(ConstructionPlan plan) {
+        LinkedNode[] arguments = link(plan.getArguments());
+        String description = plan.getClassName() + ".<init>" + plan.getMethodDesc();
+        Constructor<?> ctor = getConstructor(plan.getClassName(), plan.getMethodDesc());
+        if (ctor == null) {
+            node = new FailingNode("Can't find constructor " + description, null);
+            return;
+        }
+        try {
+            node = createCall(lookup.unreflectConstructor(ctor).asFixedArity(), arguments,
+                    "Error calling constructor " + description);
+        } catch (IllegalAccessException e) {
+            node = new FailingNode("Can't access constructor " + description, e);
+        }
+    }
+
+    @Override
+    public void visit(ArrayConstructionPlan plan) {
+        LinkedNode[] elements = link(plan.getElements());
+        Class<?> elementType = decodeType(plan.getElementType());
+        node = elementType != null
+                ? new ArrayConstructionNode(elementType, elements)
+                : new FailingNode("Can't find class " + plan.getElementType(), null);
+    }
+
+    @Override
+    public void visit(ConditionalPlan plan) {
+        LinkedNode condition = link(plan.getCondition());
+        LinkedNode consequent = link(plan.getConsequent());
+        LinkedNode alternative = link(plan.getAlternative());
+        node = new ConditionalNode(condition, consequent, alternative);
+    }
+
+    @Override
+    public void visit(ThisPlan plan) {
+        node = new VariableNode(slotOf("this"));
+    }
+
+    @Override
+    public void visit(LambdaPlan plan) {
+        createsLambdas = true;
+        List<String> boundVars = plan.getBoundVars();
+        int[] slots = new int[boundVars.size()];
+        Integer[] oldSlots = new Integer[slots.length];
+        for (int i = 0; i < slots.length; ++i) {
+            String name = boundVars.get(i);
+            if (name.isEmpty()) {
+                slots[i] = -1;
+            } else {
+                slots[i] = frameSize++;
+                oldSlots[i] = boundVarSlots.put(name, slots[i]);
+            }
+        }
+        LinkedNode body = link(plan.getBody());
+        for (int i = slots.length - 1; i >= 0; --i) {
+            String name = boundVars.get(i);
+            if (!name.isEmpty()) {
+                if (oldSlots[i] != null) {
+                    boundVarSlots.put(name, oldSlots[i]);
+                } else {
+                    boundVarSlots.remove(name);
+                }
+            }
+        }
+
+        Class<?> type = getClass(plan.getClassName());
+        Method method = getMethod(plan.getClassName(), plan.getMethodName(), plan.getMethodDesc());
+        node = method != null
+                ? new LambdaNode(type, method, slots, body)
+                : new FailingNode("Can't find method " + plan.getClassName() + "." + plan.getMethodName()
+                        + plan.getMethodDesc(), null);
+    }
+
+    @Override
+    public void visit(ObjectPlan plan) {
+        String description = plan.getClassName() + ".<init>()";
+        Class<?> cls = getClass(plan.getClassName());
+        if (cls == null) {
+            node = new FailingNode("Can't find class " + plan.getClassName(), null);
+            return;
+        }
+
+        MethodHandle ctor;
+        try {
+            ctor = lookup.unreflectConstructor(cls.getConstructor()).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            node = new FailingNode("Can't access constructor " + description, e);
+            return;
+        }
+
+        int count = plan.getEntries().size();
+        MethodHandle[] setters = new MethodHandle[count];
+        LinkedNode[] values = new LinkedNode[count];
+        String[] descriptions = new String[count];
+        for (int i = 0; i < count; ++i) {
+            ObjectPlanEntry entry = plan.getEntries().get(i);
+            descriptions[i] = plan.getClassName() + "." + entry.getSetterName() + entry.getSetterDesc();
+            Method method = getMethod(cls.getName(), entry.getSetterName(), entry.getSetterDesc());
+            if (method == null) {
+                node = new FailingNode("Can't find method " + descriptions[i], null);
+                return;
+            }
+            try {
+                setters[i] = lookup.unreflect(method).asType(
+                        MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                node = new FailingNode("Can't access method " + descriptions[i], e);
+                return;
+            }
+            values[i] = link(entry.getValue());
+        }
+
+        node = new ObjectNode(ctor, setters, values, description, descriptions);
+    }
+
+    private Class<?> decodeType(String type) {
+        return new TypeDecoder(type).decode();
+    }
+
+    private Class<?> getClass(String name) {
+        Class<?> cls = classCache.get(name);
+        if (cls == null) {
+            try {
+                cls = Class.forName(name);
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+            classCache.put(name, cls);
+        }
+        return cls;
+    }
+
+    private Field getField(String className, String fieldName) {
+        Class<?> cls = getClass(className);
+        if (cls == null) {
+            return null;
+        }
+        try {
+            return cls.getField(fieldName);
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
+
+    private Method getMethod(String className, String methodName, String desc) {
+        Class<?> cls = getClass(className);
+        Class<?>[] argumentTypes = decodeArgumentTypes(desc);
+        if (cls == null || argumentTypes == null) {
+            return null;
+        }
+        try {
+            return cls.getMethod(methodName, argumentTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private Constructor<?> getConstructor(String className, String desc) {
+        Class<?> cls = getClass(className);
+        Class<?>[] argumentTypes = decodeArgumentTypes(desc);
+        if (cls == null || argumentTypes == null) {
+            return null;
+        }
+        try {
+            return cls.getConstructor(argumentTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private Class<?>[] decodeArgumentTypes(String desc) {
+        List<Class<?>> argumentTypes = new ArrayList<>();
+        TypeDecoder decoder = new TypeDecoder(desc);
+        if (decoder.text.charAt(decoder.position++) != '(') {
+            throw new InterpretationException("Wrong method descriptor " + desc);
+        }
+        while (decoder.text.charAt(decoder.position) != ')') {
+            Class<?> type = decoder.decode();
+            if (type == null) {
+                return null;
+            }
+            argumentTypes.add(type);
+        }
+        return argumentTypes.toArray(new Class<?>[0]);
+    }
+
+    class TypeDecoder {
+        int position;
+        final String text;
+
+        TypeDecoder(String text) {
+            this.text = text;
+        }
+
+        Class<?> decode() {
+            switch (text.charAt(position++)) {
+                case 'Z':
+                    return boolean.class;
+                case 'C':
+                    return char.class;
+                case 'B':
+                    return byte.class;
+                case 'S':
+                    return short.class;
+                case 'I':
+                    return int.class;
+                case 'J':
+                    return long.class;
+                case 'F':
+                    return float.class;
+                case 'D':
+                    return double.class;
+                case 'V':
+                    return void.class;
+                case 'L': {
+                    int index = text.indexOf(';', position);
+                    Class<?> cls = Linker.this.getClass(text.substring(position, index).replace('/', '.'));
+                    position = index + 1;
+                    return cls;
+                }
+                case '[': {
+                    Class<?> itemType = decode();
+                    return itemType != null ? Array.newInstance(itemType, 0).getClass() : null;
+                }
+                default:
+                    throw new InterpretationException("Error parsing type descriptor");
+            }
+        }
+    }
+
+    static boolean isComparison(BinaryPlanType type) {
+        switch (type) {
+            case EQUAL:
+            case NOT_EQUAL:
+            case LESS:
+            case LESS_OR_EQUAL:
+            case GREATER:
+            case GREATER_OR_EQUAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static class ConstantNode extends LinkedNode {
+        private final Object value;
+
+        ConstantNode(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            return value;
+        }
+    }
+
+    static class VariableNode extends LinkedNode {
+        private final int slot;
+
+        VariableNode(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            return frame[slot];
+        }
+    }
+
+    static class IntBinaryNode extends LinkedNode {
+        private final BinaryPlanType type;
+        private final boolean comparison;
+        private final LinkedNode first;
+        private final LinkedNode second;
+
+        IntBinaryNode(BinaryPlanType type, LinkedNode first, LinkedNode second) {
+            this.type = type;
+            this.comparison = isComparison(type);
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            if (comparison) {
+                return evalBoolean(frame);
+            }
+            return evalInt(frame);
+        }
+
+        @Override
+        int evalInt(Object[] frame) {
+            int a = first.evalInt(frame);
+            int b = second.evalInt(frame);
+            switch (type) {
+                case ADD:
+                    return a + b;
+                case SUBTRACT:
+                    return a - b;
+                case MULTIPLY:
+                    return a * b;
+                case DIVIDE:
+                    return a / b;
+                case REMAINDER:
+                    return a % b;
+                default:
+                    throw new AssertionError("Unexpected operation: " + type);
+            }
+        }
+
+        @Override
+        boolean evalBoolean(Object[] frame) {
+            int a = first.evalInt(frame);
+            int b = second.evalInt(frame);
+            switch (type) {
+                case EQUAL:
+                    return a == b;
+                case NOT_EQUAL:
+                    return a != b;
+                case LESS:
+                    return a < b;
+                case LESS_OR_EQUAL:
+                    return a <= b;
+                case GREATER:
+                    return a > b;
+                case GREATER_OR_EQUAL:
+                    return a >= b;
+                default:
+                    throw new AssertionError("Unexpected operation: " + type);
+            }
+        }
+    }
+
+    static class LongBinaryNode extends LinkedNode {
+        private final BinaryPlanType type;
+        private final boolean comparison;
+        private final LinkedNode first;
+        private final LinkedNode second;
+
+        LongBinaryNode(BinaryPlanType type, LinkedNode first, LinkedNode second) {
+            this.type = type;
+            this.comparison = isComparison(type);
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            if (comparison) {
+                return evalBoolean(frame);
+            }
+            return evalLong(frame);
+        }
+
+        @Override
+        long evalLong(Object[] frame) {
+            long a = first.evalLong(frame);
+            long b = second.evalLong(frame);
+            switch (type) {
+                case ADD:
+                    return a + b;
+                case SUBTRACT:
+                    return a - b;
+                case MULTIPLY:
+                    return a * b;
+                case DIVIDE:
+                    return a / b;
+                case REMAINDER:
+                    return a % b;
+                default:
+                    throw new AssertionError("Unexpected operation: " + type);
+            }
+        }
+
+        @Override
+        boolean evalBoolean(Object[] frame) {
+            long a = first.evalLong(frame);
+            long b = second.evalLong(frame);
+            switch (type) {
+                case EQUAL:
+                    return a == b;
+                case NOT_EQUAL:
+                    return a != b;
+                case LESS:
+                    return a < b;
+                case LESS_OR_EQUAL:
+                    return a <= b;
+                case GREATER:
+                    return a > b;
+                case GREATER_OR_EQUAL:
+                    return a >= b;
+                default:
+                    throw new AssertionError("Unexpected operation: " + type);
+            }
+        }
+    }
+
+    static class FloatBinaryNode extends LinkedNode {
+        private final BinaryPlanType type;
+        private final boolean comparison;
+        private final LinkedNode first;
+        private final LinkedNode second;
+
+        FloatBinaryNode(BinaryPlanType type, LinkedNode first, LinkedNode second) {
+            this.type = type;
+            this.comparison = isComparison(type);
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            if (comparison) {
+                return evalBoolean(frame);
+            }
+            return evalFloat(frame);
+        }
+
+        @Override
+        float evalFloat(Object[] frame) {
+            float a = first.evalFloat(frame);
+            float b = second.evalFloat(frame);
+            switch (type) {
+                case ADD:
+                    return a + b;
+                case SUBTRACT:
+                    return a - b;
+                case MULTIPLY:
+                    return a * b;
+                case DIVIDE:
+                    return a / b;
+                case REMAINDER:
+                    return a % b;
+                default:
+                    throw new AssertionError("Unexpected operation: " + type);
+            }
+        }
+
+        @Override
+        boolean evalBoolean(Object[] frame) {
+            float a = first.evalFloat(frame);
+            float b = second.evalFloat(frame);
+            switch (type) {
+                case EQUAL:
+                    return a == b;
+                case NOT_EQUAL:
+                    return a != b;
+                case LESS:
+                    return a < b;
+                case LESS_OR_EQUAL:
+                    return a <= b;
+                case GREATER:
+                    return a > b;
+                case GREATER_OR_EQUAL:
+                    return a >= b;
+                default:
+                    throw new AssertionError("Unexpected operation: " + type);
+            }
+        }
+    }
+
+    static class DoubleBinaryNode extends LinkedNode {
+        private final BinaryPlanType type;
+        private final boolean comparison;
+        private final LinkedNode first;
+        private final LinkedNode second;
+
+        DoubleBinaryNode(BinaryPlanType type, LinkedNode first, LinkedNode second) {
+            this.type = type;
+            this.comparison = isComparison(type);
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            if (comparison) {
+                return evalBoolean(frame);
+            }
+            return evalDouble(frame);
+        }
+
+        @Override
+        double evalDouble(Object[] frame) {
+            double a = first.evalDouble(frame);
+            double b = second.evalDouble(frame);
+            switch (type) {
+                case ADD:
+                    return a + b;
+                case SUBTRACT:
+                    return a - b;
+                case MULTIPLY:
+                    return a * b;
+                case DIVIDE:
+                    return a / b;
+                case REMAINDER:
+                    return a % b;
+                default:
+                    throw new AssertionError("Unexpected operation: " + type);
+            }
+        }
+
+        @Override
+        boolean evalBoolean(Object[] frame) {
+            double a = first.evalDouble(frame);
+            double b = second.evalDouble(frame);
+            switch (type) {
+                case EQUAL:
+                    return a == b;
+                case NOT_EQUAL:
+                    return a != b;
+                case LESS:
+                    return a < b;
+                case LESS_OR_EQUAL:
+                    return a <= b;
+                case GREATER:
+                    return a > b;
+                case GREATER_OR_EQUAL:
+                    return a >= b;
+                default:
+                    throw new AssertionError("Unexpected operation: " + type);
+            }
+        }
+    }
+
+    static class NegateNode extends LinkedNode {
+        private final ArithmeticType type;
+        private final LinkedNode operand;
+
+        NegateNode(ArithmeticType type, LinkedNode operand) {
+            this.type = type;
+            this.operand = operand;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            switch (type) {
+                case INT:
+                    return evalInt(frame);
+                case LONG:
+                    return evalLong(frame);
+                case FLOAT:
+                    return evalFloat(frame);
+                case DOUBLE:
+                    return evalDouble(frame);
+            }
+            throw new AssertionError("Unexpected type: " + type);
+        }
+
+        @Override
+        int evalInt(Object[] frame) {
+            return -operand.evalInt(frame);
+        }
+
+        @Override
+        long evalLong(Object[] frame) {
+            return -operand.evalLong(frame);
+        }
+
+        @Override
+        float evalFloat(Object[] frame) {
+            return -operand.evalFloat(frame);
+        }
+
+        @Override
+        double evalDouble(Object[] frame) {
+            return -operand.evalDouble(frame);
+        }
+    }
+
+    static class ReferenceEqualityNode extends LinkedNode {
+        private final boolean equal;
+        private final LinkedNode first;
+        private final LinkedNode second;
+
+        ReferenceEqualityNode(boolean equal, LinkedNode first, LinkedNode second) {
+            this.equal = equal;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            return evalBoolean(frame);
+        }
+
+        @Override
+        boolean evalBoolean(Object[] frame) {
+            Object a = first.evaluate(frame);
+            Object b = second.evaluate(frame);
+            return (a == b) == equal;
+        }
+    }
+
+    static class LogicalBinaryNode extends LinkedNode {
+        private final boolean and;
+        private final LinkedNode first;
+        private final LinkedNode second;
+
+        LogicalBinaryNode(boolean and, LinkedNode first, LinkedNode second) {
+            this.and = and;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            return evalBoolean(frame);
+        }
+
+        @Override
+        boolean evalBoolean(Object[] frame) {
+            boolean a = first.evalBoolean(frame);
+            if (a != and) {
+                return a;
+            }
+            return second.evalBoolean(frame);
+        }
+    }
+
+    static class NotNode extends LinkedNode {
+        private final LinkedNode operand;
+
+        NotNode(LinkedNode operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            return evalBoolean(frame);
+        }
+
+        @Override
+        boolean evalBoolean(Object[] frame) {
+            return !operand.evalBoolean(frame);
+        }
+    }
+
+    static class CastNode extends LinkedNode {
+        private final Class<?> type;
+        private final LinkedNode operand;
+
+        CastNode(Class<?> type, LinkedNode operand) {
+            this.type = type;
+            this.operand = operand;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            Object value = operand.evaluate(frame);
+            if (value != null && !type.isInstance(value)) {
+                throw new InterpretationException("Can't cast value to " + type);
+            }
+            return value;
+        }
+    }
+
+    static class ArithmeticCastNode extends LinkedNode {
+        private final ArithmeticType sourceType;
+        private final ArithmeticType targetType;
+        private final LinkedNode operand;
+
+        ArithmeticCastNode(ArithmeticType sourceType, ArithmeticType targetType, LinkedNode operand) {
+            this.sourceType = sourceType;
+            this.targetType = targetType;
+            this.operand = operand;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            if (sourceType == targetType) {
+                return operand.evaluate(frame);
+            }
+            switch (targetType) {
+                case INT:
+                    return evalInt(frame);
+                case LONG:
+                    return evalLong(frame);
+                case FLOAT:
+                    return evalFloat(frame);
+                case DOUBLE:
+                    return evalDouble(frame);
+            }
+            throw new AssertionError("Unexpected type: " + targetType);
+        }
+
+        @Override
+        int evalInt(Object[] frame) {
+            switch (sourceType) {
+                case INT:
+                    return operand.evalInt(frame);
+                case LONG:
+                    return (int) operand.evalLong(frame);
+                case FLOAT:
+                    return (int) operand.evalFloat(frame);
+                case DOUBLE:
+                    return (int) operand.evalDouble(frame);
+            }
+            throw new AssertionError("Unexpected type: " + sourceType);
+        }
+
+        @Override
+        long evalLong(Object[] frame) {
+            switch (sourceType) {
+                case INT:
+                    return operand.evalInt(frame);
+                case LONG:
+                    return operand.evalLong(frame);
+                case FLOAT:
+                    return (long) operand.evalFloat(frame);
+                case DOUBLE:
+                    return (long) operand.evalDouble(frame);
+            }
+            throw new AssertionError("Unexpected type: " + sourceType);
+        }
+
+        @Override
+        float evalFloat(Object[] frame) {
+            switch (sourceType) {
+                case INT:
+                    return operand.evalInt(frame);
+                case LONG:
+                    return operand.evalLong(frame);
+                case FLOAT:
+                    return operand.evalFloat(frame);
+                case DOUBLE:
+                    return (float) operand.evalDouble(frame);
+            }
+            throw new AssertionError("Unexpected type: " + sourceType);
+        }
+
+        @Override
+        double evalDouble(Object[] frame) {
+            switch (sourceType) {
+                case INT:
+                    return operand.evalInt(frame);
+                case LONG:
+                    return operand.evalLong(frame);
+                case FLOAT:
+                    return operand.evalFloat(frame);
+                case DOUBLE:
+                    return operand.evalDouble(frame);
+            }
+            throw new AssertionError("Unexpected type: " + sourceType);
+        }
+    }
+
+    static class CastFromIntegerNode extends LinkedNode {
+        private final IntegerSubtype type;
+        private final LinkedNode operand;
+
+        CastFromIntegerNode(IntegerSubtype type, LinkedNode operand) {
+            this.type = type;
+            this.operand = operand;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            int value = operand.evalInt(frame);
+            switch (type) {
+                case BYTE:
+                    return (byte) value;
+                case CHAR:
+                    return (char) value;
+                case SHORT:
+                    return (short) value;
+            }
+            throw new AssertionError("Unexpected type: " + type);
+        }
+    }
+
+    static class CastToIntegerNode extends LinkedNode {
+        private final IntegerSubtype type;
+        private final LinkedNode operand;
+
+        CastToIntegerNode(IntegerSubtype type, LinkedNode operand) {
+            this.type = type;
+            this.operand = operand;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            return evalInt(frame);
+        }
+
+        @Override
+        int evalInt(Object[] frame) {
+            Object value = operand.evaluate(frame);
+            switch (type) {
+                case BYTE:
+                    return ((Byte) value).intValue();
+                case CHAR:
+                    return (int) (Character) value;
+                case SHORT:
+                    return ((Short) value).intValue();
+            }
+            throw new AssertionError("Unexpected type: " + type);
+        }
+    }
+
+    static class ArrayElementNode extends LinkedNode {
+        private final LinkedNode array;
+        private final LinkedNode index;
+
+        ArrayElementNode(LinkedNode array, LinkedNode index) {
+            this.array = array;
+            this.index = index;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            Object arrayValue = array.evaluate(frame);
+            int indexValue = index.evalInt(frame);
+            return Array.get(arrayValue, indexValue);
+        }
+    }
+
+    static class ArrayLengthNode extends LinkedNode {
+        private final LinkedNode array;
+
+        ArrayLengthNode(LinkedNode array) {
+            this.array = array;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            return evalInt(frame);
+        }
+
+        @Override
+        int evalInt(Object[] frame) {
+            return Array.getLength(array.evaluate(frame));
+        }
+    }
+
+    static class FieldNode extends LinkedNode {
+        private final Field field;
+        private final LinkedNode instance;
+
+        FieldNode(Field field, LinkedNode instance) {
+            this.field = field;
+            this.instance = instance;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            Object instanceValue = instance != null ? instance.evaluate(frame) : null;
+            try {
+                return field.get(instanceValue);
+            } catch (IllegalAccessException e) {
+                throw new InterpretationException("Can't access field " + field.getDeclaringClass().getName()
+                        + "." + field.getName(), e);
+            }
+        }
+    }
+
+    static class FieldAssignmentNode extends LinkedNode {
+        private final Field field;
+        private final LinkedNode instance;
+        private final LinkedNode value;
+
+        FieldAssignmentNode(Field field, LinkedNode instance, LinkedNode value) {
+            this.field = field;
+            this.instance = instance;
+            this.value = value;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            Object instanceValue = instance != null ? instance.evaluate(frame) : null;
+            Object newValue = value.evaluate(frame);
+            try {
+                field.set(instanceValue, newValue);
+            } catch (IllegalAccessException e) {
+                throw new InterpretationException("Can't access field " + field.getDeclaringClass().getName()
+                        + "." + field.getName(), e);
+            }
+            return null;
+        }
+    }
+
+    static class InstanceOfNode extends LinkedNode {
+        private final Class<?> type;
+        private final LinkedNode operand;
+
+        InstanceOfNode(Class<?> type, LinkedNode operand) {
+            this.type = type;
+            this.operand = operand;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            return evalBoolean(frame);
+        }
+
+        @Override
+        boolean evalBoolean(Object[] frame) {
+            return type.isInstance(operand.evaluate(frame));
+        }
+    }
+
+    /**
+     * <p>Creates node that calls method handle with values of operands. Calls of up to four operands
+     * are specialized by arity, so that they don't allocate array of arguments.</p>
+     */
+    static LinkedNode createCall(MethodHandle handle, LinkedNode[] operands, String errorMessage) {
+        handle = handle.asType(handle.type().generic());
+        switch (operands.length) {
+            case 0:
+                return new Call0Node(handle, errorMessage);
+            case 1:
+                return new Call1Node(handle, operands, errorMessage);
+            case 2:
+                return new Call2Node(handle, operands, errorMessage);
+            case 3:
+                return new Call3Node(handle, operands, errorMessage);
+            case 4:
+                return new Call4Node(handle, operands, errorMessage);
+            default:
+                return new SpreadCallNode(handle.asSpreader(Object[].class, operands.length), operands,
+                        errorMessage);
+        }
+    }
+
+    abstract static class CallNode extends LinkedNode {
+        final MethodHandle handle;
+        private final String errorMessage;
+
+        CallNode(MethodHandle handle, String errorMessage) {
+            this.handle = handle;
+            this.errorMessage = errorMessage;
+        }
+
+        InterpretationException error(Throwable e) {
+            return new InterpretationException(errorMessage, e);
+        }
+    }
+
+    static class Call0Node extends CallNode {
+        Call0Node(MethodHandle handle, String errorMessage) {
+            super(handle, errorMessage);
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            try {
+                return (Object) handle.invokeExact();
+            } catch (Throwable e) {
+                throw error(e);
+            }
+        }
+    }
+
+    static class Call1Node extends CallNode {
+        private final LinkedNode first;
+
+        Call1Node(MethodHandle handle, LinkedNode[] operands, String errorMessage) {
+            super(handle, errorMessage);
+            first = operands[0];
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            Object a = first.evaluate(frame);
+            try {
+                return (Object) handle.invokeExact(a);
+            } catch (Throwable e) {
+                throw error(e);
+            }
+        }
+    }
+
+    static class Call2Node extends CallNode {
+        private final LinkedNode first;
+        private final LinkedNode second;
+
+        Call2Node(MethodHandle handle, LinkedNode[] operands, String errorMessage) {
+            super(handle, errorMessage);
+            first = operands[0];
+            second = operands[1];
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            Object a = first.evaluate(frame);
+            Object b = second.evaluate(frame);
+            try {
+                return (Object) handle.invokeExact(a, b);
+            } catch (Throwable e) {
+                throw error(e);
+            }
+        }
+    }
+
+    static class Call3Node extends CallNode {
+        private final LinkedNode first;
+        private final LinkedNode second;
+        private final LinkedNode third;
+
+        Call3Node(MethodHandle handle, LinkedNode[] operands, String errorMessage) {
+            super(handle, errorMessage);
+            first = operands[0];
+            second = operands[1];
+            third = operands[2];
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            Object a = first.evaluate(frame);
+            Object b = second.evaluate(frame);
+            Object c = third.evaluate(frame);
+            try {
+                return (Object) handle.invokeExact(a, b, c);
+            } catch (Throwable e) {
+                throw error(e);
+            }
+        }
+    }
+
+    static class Call4Node extends CallNode {
+        private final LinkedNode first;
+        private final LinkedNode second;
+        private final LinkedNode third;
+        private final LinkedNode fourth;
+
+        Call4Node(MethodHandle handle, LinkedNode[] operands, String errorMessage) {
+            super(handle, errorMessage);
+            first = operands[0];
+            second = operands[1];
+            third = operands[2];
+            fourth = operands[3];
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            Object a = first.evaluate(frame);
+            Object b = second.evaluate(frame);
+            Object c = third.evaluate(frame);
+            Object d = fourth.evaluate(frame);
+            try {
+                return (Object) handle.invokeExact(a, b, c, d);
+            } catch (Throwable e) {
+                throw error(e);
+            }
+        }
+    }
+
+    static class SpreadCallNode extends CallNode {
+        private final LinkedNode[] operands;
+
+        SpreadCallNode(MethodHandle handle, LinkedNode[] operands, String errorMessage) {
+            super(handle, errorMessage);
+            this.operands = operands;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            Object[] values = new Object[operands.length];
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = operands[i].evaluate(frame);
+            }
+            try {
+                return (Object) handle.invokeExact(values);
+            } catch (Throwable e) {
+                throw error(e);
+            }
+        }
+    }
+
+    static class ArrayConstructionNode extends LinkedNode {
+        private final Class<?> elementType;
+        private final LinkedNode[] elements;
+
+        ArrayConstructionNode(Class<?> elementType, LinkedNode[] elements) {
+            this.elementType = elementType;
+            this.elements = elements;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            Object array = Array.newInstance(elementType, elements.length);
+            if (!elementType.isPrimitive()) {
+                Object[] objects = (Object[]) array;
+                for (int i = 0; i < elements.length; ++i) {
+                    objects[i] = elements[i].evaluate(frame);
+                }
+                return objects;
+            }
+            for (int i = 0; i < elements.length; ++i) {
+                Array.set(array, i, elements[i].evaluate(frame));
+            }
+            return array;
+        }
+    }
+
+    static class ConditionalNode extends LinkedNode {
+        private final LinkedNode condition;
+        private final LinkedNode consequent;
+        private final LinkedNode alternative;
+
+        ConditionalNode(LinkedNode condition, LinkedNode consequent, LinkedNode alternative) {
+            this.condition = condition;
+            this.consequent = consequent;
+            this.alternative = alternative;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            return condition.evalBoolean(frame) ? consequent.evaluate(frame) : alternative.evaluate(frame);
+        }
+
+        @Override
+        int evalInt(Object[] frame) {
+            return condition.evalBoolean(frame) ? consequent.evalInt(frame) : alternative.evalInt(frame);
+        }
+
+        @Override
+        long evalLong(Object[] frame) {
+            return condition.evalBoolean(frame) ? consequent.evalLong(frame) : alternative.evalLong(frame);
+        }
+
+        @Override
+        float evalFloat(Object[] frame) {
+            return condition.evalBoolean(frame) ? consequent.evalFloat(frame) : alternative.evalFloat(frame);
+        }
+
+        @Override
+        double evalDouble(Object[] frame) {
+            return condition.evalBoolean(frame) ? consequent.evalDouble(frame) : alternative.evalDouble(frame);
+        }
+
+        @Override
+        boolean evalBoolean(Object[] frame) {
+            return condition.evalBoolean(frame) ? consequent.evalBoolean(frame) : alternative.evalBoolean(frame);
+        }
+    }
+
+    static class LambdaNode extends LinkedNode {
+        private final Class<?> type;
+        private final Method method;
+        private final int[] slots;
+        private final LinkedNode body;
+        private final MethodHandle factory;
+
+        LambdaNode(Class<?> type, Method method, int[] slots, LinkedNode body) {
+            this.type = type;
+            this.method = method;
+            this.slots = slots;
+            this.body = body;
+            factory = LambdaClassGenerator.getFactory(type, method);
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            if (factory == null) {
+                return createProxy(frame);
+            }
+            try {
+                return (Object) factory.invokeExact(this, frame);
+            } catch (Throwable e) {
+                throw new InterpretationException("Error creating lambda of " + type.getName(), e);
+            }
+        }
+
+        private Object createProxy(Object[] frame) {
+            return Proxy.newProxyInstance(ClassLoader.getSystemClassLoader(), new Class<?>[] { type },
+                    (proxy, invokedMethod, args) -> {
+                if (invokedMethod.getDeclaringClass() == Object.class) {
+                    return InterpretingEvaluatorBuilder.invokeObjectMethod(proxy, invokedMethod, args);
+                }
+                if (!invokedMethod.equals(method)) {
+                    return null;
+                }
+                Object[] lambdaFrame = enter(frame);
+                for (int i = 0; i < slots.length; ++i) {
+                    bind(lambdaFrame, i, args[i]);
+                }
+                return body.evaluate(lambdaFrame);
+            });
+        }
+
+        // Lambda may be called concurrently or reentrantly, so each call gets its own copy of frame
+        Object[] enter(Object[] frame) {
+            return frame.clone();
+        }
+
+        void bind(Object[] frame, int index, Object value) {
+            int slot = slots[index];
+            if (slot >= 0) {
+                frame[slot] = value;
+            }
+        }
+
+        LinkedNode getBody() {
+            return body;
+        }
+    }
+
+    static class ObjectNode extends LinkedNode {
+        private final MethodHandle constructor;
+        private final MethodHandle[] setters;
+        private final LinkedNode[] values;
+        private final String description;
+        private final String[] setterDescriptions;
+
+        ObjectNode(MethodHandle constructor, MethodHandle[] setters, LinkedNode[] values, String description,
+                String[] setterDescriptions) {
+            this.constructor = constructor;
+            this.setters = setters;
+            this.values = values;
+            this.description = description;
+            this.setterDescriptions = setterDescriptions;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            Object instance;
+            try {
+                instance = (Object) constructor.invokeExact();
+            } catch (Throwable e) {
+                throw new InterpretationException("Error calling constructor " + description, e);
+            }
+            for (int i = 0; i < setters.length; ++i) {
+                Object value = values[i].evaluate(frame);
+                try {
+                    setters[i].invokeExact(instance, value);
+                } catch (Throwable e) {
+                    throw new InterpretationException("Error calling method " + setterDescriptions[i], e);
+                }
+            }
+            return instance;
+        }
+    }
+
+    static class FailingNode extends LinkedNode {
+        private final String message;
+        private final Throwable cause;
+
+        FailingNode(String message, Throwable cause) {
+            this.message = message;
+            this.cause = cause;
+        }
+
+        @Override
+        Object evaluate(Object[] frame) {
+            throw new InterpretationException(message, cause);
+        }
+    }
+}
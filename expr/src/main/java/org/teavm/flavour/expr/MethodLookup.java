@@ -19,29 +19,26 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.function.Function;
 import org.teavm.flavour.expr.ast.Expr;
 import org.teavm.flavour.expr.type.GenericArray;
 import org.teavm.flavour.expr.type.GenericClass;
 import org.teavm.flavour.expr.type.GenericMethod;
-import org.teavm.flavour.expr.type.GenericType;
 import org.teavm.flavour.expr.type.GenericTypeNavigator;
 import org.teavm.flavour.expr.type.MethodWithFreshTypeVars;
 import org.teavm.flavour.expr.type.PrimitiveArray;
-import org.teavm.flavour.expr.type.TypeArgument;
 import org.teavm.flavour.expr.type.TypeInference;
 import org.teavm.flavour.expr.type.TypeInferenceStatePoint;
 import org.teavm.flavour.expr.type.TypeUtils;
 import org.teavm.flavour.expr.type.TypeVar;
 import org.teavm.flavour.expr.type.ValueType;
-import org.teavm.flavour.expr.type.meta.ClassDescriber;
-import org.teavm.flavour.expr.type.meta.MethodDescriber;
 
+/**
+ * <p>Chooses method to invoke among candidates with given name, like Java compiler does. Lookup is bound to
+ * {@link TypeInference} of a single compilation and is not thread-safe, while method candidates come from
+ * the shared {@link GenericTypeNavigator}.</p>
+ */
 public class MethodLookup {
     private TypeInference inference;
     private GenericTypeNavigator navigator;
@@ -71,7 +68,7 @@ public class MethodLookup {
         varArgs = false;
         returnType = null;
         candidates.clear();
-        candidates.addAll(findAllMethods(classes, name, isStatic));
+        candidates.addAll(navigator.findAllMethods(classes, name, isStatic));
         if (candidates.isEmpty()) {
             return null;
         }
@@ -237,60 +234,6 @@ public class MethodLookup {
         return result;
     }
 
-    private List<GenericMethod> findAllMethods(Collection<GenericClass> classes, String name, boolean isStatic) {
-        List<GenericMethod> methods = new ArrayList<>();
-        Set<String> visited = new HashSet<>();
-
-        for (GenericClass cls : classes) {
-            findAllMethodsRec(cls, name, isStatic, visited, methods);
-        }
-        return methods;
-    }
-
-    private void findAllMethodsRec(GenericClass cls, String name, boolean isStatic, Set<String> visited,
-            List<GenericMethod> methods) {
-        if (!visited.add(cls.getName())) {
-            return;
-        }
-        ClassDescriber desc = navigator.getClassRepository().describe(cls.getName());
-        if (desc == null) {
-            return;
-        }
-
-        Map<TypeVar, TypeArgument> substitutionMap = new HashMap<>();
-        TypeVar[] typeVars = desc.getTypeVariables();
-        for (int i = 0; i < typeVars.length; ++i) {
-            substitutionMap.put(typeVars[i], cls.getArguments().get(i));
-        }
-        for (MethodDescriber methodDesc : desc.getMethods()) {
-            if (!methodDesc.getName().equals(name) || methodDesc.isStatic() != isStatic) {
-                continue;
-            }
-            ValueType[] params = Arrays.stream(methodDesc.getParameterTypes())
-                    .map(arg -> {
-                        if (arg instanceof GenericType) {
-                            arg = ((GenericType) arg).substituteArgs(substitutionMap::get);
-                        }
-                        return arg;
-                    })
-                    .toArray(ValueType[]::new);
-            ValueType returnType = methodDesc.getReturnType();
-            if (returnType instanceof GenericType) {
-                returnType = ((GenericType) returnType).substituteArgs(substitutionMap::get);
-            }
-            GenericMethod method = new GenericMethod(methodDesc, cls, params, returnType);
-            methods.add(method);
-        }
-
-        GenericClass parentClass = navigator.getParent(cls);
-        if (parentClass != null) {
-            findAllMethodsRec(parentClass, name, isStatic, visited, methods);
-        }
-        for (GenericClass iface : navigator.getInterfaces(cls)) {
-            findAllMethodsRec(iface, name, isStatic, visited, methods);
-        }
-    }
-
     private boolean isMoreSpecific(GenericMethod specific, GenericMethod general) {
         if (!specific.getDescriber().isStatic() && general.getDescriber().isStatic()) {
             if (navigator.sublassPath(specific.getActualOwner(), general.getActualOwner().getName()) == null) {
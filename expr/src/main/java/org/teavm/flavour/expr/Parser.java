@@ -15,21 +15,23 @@
  */
 package org.teavm.flavour.expr;
 
-import java.io.IOException;
-import java.io.Reader;
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.antlr.v4.runtime.ANTLRErrorListener;
 import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
 import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.teavm.flavour.expr.antlr.ExprBaseVisitor;
 import org.teavm.flavour.expr.antlr.ExprLexer;
 import org.teavm.flavour.expr.antlr.ExprParser;
@@ -63,6 +65,7 @@ import org.teavm.flavour.expr.type.TypeArgument;
 import org.teavm.flavour.expr.type.ValueType;
 
 public class Parser {
+    private static final ThreadLocal<ParserState> parserState = ThreadLocal.withInitial(ParserState::new);
     private ClassResolver classes;
     private List<Diagnostic> diagnostics = new ArrayList<>();
 
@@ -71,32 +74,34 @@ public class Parser {
     }
 
     public ObjectExpr parseObject(String text) {
-        diagnostics.clear();
-        try (Reader reader = new StringReader(text)) {
-            ExprLexer lexer = new ExprLexer(new ANTLRInputStream(reader));
-            lexer.removeErrorListener(ConsoleErrorListener.INSTANCE);
-            lexer.addErrorListener(errorListener);
-            ExprParser exprParser = new ExprParser(new CommonTokenStream(lexer));
-            exprParser.removeErrorListener(ConsoleErrorListener.INSTANCE);
-            exprParser.addErrorListener(errorListener);
-            return exprParser.object().accept(objectVisitor);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        return parse(text, ExprParser::object, objectVisitor);
     }
 
     public Expr parse(String text) {
+        return parse(text, ExprParser::lambda, exprVisitor);
+    }
+
+    private <T> T parse(String text, Function<ExprParser, ? extends ParserRuleContext> rule,
+            ExprBaseVisitor<T> visitor) {
         diagnostics.clear();
-        try (Reader reader = new StringReader(text)) {
-            ExprLexer lexer = new ExprLexer(new ANTLRInputStream(reader));
-            lexer.removeErrorListener(ConsoleErrorListener.INSTANCE);
-            lexer.addErrorListener(errorListener);
-            ExprParser exprParser = new ExprParser(new CommonTokenStream(lexer));
-            exprParser.removeErrorListener(ConsoleErrorListener.INSTANCE);
-            exprParser.addErrorListener(errorListener);
-            return exprParser.lambda().accept(exprVisitor);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        ParserState state = parserState.get();
+        if (state.inUse) {
+            // Parser invoked while parsing on the same thread, e.g. by some visitor; don't disturb outer parse
+            state = new ParserState();
+        }
+        state.inUse = true;
+        try {
+            ExprParser exprParser = state.start(text, errorListener);
+            ParserRuleContext ctx;
+            try {
+                ctx = rule.apply(exprParser);
+            } catch (ParseCancellationException e) {
+                state.fallBackToLL(errorListener);
+                ctx = rule.apply(exprParser);
+            }
+            return ctx.accept(visitor);
+        } finally {
+            state.finish();
         }
     }
 
@@ -120,6 +125,48 @@ public class Parser {
     };
 
 
+    /**
+     * <p>Lexer and parser reused by all parses on a thread. Every parse first runs in SLL prediction mode,
+     * which is much faster, but can fail on valid input. SLL mode bails out on first error, and only then the
+     * input is parsed again in full LL mode with regular error reporting and recovery.</p>
+     */
+    static class ParserState {
+        ExprLexer lexer;
+        ExprParser parser;
+        boolean inUse;
+
+        ExprParser start(String text, ANTLRErrorListener errorListener) {
+            ANTLRInputStream input = new ANTLRInputStream(text);
+            if (lexer == null) {
+                lexer = new ExprLexer(input);
+                lexer.removeErrorListeners();
+                parser = new ExprParser(new CommonTokenStream(lexer));
+                parser.removeErrorListeners();
+            } else {
+                // Token stream is cheap and can't be reset in this version of ANTLR, so it's not reused
+                lexer.setInputStream(input);
+                parser.setTokenStream(new CommonTokenStream(lexer));
+            }
+            lexer.addErrorListener(errorListener);
+            parser.setErrorHandler(new BailErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            return parser;
+        }
+
+        void fallBackToLL(ANTLRErrorListener errorListener) {
+            parser.reset();
+            parser.addErrorListener(errorListener);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        }
+
+        void finish() {
+            lexer.removeErrorListeners();
+            parser.removeErrorListeners();
+            inUse = false;
+        }
+    }
+
     private <T extends Expr> T withLocation(T expr, ParserRuleContext ctx) {
         return withLocation(expr, ctx, ctx);
     }
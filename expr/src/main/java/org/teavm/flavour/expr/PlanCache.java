@@ -0,0 +1,119 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.teavm.flavour.expr.plan.Plan;
+import org.teavm.flavour.expr.plan.PlanReader;
+import org.teavm.flavour.expr.plan.PlanWriter;
+import org.teavm.flavour.expr.type.meta.ClassDescriberRepository;
+import org.teavm.flavour.expr.type.meta.ClassFingerprint;
+
+/**
+ * <p>Keeps compiled execution plans in a directory, so that expressions compiled by a previous run of
+ * the application can be executed without parsing and type inference. Each plan is stored together with
+ * the fingerprint of signatures of all classes it depends on, including their ancestors. When any of these
+ * classes changes, stored plan is ignored.</p>
+ *
+ * <p>Plans are identified by a key, which must include everything that affects compilation besides class
+ * signatures, i.e. expression text, expected type and imports. Cache never fails compilation: unreadable
+ * entries are reported as missing and entries that can't be written are skipped. Cache may be used by
+ * several threads and several processes at once.</p>
+ *
+ * <p>Entries also carry version of the compiler, by default {@link CodeFingerprint} of this library, since
+ * another version of the compiler may produce other plans for the same expression.</p>
+ */
+public class PlanCache {
+    private static final int MAGIC = 0x464C5043;
+    private static final String SUFFIX = ".plan";
+    private CacheDirectory directory;
+    private ClassDescriberRepository classRepository;
+
+    public PlanCache(Path directory) {
+        this(directory, EvaluatorSignature.SystemClasses.REPOSITORY);
+    }
+
+    public PlanCache(Path directory, ClassDescriberRepository classRepository) {
+        this(directory, classRepository, CodeFingerprint.of(PlanCache.class));
+    }
+
+    public PlanCache(Path directory, ClassDescriberRepository classRepository, String compilerVersion) {
+        this.directory = new CacheDirectory(directory, MAGIC, SUFFIX, compilerVersion);
+        this.classRepository = classRepository;
+    }
+
+    public Plan get(String key) {
+        return directory.read(key, input -> {
+            List<String> classNames = CacheDirectory.readNames(input);
+            if (!CacheDirectory.readDigest(input, fingerprint(classNames))) {
+                return null;
+            }
+            return new PlanReader(input).read();
+        });
+    }
+
+    public void put(String key, Plan plan) {
+        put(key, plan, Collections.emptyList());
+    }
+
+    /**
+     * <p>Stores plan.</p>
+     *
+     * @param dependencies names of classes that affect compilation of the plan, although plan itself
+     * does not refer to them, for example, types of variables.
+     */
+    public void put(String key, Plan plan, Collection<String> dependencies) {
+        ByteArrayOutputStream planBytes = new ByteArrayOutputStream();
+        PlanWriter planWriter = new PlanWriter(new DataOutputStream(planBytes));
+        try {
+            planWriter.write(plan);
+        } catch (IOException | IllegalArgumentException e) {
+            // Plan will be compiled again next time
+            return;
+        }
+        List<String> classNames = new ArrayList<>(new LinkedHashSet<>(dependencies));
+        for (String className : planWriter.getReferencedClasses()) {
+            if (!dependencies.contains(className)) {
+                classNames.add(className);
+            }
+        }
+        directory.write(key, output -> {
+            CacheDirectory.writeNames(output, classNames);
+            CacheDirectory.writeDigest(output, fingerprint(classNames));
+            planBytes.writeTo(output);
+        });
+    }
+
+    public long getHitCount() {
+        return directory.getHitCount();
+    }
+
+    public long getMissCount() {
+        return directory.getMissCount();
+    }
+
+    private byte[] fingerprint(List<String> classNames) {
+        return ClassFingerprint.compute(classRepository, classNames);
+    }
+}
@@ -0,0 +1,525 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.plan;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Simplifies execution plan without changing its meaning. Performs the following transformations:</p>
+ *
+ * <ul>
+ *   <li>evaluates arithmetic, logical and cast operations whose operands are constants;</li>
+ *   <li>replaces conditional with one of its branches when condition is constant;</li>
+ *   <li>merges nested string concatenations into a single <code>StringBuilder</code> chain and joins
+ *     adjacent constant strings.</li>
+ * </ul>
+ *
+ * <p>Optimizer reuses and modifies nodes of the original plan, so the original plan should not be used
+ * after optimization.</p>
+ */
+public class PlanOptimizer implements PlanVisitor {
+    private static final String STRING_BUILDER = "java.lang.StringBuilder";
+    private static final String APPEND_DESC = "(Ljava/lang/String;)Ljava/lang/StringBuilder;";
+    private Plan result;
+
+    public Plan optimize(Plan plan) {
+        plan.acceptVisitor(this);
+        return result;
+    }
+
+    private void optimizeAll(List<Plan> plans) {
+        for (int i = 0; i < plans.size(); ++i) {
+            plans.set(i, optimize(plans.get(i)));
+        }
+    }
+
+    private static ConstantPlan constant(Object value, Plan original) {
+        ConstantPlan plan = new ConstantPlan(value);
+        plan.setLocation(original.getLocation());
+        return plan;
+    }
+
+    private static boolean isConstant(Plan plan) {
+        return plan instanceof ConstantPlan;
+    }
+
+    private static Object valueOf(Plan plan) {
+        return ((ConstantPlan) plan).getValue();
+    }
+
+    @Override
+    public void visit(ConstantPlan plan) {
+        result = plan;
+    }
+
+    @Override
+    public void visit(VariablePlan plan) {
+        result = plan;
+    }
+
+    @Override
+    public void visit(BinaryPlan plan) {
+        plan.setFirstOperand(optimize(plan.getFirstOperand()));
+        plan.setSecondOperand(optimize(plan.getSecondOperand()));
+        result = plan;
+        if (isConstant(plan.getFirstOperand()) && isConstant(plan.getSecondOperand())) {
+            Object value = fold(plan.getType(), plan.getValueType(), valueOf(plan.getFirstOperand()),
+                    valueOf(plan.getSecondOperand()));
+            if (value != null) {
+                result = constant(value, plan);
+            }
+        }
+    }
+
+    private static Object fold(BinaryPlanType type, ArithmeticType valueType, Object first, Object second) {
+        switch (valueType) {
+            case INT: {
+                int a = (Integer) first;
+                int b = (Integer) second;
+                switch (type) {
+                    case ADD:
+                        return a + b;
+                    case SUBTRACT:
+                        return a - b;
+                    case MULTIPLY:
+                        return a * b;
+                    case DIVIDE:
+                        // Leave division by zero to fail at run time
+                        return b != 0 ? a / b : null;
+                    case REMAINDER:
+                        return b != 0 ? a % b : null;
+                    default:
+                        return compare(type, Integer.compare(a, b));
+                }
+            }
+            case LONG: {
+                long a = (Long) first;
+                long b = (Long) second;
+                switch (type) {
+                    case ADD:
+                        return a + b;
+                    case SUBTRACT:
+                        return a - b;
+                    case MULTIPLY:
+                        return a * b;
+                    case DIVIDE:
+                        return b != 0 ? a / b : null;
+                    case REMAINDER:
+                        return b != 0 ? a % b : null;
+                    default:
+                        return compare(type, Long.compare(a, b));
+                }
+            }
+            case FLOAT: {
+                float a = (Float) first;
+                float b = (Float) second;
+                switch (type) {
+                    case ADD:
+                        return a + b;
+                    case SUBTRACT:
+                        return a - b;
+                    case MULTIPLY:
+                        return a * b;
+                    case DIVIDE:
+                        return a / b;
+                    case REMAINDER:
+                        return a % b;
+                    default:
+                        return compare(type, a, b);
+                }
+            }
+            case DOUBLE: {
+                double a = (Double) first;
+                double b = (Double) second;
+                switch (type) {
+                    case ADD:
+                        return a + b;
+                    case SUBTRACT:
+                        return a - b;
+                    case MULTIPLY:
+                        return a * b;
+                    case DIVIDE:
+                        return a / b;
+                    case REMAINDER:
+                        return a % b;
+                    default:
+                        return compare(type, a, b);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Boolean compare(BinaryPlanType type, int comparison) {
+        switch (type) {
+            case EQUAL:
+                return comparison == 0;
+            case NOT_EQUAL:
+                return comparison != 0;
+            case LESS:
+                return comparison < 0;
+            case LESS_OR_EQUAL:
+                return comparison <= 0;
+            case GREATER:
+                return comparison > 0;
+            case GREATER_OR_EQUAL:
+                return comparison >= 0;
+            default:
+                return null;
+        }
+    }
+
+    // Unlike Double.compare, operators treat -0.0 as equal to 0.0 and NaN as unordered
+    private static Boolean compare(BinaryPlanType type, double a, double b) {
+        switch (type) {
+            case EQUAL:
+                return a == b;
+            case NOT_EQUAL:
+                return a != b;
+            case LESS:
+                return a < b;
+            case LESS_OR_EQUAL:
+                return a <= b;
+            case GREATER:
+                return a > b;
+            case GREATER_OR_EQUAL:
+                return a >= b;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public void visit(NegatePlan plan) {
+        plan.setOperand(optimize(plan.getOperand()));
+        result = plan;
+        if (isConstant(plan.getOperand())) {
+            Object value = valueOf(plan.getOperand());
+            switch (plan.getValueType()) {
+                case INT:
+                    result = constant(-(Integer) value, plan);
+                    break;
+                case LONG:
+                    result = constant(-(Long) value, plan);
+                    break;
+                case FLOAT:
+                    result = constant(-(Float) value, plan);
+                    break;
+                case DOUBLE:
+                    result = constant(-(Double) value, plan);
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void visit(ReferenceEqualityPlan plan) {
+        plan.setFirstOperand(optimize(plan.getFirstOperand()));
+        plan.setSecondOperand(optimize(plan.getSecondOperand()));
+        result = plan;
+    }
+
+    @Override
+    public void visit(LogicalBinaryPlan plan) {
+        plan.setFirstOperand(optimize(plan.getFirstOperand()));
+        plan.setSecondOperand(optimize(plan.getSecondOperand()));
+        result = plan;
+        if (isConstant(plan.getFirstOperand())) {
+            boolean first = (Boolean) valueOf(plan.getFirstOperand());
+            boolean and = plan.getType() == LogicalBinaryPlanType.AND;
+            result = first == and ? plan.getSecondOperand() : constant(first, plan);
+        }
+    }
+
+    @Override
+    public void visit(NotPlan plan) {
+        plan.setOperand(optimize(plan.getOperand()));
+        result = plan;
+        if (isConstant(plan.getOperand())) {
+            result = constant(!(Boolean) valueOf(plan.getOperand()), plan);
+        }
+    }
+
+    @Override
+    public void visit(CastPlan plan) {
+        plan.setOperand(optimize(plan.getOperand()));
+        result = plan;
+        if (isConstant(plan.getOperand())) {
+            Object value = valueOf(plan.getOperand());
+            if (value == null || plan.getTargetType().equals(descriptorOf(value.getClass()))) {
+                result = constant(value, plan);
+            }
+        }
+    }
+
+    private static String descriptorOf(Class<?> cls) {
+        return "L" + cls.getName().replace('.', '/') + ";";
+    }
+
+    @Override
+    public void visit(ArithmeticCastPlan plan) {
+        plan.setOperand(optimize(plan.getOperand()));
+        result = plan;
+        if (isConstant(plan.getOperand())) {
+            Number value = (Number) valueOf(plan.getOperand());
+            switch (plan.getTargetType()) {
+                case INT:
+                    result = constant(value.intValue(), plan);
+                    break;
+                case LONG:
+                    result = constant(value.longValue(), plan);
+                    break;
+                case FLOAT:
+                    result = constant(value.floatValue(), plan);
+                    break;
+                case DOUBLE:
+                    result = constant(value.doubleValue(), plan);
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void visit(CastFromIntegerPlan plan) {
+        plan.setOperand(optimize(plan.getOperand()));
+        result = plan;
+        if (isConstant(plan.getOperand())) {
+            int value = (Integer) valueOf(plan.getOperand());
+            switch (plan.getType()) {
+                case BYTE:
+                    result = constant((byte) value, plan);
+                    break;
+                case SHORT:
+                    result = constant((short) value, plan);
+                    break;
+                case CHAR:
+                    result = constant((char) value, plan);
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void visit(CastToIntegerPlan plan) {
+        plan.setOperand(optimize(plan.getOperand()));
+        result = plan;
+        if (isConstant(plan.getOperand())) {
+            Object value = valueOf(plan.getOperand());
+            switch (plan.getType()) {
+                case BYTE:
+                case SHORT:
+                    result = constant(((Number) value).intValue(), plan);
+                    break;
+                case CHAR:
+                    result = constant((int) (Character) value, plan);
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void visit(GetArrayElementPlan plan) {
+        plan.setArray(optimize(plan.getArray()));
+        plan.setIndex(optimize(plan.getIndex()));
+        result = plan;
+    }
+
+    @Override
+    public void visit(ArrayLengthPlan plan) {
+        plan.setArray(optimize(plan.getArray()));
+        result = plan;
+    }
+
+    @Override
+    public void visit(FieldPlan plan) {
+        if (plan.getInstance() != null) {
+            plan.setInstance(optimize(plan.getInstance()));
+        }
+        result = plan;
+    }
+
+    @Override
+    public void visit(FieldAssignmentPlan plan) {
+        if (plan.getInstance() != null) {
+            plan.setInstance(optimize(plan.getInstance()));
+        }
+        plan.setValue(optimize(plan.getValue()));
+        result = plan;
+    }
+
+    @Override
+    public void visit(InstanceOfPlan plan) {
+        plan.setOperand(optimize(plan.getOperand()));
+        result = plan;
+    }
+
+    @Override
+    public void visit(InvocationPlan plan) {
+        if (plan.getInstance() != null) {
+            plan.setInstance(optimize(plan.getInstance()));
+        }
+        optimizeAll(plan.getArguments());
+        result = plan;
+
+        if (isToStringConversion(plan) && isConstant(plan.getArguments().get(0))) {
+            result = constant(String.valueOf(valueOf(plan.getArguments().get(0))), plan);
+        } else if (isConcatenation(plan)) {
+            result = flattenConcatenation(plan);
+        }
+    }
+
+    private static boolean isToStringConversion(InvocationPlan plan) {
+        if (plan.getInstance() != null || plan.getArguments().size() != 1
+                || !plan.getMethodDesc().endsWith(")Ljava/lang/String;")) {
+            return false;
+        }
+        switch (plan.getClassName()) {
+            case "java.lang.String":
+                return plan.getMethodName().equals("valueOf");
+            case "java.lang.Boolean":
+            case "java.lang.Character":
+            case "java.lang.Byte":
+            case "java.lang.Short":
+            case "java.lang.Integer":
+            case "java.lang.Long":
+            case "java.lang.Float":
+            case "java.lang.Double":
+                return plan.getMethodName().equals("toString");
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * <p>Checks whether plan has form <code>new StringBuilder().append(a).append(b)...toString()</code>,
+     * as produced by compiler for string concatenation.</p>
+     */
+    private static boolean isConcatenation(Plan plan) {
+        return getConcatenationParts(plan) != null;
+    }
+
+    private static List<Plan> getConcatenationParts(Plan plan) {
+        if (!(plan instanceof InvocationPlan)) {
+            return null;
+        }
+        InvocationPlan invocation = (InvocationPlan) plan;
+        if (!invocation.getClassName().equals(STRING_BUILDER) || !invocation.getMethodName().equals("toString")
+                || !invocation.getArguments().isEmpty()) {
+            return null;
+        }
+
+        List<Plan> parts = new ArrayList<>();
+        Plan current = invocation.getInstance();
+        while (current instanceof InvocationPlan) {
+            invocation = (InvocationPlan) current;
+            if (!invocation.getClassName().equals(STRING_BUILDER) || !invocation.getMethodName().equals("append")
+                    || !invocation.getMethodDesc().equals(APPEND_DESC)) {
+                return null;
+            }
+            parts.add(0, invocation.getArguments().get(0));
+            current = invocation.getInstance();
+        }
+        if (!(current instanceof ConstructionPlan)) {
+            return null;
+        }
+        ConstructionPlan construction = (ConstructionPlan) current;
+        if (!construction.getClassName().equals(STRING_BUILDER) || !construction.getArguments().isEmpty()) {
+            return null;
+        }
+        return parts;
+    }
+
+    private Plan flattenConcatenation(InvocationPlan plan) {
+        List<Plan> parts = new ArrayList<>();
+        for (Plan part : getConcatenationParts(plan)) {
+            List<Plan> nestedParts = getConcatenationParts(part);
+            if (nestedParts != null) {
+                parts.addAll(nestedParts);
+            } else {
+                parts.add(part);
+            }
+        }
+
+        List<Plan> mergedParts = new ArrayList<>();
+        for (Plan part : parts) {
+            Plan last = !mergedParts.isEmpty() ? mergedParts.get(mergedParts.size() - 1) : null;
+            if (last != null && isConstant(last) && isConstant(part)) {
+                ConstantPlan merged = constant(String.valueOf(valueOf(last)) + valueOf(part), last);
+                mergedParts.set(mergedParts.size() - 1, merged);
+            } else {
+                mergedParts.add(part);
+            }
+        }
+
+        if (mergedParts.size() == 1 && isConstant(mergedParts.get(0))) {
+            return constant(String.valueOf(valueOf(mergedParts.get(0))), plan);
+        }
+
+        Plan instance = new ConstructionPlan(STRING_BUILDER, "()V");
+        instance.setLocation(plan.getLocation());
+        for (Plan part : mergedParts) {
+            instance = new InvocationPlan(STRING_BUILDER, "append", APPEND_DESC, instance, part);
+            instance.setLocation(plan.getLocation());
+        }
+        plan.setInstance(instance);
+        return plan;
+    }
+
+    @Override
+    public void visit(ConstructionPlan plan) {
+        optimizeAll(plan.getArguments());
+        result = plan;
+    }
+
+    @Override
+    public void visit(ArrayConstructionPlan plan) {
+        optimizeAll(plan.getElements());
+        result = plan;
+    }
+
+    @Override
+    public void visit(ConditionalPlan plan) {
+        Plan condition = optimize(plan.getCondition());
+        if (isConstant(condition)) {
+            result = optimize((Boolean) valueOf(condition) ? plan.getConsequent() : plan.getAlternative());
+            return;
+        }
+        plan.setCondition(condition);
+        plan.setConsequent(optimize(plan.getConsequent()));
+        plan.setAlternative(optimize(plan.getAlternative()));
+        result = plan;
+    }
+
+    @Override
+    public void visit(ThisPlan plan) {
+        result = plan;
+    }
+
+    @Override
+    public void visit(LambdaPlan plan) {
+        plan.setBody(optimize(plan.getBody()));
+        result = plan;
+    }
+
+    @Override
+    public void visit(ObjectPlan plan) {
+        for (ObjectPlanEntry entry : plan.getEntries()) {
+            entry.setValue(optimize(entry.getValue()));
+        }
+        result = plan;
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.plan;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.teavm.flavour.expr.Location;
+
+/**
+ * <p>Restores execution plans written by {@link PlanWriter}. Restored plans can be passed to the interpreter
+ * or to the class generator as is, without any further compilation.</p>
+ *
+ * <p>Input is not trusted: malformed input, including counts out of range, is reported by {@link IOException}
+ * rather than by runtime exceptions or by excessive allocation.</p>
+ */
+public class PlanReader {
+    private static final ArithmeticType[] ARITHMETIC_TYPES = ArithmeticType.values();
+    private static final IntegerSubtype[] INTEGER_SUBTYPES = IntegerSubtype.values();
+    private static final BinaryPlanType[] BINARY_TYPES = BinaryPlanType.values();
+    private static final LogicalBinaryPlanType[] LOGICAL_BINARY_TYPES = LogicalBinaryPlanType.values();
+    private static final ReferenceEqualityPlanType[] REFERENCE_EQUALITY_TYPES = ReferenceEqualityPlanType.values();
+    private static final int MAX_COUNT = 65536;
+    private DataInput input;
+    private boolean headerRead;
+    private List<String> strings = new ArrayList<>();
+
+    public PlanReader(DataInput input) {
+        this.input = input;
+    }
+
+    public Plan read() throws IOException {
+        if (!headerRead) {
+            if (input.readInt() != PlanWriter.MAGIC) {
+                throw new IOException("Input does not contain execution plan");
+            }
+            int version = readVarInt();
+            if (version != PlanWriter.VERSION) {
+                throw new IOException("Unsupported version of execution plan format: " + version);
+            }
+            headerRead = true;
+        }
+        return readPlan();
+    }
+
+    private Plan readPlan() throws IOException {
+        int header = readVarInt();
+        if (header == PlanWriter.NULL) {
+            return null;
+        }
+        Location location = null;
+        if ((header & 1) != 0) {
+            int start = readVarInt();
+            location = new Location(start, start + readVarInt());
+        }
+        Plan plan = readPlanBody(header >>> 1);
+        plan.setLocation(location);
+        return plan;
+    }
+
+    private Plan readPlanBody(int tag) throws IOException {
+        switch (tag) {
+            case PlanWriter.CONSTANT:
+                return new ConstantPlan(readValue());
+            case PlanWriter.VARIABLE:
+                return new VariablePlan(readString());
+            case PlanWriter.BINARY: {
+                BinaryPlanType type = readEnum(BINARY_TYPES);
+                ArithmeticType valueType = readEnum(ARITHMETIC_TYPES);
+                return new BinaryPlan(readPlan(), readPlan(), type, valueType);
+            }
+            case PlanWriter.NEGATE: {
+                ArithmeticType valueType = readEnum(ARITHMETIC_TYPES);
+                return new NegatePlan(readPlan(), valueType);
+            }
+            case PlanWriter.REFERENCE_EQUALITY: {
+                ReferenceEqualityPlanType type = readEnum(REFERENCE_EQUALITY_TYPES);
+                return new ReferenceEqualityPlan(readPlan(), readPlan(), type);
+            }
+            case PlanWriter.LOGICAL_BINARY: {
+                LogicalBinaryPlanType type = readEnum(LOGICAL_BINARY_TYPES);
+                return new LogicalBinaryPlan(readPlan(), readPlan(), type);
+            }
+            case PlanWriter.NOT:
+                return new NotPlan(readPlan());
+            case PlanWriter.CAST: {
+                String targetType = readString();
+                return new CastPlan(readPlan(), targetType);
+            }
+            case PlanWriter.ARITHMETIC_CAST: {
+                ArithmeticType sourceType = readEnum(ARITHMETIC_TYPES);
+                ArithmeticType targetType = readEnum(ARITHMETIC_TYPES);
+                return new ArithmeticCastPlan(sourceType, targetType, readPlan());
+            }
+            case PlanWriter.CAST_FROM_INTEGER:
+                return new CastFromIntegerPlan(readEnum(INTEGER_SUBTYPES), readPlan());
+            case PlanWriter.CAST_TO_INTEGER:
+                return new CastToIntegerPlan(readEnum(INTEGER_SUBTYPES), readPlan());
+            case PlanWriter.GET_ARRAY_ELEMENT:
+                return new GetArrayElementPlan(readPlan(), readPlan());
+            case PlanWriter.ARRAY_LENGTH:
+                return new ArrayLengthPlan(readPlan());
+            case PlanWriter.FIELD: {
+                String className = readString();
+                String fieldName = readString();
+                String fieldDesc = readString();
+                return new FieldPlan(readPlan(), className, fieldName, fieldDesc);
+            }
+            case PlanWriter.FIELD_ASSIGNMENT: {
+                String className = readString();
+                String fieldName = readString();
+                String fieldDesc = readString();
+                return new FieldAssignmentPlan(readPlan(), className, fieldName, fieldDesc, readPlan());
+            }
+            case PlanWriter.INSTANCE_OF: {
+                String className = readString();
+                return new InstanceOfPlan(readPlan(), className);
+            }
+            case PlanWriter.INVOCATION: {
+                String className = readString();
+                String methodName = readString();
+                String methodDesc = readString();
+                Plan instance = readPlan();
+                return new InvocationPlan(className, methodName, methodDesc, instance, readPlans());
+            }
+            case PlanWriter.CONSTRUCTION: {
+                String className = readString();
+                String methodDesc = readString();
+                return new ConstructionPlan(className, methodDesc, readPlans());
+            }
+            case PlanWriter.ARRAY_CONSTRUCTION: {
+                ArrayConstructionPlan plan = new ArrayConstructionPlan(readString());
+                plan.getElements().addAll(readPlans());
+                return plan;
+            }
+            case PlanWriter.CONDITIONAL:
+                return new ConditionalPlan(readPlan(), readPlan(), readPlan());
+            case PlanWriter.THIS:
+                return new ThisPlan();
+            case PlanWriter.LAMBDA: {
+                String className = readString();
+                String methodName = readString();
+                String methodDesc = readString();
+                int boundVarCount = readCount();
+                List<String> boundVars = new ArrayList<>(boundVarCount);
+                for (int i = 0; i < boundVarCount; ++i) {
+                    boundVars.add(readString());
+                }
+                return new LambdaPlan(readPlan(), className, methodName, methodDesc, boundVars);
+            }
+            case PlanWriter.OBJECT: {
+                ObjectPlan plan = new ObjectPlan(readString());
+                int entryCount = readCount();
+                for (int i = 0; i < entryCount; ++i) {
+                    String setterName = readString();
+                    String setterDesc = readString();
+                    plan.getEntries().add(new ObjectPlanEntry(setterName, setterDesc, readPlan()));
+                }
+                return plan;
+            }
+            default:
+                throw new IOException("Unknown plan tag: " + tag);
+        }
+    }
+
+    private List<Plan> readPlans() throws IOException {
+        int count = readCount();
+        List<Plan> plans = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            plans.add(readPlan());
+        }
+        return plans;
+    }
+
+    private <T extends Enum<T>> T readEnum(T[] values) throws IOException {
+        int ordinal = input.readUnsignedByte();
+        if (ordinal >= values.length) {
+            throw new IOException("Wrong ordinal " + ordinal + " of " + values[0].getDeclaringClass().getName());
+        }
+        return values[ordinal];
+    }
+
+    private String readString() throws IOException {
+        int index = readVarInt();
+        switch (index) {
+            case PlanWriter.STRING_NULL:
+                return null;
+            case PlanWriter.STRING_NEW: {
+                String value = input.readUTF();
+                strings.add(value);
+                return value;
+            }
+            default:
+                if (index < 0 || index - 2 >= strings.size()) {
+                    throw new IOException("Wrong string index: " + index);
+                }
+                return strings.get(index - 2);
+        }
+    }
+
+    private Object readValue() throws IOException {
+        int tag = input.readUnsignedByte();
+        switch (tag) {
+            case PlanWriter.VALUE_NULL:
+                return null;
+            case PlanWriter.VALUE_BOOLEAN:
+                return input.readBoolean();
+            case PlanWriter.VALUE_BYTE:
+                return input.readByte();
+            case PlanWriter.VALUE_SHORT:
+                return input.readShort();
+            case PlanWriter.VALUE_CHAR:
+                return input.readChar();
+            case PlanWriter.VALUE_INT:
+                return input.readInt();
+            case PlanWriter.VALUE_LONG:
+                return input.readLong();
+            case PlanWriter.VALUE_FLOAT:
+                return input.readFloat();
+            case PlanWriter.VALUE_DOUBLE:
+                return input.readDouble();
+            case PlanWriter.VALUE_STRING:
+                return readString();
+            default:
+                throw new IOException("Unknown constant tag: " + tag);
+        }
+    }
+
+    private int readCount() throws IOException {
+        int count = readVarInt();
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IOException("Wrong count: " + count);
+        }
+        return count;
+    }
+
+    private int readVarInt() throws IOException {
+        int result = 0;
+        int shift = 0;
+        while (true) {
+            int b = input.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+            if (shift > 28) {
+                throw new IOException("Malformed variable-length integer");
+            }
+        }
+    }
+}
@@ -0,0 +1,487 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.plan;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.teavm.flavour.expr.Location;
+
+/**
+ * <p>Writes execution plans in compact binary form, which {@link PlanReader} restores. Strings, such as
+ * class names and method descriptors, are written once per writer and then referred to by index, so a writer
+ * should be used for a single stream.</p>
+ *
+ * <p>Along the way, writer collects names of all classes that plans refer to, so that caller can
+ * check whether these classes changed since the plan was written.</p>
+ */
+public class PlanWriter {
+    static final int MAGIC = 0x464C504C;
+    static final int VERSION = 1;
+
+    static final int NULL = 0;
+    static final int CONSTANT = 1;
+    static final int VARIABLE = 2;
+    static final int BINARY = 3;
+    static final int NEGATE = 4;
+    static final int REFERENCE_EQUALITY = 5;
+    static final int LOGICAL_BINARY = 6;
+    static final int NOT = 7;
+    static final int CAST = 8;
+    static final int ARITHMETIC_CAST = 9;
+    static final int CAST_FROM_INTEGER = 10;
+    static final int CAST_TO_INTEGER = 11;
+    static final int GET_ARRAY_ELEMENT = 12;
+    static final int ARRAY_LENGTH = 13;
+    static final int FIELD = 14;
+    static final int FIELD_ASSIGNMENT = 15;
+    static final int INSTANCE_OF = 16;
+    static final int INVOCATION = 17;
+    static final int CONSTRUCTION = 18;
+    static final int ARRAY_CONSTRUCTION = 19;
+    static final int CONDITIONAL = 20;
+    static final int THIS = 21;
+    static final int LAMBDA = 22;
+    static final int OBJECT = 23;
+
+    static final int VALUE_NULL = 0;
+    static final int VALUE_BOOLEAN = 1;
+    static final int VALUE_BYTE = 2;
+    static final int VALUE_SHORT = 3;
+    static final int VALUE_CHAR = 4;
+    static final int VALUE_INT = 5;
+    static final int VALUE_LONG = 6;
+    static final int VALUE_FLOAT = 7;
+    static final int VALUE_DOUBLE = 8;
+    static final int VALUE_STRING = 9;
+
+    static final int STRING_NULL = 0;
+    static final int STRING_NEW = 1;
+
+    private DataOutput output;
+    private boolean headerWritten;
+    private Map<String, Integer> strings = new HashMap<>();
+    private Set<String> referencedClasses = new LinkedHashSet<>();
+    private Visitor visitor = new Visitor();
+
+    public PlanWriter(DataOutput output) {
+        this.output = output;
+    }
+
+    public void write(Plan plan) throws IOException {
+        if (!headerWritten) {
+            output.writeInt(MAGIC);
+            writeVarInt(VERSION);
+            headerWritten = true;
+        }
+        try {
+            writePlan(plan);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * <p>Gets names of classes referred to by plans written so far, either directly or via descriptors
+     * of methods, fields and types.</p>
+     */
+    public Set<String> getReferencedClasses() {
+        return referencedClasses;
+    }
+
+    private void writePlan(Plan plan) throws IOException {
+        if (plan == null) {
+            writeVarInt(NULL);
+            return;
+        }
+        plan.acceptVisitor(visitor);
+    }
+
+    private void writePlans(List<Plan> plans) throws IOException {
+        writeVarInt(plans.size());
+        for (Plan plan : plans) {
+            writePlan(plan);
+        }
+    }
+
+    private void writeHeader(int tag, Plan plan) throws IOException {
+        Location location = plan.getLocation();
+        writeVarInt(tag << 1 | (location != null ? 1 : 0));
+        if (location != null) {
+            writeVarInt(location.getStart());
+            writeVarInt(location.getEnd() - location.getStart());
+        }
+    }
+
+    private void writeClassName(String className) throws IOException {
+        if (className != null) {
+            referencedClasses.add(className);
+        }
+        writeString(className);
+    }
+
+    private void writeDescriptor(String descriptor) throws IOException {
+        if (descriptor != null) {
+            int index = 0;
+            while (index < descriptor.length()) {
+                if (descriptor.charAt(index++) == 'L') {
+                    int end = descriptor.indexOf(';', index);
+                    referencedClasses.add(descriptor.substring(index, end).replace('/', '.'));
+                    index = end + 1;
+                }
+            }
+        }
+        writeString(descriptor);
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(STRING_NULL);
+            return;
+        }
+        Integer index = strings.get(value);
+        if (index != null) {
+            writeVarInt(index + 2);
+        } else {
+            strings.put(value, strings.size());
+            writeVarInt(STRING_NEW);
+            output.writeUTF(value);
+        }
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            output.writeByte(VALUE_NULL);
+        } else if (value instanceof Boolean) {
+            output.writeByte(VALUE_BOOLEAN);
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof Byte) {
+            output.writeByte(VALUE_BYTE);
+            output.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            output.writeByte(VALUE_SHORT);
+            output.writeShort((Short) value);
+        } else if (value instanceof Character) {
+            output.writeByte(VALUE_CHAR);
+            output.writeChar((Character) value);
+        } else if (value instanceof Integer) {
+            output.writeByte(VALUE_INT);
+            output.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            output.writeByte(VALUE_LONG);
+            output.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            output.writeByte(VALUE_FLOAT);
+            output.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            output.writeByte(VALUE_DOUBLE);
+            output.writeDouble((Double) value);
+        } else if (value instanceof String) {
+            output.writeByte(VALUE_STRING);
+            writeString((String) value);
+        } else {
+            throw new IllegalArgumentException("Can't write constant of type " + value.getClass().getName());
+        }
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    class Visitor implements PlanVisitor {
+        @Override
+        public void visit(ConstantPlan plan) {
+            try {
+                writeHeader(CONSTANT, plan);
+                writeValue(plan.getValue());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(VariablePlan plan) {
+            try {
+                writeHeader(VARIABLE, plan);
+                writeString(plan.getName());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(BinaryPlan plan) {
+            try {
+                writeHeader(BINARY, plan);
+                output.writeByte(plan.getType().ordinal());
+                output.writeByte(plan.getValueType().ordinal());
+                writePlan(plan.getFirstOperand());
+                writePlan(plan.getSecondOperand());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(NegatePlan plan) {
+            try {
+                writeHeader(NEGATE, plan);
+                output.writeByte(plan.getValueType().ordinal());
+                writePlan(plan.getOperand());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(ReferenceEqualityPlan plan) {
+            try {
+                writeHeader(REFERENCE_EQUALITY, plan);
+                output.writeByte(plan.getType().ordinal());
+                writePlan(plan.getFirstOperand());
+                writePlan(plan.getSecondOperand());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(LogicalBinaryPlan plan) {
+            try {
+                writeHeader(LOGICAL_BINARY, plan);
+                output.writeByte(plan.getType().ordinal());
+                writePlan(plan.getFirstOperand());
+                writePlan(plan.getSecondOperand());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(NotPlan plan) {
+            try {
+                writeHeader(NOT, plan);
+                writePlan(plan.getOperand());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(CastPlan plan) {
+            try {
+                writeHeader(CAST, plan);
+                writeDescriptor(plan.getTargetType());
+                writePlan(plan.getOperand());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(ArithmeticCastPlan plan) {
+            try {
+                writeHeader(ARITHMETIC_CAST, plan);
+                output.writeByte(plan.getSourceType().ordinal());
+                output.writeByte(plan.getTargetType().ordinal());
+                writePlan(plan.getOperand());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(CastFromIntegerPlan plan) {
+            try {
+                writeHeader(CAST_FROM_INTEGER, plan);
+                output.writeByte(plan.getType().ordinal());
+                writePlan(plan.getOperand());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(CastToIntegerPlan plan) {
+            try {
+                writeHeader(CAST_TO_INTEGER, plan);
+                output.writeByte(plan.getType().ordinal());
+                writePlan(plan.getOperand());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(GetArrayElementPlan plan) {
+            try {
+                writeHeader(GET_ARRAY_ELEMENT, plan);
+                writePlan(plan.getArray());
+                writePlan(plan.getIndex());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(ArrayLengthPlan plan) {
+            try {
+                writeHeader(ARRAY_LENGTH, plan);
+                writePlan(plan.getArray());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(FieldPlan plan) {
+            try {
+                writeHeader(FIELD, plan);
+                writeClassName(plan.getClassName());
+                writeString(plan.getFieldName());
+                writeDescriptor(plan.getFieldDesc());
+                writePlan(plan.getInstance());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(FieldAssignmentPlan plan) {
+            try {
+                writeHeader(FIELD_ASSIGNMENT, plan);
+                writeClassName(plan.getClassName());
+                writeString(plan.getFieldName());
+                writeDescriptor(plan.getFieldDesc());
+                writePlan(plan.getInstance());
+                writePlan(plan.getValue());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(InstanceOfPlan plan) {
+            try {
+                writeHeader(INSTANCE_OF, plan);
+                writeDescriptor(plan.getClassName());
+                writePlan(plan.getOperand());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(InvocationPlan plan) {
+            try {
+                writeHeader(INVOCATION, plan);
+                writeClassName(plan.getClassName());
+                writeString(plan.getMethodName());
+                writeDescriptor(plan.getMethodDesc());
+                writePlan(plan.getInstance());
+                writePlans(plan.getArguments());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(ConstructionPlan plan) {
+            try {
+                writeHeader(CONSTRUCTION, plan);
+                writeClassName(plan.getClassName());
+                writeDescriptor(plan.getMethodDesc());
+                writePlans(plan.getArguments());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(ArrayConstructionPlan plan) {
+            try {
+                writeHeader(ARRAY_CONSTRUCTION, plan);
+                writeDescriptor(plan.getElementType());
+                writePlans(plan.getElements());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(ConditionalPlan plan) {
+            try {
+                writeHeader(CONDITIONAL, plan);
+                writePlan(plan.getCondition());
+                writePlan(plan.getConsequent());
+                writePlan(plan.getAlternative());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(ThisPlan plan) {
+            try {
+                writeHeader(THIS, plan);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(LambdaPlan plan) {
+            try {
+                writeHeader(LAMBDA, plan);
+                writeClassName(plan.getClassName());
+                writeString(plan.getMethodName());
+                writeDescriptor(plan.getMethodDesc());
+                writeVarInt(plan.getBoundVars().size());
+                for (String boundVar : plan.getBoundVars()) {
+                    writeString(boundVar);
+                }
+                writePlan(plan.getBody());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visit(ObjectPlan plan) {
+            try {
+                writeHeader(OBJECT, plan);
+                writeClassName(plan.getClassName());
+                writeVarInt(plan.getEntries().size());
+                for (ObjectPlanEntry entry : plan.getEntries()) {
+                    writeString(entry.getSetterName());
+                    writeDescriptor(entry.getSetterDesc());
+                    writePlan(entry.getValue());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
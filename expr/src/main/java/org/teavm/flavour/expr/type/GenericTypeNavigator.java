@@ -18,53 +18,108 @@ package org.teavm.flavour.expr.type;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.teavm.flavour.expr.type.meta.ClassDescriber;
 import org.teavm.flavour.expr.type.meta.ClassDescriberRepository;
 import org.teavm.flavour.expr.type.meta.FieldDescriber;
 import org.teavm.flavour.expr.type.meta.MethodDescriber;
 
+/**
+ * <p>Answers questions about class hierarchy and class members in presence of generics.</p>
+ *
+ * <p>Navigator memoizes everything that depends on raw class names only: declared supertypes, ancestor sets,
+ * shape of class hierarchy and methods declared by each class with given name, arity and static flag.
+ * Generic arguments of actual classes are substituted into cached results on each query, so one navigator
+ * can serve any number of compilations. Navigator is thread-safe.</p>
+ *
+ * <p>Navigator also holds results of least upper bound and subtype checks over proper types, which type
+ * inference shares between compilations, and {@link InferenceStatistics} of these compilations.</p>
+ */
 public class GenericTypeNavigator {
-    private ClassDescriberRepository classRepository;
+    private static final int ANY_ARITY = -1;
+    private final ClassDescriberRepository classRepository;
+    private final Map<String, ClassInfo> classInfoCache = new ConcurrentHashMap<>();
+    private final Map<String, Hierarchy> hierarchyCache = new ConcurrentHashMap<>();
+    private final Map<MethodKey, MethodDescriber[]> declaredMethodsCache = new ConcurrentHashMap<>();
+    private final ProperTypeCache properTypeCache;
+    private final InferenceStatistics inferenceStatistics = new InferenceStatistics();
 
     public GenericTypeNavigator(ClassDescriberRepository classRepository) {
+        this(classRepository, ProperTypeCache.DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * <p>Creates navigator that remembers at most given number of least upper bounds and at most given number
+     * of subtype relations between proper types.</p>
+     */
+    public GenericTypeNavigator(ClassDescriberRepository classRepository, int maxCachedRelations) {
+        if (maxCachedRelations <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxCachedRelations);
+        }
         this.classRepository = classRepository;
+        properTypeCache = new ProperTypeCache(maxCachedRelations);
     }
 
     public ClassDescriberRepository getClassRepository() {
         return classRepository;
     }
 
-    public List<GenericClass> sublassPath(GenericClass subclass, String superclass) {
-        List<GenericClass> path = new ArrayList<>();
-        if (!subclassPathImpl(subclass, superclass, path)) {
-            return null;
-        }
-        return path;
+    public InferenceStatistics getInferenceStatistics() {
+        return inferenceStatistics;
+    }
+
+    ProperTypeCache getProperTypeCache() {
+        return properTypeCache;
     }
 
-    private boolean subclassPathImpl(GenericClass subclass, String superclass, List<GenericClass> path) {
-        path.add(subclass);
+    public List<GenericClass> sublassPath(GenericClass subclass, String superclass) {
         if (subclass.getName().equals(superclass)) {
-            return true;
+            List<GenericClass> path = new ArrayList<>();
+            path.add(subclass);
+            return path;
         }
-        GenericClass parent = getParent(subclass);
-        if (parent != null) {
-            if (subclassPathImpl(parent, superclass, path)) {
-                return true;
+        if (prepareSubstitutions(getClassInfo(subclass.getName()), subclass) == null) {
+            return null;
+        }
+        if (superclass.equals(Object.class.getName())) {
+            // Classes reach Object through superclasses, so there's no need to describe all their interfaces
+            List<GenericClass> path = superclassPath(subclass, superclass);
+            if (path != null) {
+                return path;
             }
         }
-        for (GenericClass iface : getInterfaces(subclass)) {
-            if (subclassPathImpl(iface, superclass, path)) {
-                return true;
+
+        Hierarchy hierarchy = getHierarchy(subclass.getName());
+        int index = hierarchy.indexOf(superclass);
+        if (index < 0) {
+            return null;
+        }
+        GenericClass[] actualClasses = new GenericClass[hierarchy.size()];
+        actualClasses[0] = subclass;
+        GenericClass[] path = new GenericClass[hierarchy.depth(index) + 1];
+        for (int i = path.length - 1; i >= 0; --i) {
+            path[i] = resolve(hierarchy, index, actualClasses);
+            index = hierarchy.parents[index];
+        }
+        return new ArrayList<>(Arrays.asList(path));
+    }
+
+    private List<GenericClass> superclassPath(GenericClass subclass, String superclass) {
+        List<GenericClass> path = new ArrayList<>();
+        for (GenericClass cls = subclass; cls != null; cls = getParent(cls)) {
+            path.add(cls);
+            if (cls.getName().equals(superclass)) {
+                return path;
             }
         }
-        path.remove(path.size() - 1);
-        return false;
+        return null;
     }
 
     public Set<String> commonSupertypes(Set<String> firstSet, Set<String> secondSet) {
@@ -86,111 +141,175 @@ public class GenericTypeNavigator {
             commonSupertypes.add(cls);
             return;
         }
-        ClassDescriber desc = classRepository.describe(cls);
-        if (desc == null) {
-            return;
-        }
-        if (desc.getSupertype() != null) {
-            commonSupertypesImpl(desc.getSupertype().getName(), ancestors, visited, commonSupertypes);
-        }
-        for (GenericClass iface : desc.getInterfaces()) {
-            commonSupertypesImpl(iface.getName(), ancestors, visited, commonSupertypes);
+        for (String supertype : getClassInfo(cls).supertypeNames) {
+            commonSupertypesImpl(supertype, ancestors, visited, commonSupertypes);
         }
     }
 
     public Set<String> allAncestors(Collection<String> classes) {
         Set<String> ancestors = new HashSet<>();
         for (String cls : classes) {
-            allAncestorsImpl(cls, ancestors);
+            ancestors.addAll(getAncestors(cls));
         }
         return ancestors;
     }
 
-    private void allAncestorsImpl(String cls, Set<String> ancestors) {
-        if (!ancestors.add(cls)) {
-            return;
-        }
-        ClassDescriber desc = classRepository.describe(cls);
-        if (desc == null) {
-            return;
-        }
-        if (desc.getSupertype() != null) {
-            allAncestorsImpl(desc.getSupertype().getName(), ancestors);
-        }
-        for (GenericClass iface : desc.getInterfaces()) {
-            allAncestorsImpl(iface.getName(), ancestors);
+    private Set<String> getAncestors(String cls) {
+        ClassInfo info = getClassInfo(cls);
+        Set<String> result = info.ancestors;
+        if (result == null) {
+            result = new HashSet<>();
+            result.add(cls);
+            for (String supertype : info.supertypeNames) {
+                result.addAll(getAncestors(supertype));
+            }
+            result = Collections.unmodifiableSet(result);
+            info.ancestors = result;
         }
+        return result;
     }
 
     public GenericClass getGenericClass(String className) {
-        ClassDescriber describer = classRepository.describe(className);
-        if (describer == null) {
+        ClassInfo info = getClassInfo(className);
+        if (info.describer == null) {
             return null;
         }
         List<TypeArgument> arguments = new ArrayList<>();
-        for (TypeVar var : describer.getTypeVariables()) {
+        for (TypeVar var : info.typeVariables) {
             arguments.add(TypeArgument.invariant(new GenericReference(var)));
         }
         return new GenericClass(className, arguments);
     }
 
     public GenericClass getParent(GenericClass cls) {
-        ClassDescriber describer = classRepository.describe(cls.getName());
-        if (describer == null) {
+        ClassInfo info = getClassInfo(cls.getName());
+        if (info.supertype == null) {
             return null;
         }
-        GenericClass superType = describer.getSupertype();
-        if (superType == null) {
+        Map<TypeVar, TypeArgument> substitutions = prepareSubstitutions(info, cls);
+        if (substitutions == null) {
             return null;
         }
+        return info.supertype.substituteArgs(substitutions::get);
+    }
 
-        TypeVar[] typeVars = describer.getTypeVariables();
-        List<? extends TypeArgument> typeValues = cls.getArguments();
-        if (typeVars.length != typeValues.size()) {
-            return null;
+    public GenericClass[] getInterfaces(GenericClass cls) {
+        ClassInfo info = getClassInfo(cls.getName());
+        Map<TypeVar, TypeArgument> substitutions = prepareSubstitutions(info, cls);
+        if (substitutions == null) {
+            return new GenericClass[0];
         }
-        Map<TypeVar, TypeArgument> substitutions = new HashMap<>();
-        for (int i = 0; i < typeVars.length; ++i) {
-            substitutions.put(typeVars[i], typeValues.get(i));
+
+        GenericClass[] result = new GenericClass[info.interfaces.length];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = info.interfaces[i].substituteArgs(substitutions::get);
         }
+        return result;
+    }
 
-        return superType.substituteArgs(substitutions::get);
+    private GenericClass getInterface(GenericClass cls, int index) {
+        ClassInfo info = getClassInfo(cls.getName());
+        Map<TypeVar, TypeArgument> substitutions = prepareSubstitutions(info, cls);
+        return substitutions != null ? info.interfaces[index].substituteArgs(substitutions::get) : null;
     }
 
-    public GenericClass[] getInterfaces(GenericClass cls) {
-        ClassDescriber describer = classRepository.describe(cls.getName());
-        if (describer == null) {
-            return new GenericClass[0];
+    public GenericMethod[] findMethods(GenericClass cls, String name, int paramCount) {
+        Map<MethodSignature, GenericMethod> methods = new HashMap<>();
+        findMethodsImpl(cls, name, paramCount, null, new HashSet<>(), method -> {
+            MethodSignature signature = new MethodSignature(method.getDescriber().getRawParameterTypes());
+            methods.put(signature, method);
+        });
+        return methods.values().toArray(new GenericMethod[0]);
+    }
+
+    /**
+     * <p>Finds all methods with given name and static flag declared by given classes or any of their ancestors.
+     * Each class is visited once, so when several classes share an ancestor, its methods are reported only
+     * as members of the first class.</p>
+     */
+    public List<GenericMethod> findAllMethods(Collection<GenericClass> classes, String name, boolean isStatic) {
+        List<GenericMethod> methods = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        for (GenericClass cls : classes) {
+            findMethodsImpl(cls, name, ANY_ARITY, isStatic, visited, methods::add);
         }
+        return methods;
+    }
 
-        TypeVar[] typeVars = describer.getTypeVariables();
-        List<? extends TypeArgument> typeValues = cls.getArguments();
-        if (typeVars.length != typeValues.size()) {
-            return new GenericClass[0];
+    private void findMethodsImpl(GenericClass cls, String name, int paramCount, Boolean isStatic,
+            Set<String> visitedClasses, MethodConsumer consumer) {
+        if (visitedClasses.contains(cls.getName())) {
+            return;
         }
-        Map<TypeVar, TypeArgument> substitutions = new HashMap<>();
-        for (int i = 0; i < typeVars.length; ++i) {
-            substitutions.put(typeVars[i], typeValues.get(i));
+        if (prepareSubstitutions(getClassInfo(cls.getName()), cls) == null) {
+            visitedClasses.add(cls.getName());
+            return;
         }
 
-        GenericClass[] interfaces = describer.getInterfaces();
-        GenericClass[] result = new GenericClass[interfaces.length];
-        for (int i = 0; i < interfaces.length; ++i) {
-            result[i] = interfaces[i].substituteArgs(substitutions::get);
+        Hierarchy hierarchy = getHierarchy(cls.getName());
+        GenericClass[] actualClasses = new GenericClass[hierarchy.size()];
+        actualClasses[0] = cls;
+        for (int i = 0; i < hierarchy.size(); ++i) {
+            String className = hierarchy.classNames[i];
+            if (!visitedClasses.add(className)) {
+                // Ancestors of class visited by previous lookup were visited as well
+                continue;
+            }
+            MethodDescriber[] declaredMethods = getDeclaredMethods(className, name, paramCount, isStatic);
+            if (declaredMethods.length == 0) {
+                continue;
+            }
+
+            GenericClass actualClass = resolve(hierarchy, i, actualClasses);
+            Map<TypeVar, TypeArgument> substitutions = prepareSubstitutions(getClassInfo(className), actualClass);
+            if (substitutions == null) {
+                continue;
+            }
+            for (MethodDescriber methodDesc : declaredMethods) {
+                ValueType[] paramTypes = methodDesc.getParameterTypes();
+                for (int j = 0; j < paramTypes.length; ++j) {
+                    if (paramTypes[j] instanceof GenericType) {
+                        paramTypes[j] = ((GenericType) paramTypes[j]).substituteArgs(substitutions::get);
+                    }
+                }
+
+                ValueType returnType = methodDesc.getReturnType();
+                if (returnType instanceof GenericType) {
+                    returnType = ((GenericType) returnType).substituteArgs(substitutions::get);
+                }
+
+                consumer.accept(new GenericMethod(methodDesc, actualClass, paramTypes, returnType));
+            }
         }
-        return result;
     }
 
-    public GenericMethod[] findMethods(GenericClass cls, String name, int paramCount) {
-        Map<MethodSignature, GenericMethod> methods = new HashMap<>();
-        findMethodsImpl(cls, name, paramCount, new HashSet<>(), methods);
-        return methods.values().toArray(new GenericMethod[0]);
+    private MethodDescriber[] getDeclaredMethods(String className, String name, int paramCount, Boolean isStatic) {
+        return declaredMethodsCache.computeIfAbsent(new MethodKey(className, name, paramCount, isStatic), key -> {
+            ClassDescriber describer = getClassInfo(className).describer;
+            if (describer == null) {
+                return new MethodDescriber[0];
+            }
+            List<MethodDescriber> result = new ArrayList<>();
+            for (MethodDescriber methodDesc : describer.getMethods()) {
+                if (!methodDesc.getName().equals(name)) {
+                    continue;
+                }
+                if (paramCount != ANY_ARITY && methodDesc.getParameterTypes().length != paramCount) {
+                    continue;
+                }
+                if (isStatic != null && methodDesc.isStatic() != isStatic) {
+                    continue;
+                }
+                result.add(methodDesc);
+            }
+            return result.toArray(new MethodDescriber[0]);
+        });
     }
 
-    private Map<TypeVar, TypeArgument> prepareSubstitutions(ClassDescriber describer, GenericClass cls) {
-        TypeVar[] typeVars = describer.getTypeVariables();
+    private Map<TypeVar, TypeArgument> prepareSubstitutions(ClassInfo info, GenericClass cls) {
+        TypeVar[] typeVars = info.typeVariables;
         List<? extends TypeArgument> typeValues = cls.getArguments();
-        if (typeVars.length != typeValues.size()) {
+        if (info.describer == null || typeVars.length != typeValues.size()) {
             return null;
         }
         Map<TypeVar, TypeArgument> substitutions = new HashMap<>();
@@ -233,12 +352,13 @@ public class GenericTypeNavigator {
     }
 
     private GenericField getFieldImpl(GenericClass cls, String name) {
-        ClassDescriber describer = classRepository.describe(cls.getName());
+        ClassInfo info = getClassInfo(cls.getName());
+        ClassDescriber describer = info.describer;
         if (describer == null) {
             return null;
         }
 
-        Map<TypeVar, TypeArgument> substitutions = prepareSubstitutions(describer, cls);
+        Map<TypeVar, TypeArgument> substitutions = prepareSubstitutions(info, cls);
         if (substitutions == null) {
             return null;
         }
@@ -289,12 +409,13 @@ public class GenericTypeNavigator {
     }
 
     private GenericMethod getMethodImpl(GenericClass cls, String name, GenericClass... parameterTypes) {
-        ClassDescriber describer = classRepository.describe(cls.getName());
+        ClassInfo info = getClassInfo(cls.getName());
+        ClassDescriber describer = info.describer;
         if (describer == null) {
             return null;
         }
 
-        Map<TypeVar, TypeArgument> substitutions = prepareSubstitutions(describer, cls);
+        Map<TypeVar, TypeArgument> substitutions = prepareSubstitutions(info, cls);
         if (substitutions == null) {
             return null;
         }
@@ -317,55 +438,6 @@ public class GenericTypeNavigator {
         return new GenericMethod(methodDescriber, cls, parameterTypes, returnType);
     }
 
-    private void findMethodsImpl(GenericClass cls, String name, int paramCount, Set<String> visitedClasses,
-            Map<MethodSignature, GenericMethod> methods) {
-        if (!visitedClasses.add(cls.getName())) {
-            return;
-        }
-
-        ClassDescriber describer = classRepository.describe(cls.getName());
-        if (describer == null) {
-            return;
-        }
-
-        Map<TypeVar, TypeArgument> substitutions = prepareSubstitutions(describer, cls);
-        if (substitutions == null) {
-            return;
-        }
-
-        for (MethodDescriber methodDesc : describer.getMethods()) {
-            if (!methodDesc.getName().equals(name)) {
-                continue;
-            }
-
-            ValueType[] paramTypes = methodDesc.getParameterTypes();
-            if (paramTypes.length != paramCount) {
-                continue;
-            }
-            for (int i = 0; i < paramTypes.length; ++i) {
-                if (paramTypes[i] instanceof GenericType) {
-                    paramTypes[i] = ((GenericType) paramTypes[i]).substituteArgs(substitutions::get);
-                }
-            }
-
-            ValueType returnType = methodDesc.getReturnType();
-            if (returnType instanceof GenericType) {
-                returnType = ((GenericType) returnType).substituteArgs(substitutions::get);
-            }
-
-            MethodSignature signature = new MethodSignature(methodDesc.getRawParameterTypes());
-            methods.put(signature, new GenericMethod(methodDesc, cls, paramTypes, returnType));
-        }
-
-        GenericClass supertype = getParent(cls);
-        if (supertype != null) {
-            findMethodsImpl(supertype, name, paramCount, visitedClasses, methods);
-        }
-        for (GenericClass iface : getInterfaces(cls)) {
-            findMethodsImpl(iface, name, paramCount, visitedClasses, methods);
-        }
-    }
-
     public GenericMethod findSingleAbstractMethod(GenericClass cls) {
         Map<MethodSignature, GenericMethod> methods = new HashMap<>();
         int count = findSingleAbstractMethodImpl(cls, new HashSet<>(), methods);
@@ -389,12 +461,13 @@ public class GenericTypeNavigator {
             return 0;
         }
 
-        ClassDescriber describer = classRepository.describe(cls.getName());
+        ClassInfo info = getClassInfo(cls.getName());
+        ClassDescriber describer = info.describer;
         if (describer == null) {
             return 0;
         }
 
-        Map<TypeVar, TypeArgument> substitutions = prepareSubstitutions(describer, cls);
+        Map<TypeVar, TypeArgument> substitutions = prepareSubstitutions(info, cls);
         if (substitutions == null) {
             return 0;
         }
@@ -447,6 +520,163 @@ public class GenericTypeNavigator {
         return result;
     }
 
+    private ClassInfo getClassInfo(String className) {
+        return classInfoCache.computeIfAbsent(className, name -> new ClassInfo(classRepository.describe(name)));
+    }
+
+    private Hierarchy getHierarchy(String className) {
+        return hierarchyCache.computeIfAbsent(className, this::buildHierarchy);
+    }
+
+    private Hierarchy buildHierarchy(String className) {
+        Hierarchy hierarchy = new Hierarchy();
+        GenericClass cls = getGenericClass(className);
+        if (cls != null) {
+            buildHierarchyRec(cls, -1, -1, new HashSet<>(), hierarchy);
+        } else {
+            hierarchy.add(className, -1, -1);
+        }
+        return hierarchy;
+    }
+
+    private void buildHierarchyRec(GenericClass cls, int parent, int interfaceIndex, Set<String> visited,
+            Hierarchy hierarchy) {
+        if (!visited.add(cls.getName())) {
+            return;
+        }
+        int index = hierarchy.add(cls.getName(), parent, interfaceIndex);
+        GenericClass supertype = getParent(cls);
+        if (supertype != null) {
+            buildHierarchyRec(supertype, index, -1, visited, hierarchy);
+        }
+        GenericClass[] interfaces = getInterfaces(cls);
+        for (int i = 0; i < interfaces.length; ++i) {
+            buildHierarchyRec(interfaces[i], index, i, visited, hierarchy);
+        }
+    }
+
+    private GenericClass resolve(Hierarchy hierarchy, int index, GenericClass[] actualClasses) {
+        GenericClass result = actualClasses[index];
+        if (result == null) {
+            GenericClass child = resolve(hierarchy, hierarchy.parents[index], actualClasses);
+            int interfaceIndex = hierarchy.interfaceIndexes[index];
+            result = interfaceIndex < 0 ? getParent(child) : getInterface(child, interfaceIndex);
+            actualClasses[index] = result;
+        }
+        return result;
+    }
+
+    interface MethodConsumer {
+        void accept(GenericMethod method);
+    }
+
+    static class ClassInfo {
+        final ClassDescriber describer;
+        final TypeVar[] typeVariables;
+        final GenericClass supertype;
+        final GenericClass[] interfaces;
+        final String[] supertypeNames;
+        volatile Set<String> ancestors;
+
+        ClassInfo(ClassDescriber describer) {
+            this.describer = describer;
+            if (describer == null) {
+                typeVariables = new TypeVar[0];
+                supertype = null;
+                interfaces = new GenericClass[0];
+                supertypeNames = new String[0];
+                return;
+            }
+            typeVariables = describer.getTypeVariables();
+            supertype = describer.getSupertype();
+            interfaces = describer.getInterfaces();
+            List<String> names = new ArrayList<>();
+            if (supertype != null) {
+                names.add(supertype.getName());
+            }
+            for (GenericClass iface : interfaces) {
+                names.add(iface.getName());
+            }
+            supertypeNames = names.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * <p>Ancestors of a class in order of depth-first traversal, starting from class itself.
+     * Every ancestor is reachable from its parent in the tree either as supertype or as interface
+     * with the given index.</p>
+     */
+    static class Hierarchy {
+        String[] classNames = new String[4];
+        int[] parents = new int[4];
+        int[] interfaceIndexes = new int[4];
+        private int size;
+        private Map<String, Integer> indexes = new HashMap<>();
+
+        int add(String className, int parent, int interfaceIndex) {
+            if (size == classNames.length) {
+                classNames = Arrays.copyOf(classNames, size * 2);
+                parents = Arrays.copyOf(parents, size * 2);
+                interfaceIndexes = Arrays.copyOf(interfaceIndexes, size * 2);
+            }
+            classNames[size] = className;
+            parents[size] = parent;
+            interfaceIndexes[size] = interfaceIndex;
+            indexes.put(className, size);
+            return size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int indexOf(String className) {
+            Integer index = indexes.get(className);
+            return index != null ? index : -1;
+        }
+
+        int depth(int index) {
+            int depth = 0;
+            while (parents[index] >= 0) {
+                index = parents[index];
+                ++depth;
+            }
+            return depth;
+        }
+    }
+
+    static class MethodKey {
+        final String className;
+        final String name;
+        final int paramCount;
+        final Boolean isStatic;
+
+        MethodKey(String className, String name, int paramCount, Boolean isStatic) {
+            this.className = className;
+            this.name = name;
+            this.paramCount = paramCount;
+            this.isStatic = isStatic;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(className, name, paramCount, isStatic);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey other = (MethodKey) obj;
+            return className.equals(other.className) && name.equals(other.name) && paramCount == other.paramCount
+                    && Objects.equals(isStatic, other.isStatic);
+        }
+    }
+
     static class MethodSignature {
         ValueType[] paramTypes;
 
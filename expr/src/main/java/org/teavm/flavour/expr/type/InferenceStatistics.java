@@ -0,0 +1,102 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.type;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Counts work done by type inference. Statistics is collected by every {@link TypeInference} that uses
+ * the same {@link GenericTypeNavigator}, so it can be read after any number of compilations, including
+ * concurrent ones.</p>
+ */
+public class InferenceStatistics {
+    private final LongAdder leastUpperBoundCacheHits = new LongAdder();
+    private final LongAdder leastUpperBoundCacheMisses = new LongAdder();
+    private final LongAdder subtypeCacheHits = new LongAdder();
+    private final LongAdder subtypeCacheMisses = new LongAdder();
+    private final LongAdder restores = new LongAdder();
+    private final LongAdder variablesCreated = new LongAdder();
+
+    InferenceStatistics() {
+    }
+
+    public long getLeastUpperBoundCacheHits() {
+        return leastUpperBoundCacheHits.sum();
+    }
+
+    public long getLeastUpperBoundCacheMisses() {
+        return leastUpperBoundCacheMisses.sum();
+    }
+
+    public long getSubtypeCacheHits() {
+        return subtypeCacheHits.sum();
+    }
+
+    public long getSubtypeCacheMisses() {
+        return subtypeCacheMisses.sum();
+    }
+
+    /**
+     * <p>Gets number of times inference state was restored to a {@link TypeInferenceStatePoint}.</p>
+     */
+    public long getRestores() {
+        return restores.sum();
+    }
+
+    public long getVariablesCreated() {
+        return variablesCreated.sum();
+    }
+
+    public void reset() {
+        leastUpperBoundCacheHits.reset();
+        leastUpperBoundCacheMisses.reset();
+        subtypeCacheHits.reset();
+        subtypeCacheMisses.reset();
+        restores.reset();
+        variablesCreated.reset();
+    }
+
+    void leastUpperBoundCacheHit() {
+        leastUpperBoundCacheHits.increment();
+    }
+
+    void leastUpperBoundCacheMiss() {
+        leastUpperBoundCacheMisses.increment();
+    }
+
+    void subtypeCacheHit() {
+        subtypeCacheHits.increment();
+    }
+
+    void subtypeCacheMiss() {
+        subtypeCacheMisses.increment();
+    }
+
+    void restore() {
+        restores.increment();
+    }
+
+    void variableCreated() {
+        variablesCreated.increment();
+    }
+
+    @Override
+    public String toString() {
+        return "LUB cache hits: " + getLeastUpperBoundCacheHits() + ", misses: " + getLeastUpperBoundCacheMisses()
+                + "; subtype cache hits: " + getSubtypeCacheHits() + ", misses: " + getSubtypeCacheMisses()
+                + "; restores: " + getRestores() + "; variables created: " + getVariablesCreated();
+    }
+}
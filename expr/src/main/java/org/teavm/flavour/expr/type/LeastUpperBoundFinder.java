@@ -36,6 +36,25 @@ public class LeastUpperBoundFinder {
     }
 
     public GenericType find(List<GenericType> types) {
+        // Results computed while some type arguments are being processed may be cut by recursion guard,
+        // so only results of outermost calls are cached
+        if (!cache.isEmpty() || !ProperTypeCache.areProper(types)) {
+            return findImpl(types);
+        }
+        ProperTypeCache properTypeCache = typeNavigator.getProperTypeCache();
+        InferenceStatistics statistics = typeNavigator.getInferenceStatistics();
+        GenericType result = properTypeCache.getLeastUpperBound(types);
+        if (result != null) {
+            statistics.leastUpperBoundCacheHit();
+            return result;
+        }
+        statistics.leastUpperBoundCacheMiss();
+        result = findImpl(types);
+        properTypeCache.putLeastUpperBound(types, result);
+        return result;
+    }
+
+    private GenericType findImpl(List<GenericType> types) {
         Set<GenericType> mec = calculateMinimalErasedCandidateSet(types);
         Map<GenericType, List<GenericType>> relevant = findRelevant(types, mec);
         return intersectArrays(IntersectionType.of(relevant.values().stream()
@@ -0,0 +1,125 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Remembers results of type relations that depend on class hierarchy only. Relations are cached for
+ * proper types only, i.e. types that mention no type variables at all, since type variables and inference
+ * variables are specific to a single inference.</p>
+ *
+ * <p>Navigator may live as long as the application, so each table is bounded. When a table is full, it is
+ * cleared, which is cheaper than tracking usage on every query and lets the working set fill it again.</p>
+ */
+class ProperTypeCache {
+    static final int DEFAULT_MAX_SIZE = 4096;
+    private final int maxSize;
+    private final Map<List<GenericType>, GenericType> leastUpperBounds = new ConcurrentHashMap<>();
+    private final Map<SubtypeKey, Boolean> subtypes = new ConcurrentHashMap<>();
+
+    ProperTypeCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    static boolean isProper(ValueType type) {
+        if (type instanceof GenericReference) {
+            return false;
+        } else if (type instanceof GenericClass) {
+            for (TypeArgument argument : ((GenericClass) type).getArguments()) {
+                if (!isProper(argument.getBound())) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (type instanceof GenericArray) {
+            return isProper(((GenericArray) type).getElementType());
+        } else if (type instanceof IntersectionType) {
+            for (GenericType component : ((IntersectionType) type).getTypes()) {
+                if (!isProper(component)) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            return true;
+        }
+    }
+
+    static boolean areProper(List<? extends GenericType> types) {
+        for (GenericType type : types) {
+            if (!isProper(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    GenericType getLeastUpperBound(List<GenericType> types) {
+        return leastUpperBounds.get(types);
+    }
+
+    void putLeastUpperBound(List<GenericType> types, GenericType result) {
+        ensureCapacity(leastUpperBounds);
+        leastUpperBounds.put(new ArrayList<>(types), result);
+    }
+
+    Boolean isSubtype(GenericClass subtype, GenericClass supertype) {
+        return subtypes.get(new SubtypeKey(subtype, supertype));
+    }
+
+    void putSubtype(GenericClass subtype, GenericClass supertype, boolean result) {
+        ensureCapacity(subtypes);
+        subtypes.put(new SubtypeKey(subtype, supertype), result);
+    }
+
+    private void ensureCapacity(Map<?, ?> table) {
+        if (table.size() >= maxSize) {
+            table.clear();
+        }
+    }
+
+    static class SubtypeKey {
+        final GenericClass subtype;
+        final GenericClass supertype;
+
+        SubtypeKey(GenericClass subtype, GenericClass supertype) {
+            this.subtype = subtype;
+            this.supertype = supertype;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SubtypeKey)) {
+                return false;
+            }
+            SubtypeKey that = (SubtypeKey) o;
+            return subtype.equals(that.subtype) && supertype.equals(that.supertype);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(subtype, supertype);
+        }
+    }
+}
@@ -28,6 +28,11 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * <p>Infers values of type variables from constraints collected while type checking an expression.
+ * Holds mutable state of a single compilation and therefore is not thread-safe, while everything it knows
+ * about classes comes from the shared {@link GenericTypeNavigator}.</p>
+ */
 public class TypeInference {
     private GenericTypeNavigator typeNavigator;
     private Map<TypeVar, InferenceVar> inferenceVars = new LinkedHashMap<>();
@@ -43,6 +48,10 @@ public class TypeInference {
         currentStatePoint = statePoints.get(0);
     }
 
+    InferenceStatistics getStatistics() {
+        return typeNavigator.getInferenceStatistics();
+    }
+
     public TypeInferenceStatePoint createStatePoint() {
         TypeInferenceStatePoint statePoint = new TypeInferenceStatePoint(this, statePoints.size());
         TypeInferenceStatePoint previousStatePoint = currentStatePoint;
@@ -79,6 +88,7 @@ public class TypeInference {
             }
 
             InferenceVar inferenceVar = new InferenceVar(var);
+            getStatistics().variableCreated();
             inferenceVars.put(var, inferenceVar);
             currentStatePoint.addTypeVar(var);
         }
@@ -465,26 +475,7 @@ public class TypeInference {
             InferenceVar inferenceVar = inferenceVars.get(((GenericReference) supertype).getVar());
             return inferenceVar.addLowerBound((GenericType) subtype);
         } else if (subtype instanceof GenericClass && supertype instanceof GenericClass) {
-            GenericClass subclass = (GenericClass) subtype;
-            GenericClass superclass = (GenericClass) supertype;
-            List<GenericClass> path = typeNavigator.sublassPath(subclass, superclass.getName());
-            if (path == null) {
-                return false;
-            }
-
-            List<? extends TypeArgument> subclassArgs = path.get(path.size() - 1).getArguments();
-            List<? extends TypeArgument> superclassArgs = superclass.getArguments();
-            if (subclassArgs.size() != subclassArgs.size()) {
-                return false;
-            }
-
-            for (int i = 0; i < subclassArgs.size(); ++i) {
-                if (!isContainedBy(subclassArgs.get(i), superclassArgs.get(i))) {
-                    return false;
-                }
-            }
-
-            return true;
+            return classSubtypeConstraint((GenericClass) subtype, (GenericClass) supertype);
         } else if (supertype instanceof GenericClass && ((GenericClass) supertype).getName().equals("java.lang.Object")
                 && subtype instanceof GenericType) {
             return true;
@@ -503,6 +494,45 @@ public class TypeInference {
         }
     }
 
+    private boolean classSubtypeConstraint(GenericClass subclass, GenericClass superclass) {
+        // Relation between proper types does not depend on inference, so it can be shared between inferences
+        if (!ProperTypeCache.isProper(subclass) || !ProperTypeCache.isProper(superclass)) {
+            return classSubtypeConstraintImpl(subclass, superclass);
+        }
+        ProperTypeCache properTypeCache = typeNavigator.getProperTypeCache();
+        InferenceStatistics statistics = typeNavigator.getInferenceStatistics();
+        Boolean result = properTypeCache.isSubtype(subclass, superclass);
+        if (result != null) {
+            statistics.subtypeCacheHit();
+            return result;
+        }
+        statistics.subtypeCacheMiss();
+        boolean computedResult = classSubtypeConstraintImpl(subclass, superclass);
+        properTypeCache.putSubtype(subclass, superclass, computedResult);
+        return computedResult;
+    }
+
+    private boolean classSubtypeConstraintImpl(GenericClass subclass, GenericClass superclass) {
+        List<GenericClass> path = typeNavigator.sublassPath(subclass, superclass.getName());
+        if (path == null) {
+            return false;
+        }
+
+        List<? extends TypeArgument> subclassArgs = path.get(path.size() - 1).getArguments();
+        List<? extends TypeArgument> superclassArgs = superclass.getArguments();
+        if (subclassArgs.size() != superclassArgs.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < subclassArgs.size(); ++i) {
+            if (!isContainedBy(subclassArgs.get(i), superclassArgs.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     private boolean isContainedBy(TypeArgument a, TypeArgument b) {
         if (a.getVariance() == Variance.COVARIANT && b.getVariance() == Variance.COVARIANT) {
             return subtypeConstraint(a.getBound(), b.getBound());
@@ -52,6 +52,7 @@ public class TypeInferenceStatePoint implements AutoCloseable {
         if (typeInference.statePoints.size() <= index) {
             throw new IllegalStateException("This state point already has been rolled back");
         }
+        typeInference.getStatistics().restore();
 
         while (typeInference.statePoints.size() > index + 1) {
             typeInference.rollBack(typeInference.statePoints.remove(typeInference.statePoints.size() - 1));
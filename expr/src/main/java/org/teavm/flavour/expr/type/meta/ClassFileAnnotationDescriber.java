@@ -0,0 +1,162 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.type.meta;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+class ClassFileAnnotationDescriber implements AnnotationDescriber {
+    private ClassFileClassDescriberRepository repository;
+    private String className;
+    private Map<String, Object> values = new HashMap<>();
+
+    ClassFileAnnotationDescriber(ClassFileClassDescriberRepository repository, String className) {
+        this.repository = repository;
+        this.className = className;
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    @Override
+    public AnnotationValue getValue(String name) {
+        Object value = values.get(name);
+        if (value == null) {
+            value = getDefaultValue(name);
+        }
+        return value != null ? convertValue(value) : null;
+    }
+
+    private Object getDefaultValue(String name) {
+        ClassFileClassDescriber annotationType = repository.describeClass(className);
+        if (annotationType == null) {
+            return null;
+        }
+        ClassFileMethodDescriber method = annotationType.findMethod(name, "()");
+        return method != null ? method.getDefaultValue() : null;
+    }
+
+    static AnnotationValue convertValue(Object value) {
+        if (value instanceof Boolean) {
+            return new AnnotationBoolean((Boolean) value);
+        } else if (value instanceof Byte) {
+            return new AnnotationByte((Byte) value);
+        } else if (value instanceof Short) {
+            return new AnnotationShort((Short) value);
+        } else if (value instanceof Integer) {
+            return new AnnotationInt((Integer) value);
+        } else if (value instanceof Long) {
+            return new AnnotationLong((Long) value);
+        } else if (value instanceof Float) {
+            return new AnnotationFloat((Float) value);
+        } else if (value instanceof Double) {
+            return new AnnotationDouble((Double) value);
+        } else if (value instanceof String) {
+            return new AnnotationString((String) value);
+        } else if (value instanceof Type) {
+            return new AnnotationClass(getClassName((Type) value));
+        } else if (value instanceof EnumValue) {
+            EnumValue enumValue = (EnumValue) value;
+            return new AnnotationEnum(Type.getType(enumValue.descriptor).getClassName(), enumValue.name);
+        } else if (value instanceof List<?>) {
+            List<AnnotationValue> list = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                list.add(convertValue(item));
+            }
+            return new AnnotationList(list);
+        } else if (value.getClass().isArray()) {
+            List<AnnotationValue> list = new ArrayList<>();
+            for (int i = 0; i < Array.getLength(value); ++i) {
+                list.add(convertValue(Array.get(value, i)));
+            }
+            return new AnnotationList(list);
+        } else if (value instanceof ClassFileAnnotationDescriber) {
+            return new AnnotationReference((ClassFileAnnotationDescriber) value);
+        } else {
+            throw new AssertionError("Don't know how to convert " + value + " into annotation value");
+        }
+    }
+
+    private static String getClassName(Type type) {
+        // Match Class.getName(), which uses descriptors for array classes
+        return type.getSort() == Type.ARRAY ? type.getDescriptor().replace('/', '.') : type.getClassName();
+    }
+
+    static class EnumValue {
+        final String descriptor;
+        final String name;
+
+        EnumValue(String descriptor, String name) {
+            this.descriptor = descriptor;
+            this.name = name;
+        }
+    }
+
+    /**
+     * <p>Collects values of annotation elements. When <code>name</code> is null, collects single value,
+     * which is the case of arrays and default values of annotation methods.</p>
+     */
+    static class ValueReader extends AnnotationVisitor {
+        private ClassFileClassDescriberRepository repository;
+        private ValueConsumer consumer;
+
+        ValueReader(ClassFileClassDescriberRepository repository, ValueConsumer consumer) {
+            super(Opcodes.ASM9);
+            this.repository = repository;
+            this.consumer = consumer;
+        }
+
+        static ValueReader forAnnotation(ClassFileAnnotationDescriber annotation) {
+            return new ValueReader(annotation.repository, annotation.values::put);
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            consumer.accept(name, value);
+        }
+
+        @Override
+        public void visitEnum(String name, String descriptor, String value) {
+            consumer.accept(name, new EnumValue(descriptor, value));
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+            ClassFileAnnotationDescriber nested = new ClassFileAnnotationDescriber(repository,
+                    Type.getType(descriptor).getClassName());
+            consumer.accept(name, nested);
+            return forAnnotation(nested);
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            List<Object> list = new ArrayList<>();
+            consumer.accept(name, list);
+            return new ValueReader(repository, (itemName, item) -> list.add(item));
+        }
+    }
+
+    interface ValueConsumer {
+        void accept(String name, Object value);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.type.meta;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.Type;
+
+abstract class ClassFileAnnotationsDescriber implements AnnotationsDescriber {
+    private List<ClassFileAnnotationDescriber> annotations = new ArrayList<>();
+
+    abstract ClassFileClassDescriberRepository getRepository();
+
+    @Override
+    public AnnotationDescriber getAnnotation(String className) {
+        for (ClassFileAnnotationDescriber annotation : annotations) {
+            if (annotation.getClassName().equals(className)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public AnnotationDescriber[] getAnnotations() {
+        return annotations.toArray(new AnnotationDescriber[0]);
+    }
+
+    /**
+     * <p>Reads annotation into this describer. Only annotations visible at run time are kept,
+     * since reflection does not report others.</p>
+     */
+    AnnotationVisitor readAnnotation(String descriptor, boolean visible) {
+        if (!visible) {
+            return null;
+        }
+        ClassFileAnnotationDescriber annotation = new ClassFileAnnotationDescriber(getRepository(),
+                Type.getType(descriptor).getClassName());
+        annotations.add(annotation);
+        return ClassFileAnnotationDescriber.ValueReader.forAnnotation(annotation);
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.type.meta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.teavm.flavour.expr.type.GenericArray;
+import org.teavm.flavour.expr.type.GenericClass;
+import org.teavm.flavour.expr.type.GenericReference;
+import org.teavm.flavour.expr.type.Primitive;
+import org.teavm.flavour.expr.type.PrimitiveArray;
+import org.teavm.flavour.expr.type.TypeVar;
+import org.teavm.flavour.expr.type.ValueType;
+
+class ClassFileClassDescriber extends ClassFileAnnotationsDescriber implements ClassDescriber {
+    private static final String INHERITED = "java.lang.annotation.Inherited";
+    private ClassFileClassDescriberRepository repository;
+    private String name;
+    private int access;
+    private String signature;
+    private String superName;
+    private String[] interfaceNames;
+    private String outerName;
+    private List<ClassFileMethodDescriber> allMethods = new ArrayList<>();
+    private List<ClassFileFieldDescriber> allFields = new ArrayList<>();
+    private TypeVar[] typeVariables;
+    private Map<String, TypeVar> unresolvedTypeVariables = new ConcurrentHashMap<>();
+    private volatile GenericClass supertype;
+    private volatile GenericClass[] interfaces;
+    private volatile MethodDescriber[] methods;
+    private volatile FieldDescriber[] fields;
+
+    ClassFileClassDescriber(ClassFileClassDescriberRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean isInterface() {
+        return (access & Opcodes.ACC_INTERFACE) != 0;
+    }
+
+    @Override
+    public TypeVar[] getTypeVariables() {
+        return getTypeVariablesInternal().clone();
+    }
+
+    // Type variables are compared by identity, so they must be created exactly once
+    private synchronized TypeVar[] getTypeVariablesInternal() {
+        if (typeVariables == null) {
+            typeVariables = signature != null
+                    ? new ClassFileTypeParser(signature, this::resolveOuterTypeVariable).parseTypeParameters()
+                    : new TypeVar[0];
+        }
+        return typeVariables;
+    }
+
+    TypeVar resolveTypeVariable(String name) {
+        for (TypeVar var : getTypeVariablesInternal()) {
+            if (var.getName().equals(name)) {
+                return var;
+            }
+        }
+        return resolveOuterTypeVariable(name);
+    }
+
+    private TypeVar resolveOuterTypeVariable(String name) {
+        if (outerName != null) {
+            ClassFileClassDescriber outer = repository.describeClass(outerName);
+            if (outer != null) {
+                return outer.resolveTypeVariable(name);
+            }
+        }
+        // Variable declared by enclosing method of a local class, which we don't track
+        return unresolvedTypeVariables.computeIfAbsent(name, TypeVar::new);
+    }
+
+    @Override
+    public GenericClass getSupertype() {
+        GenericClass result = supertype;
+        if (result == null) {
+            if (signature != null) {
+                ClassFileTypeParser parser = new ClassFileTypeParser(signature, this::resolveTypeVariable);
+                parser.skipTypeParameters(this::resolveTypeVariable);
+                result = (GenericClass) parser.parseType();
+            } else if (superName != null) {
+                result = new GenericClass(superName, Collections.emptyList());
+            }
+            supertype = result;
+        }
+        return result;
+    }
+
+    @Override
+    public GenericClass[] getInterfaces() {
+        GenericClass[] result = interfaces;
+        if (result == null) {
+            List<GenericClass> list = new ArrayList<>();
+            if (signature != null) {
+                ClassFileTypeParser parser = new ClassFileTypeParser(signature, this::resolveTypeVariable);
+                parser.skipTypeParameters(this::resolveTypeVariable);
+                parser.parseType();
+                while (parser.hasMore()) {
+                    list.add((GenericClass) parser.parseType());
+                }
+            } else {
+                for (String interfaceName : interfaceNames) {
+                    list.add(new GenericClass(interfaceName, Collections.emptyList()));
+                }
+            }
+            result = list.toArray(new GenericClass[0]);
+            interfaces = result;
+        }
+        return result.clone();
+    }
+
+    @Override
+    public MethodDescriber[] getMethods() {
+        MethodDescriber[] result = methods;
+        if (result == null) {
+            result = allMethods.stream()
+                    .filter(method -> !method.getName().equals("<clinit>"))
+                    .toArray(MethodDescriber[]::new);
+            methods = result;
+        }
+        return result.clone();
+    }
+
+    @Override
+    public MethodDescriber getMethod(String name, ValueType... parameterTypes) {
+        StringBuilder sb = new StringBuilder("(");
+        for (ValueType parameterType : parameterTypes) {
+            appendErasure(sb, parameterType);
+        }
+        sb.append(')');
+        return findMethod(name, sb.toString());
+    }
+
+    ClassFileMethodDescriber findMethod(String name, String parametersDescriptor) {
+        ClassFileMethodDescriber result = null;
+        for (ClassFileMethodDescriber method : allMethods) {
+            if (method.getName().equals(name) && method.getDescriptor().startsWith(parametersDescriptor)) {
+                if (result == null || result.isBridge()) {
+                    result = method;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void appendErasure(StringBuilder sb, ValueType type) {
+        if (type instanceof Primitive) {
+            switch (((Primitive) type).getKind()) {
+                case BOOLEAN:
+                    sb.append('Z');
+                    break;
+                case CHAR:
+                    sb.append('C');
+                    break;
+                case BYTE:
+                    sb.append('B');
+                    break;
+                case SHORT:
+                    sb.append('S');
+                    break;
+                case INT:
+                    sb.append('I');
+                    break;
+                case LONG:
+                    sb.append('J');
+                    break;
+                case FLOAT:
+                    sb.append('F');
+                    break;
+                case DOUBLE:
+                    sb.append('D');
+                    break;
+            }
+        } else if (type instanceof PrimitiveArray) {
+            sb.append('[');
+            appendErasure(sb, ((PrimitiveArray) type).getElementType());
+        } else if (type instanceof GenericArray) {
+            sb.append('[');
+            appendErasure(sb, ((GenericArray) type).getElementType());
+        } else if (type instanceof GenericClass) {
+            sb.append('L').append(((GenericClass) type).getName().replace('.', '/')).append(';');
+        } else if (type instanceof GenericReference) {
+            sb.append("Ljava/lang/Object;");
+        } else {
+            throw new AssertionError("Can't convert type: " + type);
+        }
+    }
+
+    @Override
+    public FieldDescriber[] getFields() {
+        FieldDescriber[] result = fields;
+        if (result == null) {
+            result = allFields.toArray(new FieldDescriber[0]);
+            fields = result;
+        }
+        return result.clone();
+    }
+
+    @Override
+    public FieldDescriber getField(String name) {
+        for (ClassFileFieldDescriber field : allFields) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public AnnotationDescriber getAnnotation(String className) {
+        AnnotationDescriber result = super.getAnnotation(className);
+        if (result == null && !isInterface() && getSupertype() != null) {
+            // Class.getAnnotation reports annotations inherited from superclasses. Interfaces, including
+            // annotation types, don't inherit annotations, although their class files name Object as superclass
+            ClassFileClassDescriber annotationType = repository.describeClass(className);
+            if (annotationType != null && annotationType.getAnnotation(INHERITED) != null) {
+                ClassFileClassDescriber superclass = repository.describeClass(getSupertype().getName());
+                if (superclass != null) {
+                    result = superclass.getAnnotation(className);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    ClassFileClassDescriberRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * <p>Fills describer from class file. Non-public members are skipped, since reflection-based describer
+     * does not report them either.</p>
+     */
+    class Reader extends ClassVisitor {
+        Reader() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName,
+                String[] interfaces) {
+            ClassFileClassDescriber.this.name = name.replace('/', '.');
+            ClassFileClassDescriber.this.access = access;
+            ClassFileClassDescriber.this.signature = signature;
+            ClassFileClassDescriber.this.superName = superName != null ? superName.replace('/', '.') : null;
+            interfaceNames = new String[interfaces.length];
+            for (int i = 0; i < interfaces.length; ++i) {
+                interfaceNames[i] = interfaces[i].replace('/', '.');
+            }
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if (outerName != null && (access & Opcodes.ACC_STATIC) == 0
+                    && name.replace('/', '.').equals(ClassFileClassDescriber.this.name)) {
+                ClassFileClassDescriber.this.outerName = outerName.replace('/', '.');
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            return readAnnotation(descriptor, visible);
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature,
+                Object value) {
+            if ((access & Opcodes.ACC_PUBLIC) == 0) {
+                return null;
+            }
+            ClassFileFieldDescriber field = new ClassFileFieldDescriber(ClassFileClassDescriber.this, access,
+                    name, descriptor, signature);
+            allFields.add(field);
+            return new FieldVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                    return field.readAnnotation(descriptor, visible);
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                String[] exceptions) {
+            if ((access & Opcodes.ACC_PUBLIC) == 0) {
+                return null;
+            }
+            ClassFileMethodDescriber method = new ClassFileMethodDescriber(ClassFileClassDescriber.this, access,
+                    name, descriptor, signature);
+            allMethods.add(method);
+            return new MethodVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                    return method.readAnnotation(descriptor, visible);
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotationDefault() {
+                    return new ClassFileAnnotationDescriber.ValueReader(repository,
+                            (elementName, value) -> method.setDefaultValue(value));
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.type.meta;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * <p>Describes classes by reading their class files from a class loader's resources. Unlike
+ * {@link ClassPathClassDescriberRepository}, never loads described classes, so describing a class costs
+ * neither class initialization nor metaspace. Produces the same descriptions as
+ * {@link ClassPathClassDescriberRepository} does.</p>
+ *
+ * <p>Repository is thread-safe and may be shared by any number of compilers.</p>
+ */
+public class ClassFileClassDescriberRepository implements ClassDescriberRepository {
+    private ClassLoader classLoader;
+    private Map<String, Holder> cache = new ConcurrentHashMap<>();
+
+    public ClassFileClassDescriberRepository() {
+        this(ClassLoader.getSystemClassLoader());
+    }
+
+    public ClassFileClassDescriberRepository(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public ClassDescriber describe(String className) {
+        return describeClass(className);
+    }
+
+    ClassFileClassDescriber describeClass(String className) {
+        return cache.computeIfAbsent(className, this::createHolder).classDescriber;
+    }
+
+    private Holder createHolder(String className) {
+        Holder holder = new Holder();
+        if (className.startsWith("[")) {
+            return holder;
+        }
+        try (InputStream input = classLoader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+            if (input != null) {
+                ClassFileClassDescriber describer = new ClassFileClassDescriber(this);
+                new ClassReader(input).accept(describer.new Reader(),
+                        ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+                holder.classDescriber = describer;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading class file of " + className, e);
+        }
+        return holder;
+    }
+
+    static class Holder {
+        ClassFileClassDescriber classDescriber;
+    }
+}
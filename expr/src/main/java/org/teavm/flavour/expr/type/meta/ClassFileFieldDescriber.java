@@ -0,0 +1,80 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.type.meta;
+
+import org.objectweb.asm.Opcodes;
+import org.teavm.flavour.expr.type.ValueType;
+
+class ClassFileFieldDescriber extends ClassFileAnnotationsDescriber implements FieldDescriber {
+    private ClassFileClassDescriber owner;
+    private int access;
+    private String name;
+    private String descriptor;
+    private String signature;
+    private volatile ValueType type;
+    private volatile ValueType rawType;
+
+    ClassFileFieldDescriber(ClassFileClassDescriber owner, int access, String name, String descriptor,
+            String signature) {
+        this.owner = owner;
+        this.access = access;
+        this.name = name;
+        this.descriptor = descriptor;
+        this.signature = signature;
+    }
+
+    @Override
+    public ClassDescriber getOwner() {
+        return owner;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public ValueType getType() {
+        ValueType result = type;
+        if (result == null) {
+            result = signature != null
+                    ? new ClassFileTypeParser(signature, owner::resolveTypeVariable).parseType()
+                    : getRawType();
+            type = result;
+        }
+        return result;
+    }
+
+    @Override
+    public ValueType getRawType() {
+        ValueType result = rawType;
+        if (result == null) {
+            result = ClassFileTypeParser.parseDescriptor(descriptor);
+            rawType = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isStatic() {
+        return (access & Opcodes.ACC_STATIC) != 0;
+    }
+
+    @Override
+    ClassFileClassDescriberRepository getRepository() {
+        return owner.getRepository();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.type.meta;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.objectweb.asm.Opcodes;
+import org.teavm.flavour.expr.type.TypeVar;
+import org.teavm.flavour.expr.type.ValueType;
+
+class ClassFileMethodDescriber extends ClassFileAnnotationsDescriber implements MethodDescriber {
+    private ClassFileClassDescriber owner;
+    private int access;
+    private String name;
+    private String descriptor;
+    private String signature;
+    private Object defaultValue;
+    private TypeVar[] typeVariables;
+    private volatile ValueType[] parameterTypes;
+    private volatile ValueType[] rawParameterTypes;
+    private volatile ValueType returnType;
+    private volatile ValueType rawReturnType;
+
+    ClassFileMethodDescriber(ClassFileClassDescriber owner, int access, String name, String descriptor,
+            String signature) {
+        this.owner = owner;
+        this.access = access;
+        this.name = name;
+        this.descriptor = descriptor;
+        this.signature = signature;
+    }
+
+    @Override
+    public ClassDescriber getOwner() {
+        return owner;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    String getDescriptor() {
+        return descriptor;
+    }
+
+    boolean isBridge() {
+        return (access & Opcodes.ACC_BRIDGE) != 0;
+    }
+
+    Object getDefaultValue() {
+        return defaultValue;
+    }
+
+    void setDefaultValue(Object defaultValue) {
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public boolean isStatic() {
+        return (access & Opcodes.ACC_STATIC) != 0;
+    }
+
+    @Override
+    public boolean isAbstract() {
+        return (access & Opcodes.ACC_ABSTRACT) != 0;
+    }
+
+    @Override
+    public boolean isVariableArgument() {
+        return (access & Opcodes.ACC_VARARGS) != 0;
+    }
+
+    @Override
+    public TypeVar[] getTypeVariables() {
+        return getTypeVariablesInternal().clone();
+    }
+
+    // Type variables are compared by identity, so they must be created exactly once
+    private synchronized TypeVar[] getTypeVariablesInternal() {
+        if (typeVariables == null) {
+            typeVariables = signature != null
+                    ? new ClassFileTypeParser(signature, owner::resolveTypeVariable).parseTypeParameters()
+                    : new TypeVar[0];
+        }
+        return typeVariables;
+    }
+
+    private TypeVar resolveTypeVariable(String name) {
+        for (TypeVar var : getTypeVariablesInternal()) {
+            if (var.getName().equals(name)) {
+                return var;
+            }
+        }
+        return owner.resolveTypeVariable(name);
+    }
+
+    @Override
+    public ValueType[] getParameterTypes() {
+        ValueType[] result = parameterTypes;
+        if (result == null) {
+            if (signature != null) {
+                ClassFileTypeParser parser = new ClassFileTypeParser(signature, this::resolveTypeVariable);
+                parser.skipTypeParameters(this::resolveTypeVariable);
+                result = parseParameters(parser);
+            } else {
+                result = getRawParameterTypesInternal();
+            }
+            parameterTypes = result;
+        }
+        return result.clone();
+    }
+
+    @Override
+    public ValueType[] getRawParameterTypes() {
+        return getRawParameterTypesInternal().clone();
+    }
+
+    private ValueType[] getRawParameterTypesInternal() {
+        ValueType[] result = rawParameterTypes;
+        if (result == null) {
+            result = parseParameters(new ClassFileTypeParser(descriptor, owner::resolveTypeVariable));
+            rawParameterTypes = result;
+        }
+        return result;
+    }
+
+    private static ValueType[] parseParameters(ClassFileTypeParser parser) {
+        List<ValueType> result = new ArrayList<>();
+        parser.consume('(');
+        while (!parser.consume(')')) {
+            result.add(parser.parseType());
+        }
+        return result.toArray(new ValueType[0]);
+    }
+
+    @Override
+    public ValueType getReturnType() {
+        ValueType result = returnType;
+        if (result == null) {
+            if (signature != null) {
+                ClassFileTypeParser parser = new ClassFileTypeParser(signature, this::resolveTypeVariable);
+                parser.skipTypeParameters(this::resolveTypeVariable);
+                parseParameters(parser);
+                result = parser.parseType();
+            } else {
+                result = getRawReturnType();
+            }
+            returnType = result;
+        }
+        return result;
+    }
+
+    @Override
+    public ValueType getRawReturnType() {
+        ValueType result = rawReturnType;
+        if (result == null) {
+            result = ClassFileTypeParser.parseDescriptor(descriptor.substring(descriptor.indexOf(')') + 1));
+            rawReturnType = result;
+        }
+        return result;
+    }
+
+    @Override
+    ClassFileClassDescriberRepository getRepository() {
+        return owner.getRepository();
+    }
+}
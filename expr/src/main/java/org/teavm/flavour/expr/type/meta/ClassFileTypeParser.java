@@ -0,0 +1,215 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.type.meta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.teavm.flavour.expr.type.GenericArray;
+import org.teavm.flavour.expr.type.GenericClass;
+import org.teavm.flavour.expr.type.GenericReference;
+import org.teavm.flavour.expr.type.GenericType;
+import org.teavm.flavour.expr.type.Primitive;
+import org.teavm.flavour.expr.type.PrimitiveArray;
+import org.teavm.flavour.expr.type.TypeArgument;
+import org.teavm.flavour.expr.type.TypeVar;
+import org.teavm.flavour.expr.type.ValueType;
+
+/**
+ * <p>Parses type descriptors and generic signatures, as defined by JVM specification, into value types.
+ * Produces the same types as {@link ClassPathClassDescriberRepository#convertGenericType(java.lang.reflect.Type)}
+ * does for corresponding reflection types.</p>
+ */
+class ClassFileTypeParser {
+    private static final TypeVar PLACEHOLDER = new TypeVar();
+    private final String text;
+    private int position;
+    private Function<String, TypeVar> typeVariables;
+
+    ClassFileTypeParser(String text, Function<String, TypeVar> typeVariables) {
+        this.text = text;
+        this.typeVariables = typeVariables;
+    }
+
+    static ValueType parseDescriptor(String descriptor) {
+        return new ClassFileTypeParser(descriptor, name -> PLACEHOLDER).parseType();
+    }
+
+    boolean hasMore() {
+        return position < text.length();
+    }
+
+    boolean consume(char c) {
+        if (position < text.length() && text.charAt(position) == c) {
+            ++position;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * <p>Parses type parameters, if any, and makes them visible to subsequent parsing.</p>
+     *
+     * @return newly created type variables or empty array, if there are no type parameters.
+     */
+    TypeVar[] parseTypeParameters() {
+        if (position >= text.length() || text.charAt(position) != '<') {
+            return new TypeVar[0];
+        }
+
+        // Bounds may refer to any of the parameters, so create all variables before parsing bounds
+        int start = position;
+        Function<String, TypeVar> outerScope = typeVariables;
+        Map<String, TypeVar> declared = new LinkedHashMap<>();
+        typeVariables = name -> PLACEHOLDER;
+        readTypeParameters((name, bound) -> declared.put(name, new TypeVar(name)));
+
+        position = start;
+        typeVariables = name -> {
+            TypeVar var = declared.get(name);
+            return var != null ? var : outerScope.apply(name);
+        };
+        readTypeParameters((name, bound) -> {
+            if (bound instanceof GenericClass) {
+                declared.get(name).withUpperBound((GenericClass) bound);
+            }
+        });
+
+        return declared.values().toArray(new TypeVar[0]);
+    }
+
+    /**
+     * <p>Skips type parameters, if any, resolving their names with the given function afterwards.</p>
+     */
+    void skipTypeParameters(Function<String, TypeVar> scope) {
+        if (position < text.length() && text.charAt(position) == '<') {
+            typeVariables = name -> PLACEHOLDER;
+            readTypeParameters((name, bound) -> { });
+        }
+        typeVariables = scope;
+    }
+
+    private void readTypeParameters(TypeParameterConsumer consumer) {
+        ++position;
+        while (text.charAt(position) != '>') {
+            int colon = text.indexOf(':', position);
+            String name = text.substring(position, colon);
+            position = colon;
+            ValueType firstBound = null;
+            while (consume(':')) {
+                if (text.charAt(position) == ':') {
+                    // Class bound is absent, interface bounds follow
+                    continue;
+                }
+                ValueType bound = parseType();
+                if (firstBound == null) {
+                    firstBound = bound;
+                }
+            }
+            consumer.accept(name, firstBound);
+        }
+        ++position;
+    }
+
+    ValueType parseType() {
+        char c = text.charAt(position++);
+        switch (c) {
+            case 'Z':
+                return Primitive.BOOLEAN;
+            case 'C':
+                return Primitive.CHAR;
+            case 'B':
+                return Primitive.BYTE;
+            case 'S':
+                return Primitive.SHORT;
+            case 'I':
+                return Primitive.INT;
+            case 'J':
+                return Primitive.LONG;
+            case 'F':
+                return Primitive.FLOAT;
+            case 'D':
+                return Primitive.DOUBLE;
+            case 'V':
+                return null;
+            case 'L':
+                return parseClassType();
+            case 'T': {
+                int end = text.indexOf(';', position);
+                String name = text.substring(position, end);
+                position = end + 1;
+                return new GenericReference(typeVariables.apply(name));
+            }
+            case '[': {
+                ValueType itemType = parseType();
+                return itemType instanceof Primitive
+                        ? new PrimitiveArray((Primitive) itemType)
+                        : new GenericArray((GenericType) itemType);
+            }
+            default:
+                throw new IllegalArgumentException("Invalid signature " + text + " at position " + (position - 1));
+        }
+    }
+
+    private GenericClass parseClassType() {
+        StringBuilder name = new StringBuilder();
+        List<TypeArgument> arguments = Collections.emptyList();
+        while (true) {
+            char c = text.charAt(position++);
+            switch (c) {
+                case '<':
+                    arguments = parseTypeArguments();
+                    break;
+                case '.':
+                    // Only arguments of the innermost class are kept, like Java reflection does
+                    name.append('$');
+                    arguments = Collections.emptyList();
+                    break;
+                case ';':
+                    return new GenericClass(name.toString(), arguments);
+                case '/':
+                    name.append('.');
+                    break;
+                default:
+                    name.append(c);
+                    break;
+            }
+        }
+    }
+
+    private List<TypeArgument> parseTypeArguments() {
+        List<TypeArgument> arguments = new ArrayList<>();
+        while (!consume('>')) {
+            if (consume('*')) {
+                arguments.add(TypeArgument.covariant(GenericType.OBJECT));
+            } else if (consume('+')) {
+                arguments.add(TypeArgument.covariant((GenericType) parseType()));
+            } else if (consume('-')) {
+                arguments.add(TypeArgument.contravariant((GenericType) parseType()));
+            } else {
+                arguments.add(TypeArgument.invariant((GenericType) parseType()));
+            }
+        }
+        return arguments;
+    }
+
+    interface TypeParameterConsumer {
+        void accept(String name, ValueType firstBound);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.type.meta;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.teavm.flavour.expr.type.GenericClass;
+import org.teavm.flavour.expr.type.ValueType;
+import org.teavm.flavour.expr.type.ValueTypeFormatter;
+
+/**
+ * <p>Computes digest of signatures of classes, i.e. of their supertypes and of types of their public members,
+ * as seen by {@link ClassDescriberRepository}. Ancestors of classes are included as well, since they
+ * contribute inherited members. Missing classes are part of the digest too, so appearance of a class
+ * changes it.</p>
+ *
+ * <p>Annotations are not included by default, since {@link AnnotationDescriber} does not tell its type.
+ * Callers that depend on particular annotations list their types explicitly.</p>
+ */
+public final class ClassFingerprint {
+    private ClassFingerprint() {
+    }
+
+    /**
+     * <p>Computes SHA-256 digest of signatures of classes. The digest depends on the order of class names,
+     * so callers should keep the order between computations.</p>
+     */
+    public static byte[] compute(ClassDescriberRepository classRepository, Collection<String> classNames) {
+        return compute(classRepository, classNames, Collections.emptyList());
+    }
+
+    /**
+     * <p>Computes SHA-256 digest of signatures of classes, including given annotations of classes and of their
+     * members.</p>
+     *
+     * @param annotationTypes names of annotation classes to include into digest.
+     */
+    public static byte[] compute(ClassDescriberRepository classRepository, Collection<String> classNames,
+            Collection<String> annotationTypes) {
+        MessageDigest digest = digest();
+        StringBuilder sb = new StringBuilder();
+        Set<String> visited = new HashSet<>();
+        List<String> queue = new ArrayList<>(classNames);
+        for (int i = 0; i < queue.size(); ++i) {
+            String className = queue.get(i);
+            if (!visited.add(className)) {
+                continue;
+            }
+            sb.setLength(0);
+            ClassDescriber cls = classRepository.describe(className);
+            new Describer(classRepository, annotationTypes, sb).describe(className, cls);
+            digest.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+            if (cls != null) {
+                if (cls.getSupertype() != null) {
+                    queue.add(cls.getSupertype().getName());
+                }
+                for (GenericClass itf : cls.getInterfaces()) {
+                    queue.add(itf.getName());
+                }
+            }
+        }
+        return digest.digest();
+    }
+
+    static class Describer {
+        private ClassDescriberRepository classRepository;
+        private Collection<String> annotationTypes;
+        private StringBuilder sb;
+        private ValueTypeFormatter formatter = new ValueTypeFormatter();
+
+        Describer(ClassDescriberRepository classRepository, Collection<String> annotationTypes, StringBuilder sb) {
+            this.classRepository = classRepository;
+            this.annotationTypes = annotationTypes;
+            this.sb = sb;
+        }
+
+        void describe(String className, ClassDescriber cls) {
+            sb.append(className);
+            if (cls == null) {
+                sb.append(" missing\n");
+                return;
+            }
+            sb.append(cls.isInterface() ? " interface" : " class");
+            sb.append(" extends ").append(format(cls.getSupertype()));
+            for (GenericClass itf : cls.getInterfaces()) {
+                sb.append(' ').append(format(itf));
+            }
+            sb.append(describeAnnotations(cls));
+            sb.append('\n');
+
+            List<String> members = new ArrayList<>();
+            for (MethodDescriber method : cls.getMethods()) {
+                StringBuilder member = new StringBuilder();
+                member.append(method.isStatic() ? "static " : "").append(method.getName()).append('(');
+                for (ValueType parameterType : method.getParameterTypes()) {
+                    member.append(format(parameterType)).append(',');
+                }
+                member.append(')').append(format(method.getReturnType()));
+                member.append(describeAnnotations(method));
+                members.add(member.toString());
+            }
+            for (FieldDescriber field : cls.getFields()) {
+                members.add((field.isStatic() ? "static " : "") + field.getName() + ":"
+                        + format(field.getType()) + describeAnnotations(field));
+            }
+            Collections.sort(members);
+            for (String member : members) {
+                sb.append(member).append('\n');
+            }
+        }
+
+        private String describeAnnotations(AnnotationsDescriber annotations) {
+            if (annotationTypes.isEmpty()) {
+                return "";
+            }
+            StringBuilder result = new StringBuilder();
+            for (String annotationType : annotationTypes) {
+                AnnotationDescriber annotation = annotations.getAnnotation(annotationType);
+                if (annotation == null) {
+                    continue;
+                }
+                result.append(" @").append(annotationType).append('(');
+                ClassDescriber annotationClass = classRepository.describe(annotationType);
+                if (annotationClass != null) {
+                    List<String> elements = new ArrayList<>();
+                    for (MethodDescriber element : annotationClass.getMethods()) {
+                        if (!element.isStatic()) {
+                            elements.add(element.getName());
+                        }
+                    }
+                    Collections.sort(elements);
+                    for (String element : elements) {
+                        result.append(element).append('=');
+                        formatValue(annotation.getValue(element), result);
+                        result.append(',');
+                    }
+                }
+                result.append(')');
+            }
+            return result.toString();
+        }
+
+        private void formatValue(AnnotationValue value, StringBuilder result) {
+            if (value instanceof AnnotationString) {
+                result.append('"').append(((AnnotationString) value).value).append('"');
+            } else if (value instanceof AnnotationBoolean) {
+                result.append(((AnnotationBoolean) value).value);
+            } else if (value instanceof AnnotationByte) {
+                result.append(((AnnotationByte) value).value);
+            } else if (value instanceof AnnotationShort) {
+                result.append(((AnnotationShort) value).value);
+            } else if (value instanceof AnnotationInt) {
+                result.append(((AnnotationInt) value).value);
+            } else if (value instanceof AnnotationLong) {
+                result.append(((AnnotationLong) value).value);
+            } else if (value instanceof AnnotationFloat) {
+                result.append(((AnnotationFloat) value).value);
+            } else if (value instanceof AnnotationDouble) {
+                result.append(((AnnotationDouble) value).value);
+            } else if (value instanceof AnnotationClass) {
+                result.append(((AnnotationClass) value).className).append(".class");
+            } else if (value instanceof AnnotationEnum) {
+                AnnotationEnum enumValue = (AnnotationEnum) value;
+                result.append(enumValue.className).append('.').append(enumValue.fieldName);
+            } else if (value instanceof AnnotationList) {
+                result.append('{');
+                for (AnnotationValue item : ((AnnotationList) value).value) {
+                    formatValue(item, result);
+                    result.append(',');
+                }
+                result.append('}');
+            } else if (value instanceof AnnotationReference) {
+                // Type of nested annotation is unknown, so its elements can't be enumerated
+                result.append('@');
+            } else {
+                result.append("null");
+            }
+        }
+
+        private String format(ValueType type) {
+            return type != null ? formatter.format(type) : "void";
+        }
+    }
+
+    static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is not supported by JVM", e);
+        }
+    }
+}
@@ -21,11 +21,11 @@ import org.teavm.flavour.expr.type.ValueType;
 
 abstract class ClassPathAbstractMethodDescriber extends ClassPathAnnotationsDescriber implements MethodDescriber {
     private ClassPathClassDescriber owner;
-    private TypeVar[] typeVariables;
-    private ValueType[] parameterTypes;
-    private ValueType[] rawArgumentTypes;
-    private ValueType returnType;
-    private ValueType rawReturnType;
+    private volatile TypeVar[] typeVariables;
+    private volatile ValueType[] parameterTypes;
+    private volatile ValueType[] rawArgumentTypes;
+    private volatile ValueType returnType;
+    private volatile ValueType rawReturnType;
 
     ClassPathAbstractMethodDescriber(ClassPathClassDescriber classDescriber) {
         this.owner = classDescriber;
@@ -38,66 +38,72 @@ abstract class ClassPathAbstractMethodDescriber extends ClassPathAnnotationsDesc
 
     @Override
     public TypeVar[] getTypeVariables() {
-        if (typeVariables == null) {
+        TypeVar[] result = typeVariables;
+        if (result == null) {
             TypeVariable<?>[] javaVars = getJavaTypeVariables();
-            typeVariables = new TypeVar[javaVars.length];
+            result = new TypeVar[javaVars.length];
             for (int i = 0; i < javaVars.length; ++i) {
-                typeVariables[i] = owner.repository.getTypeVariable(javaVars[i]);
+                result[i] = owner.repository.getTypeVariable(javaVars[i]);
             }
+            typeVariables = result;
         }
-        return typeVariables.clone();
+        return result.clone();
     }
 
     abstract TypeVariable<?>[] getJavaTypeVariables();
 
     @Override
     public ValueType[] getParameterTypes() {
-        if (parameterTypes == null) {
+        ValueType[] result = parameterTypes;
+        if (result == null) {
             Type[] javaArgs = getJavaArgumentTypes();
-            parameterTypes = new ValueType[javaArgs.length];
+            result = new ValueType[javaArgs.length];
             for (int i = 0; i < javaArgs.length; ++i) {
-                parameterTypes[i] = owner.repository.convertGenericType(javaArgs[i]);
+                result[i] = owner.repository.convertGenericType(javaArgs[i]);
             }
+            parameterTypes = result;
         }
-        return parameterTypes.clone();
+        return result.clone();
     }
 
     abstract Type[] getJavaArgumentTypes();
 
     @Override
     public ValueType[] getRawParameterTypes() {
-        if (rawArgumentTypes == null) {
+        ValueType[] result = rawArgumentTypes;
+        if (result == null) {
             Class<?>[] javaArgs = getJavaRawArgumentTypes();
-            rawArgumentTypes = new ValueType[javaArgs.length];
+            result = new ValueType[javaArgs.length];
             for (int i = 0; i < javaArgs.length; ++i) {
-                rawArgumentTypes[i] = owner.repository.convertGenericType(javaArgs[i]);
+                result[i] = owner.repository.convertGenericType(javaArgs[i]);
             }
+            rawArgumentTypes = result;
         }
-        return rawArgumentTypes.clone();
+        return result.clone();
     }
 
     abstract Class<?>[] getJavaRawArgumentTypes();
 
     @Override
     public ValueType getReturnType() {
-        if (returnType == null) {
-            if (!getJavaReturnType().equals(void.class)) {
-                returnType = owner.repository.convertGenericType(getJavaReturnType());
-            }
+        ValueType result = returnType;
+        if (result == null && !getJavaReturnType().equals(void.class)) {
+            result = owner.repository.convertGenericType(getJavaReturnType());
+            returnType = result;
         }
-        return returnType;
+        return result;
     }
 
     abstract Type getJavaReturnType();
 
     @Override
     public ValueType getRawReturnType() {
-        if (rawReturnType == null) {
-            if (!getJavaRawReturnType().equals(void.class)) {
-                rawReturnType = owner.repository.convertGenericType(getJavaRawReturnType());
-            }
+        ValueType result = rawReturnType;
+        if (result == null && !getJavaRawReturnType().equals(void.class)) {
+            result = owner.repository.convertGenericType(getJavaRawReturnType());
+            rawReturnType = result;
         }
-        return rawReturnType;
+        return result;
     }
 
     abstract Type getJavaRawReturnType();
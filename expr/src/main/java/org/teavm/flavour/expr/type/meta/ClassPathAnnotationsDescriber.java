@@ -17,16 +17,16 @@ package org.teavm.flavour.expr.type.meta;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
  * @author Alexey Andreev
  */
 abstract class ClassPathAnnotationsDescriber implements AnnotationsDescriber {
-    private Map<Annotation, ClassPathAnnotationDescriber> annotationCache = new HashMap<>();
-    private AnnotationDescriber[] annotations;
+    private Map<Annotation, ClassPathAnnotationDescriber> annotationCache = new ConcurrentHashMap<>();
+    private volatile AnnotationDescriber[] annotations;
 
     abstract AnnotatedElement getAnnotatedElement();
 
@@ -34,14 +34,16 @@ abstract class ClassPathAnnotationsDescriber implements AnnotationsDescriber {
 
     @Override
     public AnnotationDescriber[] getAnnotations() {
-        if (annotations == null) {
+        AnnotationDescriber[] result = annotations;
+        if (result == null) {
             Annotation[] javaAnnotations = getAnnotatedElement().getDeclaredAnnotations();
-            annotations = new AnnotationDescriber[javaAnnotations.length];
+            result = new AnnotationDescriber[javaAnnotations.length];
             for (int i = 0; i < javaAnnotations.length; ++i) {
-                annotations[i] = getAnnotation(javaAnnotations[i]);
+                result[i] = getAnnotation(javaAnnotations[i]);
             }
+            annotations = result;
         }
-        return annotations.clone();
+        return result.clone();
     }
 
     @Override
@@ -58,11 +60,6 @@ abstract class ClassPathAnnotationsDescriber implements AnnotationsDescriber {
     }
 
     private AnnotationDescriber getAnnotation(Annotation javaAnnotation) {
-        ClassPathAnnotationDescriber annotation = annotationCache.get(javaAnnotation);
-        if (annotation == null) {
-            annotation = new ClassPathAnnotationDescriber(javaAnnotation);
-            annotationCache.put(javaAnnotation, annotation);
-        }
-        return annotation;
+        return annotationCache.computeIfAbsent(javaAnnotation, ClassPathAnnotationDescriber::new);
     }
 }
@@ -23,8 +23,8 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.teavm.flavour.expr.type.GenericClass;
 import org.teavm.flavour.expr.type.TypeVar;
 import org.teavm.flavour.expr.type.ValueType;
@@ -36,14 +36,14 @@ import org.teavm.flavour.expr.type.ValueType;
 class ClassPathClassDescriber extends ClassPathAnnotationsDescriber implements ClassDescriber {
     ClassPathClassDescriberRepository repository;
     private Class<?> cls;
-    private TypeVar[] typeVariables;
-    private GenericClass supertype;
-    private GenericClass[] interfaces;
-    private ClassPathAbstractMethodDescriber[] methods;
-    private Map<Method, ClassPathMethodDescriber> methodMap = new HashMap<>();
-    private Map<Constructor<?>, ClassPathConstructorDescriber> constructorMap = new HashMap<>();
-    private ClassPathFieldDescriber[] fields;
-    private Map<Field, ClassPathFieldDescriber> fieldMap = new HashMap<>();
+    private volatile TypeVar[] typeVariables;
+    private volatile GenericClass supertype;
+    private volatile GenericClass[] interfaces;
+    private volatile ClassPathAbstractMethodDescriber[] methods;
+    private Map<Method, ClassPathMethodDescriber> methodMap = new ConcurrentHashMap<>();
+    private Map<Constructor<?>, ClassPathConstructorDescriber> constructorMap = new ConcurrentHashMap<>();
+    private volatile ClassPathFieldDescriber[] fields;
+    private Map<Field, ClassPathFieldDescriber> fieldMap = new ConcurrentHashMap<>();
 
     ClassPathClassDescriber(ClassPathClassDescriberRepository repository, Class<?> cls) {
         this.repository = repository;
@@ -62,64 +62,72 @@ class ClassPathClassDescriber extends ClassPathAnnotationsDescriber implements C
 
     @Override
     public TypeVar[] getTypeVariables() {
-        if (typeVariables == null) {
+        TypeVar[] result = typeVariables;
+        if (result == null) {
             TypeVariable<?>[] javaTypeVariables = cls.getTypeParameters();
-            typeVariables = new TypeVar[javaTypeVariables.length];
-            for (int i = 0; i < typeVariables.length; ++i) {
-                typeVariables[i] = repository.getTypeVariable(javaTypeVariables[i]);
+            result = new TypeVar[javaTypeVariables.length];
+            for (int i = 0; i < result.length; ++i) {
+                result[i] = repository.getTypeVariable(javaTypeVariables[i]);
             }
+            typeVariables = result;
         }
-        return typeVariables;
+        return result;
     }
 
     @Override
     public GenericClass getSupertype() {
-        if (supertype == null) {
+        GenericClass result = supertype;
+        if (result == null) {
             Type nativeSuperclass = cls.getGenericSuperclass();
             if (nativeSuperclass == null && cls.isInterface()) {
                 nativeSuperclass = Object.class;
             }
 
-            supertype = nativeSuperclass != null
+            result = nativeSuperclass != null
                     ? (GenericClass) repository.convertGenericType(nativeSuperclass) : null;
+            supertype = result;
         }
-        return supertype;
+        return result;
     }
 
     @Override
     public GenericClass[] getInterfaces() {
-        if (interfaces == null) {
+        GenericClass[] result = interfaces;
+        if (result == null) {
             Type[] javaInterfaces = cls.getGenericInterfaces();
-            interfaces = new GenericClass[javaInterfaces.length];
+            result = new GenericClass[javaInterfaces.length];
             for (int i = 0; i < javaInterfaces.length; ++i) {
-                interfaces[i] = (GenericClass) repository.convertGenericType(javaInterfaces[i]);
+                result[i] = (GenericClass) repository.convertGenericType(javaInterfaces[i]);
             }
+            interfaces = result;
         }
-        return interfaces.clone();
+        return result.clone();
     }
 
     @Override
     public MethodDescriber[] getMethods() {
-        if (methods == null) {
+        ClassPathAbstractMethodDescriber[] result = methods;
+        if (result == null) {
             Method[] javaMethods = cls.getDeclaredMethods();
             Constructor<?>[] javaConstructors = cls.getDeclaredConstructors();
-            methods = new ClassPathAbstractMethodDescriber[javaMethods.length + javaConstructors.length];
+            result = new ClassPathAbstractMethodDescriber[javaMethods.length + javaConstructors.length];
             int j = 0;
             for (int i = 0; i < javaMethods.length; ++i) {
                 ClassPathMethodDescriber method = getMethod(javaMethods[i]);
                 if (method != null) {
-                    methods[j++] = method;
+                    result[j++] = method;
                 }
             }
             for (int i = 0; i < javaConstructors.length; ++i) {
                 ClassPathConstructorDescriber method = getMethod(javaConstructors[i]);
                 if (method != null) {
-                    methods[j++] = method;
+                    result[j++] = method;
                 }
             }
-            methods = Arrays.copyOf(methods, j);
+            result = Arrays.copyOf(result, j);
+            methods = result;
         }
-        return methods.clone();
+        return result.clone();
     }
 
     @Override
@@ -145,41 +153,33 @@ class ClassPathClassDescriber extends ClassPathAnnotationsDescriber implements C
         if (!Modifier.isPublic(javaMethod.getModifiers())) {
             return null;
         }
-        ClassPathMethodDescriber method = methodMap.get(javaMethod);
-        if (method == null) {
-            method = new ClassPathMethodDescriber(this, javaMethod);
-            methodMap.put(javaMethod, method);
-        }
-        return method;
+        return methodMap.computeIfAbsent(javaMethod, m -> new ClassPathMethodDescriber(this, m));
     }
 
     private ClassPathConstructorDescriber getMethod(Constructor<?> javaConstructor) {
         if (!Modifier.isPublic(javaConstructor.getModifiers())) {
             return null;
         }
-        ClassPathConstructorDescriber ctor = constructorMap.get(javaConstructor);
-        if (ctor == null) {
-            ctor = new ClassPathConstructorDescriber(this, javaConstructor);
-            constructorMap.put(javaConstructor, ctor);
-        }
-        return ctor;
+        return constructorMap.computeIfAbsent(javaConstructor, c -> new ClassPathConstructorDescriber(this, c));
     }
 
     @Override
     public FieldDescriber[] getFields() {
-        if (fields == null) {
+        ClassPathFieldDescriber[] result = fields;
+        if (result == null) {
             Field[] javaFields = cls.getDeclaredFields();
-            fields = new ClassPathFieldDescriber[javaFields.length];
+            result = new ClassPathFieldDescriber[javaFields.length];
             int j = 0;
-            for (int i = 0; i < fields.length; ++i) {
+            for (int i = 0; i < result.length; ++i) {
                 ClassPathFieldDescriber field = getField(javaFields[i]);
                 if (field != null) {
-                    fields[j++] = field;
+                    result[j++] = field;
                 }
             }
-            fields = Arrays.copyOf(fields, j);
+            result = Arrays.copyOf(result, j);
+            fields = result;
         }
-        return fields.clone();
+        return result.clone();
     }
 
     @Override
@@ -196,12 +196,7 @@ class ClassPathClassDescriber extends ClassPathAnnotationsDescriber implements C
         if (!Modifier.isPublic(javaField.getModifiers())) {
             return null;
         }
-        ClassPathFieldDescriber field = fieldMap.get(javaField);
-        if (field == null) {
-            field = new ClassPathFieldDescriber(this, javaField);
-            fieldMap.put(javaField, field);
-        }
-        return field;
+        return fieldMap.computeIfAbsent(javaField, f -> new ClassPathFieldDescriber(this, f));
     }
 
     @Override
@@ -15,6 +15,7 @@
  */
 package org.teavm.flavour.expr.type.meta;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.ParameterizedType;
@@ -25,6 +26,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.teavm.flavour.expr.type.GenericArray;
 import org.teavm.flavour.expr.type.GenericClass;
@@ -37,10 +40,20 @@ import org.teavm.flavour.expr.type.TypeArgument;
 import org.teavm.flavour.expr.type.TypeVar;
 import org.teavm.flavour.expr.type.ValueType;
 
+/**
+ * <p>Describes classes available to a class loader using Java reflection. Classes are described lazily,
+ * when first requested, and descriptions are remembered. Repository is thread-safe, so a single instance
+ * may be shared by any number of compilers, including compilers running concurrently.</p>
+ *
+ * @see #forClassLoader(ClassLoader)
+ */
 public class ClassPathClassDescriberRepository implements ClassDescriberRepository {
     private static final Map<String, Primitive> primitiveMap = new HashMap<>();
+    private static final Map<ClassLoader, WeakReference<ClassPathClassDescriberRepository>> sharedRepositories =
+            new WeakHashMap<>();
+    private static volatile ClassPathClassDescriberRepository systemRepository;
     ClassLoader classLoader;
-    private Map<String, Holder> cache = new HashMap<>();
+    private Map<String, Holder> cache = new ConcurrentHashMap<>();
     private Map<TypeVariable<?>, TypeVar> typeVarCache = new HashMap<>();
 
     static {
@@ -62,27 +75,63 @@ public class ClassPathClassDescriberRepository implements ClassDescriberReposito
         this.classLoader = classLoader;
     }
 
+    /**
+     * <p>Gets repository shared by all users of the given class loader. Repository is kept as long as someone
+     * refers to it, so holding the repository keeps already described classes, while it never prevents
+     * class loader from being garbage collected after all its users are gone. Repository for the system
+     * class loader is kept forever.</p>
+     *
+     * @param classLoader class loader to describe classes from.
+     * @return shared repository.
+     */
+    public static ClassPathClassDescriberRepository forClassLoader(ClassLoader classLoader) {
+        if (classLoader == ClassLoader.getSystemClassLoader()) {
+            ClassPathClassDescriberRepository result = systemRepository;
+            if (result == null) {
+                synchronized (sharedRepositories) {
+                    result = systemRepository;
+                    if (result == null) {
+                        result = new ClassPathClassDescriberRepository(classLoader);
+                        systemRepository = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        synchronized (sharedRepositories) {
+            WeakReference<ClassPathClassDescriberRepository> ref = sharedRepositories.get(classLoader);
+            ClassPathClassDescriberRepository result = ref != null ? ref.get() : null;
+            if (result == null) {
+                result = new ClassPathClassDescriberRepository(classLoader);
+                sharedRepositories.put(classLoader, new WeakReference<>(result));
+            }
+            return result;
+        }
+    }
+
     @Override
     public ClassDescriber describe(String className) {
-        Holder holder = cache.get(className);
-        if (holder == null) {
-            holder = new Holder();
-            try {
-                holder.classDescriber = new ClassPathClassDescriber(this,
-                        Class.forName(className, false, classLoader));
-            } catch (ClassNotFoundException e) {
-                // Leave holder.classDescriber null
-            }
-            cache.put(className, holder);
+        return cache.computeIfAbsent(className, this::createHolder).classDescriber;
+    }
+
+    private Holder createHolder(String className) {
+        Holder holder = new Holder();
+        try {
+            holder.classDescriber = new ClassPathClassDescriber(this, Class.forName(className, false, classLoader));
+        } catch (ClassNotFoundException e) {
+            // Leave holder.classDescriber null
         }
-        return holder.classDescriber;
+        return holder;
     }
 
     static class Holder {
         ClassPathClassDescriber classDescriber;
     }
 
-    TypeVar getTypeVariable(TypeVariable<?> javaVar) {
+    // Type variables are compared by identity, so creating a variable and publishing its bounds must be atomic.
+    // Converting bounds may refer to the same variable, so a reentrant lock is used instead of computeIfAbsent.
+    synchronized TypeVar getTypeVariable(TypeVariable<?> javaVar) {
         TypeVar var = typeVarCache.get(javaVar);
         if (var == null) {
             var = new TypeVar(javaVar.getName());
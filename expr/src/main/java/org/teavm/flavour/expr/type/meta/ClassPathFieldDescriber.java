@@ -27,8 +27,8 @@ import org.teavm.flavour.expr.type.ValueType;
 class ClassPathFieldDescriber extends ClassPathAnnotationsDescriber implements FieldDescriber {
     private ClassPathClassDescriber owner;
     private Field javaField;
-    private ValueType type;
-    private ValueType rawType;
+    private volatile ValueType type;
+    private volatile ValueType rawType;
 
     ClassPathFieldDescriber(ClassPathClassDescriber owner, Field javaField) {
         this.owner = owner;
@@ -47,18 +47,22 @@ class ClassPathFieldDescriber extends ClassPathAnnotationsDescriber implements F
 
     @Override
     public ValueType getType() {
-        if (type == null) {
-            type = owner.repository.convertGenericType(javaField.getGenericType());
+        ValueType result = type;
+        if (result == null) {
+            result = owner.repository.convertGenericType(javaField.getGenericType());
+            type = result;
         }
-        return type;
+        return result;
     }
 
     @Override
     public ValueType getRawType() {
-        if (rawType == null) {
-            rawType = owner.repository.convertGenericType(javaField.getType());
+        ValueType result = rawType;
+        if (result == null) {
+            result = owner.repository.convertGenericType(javaField.getType());
+            rawType = result;
         }
-        return rawType;
+        return result;
     }
 
     @Override
@@ -0,0 +1,44 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.type.meta;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Delegates to another repository and remembers names of all requested classes, including ones that
+ * were not found. Together with {@link ClassFingerprint}, this allows to tell whether a result computed from
+ * class descriptions is still valid. Repository is thread-safe, as long as underlying repository is.</p>
+ */
+public class RecordingClassDescriberRepository implements ClassDescriberRepository {
+    private ClassDescriberRepository underlying;
+    private Set<String> recordedClasses = ConcurrentHashMap.newKeySet();
+
+    public RecordingClassDescriberRepository(ClassDescriberRepository underlying) {
+        this.underlying = underlying;
+    }
+
+    @Override
+    public ClassDescriber describe(String className) {
+        recordedClasses.add(className);
+        return underlying.describe(className);
+    }
+
+    public Set<String> getRecordedClasses() {
+        return Collections.unmodifiableSet(recordedClasses);
+    }
+}
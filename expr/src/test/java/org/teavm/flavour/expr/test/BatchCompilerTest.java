@@ -0,0 +1,144 @@
+/*
+ *  Copyright 2015 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.test;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import org.teavm.flavour.expr.BatchCompiler;
+import org.teavm.flavour.expr.ClassPathClassResolver;
+import org.teavm.flavour.expr.ImportingClassResolver;
+import org.teavm.flavour.expr.plan.BinaryPlan;
+import org.teavm.flavour.expr.plan.ConstantPlan;
+import org.teavm.flavour.expr.plan.InvocationPlan;
+import org.teavm.flavour.expr.type.GenericClass;
+import org.teavm.flavour.expr.type.Primitive;
+import org.teavm.flavour.expr.type.meta.ClassPathClassDescriberRepository;
+
+public class BatchCompilerTest {
+    private BatchCompiler compiler = new BatchCompiler(new ClassPathClassDescriberRepository(),
+            new ImportingClassResolver(new ClassPathClassResolver()).importPackage("java.lang"),
+            name -> {
+                switch (name) {
+                    case "x":
+                        return Primitive.INT;
+                    case "s":
+                        return new GenericClass(String.class.getName());
+                    default:
+                        return null;
+                }
+            });
+
+    @Test
+    public void compilesInInputOrder() {
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < 500; ++i) {
+            switch (i % 5) {
+                case 0:
+                    sources.add("x + " + i);
+                    break;
+                case 1:
+                    sources.add("s.substring(" + i + ").length()");
+                    break;
+                case 2:
+                    sources.add("x + ");
+                    break;
+                case 3:
+                    sources.add("s.noSuchMethod(" + i + ")");
+                    break;
+                default:
+                    sources.add("Integer.toString(x * " + i + ")");
+                    break;
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<BatchCompiler.Result> results;
+        try {
+            results = compiler.setPool(pool).compile(sources);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(results.size(), is(sources.size()));
+        for (int i = 0; i < results.size(); ++i) {
+            BatchCompiler.Result result = results.get(i);
+            switch (i % 5) {
+                case 0: {
+                    assertThat(result.wasSuccessful(), is(true));
+                    BinaryPlan plan = (BinaryPlan) result.getPlan().getPlan();
+                    assertThat(((ConstantPlan) plan.getSecondOperand()).getValue(), is(i));
+                    break;
+                }
+                case 1: {
+                    assertThat(result.wasSuccessful(), is(true));
+                    InvocationPlan plan = (InvocationPlan) result.getPlan().getPlan();
+                    InvocationPlan substring = (InvocationPlan) plan.getInstance();
+                    assertThat(((ConstantPlan) substring.getArguments().get(0)).getValue(), is(i));
+                    break;
+                }
+                case 2:
+                    assertThat(result.wasSuccessful(), is(false));
+                    assertThat(result.getPlan(), is(nullValue()));
+                    break;
+                case 3:
+                    assertThat(result.wasSuccessful(), is(false));
+                    assertThat(result.getDiagnostics().size(), is(1));
+                    break;
+                default:
+                    assertThat(result.wasSuccessful(), is(true));
+                    assertThat(result.getPlan().getPlan(), is(instanceOf(InvocationPlan.class)));
+                    break;
+            }
+        }
+    }
+
+    @Test
+    public void castsToExpectedType() {
+        List<BatchCompiler.Result> results = compiler.compile(List.of("x", "s"), Primitive.LONG);
+        assertThat(results.get(0).wasSuccessful(), is(true));
+        assertThat(results.get(1).wasSuccessful(), is(false));
+    }
+
+    @Test
+    public void importsCanBeAddedWhileCompiling() {
+        ImportingClassResolver resolver = new ImportingClassResolver(new ClassPathClassResolver());
+        BatchCompiler compiler = new BatchCompiler(new ClassPathClassDescriberRepository(), resolver,
+                name -> null);
+        assertThat(compiler.compile(List.of("Math.abs(-1)")).get(0).wasSuccessful(), is(false));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<String> sources = new ArrayList<>();
+            for (int i = 0; i < 200; ++i) {
+                sources.add("Math.abs(" + i + ") + Objects.hashCode(null)");
+            }
+            pool.submit(() -> resolver.importPackage("java.lang").importPackage("java.util"));
+            compiler.setPool(pool).compile(sources);
+        } finally {
+            compiler.setPool(ForkJoinPool.commonPool());
+            pool.shutdown();
+        }
+
+        assertThat(resolver.findClass("Objects"), is("java.util.Objects"));
+        assertThat(compiler.compile(List.of("Math.abs(-1)")).get(0).wasSuccessful(), is(true));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Copyright 2015 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import org.teavm.flavour.expr.BatchEvaluator;
+import org.teavm.flavour.expr.InterpretingEvaluatorBuilder;
+import org.teavm.flavour.expr.test.BaseEvaluatorTest.BooleanComputation;
+import org.teavm.flavour.expr.test.BaseEvaluatorTest.IntComputation;
+import org.teavm.flavour.expr.test.BaseEvaluatorTest.LongComputation;
+import org.teavm.flavour.expr.test.BaseEvaluatorTest.StringComputation;
+import org.teavm.flavour.expr.test.BaseEvaluatorTest.TestVars;
+
+public class BatchEvaluatorTest {
+    @Test
+    public void evaluatesRows() {
+        BatchEvaluator<TestVars> batch = build(IntComputation.class, "intValue * 2 + stringValue.length()");
+        List<Object[]> rows = Arrays.asList(new Object[] { 1, "a" }, new Object[] { 5, "foo" },
+                new Object[] { -3, "" });
+        Object results = batch.evaluate(rows, (vars, row) -> {
+            vars.intValue((Integer) row[0]);
+            vars.stringValue((String) row[1]);
+        });
+        assertThat(batch.getResultType() == int.class, is(true));
+        assertThat(Arrays.toString((int[]) results), is("[3, 13, -6]"));
+    }
+
+    @Test
+    public void variablesAnswerObjectMethods() {
+        BatchEvaluator<TestVars> batch = build(IntComputation.class, "intValue");
+        Set<TestVars> seen = new HashSet<>();
+        int[] results = (int[]) batch.evaluate(Arrays.asList(1, 2), (vars, row) -> {
+            assertThat(vars.equals(vars), is(true));
+            assertThat(vars.toString() != null, is(true));
+            seen.add(vars);
+            vars.intValue(row);
+        });
+        assertThat(Arrays.toString(results), is("[1, 2]"));
+        assertThat(seen.isEmpty(), is(false));
+    }
+
+    @Test
+    public void evaluatesColumns() {
+        BatchEvaluator<TestVars> batch = build(BooleanComputation.class,
+                "intValue > 2 and stringValue != null");
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("intValue", new int[] { 1, 3, 4, 5 });
+        columns.put("stringValue", new String[] { "a", "b", null, "d" });
+        columns.put("doubleValue", new double[] { 1, 2, 3, 4 });
+        boolean[] results = (boolean[]) batch.evaluate(columns);
+        assertThat(Arrays.toString(results), is("[false, true, false, true]"));
+    }
+
+    @Test
+    public void storesReferenceResultsInTypedArray() {
+        BatchEvaluator<TestVars> batch = build(StringComputation.class, "stringValue + '!'");
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("stringValue", new String[] { "a", "b" });
+        String[] results = (String[]) batch.evaluate(columns);
+        assertThat(Arrays.toString(results), is("[a!, b!]"));
+    }
+
+    @Test
+    public void evaluatesLambdas() {
+        BatchEvaluator<TestVars> batch = build(IntComputation.class,
+                "integerList.stream().mapToInt(num -> num * intValue).sum()");
+        Integer[] rows = { 1, 2, 3 };
+        int[] results = (int[]) batch.evaluate(rows, (vars, row) -> {
+            vars.intValue(row);
+            vars.integerList(Arrays.asList(row, 10));
+        });
+        assertThat(Arrays.toString(results), is("[11, 24, 39]"));
+    }
+
+    @Test
+    public void splitsLargeBatches() {
+        BatchEvaluator<TestVars> batch = build(IntComputation.class, "intValue * intValue - intValue")
+                .setPool(ForkJoinPool.commonPool());
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < 100000; ++i) {
+            rows.add(i);
+        }
+        int[] results = (int[]) batch.evaluate(rows, TestVars::intValue);
+        for (int i = 0; i < results.length; ++i) {
+            assertThat(results[i], is(i * i - i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsColumnsOfDifferentLength() {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("intValue", new int[] { 1, 2 });
+        columns.put("stringValue", new String[] { "a" });
+        build(IntComputation.class, "intValue").evaluate(columns);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsColumnOfWrongType() {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("longWrapper", new int[] { 1, 2 });
+        build(LongComputation.class, "longWrapper").evaluate(columns);
+    }
+
+    @Test
+    public void acceptsBoxedAndSubtypeColumns() {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("intValue", new Integer[] { 1, 2 });
+        columns.put("longWrapper", new long[] { 3, 4 });
+        columns.put("object", new String[] { "a", "b" });
+        String[] results = (String[]) build(StringComputation.class, "'' + intValue + longWrapper + object")
+                .evaluate(columns);
+        assertThat(Arrays.toString(results), is("[13a, 24b]"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsVoidFunction() {
+        build(Runnable.class, "intValue");
+    }
+
+    private static BatchEvaluator<TestVars> build(Class<?> functionType, String expr) {
+        return new InterpretingEvaluatorBuilder()
+                .importPackage("java.lang")
+                .importPackage("java.util")
+                .buildBatch(functionType, TestVars.class, expr);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.teavm.flavour.expr.CachingEvaluatorBuilder;
+import org.teavm.flavour.expr.CompilingEvaluatorBuilder;
+import org.teavm.flavour.expr.Evaluator;
+import org.teavm.flavour.expr.EvaluatorBuilder;
+import org.teavm.flavour.expr.InterpretingEvaluatorBuilder;
+import org.teavm.flavour.expr.InvalidExpressionException;
+
+public class CachingEvaluatorTest extends EvaluatorTest {
+    private static final CachingEvaluatorBuilder sharedBuilder = createCachingBuilder(64);
+
+    @Override
+    protected EvaluatorBuilder createBuilder() {
+        return sharedBuilder;
+    }
+
+    private static CachingEvaluatorBuilder createCachingBuilder(int maxSize) {
+        return new CachingEvaluatorBuilder(new InterpretingEvaluatorBuilder()
+                .importPackage("java.lang")
+                .importPackage("java.util")
+                .importClass(EvaluatorTest.class.getName())
+                .importClass(Collectors.class.getName()), maxSize);
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        CachingEvaluatorBuilder builder = createCachingBuilder(10);
+        builder.build(IntComputation.class, TestVars.class, "intValue + 1");
+        builder.build(IntComputation.class, TestVars.class, "intValue + 1");
+        builder.build(LongComputation.class, TestVars.class, "intValue + 1");
+        builder.build(IntComputation.class, TestVars.class, "intValue + 2");
+
+        assertThat(builder.getHitCount(), is(1L));
+        assertThat(builder.getMissCount(), is(3L));
+        assertThat(builder.size(), is(3));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        CachingEvaluatorBuilder builder = createCachingBuilder(2);
+        builder.build(IntComputation.class, TestVars.class, "1");
+        builder.build(IntComputation.class, TestVars.class, "2");
+        builder.build(IntComputation.class, TestVars.class, "1");
+        builder.build(IntComputation.class, TestVars.class, "3");
+        assertThat(builder.size(), is(2));
+
+        builder.build(IntComputation.class, TestVars.class, "1");
+        assertThat(builder.getHitCount(), is(2L));
+        builder.build(IntComputation.class, TestVars.class, "2");
+        assertThat(builder.getMissCount(), is(4L));
+    }
+
+    @Test
+    public void createsEvaluatorsWithOwnVariables() {
+        CachingEvaluatorBuilder builder = createCachingBuilder(10);
+        Evaluator<IntComputation, TestVars> first = builder.build(IntComputation.class, TestVars.class,
+                "intValue * 2");
+        Evaluator<IntComputation, TestVars> second = builder.build(IntComputation.class, TestVars.class,
+                "intValue * 2");
+        first.getVariables().intValue(2);
+        second.getVariables().intValue(3);
+
+        assertThat(first.getFunction().compute(), is(4));
+        assertThat(second.getFunction().compute(), is(6));
+    }
+
+    @Test
+    public void compilesSameExpressionOnce() throws Exception {
+        CachingEvaluatorBuilder builder = createCachingBuilder(10);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 16; ++i) {
+                String expr = "intValue * " + (i % 2 + 2);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    Evaluator<IntComputation, TestVars> e = builder.build(IntComputation.class, TestVars.class,
+                            expr);
+                    e.getVariables().intValue(5);
+                    return e.getFunction().compute();
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < results.size(); ++i) {
+                assertThat(results.get(i).get(), is(5 * (i % 2 + 2)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(builder.getMissCount(), is(2L));
+        assertThat(builder.getHitCount(), is(14L));
+    }
+
+    @Test
+    public void forgetsFailedExpression() {
+        CachingEvaluatorBuilder builder = createCachingBuilder(10);
+        for (int i = 0; i < 2; ++i) {
+            try {
+                builder.build(IntComputation.class, TestVars.class, "noSuchVariable");
+            } catch (InvalidExpressionException e) {
+                // expected
+            }
+        }
+        assertThat(builder.getMissCount(), is(2L));
+        assertThat(builder.size(), is(0));
+    }
+
+    @Test
+    public void doesNotRetainClassLoaders() throws Exception {
+        CachingEvaluatorBuilder builder = new CachingEvaluatorBuilder(new CompilingEvaluatorBuilder(), 10);
+        WeakReference<ClassLoader> loader = buildInSeparateLoader(builder);
+        for (int i = 0; i < 100 && loader.get() != null; ++i) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(loader.get(), is(nullValue()));
+        assertThat(builder.size(), is(0));
+    }
+
+    private static WeakReference<ClassLoader> buildInSeparateLoader(CachingEvaluatorBuilder builder)
+            throws Exception {
+        String name = CachingEvaluatorTest.class.getPackageName() + ".GeneratedVars";
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT,
+                name.replace('.', '/'), null, "java/lang/Object", null);
+        writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "value", "(I)V", null, null).visitEnd();
+        writer.visitEnd();
+        byte[] data = writer.toByteArray();
+        ClassLoader loader = new ClassLoader(CachingEvaluatorTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String className) throws ClassNotFoundException {
+                if (!className.equals(name)) {
+                    throw new ClassNotFoundException(className);
+                }
+                return defineClass(className, data, 0, data.length);
+            }
+        };
+        Class<?> variablesType = loader.loadClass(name);
+
+        for (int i = 0; i < 2; ++i) {
+            Evaluator<IntSupplier, ?> e = builder.build(IntSupplier.class, variablesType, "value + 1");
+            Method setter = variablesType.getMethod("value", int.class);
+            setter.invoke(e.getVariables(), 41);
+            assertThat(e.getFunction().getAsInt(), is(42));
+        }
+        assertThat(builder.getHitCount(), is(1L));
+        assertThat(builder.size(), is(1));
+        return new WeakReference<>(loader);
+    }
+}
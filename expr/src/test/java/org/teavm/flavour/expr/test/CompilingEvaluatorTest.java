@@ -0,0 +1,63 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import java.lang.reflect.Proxy;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.teavm.flavour.expr.CompilingEvaluatorBuilder;
+import org.teavm.flavour.expr.Evaluator;
+import org.teavm.flavour.expr.EvaluatorBuilder;
+
+public class CompilingEvaluatorTest extends EvaluatorTest {
+    @Override
+    protected EvaluatorBuilder createBuilder() {
+        return new CompilingEvaluatorBuilder()
+                .importPackage("java.lang")
+                .importPackage("java.util")
+                .importClass(EvaluatorTest.class.getName())
+                .importClass(Collectors.class.getName());
+    }
+
+    @Test
+    public void implementsPublicInterface() {
+        Evaluator<IntSupplier, TestVars> e = createBuilder().build(IntSupplier.class, TestVars.class,
+                "intValue + 1");
+        e.getVariables().intValue(41);
+        assertThat(e.getFunction().getAsInt(), is(42));
+    }
+
+    @Test
+    public void variablesProxyAnswersObjectMethods() {
+        Evaluator<IntSupplier, HiddenVars> e = createBuilder().build(IntSupplier.class, HiddenVars.class,
+                "intValue + 1");
+        HiddenVars vars = e.getVariables();
+        assertThat(Proxy.isProxyClass(vars.getClass()), is(true));
+        assertThat(vars.equals(vars), is(true));
+        assertThat(vars.equals(e.getFunction()), is(false));
+        assertThat(vars.hashCode(), is(vars.hashCode()));
+        assertThat(vars.toString() != null, is(true));
+        vars.intValue(41);
+        assertThat(e.getFunction().getAsInt(), is(42));
+    }
+
+    interface HiddenVars {
+        void intValue(int value);
+    }
+}
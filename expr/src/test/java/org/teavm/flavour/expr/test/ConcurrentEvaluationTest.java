@@ -0,0 +1,101 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.teavm.flavour.expr.Evaluator;
+import org.teavm.flavour.expr.InterpretingEvaluatorBuilder;
+
+public class ConcurrentEvaluationTest extends BaseEvaluatorTest {
+    @Test
+    public void evaluatorSharedBetweenThreads() throws Exception {
+        Evaluator<IntComputation, TestVars> e = new InterpretingEvaluatorBuilder()
+                .importPackage("java.lang")
+                .build(IntComputation.class, TestVars.class, "intValue * 2 + stringValue.length()");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> failures = new ArrayList<>();
+            for (int i = 0; i < 8; ++i) {
+                int thread = i;
+                failures.add(executor.submit(() -> {
+                    int failureCount = 0;
+                    for (int j = 0; j < 1000; ++j) {
+                        e.getVariables().intValue(j);
+                        e.getVariables().stringValue("x".repeat(thread));
+                        if (e.getFunction().compute() != j * 2 + thread) {
+                            ++failureCount;
+                        }
+                    }
+                    return failureCount;
+                }));
+            }
+            for (Future<Integer> failure : failures) {
+                assertThat(failure.get(), is(0));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void lambdaCalledConcurrently() {
+        Evaluator<LongComputation, TestVars> e = new InterpretingEvaluatorBuilder()
+                .importPackage("java.lang")
+                .build(LongComputation.class, TestVars.class,
+                        "integerList.parallelStream().filter(x -> x % intValue == 0).count()");
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 10000; ++i) {
+            list.add(i);
+        }
+        e.getVariables().integerList(list);
+        e.getVariables().intValue(3);
+        assertThat(e.getFunction().compute(), is(3334L));
+    }
+
+    @Test
+    public void compilesConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < 16; ++i) {
+                int multiplier = i;
+                results.add(executor.submit(() -> {
+                    Evaluator<LongComputation, TestVars> e = new InterpretingEvaluatorBuilder()
+                            .importPackage("java.lang")
+                            .importPackage("java.util")
+                            .build(LongComputation.class, TestVars.class, "stringIntMap.entrySet().stream()"
+                                    + ".filter(entry -> entry.getKey().length() > 1)"
+                                    + ".mapToLong(entry -> entry.getValue() * " + multiplier + ").sum()");
+                    e.getVariables().stringIntMap(Map.of("a", 1, "bb", 2, "ccc", 3));
+                    return e.getFunction().compute();
+                }));
+            }
+            for (int i = 0; i < results.size(); ++i) {
+                assertThat(results.get(i).get(), is(5L * i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -104,6 +104,17 @@ public class EvaluatorTest extends BaseEvaluatorTest {
         assertThat(c.compute(), is("1-x!2"));
     }
 
+    @Test
+    public void evaluatesMixedArithmetics() {
+        LongComputation c = parseExpr(LongComputation.class, "intValue > 3 ? longWrapper * 2 : -intValue + byteValue");
+        vars.intValue(5);
+        vars.longWrapper(7L);
+        vars.byteValue((byte)1);
+        assertThat(c.compute(), is(14L));
+        vars.intValue(2);
+        assertThat(c.compute(), is(-1L));
+    }
+
     @Test
     public void negatesNumber() {
         IntComputation c = parseExpr(IntComputation.class, "-byteValue");
@@ -438,6 +449,49 @@ public class EvaluatorTest extends BaseEvaluatorTest {
         assertThat(result, is("2,4"));
     }
 
+    @Test
+    public void lambdaImplementsPrimitiveMethod() {
+        IntComputation c = parseExpr(IntComputation.class, "integerList.stream().mapToInt(num -> num * 2).sum()");
+        vars.integerList(Arrays.asList(2, 3, 4));
+        assertThat(c.compute(), is(18));
+    }
+
+    @Test
+    public void lambdaSupportsDefaultMethods() {
+        ObjectComputation c = parseExpr(ObjectComputation.class,
+                "EvaluatorTest.sortDescending(integerList, (a, b) -> Integer.compare(a, b))");
+        vars.integerList(Arrays.asList(7, 11, 5, 13, 2));
+        assertThat(c.compute(), is(Arrays.asList(13, 11, 7, 5, 2)));
+    }
+
+    @Test
+    public void lambdaSupportsObjectMethods() {
+        StringMappingComputation c = parseExpr(StringMappingComputation.class, "s -> '!' + s");
+        Mapping<String, String> mapping = c.compute();
+        assertThat(mapping.equals(mapping), is(true));
+        assertThat(mapping.equals(c.compute()), is(false));
+        assertThat(mapping.toString() != null, is(true));
+        assertThat(mapping.apply("foo"), is("!foo"));
+    }
+
+    @Test
+    public void invokesMethodsOfAnyArity() {
+        StringComputation c = parseExpr(StringComputation.class, "EvaluatorTest.concat('a', 'b', 'c', 'd', 'e')");
+        assertThat(c.compute(), is("abcde"));
+
+        c = parseExpr(StringComputation.class, "String.join('-', 'x', 'y')");
+        assertThat(c.compute(), is("x-y"));
+
+        c = parseExpr(StringComputation.class, "stringValue.substring(1, 3)");
+        vars.stringValue("foobar");
+        assertThat(c.compute(), is("oo"));
+
+        BooleanComputation bc = parseExpr(BooleanComputation.class,
+                "stringValue.regionMatches(true, 0, 'FOO', 0, 3)");
+        vars.stringValue("foobar");
+        assertThat(bc.compute(), is(true));
+    }
+
     @Test
     public void setsProperty() {
         TestBean bean = new TestBean();
@@ -456,12 +510,34 @@ public class EvaluatorTest extends BaseEvaluatorTest {
         assertThat(bean.bar, is(123));
     }
 
-    private <T> T parseExpr(Class<T> cls, String str) {
-        EvaluatorBuilder builder = new InterpretingEvaluatorBuilder()
+    @Test
+    public void objectMethodsDontEvaluateExpression() {
+        TestBean bean = new TestBean();
+        ObjectComputation c = parseExpr(ObjectComputation.class, "bean.bar = bean.bar + 1");
+        vars.bean(bean);
+        String string = c.toString();
+        int hashCode = c.hashCode();
+        assertThat(c.equals(c), is(true));
+        assertThat(c.equals(bean), is(false));
+        assertThat(bean.bar, is(0));
+        assertThat(c.toString(), is(string));
+        assertThat(c.hashCode(), is(hashCode));
+        assertThat(vars.equals(vars), is(true));
+        vars.toString();
+        c.compute();
+        assertThat(bean.bar, is(1));
+    }
+
+    protected EvaluatorBuilder createBuilder() {
+        return new InterpretingEvaluatorBuilder()
                 .importPackage("java.lang")
                 .importPackage("java.util")
                 .importClass(EvaluatorTest.class.getName())
                 .importClass(Collectors.class.getName());
+    }
+
+    private <T> T parseExpr(Class<T> cls, String str) {
+        EvaluatorBuilder builder = createBuilder();
         Evaluator<T, TestVars> e;
         try {
             e = builder.build(cls, TestVars.class, str);
@@ -505,4 +581,12 @@ public class EvaluatorTest extends BaseEvaluatorTest {
         result.sort(comparator);
         return result;
     }
+
+    public static String concat(String a, String b, String c, String d, String e) {
+        return a + b + c + d + e;
+    }
+
+    public static <T> List<T> sortDescending(List<T> list, Comparator<T> comparator) {
+        return sort(list, comparator.reversed());
+    }
 }
@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.function.Function;
+import org.junit.Test;
+import org.teavm.flavour.expr.Interpreter;
+import org.teavm.flavour.expr.plan.LambdaPlan;
+import org.teavm.flavour.expr.plan.VariablePlan;
+
+public class InterpretedLambdaTest {
+    @Test
+    public void implementsMethodInheritedTwice() {
+        Object lambda = createIdentity(StringTransformer.class, "apply",
+                "(Ljava/lang/Object;)Ljava/lang/Object;");
+        assertThat(Proxy.isProxyClass(lambda.getClass()), is(false));
+
+        Function<String, String> function = (StringTransformer) lambda;
+        BaseEvaluatorTest.Mapping<String, String> mapping = (StringTransformer) lambda;
+        assertThat(function.apply("a") + mapping.apply("b"), is("ab"));
+    }
+
+    @Test
+    public void implementsOnlyFunctionalOverload() {
+        Overloads lambda = (Overloads) createIdentity(Overloads.class, "apply",
+                "(Ljava/lang/String;)Ljava/lang/String;");
+        assertThat(lambda.apply("a"), is("a"));
+        try {
+            lambda.apply(new StringBuilder("b"));
+            fail("Overload with another signature must not be implemented");
+        } catch (AbstractMethodError e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void proxyLambdaAnswersObjectMethods() {
+        HiddenTransformer lambda = (HiddenTransformer) createIdentity(HiddenTransformer.class, "apply",
+                "(Ljava/lang/String;)Ljava/lang/String;");
+        assertThat(Proxy.isProxyClass(lambda.getClass()), is(true));
+        assertThat(lambda.apply("a"), is("a"));
+        assertThat(lambda.equals(lambda), is(true));
+        assertThat(lambda.equals("a"), is(false));
+        assertThat(lambda.hashCode(), is(lambda.hashCode()));
+        assertThat(lambda.toString() != null, is(true));
+    }
+
+    private static Object createIdentity(Class<?> type, String methodName, String methodDesc) {
+        LambdaPlan plan = new LambdaPlan(new VariablePlan("x"), type.getName(), methodName, methodDesc,
+                Collections.singletonList("x"));
+        Interpreter interpreter = new Interpreter(plan);
+        return interpreter.interpret(interpreter.createVariables());
+    }
+
+    public interface StringTransformer extends Function<String, String>, BaseEvaluatorTest.Mapping<String, String> {
+    }
+
+    public interface Overloads {
+        String apply(String value);
+
+        String apply(StringBuilder value);
+    }
+
+    interface HiddenTransformer {
+        String apply(String value);
+    }
+}
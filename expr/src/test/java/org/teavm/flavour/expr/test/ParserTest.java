@@ -58,4 +58,24 @@ public class ParserTest {
         assertThat(invocation.getArguments().get(0), is(instanceOf(BinaryExpr.class)));
         assertThat(invocation.getArguments().get(1), is(instanceOf(UnaryExpr.class)));
     }
+
+    @Test
+    public void reportsErrorsAndRecovers() {
+        parser.parse("x * (2 + ");
+        assertThat(parser.getDiagnostics().isEmpty(), is(false));
+
+        Expr expr = parser.parse("x * 2");
+        assertThat(parser.getDiagnostics().size(), is(0));
+        assertThat(expr, is(instanceOf(BinaryExpr.class)));
+        assertThat(expr.getEnd(), is(5));
+    }
+
+    @Test
+    public void parsesObject() {
+        ObjectExpr object = parser.parseObject("{ bar: (a, b) -> a }");
+        assertThat(parser.getDiagnostics().size(), is(0));
+        assertThat(object.getEntries().size(), is(1));
+        assertThat(object.getEntries().get(0).getKey(), is("bar"));
+        assertThat(object.getEntries().get(0).getValue(), is(instanceOf(LambdaExpr.class)));
+    }
 }
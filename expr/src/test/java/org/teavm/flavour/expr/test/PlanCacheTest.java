@@ -0,0 +1,204 @@
+/*
+ *  Copyright 2015 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.teavm.flavour.expr.BatchCompiler;
+import org.teavm.flavour.expr.ClassPathClassResolver;
+import org.teavm.flavour.expr.Evaluator;
+import org.teavm.flavour.expr.ImportingClassResolver;
+import org.teavm.flavour.expr.InterpretingEvaluatorBuilder;
+import org.teavm.flavour.expr.PlanCache;
+import org.teavm.flavour.expr.plan.ConstantPlan;
+import org.teavm.flavour.expr.plan.ConstructionPlan;
+import org.teavm.flavour.expr.plan.InvocationPlan;
+import org.teavm.flavour.expr.plan.Plan;
+import org.teavm.flavour.expr.plan.PlanReader;
+import org.teavm.flavour.expr.plan.PlanWriter;
+import org.teavm.flavour.expr.test.BaseEvaluatorTest.IntComputation;
+import org.teavm.flavour.expr.test.BaseEvaluatorTest.TestVars;
+import org.teavm.flavour.expr.type.GenericClass;
+import org.teavm.flavour.expr.type.Primitive;
+import org.teavm.flavour.expr.type.meta.ClassPathClassDescriberRepository;
+
+public class PlanCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesAndReadsPlans() throws IOException {
+        BatchCompiler compiler = new BatchCompiler(new ClassPathClassDescriberRepository(),
+                new ImportingClassResolver(new ClassPathClassResolver()).importPackage("java.lang")
+                        .importPackage("java.util"),
+                name -> {
+                    switch (name) {
+                        case "x":
+                            return Primitive.INT;
+                        case "s":
+                            return new GenericClass(String.class.getName());
+                        default:
+                            return null;
+                    }
+                });
+        List<String> sources = Arrays.asList(
+                "x * 2 + 1 > 3 and not (x == 5) or s == null",
+                "(long) x + -x / 3.0",
+                "x > 0 ? s.substring(x).length() : -x",
+                "s instanceof String ? s.length() : x",
+                "Arrays.asList(1, 2, 3).stream().map(n -> n * x).filter(n -> n > 2).count()",
+                "'foo' + x + s + true",
+                "s.toCharArray().length");
+        for (BatchCompiler.Result result : compiler.compile(sources)) {
+            assertThat(result.wasSuccessful(), is(true));
+            Plan plan = result.getPlan().getPlan();
+            Plan restored = roundTrip(plan);
+            assertThat(restored.toString(), is(plan.toString()));
+            assertThat(restored.getLocation().getStart(), is(plan.getLocation().getStart()));
+            assertThat(restored.getLocation().getEnd(), is(plan.getLocation().getEnd()));
+        }
+    }
+
+    @Test
+    public void writesConstants() throws IOException {
+        Object[] values = { null, true, (byte) 1, (short) 2, 'c', 3, 4L, 5.5f, 6.5, "str" };
+        for (Object value : values) {
+            ConstantPlan restored = (ConstantPlan) roundTrip(new ConstantPlan(value));
+            assertThat(restored.getValue(), is(value));
+        }
+    }
+
+    @Test
+    public void sharesStringsBetweenPlans() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PlanWriter writer = new PlanWriter(new DataOutputStream(bytes));
+        for (int i = 0; i < 2; ++i) {
+            writer.write(new InvocationPlan("java.util.List", "size", "()I", new ConstantPlan(null)));
+        }
+        assertThat(writer.getReferencedClasses().toString(), is("[java.util.List]"));
+
+        PlanReader reader = new PlanReader(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        for (int i = 0; i < 2; ++i) {
+            InvocationPlan plan = (InvocationPlan) reader.read();
+            assertThat(plan.getClassName(), is("java.util.List"));
+            assertThat(plan.getMethodDesc(), is("()I"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignInput() throws IOException {
+        new PlanReader(new DataInputStream(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5 }))).read();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsWrongCount() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new PlanWriter(new DataOutputStream(bytes)).write(new ConstructionPlan("java.lang.Object", "()V"));
+        byte[] data = bytes.toByteArray();
+        ByteArrayOutputStream corrupted = new ByteArrayOutputStream();
+        corrupted.write(data, 0, data.length - 1);
+        corrupted.write(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 });
+        new PlanReader(new DataInputStream(new ByteArrayInputStream(corrupted.toByteArray()))).read();
+    }
+
+    @Test
+    public void skipsCompilationOfCachedExpressions() throws IOException {
+        PlanCache cache = new PlanCache(folder.getRoot().toPath());
+        IntComputation first = build(cache, "EvaluatorTest.reduce(integerList, 0, (Integer a, b) -> a + b)");
+        assertThat(cache.getMissCount(), is(1L));
+        assertThat(cache.getHitCount(), is(0L));
+
+        PlanCache warmCache = new PlanCache(folder.getRoot().toPath());
+        IntComputation second = build(warmCache, "EvaluatorTest.reduce(integerList, 0, (Integer a, b) -> a + b)");
+        assertThat(warmCache.getHitCount(), is(1L));
+        assertThat(first, notNullValue());
+        assertThat(second.compute(), is(25));
+    }
+
+    @Test
+    public void ignoresPlanWhenClassesChange() {
+        ClassPathClassDescriberRepository classes = new ClassPathClassDescriberRepository();
+        Plan plan = new InvocationPlan("java.util.List", "size", "()I", new ConstantPlan(null));
+        new PlanCache(folder.getRoot().toPath(), classes).put("key", plan);
+        assertThat(new PlanCache(folder.getRoot().toPath(), classes).get("key"), notNullValue());
+        assertThat(new PlanCache(folder.getRoot().toPath(), classes).get("other key"), nullValue());
+
+        PlanCache changedCache = new PlanCache(folder.getRoot().toPath(),
+                name -> name.equals("java.util.Collection") ? null : classes.describe(name));
+        assertThat(changedCache.get("key"), nullValue());
+    }
+
+    @Test
+    public void ignoresPlanOfOtherCompilerVersion() {
+        ClassPathClassDescriberRepository classes = new ClassPathClassDescriberRepository();
+        Plan plan = new InvocationPlan("java.util.List", "size", "()I", new ConstantPlan(null));
+        new PlanCache(folder.getRoot().toPath(), classes, "1").put("key", plan);
+        assertThat(new PlanCache(folder.getRoot().toPath(), classes, "1").get("key"), notNullValue());
+        assertThat(new PlanCache(folder.getRoot().toPath(), classes, "2").get("key"), nullValue());
+    }
+
+    @Test
+    public void ignoresCorruptedEntry() throws IOException {
+        ClassPathClassDescriberRepository classes = new ClassPathClassDescriberRepository();
+        Plan plan = new InvocationPlan("java.util.List", "size", "()I", new ConstantPlan(null));
+        new PlanCache(folder.getRoot().toPath(), classes, "1").put("key", plan);
+        Path entry;
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            entry = files.findFirst().get();
+        }
+        byte[] data = Files.readAllBytes(entry);
+        int classCountOffset = 4 + (4 + "1".length()) + (4 + "key".length());
+        ByteBuffer.wrap(data).putInt(classCountOffset, Integer.MAX_VALUE);
+        Files.write(entry, data);
+
+        PlanCache cache = new PlanCache(folder.getRoot().toPath(), classes, "1");
+        assertThat(cache.get("key"), nullValue());
+        assertThat(cache.getMissCount(), is(1L));
+    }
+
+    private IntComputation build(PlanCache cache, String expr) {
+        Evaluator<IntComputation, TestVars> evaluator = new InterpretingEvaluatorBuilder()
+                .importPackage("java.lang")
+                .importPackage("java.util")
+                .importClass(EvaluatorTest.class.getName())
+                .setPlanCache(cache)
+                .build(IntComputation.class, TestVars.class, expr);
+        evaluator.getVariables().integerList(Arrays.asList(2, 5, 7, 11));
+        return evaluator.getFunction();
+    }
+
+    private static Plan roundTrip(Plan plan) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new PlanWriter(new DataOutputStream(bytes)).write(plan);
+        return new PlanReader(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))).read();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.test;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.teavm.flavour.expr.Interpreter;
+import org.teavm.flavour.expr.plan.ArithmeticType;
+import org.teavm.flavour.expr.plan.BinaryPlan;
+import org.teavm.flavour.expr.plan.BinaryPlanType;
+import org.teavm.flavour.expr.plan.ConditionalPlan;
+import org.teavm.flavour.expr.plan.ConstantPlan;
+import org.teavm.flavour.expr.plan.ConstructionPlan;
+import org.teavm.flavour.expr.plan.InvocationPlan;
+import org.teavm.flavour.expr.plan.LogicalBinaryPlan;
+import org.teavm.flavour.expr.plan.LogicalBinaryPlanType;
+import org.teavm.flavour.expr.plan.Plan;
+import org.teavm.flavour.expr.plan.PlanFormatter;
+import org.teavm.flavour.expr.plan.PlanOptimizer;
+import org.teavm.flavour.expr.plan.VariablePlan;
+
+public class PlanOptimizerTest {
+    private static final String STRING_BUILDER = "java.lang.StringBuilder";
+    private static final String APPEND = "(Ljava/lang/String;)Ljava/lang/StringBuilder;";
+
+    @Test
+    public void foldsArithmetics() {
+        Plan plan = binary(BinaryPlanType.ADD, binary(BinaryPlanType.MULTIPLY, constant(2), constant(3)),
+                constant(1));
+        assertThat(constantValue(optimize(plan)), is(7));
+    }
+
+    @Test
+    public void foldsComparison() {
+        Plan plan = binary(BinaryPlanType.LESS, constant(2), constant(3));
+        assertThat(constantValue(optimize(plan)), is(true));
+    }
+
+    @Test
+    public void foldsComparisonOfSignedZeros() {
+        assertThat(constantValue(optimize(new BinaryPlan(constant(-0.0), constant(0.0), BinaryPlanType.EQUAL,
+                ArithmeticType.DOUBLE))), is(true));
+        assertThat(constantValue(optimize(new BinaryPlan(constant(-0.0), constant(0.0), BinaryPlanType.LESS,
+                ArithmeticType.DOUBLE))), is(false));
+        assertThat(constantValue(optimize(new BinaryPlan(constant(-0.0f), constant(0.0f), BinaryPlanType.EQUAL,
+                ArithmeticType.FLOAT))), is(true));
+    }
+
+    @Test
+    public void foldsComparisonOfFloatingPointAsEvaluated() {
+        Object[][] operands = {
+                { -0.0, 0.0 }, { 0.0, -0.0 }, { Double.NaN, 1.0 }, { 1.0, Double.NaN },
+                { Double.NaN, Double.NaN }, { 1.0, 2.0 }, { Double.NEGATIVE_INFINITY, -0.0 }
+        };
+        BinaryPlanType[] types = { BinaryPlanType.EQUAL, BinaryPlanType.NOT_EQUAL, BinaryPlanType.LESS,
+                BinaryPlanType.LESS_OR_EQUAL, BinaryPlanType.GREATER, BinaryPlanType.GREATER_OR_EQUAL };
+        for (Object[] pair : operands) {
+            double a = (Double) pair[0];
+            double b = (Double) pair[1];
+            for (BinaryPlanType type : types) {
+                checkFolding(type, ArithmeticType.DOUBLE, a, b);
+                checkFolding(type, ArithmeticType.FLOAT, (float) a, (float) b);
+            }
+        }
+    }
+
+    @Test
+    public void keepsDivisionByZero() {
+        Plan plan = binary(BinaryPlanType.DIVIDE, constant(2), constant(0));
+        assertThat(optimize(plan), instanceOf(BinaryPlan.class));
+    }
+
+    @Test
+    public void keepsNonConstantOperations() {
+        Plan plan = binary(BinaryPlanType.ADD, new VariablePlan("x"),
+                binary(BinaryPlanType.ADD, constant(2), constant(3)));
+        Plan result = optimize(plan);
+        assertThat(result, instanceOf(BinaryPlan.class));
+        assertThat(constantValue(((BinaryPlan) result).getSecondOperand()), is(5));
+    }
+
+    @Test
+    public void eliminatesDeadBranch() {
+        Plan consequent = new VariablePlan("x");
+        Plan plan = new ConditionalPlan(binary(BinaryPlanType.EQUAL, constant(1), constant(1)),
+                consequent, new VariablePlan("y"));
+        assertThat(optimize(plan), sameInstance(consequent));
+    }
+
+    @Test
+    public void shortCircuitsLogicalOperations() {
+        Plan second = new VariablePlan("x");
+        Plan plan = new LogicalBinaryPlan(constant(true), second, LogicalBinaryPlanType.AND);
+        assertThat(optimize(plan), sameInstance(second));
+
+        plan = new LogicalBinaryPlan(constant(true), new VariablePlan("x"), LogicalBinaryPlanType.OR);
+        assertThat(constantValue(optimize(plan)), is(true));
+    }
+
+    @Test
+    public void flattensConcatenation() {
+        Plan inner = concat(new VariablePlan("x"), constant("a"));
+        Plan plan = concat(inner, constant("b"), constant("c"), new VariablePlan("y"));
+        assertThat(format(optimize(plan)), is(format(concat(new VariablePlan("x"), constant("abc"),
+                new VariablePlan("y")))));
+    }
+
+    @Test
+    public void foldsConstantConcatenation() {
+        Plan plan = concat(constant("a"), new InvocationPlan("java.lang.Integer", "toString",
+                "(I)Ljava/lang/String;", null, constant(23)));
+        assertThat(constantValue(optimize(plan)), is("a23"));
+    }
+
+    private static void checkFolding(BinaryPlanType type, ArithmeticType valueType, Object a, Object b) {
+        Interpreter interpreter = new Interpreter(new BinaryPlan(new VariablePlan("a"), new VariablePlan("b"),
+                type, valueType));
+        Object[] variables = interpreter.createVariables();
+        variables[interpreter.getVariableIndex("a")] = a;
+        variables[interpreter.getVariableIndex("b")] = b;
+        Object evaluated = interpreter.interpret(variables);
+
+        Plan folded = optimize(new BinaryPlan(constant(a), constant(b), type, valueType));
+        assertThat(a + " " + type + " " + b + " (" + valueType + ")", constantValue(folded), is(evaluated));
+    }
+
+    private static Plan optimize(Plan plan) {
+        return new PlanOptimizer().optimize(plan);
+    }
+
+    private static Object constantValue(Plan plan) {
+        assertThat(plan, instanceOf(ConstantPlan.class));
+        return ((ConstantPlan) plan).getValue();
+    }
+
+    private static String format(Plan plan) {
+        StringBuilder sb = new StringBuilder();
+        plan.acceptVisitor(new PlanFormatter(sb));
+        return sb.toString();
+    }
+
+    private static Plan constant(Object value) {
+        return new ConstantPlan(value);
+    }
+
+    private static Plan binary(BinaryPlanType type, Plan first, Plan second) {
+        return new BinaryPlan(first, second, type, ArithmeticType.INT);
+    }
+
+    private static Plan concat(Plan... parts) {
+        Plan result = new ConstructionPlan(STRING_BUILDER, "()V");
+        for (Plan part : parts) {
+            result = new InvocationPlan(STRING_BUILDER, "append", APPEND, result, part);
+        }
+        return new InvocationPlan(STRING_BUILDER, "toString", "()Ljava/lang/String;", result);
+    }
+}
@@ -30,6 +30,7 @@ import org.teavm.flavour.expr.type.GenericClass;
 import org.teavm.flavour.expr.type.GenericReference;
 import org.teavm.flavour.expr.type.GenericType;
 import org.teavm.flavour.expr.type.GenericTypeNavigator;
+import org.teavm.flavour.expr.type.InferenceStatistics;
 import org.teavm.flavour.expr.type.Primitive;
 import org.teavm.flavour.expr.type.PrimitiveArray;
 import org.teavm.flavour.expr.type.TypeArgument;
@@ -246,6 +247,50 @@ public class TypeInferenceTest {
         assertEquals("Integer", string(s.getUpperBound().iterator().next()));
     }
 
+    @Test
+    public void sharesProperTypeRelationsBetweenInferences() {
+        GenericTypeNavigator navigator = new GenericTypeNavigator(types);
+        InferenceStatistics statistics = navigator.getInferenceStatistics();
+        long firstMisses = 0;
+        for (int i = 0; i < 2; ++i) {
+            inf = new TypeInference(navigator);
+            TypeVar t = new TypeVar("T");
+            addVariables(t);
+            subtypeConstraint(cls(ArrayList.class, inv(cls(String.class))), cls(List.class, inv(cls(String.class))));
+            subtypeConstraint(cls(Integer.class), ref(t));
+            subtypeConstraint(cls(Long.class), ref(t));
+            infer();
+            if (i == 0) {
+                firstMisses = statistics.getSubtypeCacheMisses() + statistics.getLeastUpperBoundCacheMisses();
+                assertEquals(0, statistics.getSubtypeCacheHits());
+            }
+        }
+
+        assertEquals(firstMisses, statistics.getSubtypeCacheMisses() + statistics.getLeastUpperBoundCacheMisses());
+        assertTrue(statistics.getSubtypeCacheHits() > 0);
+        assertEquals(1, statistics.getLeastUpperBoundCacheHits());
+        assertEquals(2, statistics.getVariablesCreated());
+    }
+
+    @Test
+    public void boundsSharedProperTypeRelations() {
+        GenericTypeNavigator navigator = new GenericTypeNavigator(types, 1);
+        InferenceStatistics statistics = navigator.getInferenceStatistics();
+        for (int i = 0; i < 2; ++i) {
+            inf = new TypeInference(navigator);
+            subtypeConstraint(cls(ArrayList.class, inv(cls(String.class))), cls(List.class, inv(cls(String.class))));
+            subtypeConstraint(cls(HashMap.class, inv(cls(String.class)), inv(cls(Integer.class))),
+                    cls(Map.class, inv(cls(String.class)), inv(cls(Integer.class))));
+        }
+        assertEquals(0, statistics.getSubtypeCacheHits());
+        assertEquals(4, statistics.getSubtypeCacheMisses());
+    }
+
+    @Test
+    public void rejectsSupertypeWithOtherNumberOfArguments() {
+        assertFalse(inf.subtypeConstraint(cls(ArrayList.class, inv(cls(String.class))), cls(List.class)));
+    }
+
     private void addVariables(TypeVar... typeVars) {
         addVariables(Arrays.asList(typeVars));
     }
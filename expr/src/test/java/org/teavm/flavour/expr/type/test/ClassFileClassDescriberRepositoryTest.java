@@ -0,0 +1,237 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.type.test;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.teavm.flavour.expr.test.A;
+import org.teavm.flavour.expr.test.TestBean;
+import org.teavm.flavour.expr.type.GenericType;
+import org.teavm.flavour.expr.type.TypeVar;
+import org.teavm.flavour.expr.type.ValueType;
+import org.teavm.flavour.expr.type.ValueTypeFormatter;
+import org.teavm.flavour.expr.type.meta.AnnotationDescriber;
+import org.teavm.flavour.expr.type.meta.AnnotationEnum;
+import org.teavm.flavour.expr.type.meta.AnnotationInt;
+import org.teavm.flavour.expr.type.meta.AnnotationList;
+import org.teavm.flavour.expr.type.meta.AnnotationString;
+import org.teavm.flavour.expr.type.meta.ClassDescriber;
+import org.teavm.flavour.expr.type.meta.ClassDescriberRepository;
+import org.teavm.flavour.expr.type.meta.ClassFileClassDescriberRepository;
+import org.teavm.flavour.expr.type.meta.ClassPathClassDescriberRepository;
+import org.teavm.flavour.expr.type.meta.FieldDescriber;
+import org.teavm.flavour.expr.type.meta.MethodDescriber;
+
+public class ClassFileClassDescriberRepositoryTest {
+    private ClassDescriberRepository reflection = new ClassPathClassDescriberRepository();
+    private ClassDescriberRepository classFiles = new ClassFileClassDescriberRepository();
+
+    @Test
+    public void describesLikeReflection() {
+        List<Class<?>> classes = Arrays.asList(Object.class, String.class, Integer.class, Enum.class,
+                ArrayList.class, HashMap.class, Map.class, Map.Entry.class, Optional.class, Collections.class,
+                Collectors.class, Stream.class, BiFunction.class, A.class, TestBean.class, Outer.Inner.class,
+                Annotated.class, TestAnnotation.class);
+        for (Class<?> cls : classes) {
+            assertThat(dump(classFiles.describe(cls.getName())), is(dump(reflection.describe(cls.getName()))));
+        }
+    }
+
+    @Test
+    public void reportsMissingClass() {
+        assertThat(classFiles.describe("org.teavm.flavour.NoSuchClass"), is(nullValue()));
+    }
+
+    @Test
+    public void readsAnnotations() {
+        ClassDescriber cls = classFiles.describe(Annotated.class.getName());
+        AnnotationDescriber annotation = cls.getAnnotation(TestAnnotation.class.getName());
+        assertThat(((AnnotationString) annotation.getValue("value")).value, is("foo"));
+        assertThat(((AnnotationInt) annotation.getValue("number")).value, is(23));
+        AnnotationEnum type = (AnnotationEnum) annotation.getValue("type");
+        assertThat(type.className, is(ElementType.class.getName()));
+        assertThat(type.fieldName, is("FIELD"));
+        AnnotationList list = (AnnotationList) annotation.getValue("list");
+        assertThat(list.value.size(), is(2));
+        assertThat(((AnnotationInt) list.value.get(1)).value, is(3));
+
+        FieldDescriber field = cls.getField("field");
+        assertThat(field.getAnnotations().length, is(1));
+        assertThat(field.getAnnotation(TestAnnotation.class.getName()), instanceOf(AnnotationDescriber.class));
+        assertThat(field.getAnnotation(Deprecated.class.getName()), is(nullValue()));
+    }
+
+    @Test
+    public void reportsMissingAnnotation() {
+        assertThat(classFiles.describe(String.class.getName()).getAnnotation(Deprecated.class.getName()),
+                is(nullValue()));
+        assertThat(classFiles.describe(Map.class.getName()).getAnnotation(Deprecated.class.getName()),
+                is(nullValue()));
+        assertThat(classFiles.describe(Annotated.class.getName()).getAnnotation(InheritedAnnotation.class.getName()),
+                is(nullValue()));
+    }
+
+    @Test
+    public void readsInheritedAnnotation() {
+        ClassDescriber cls = classFiles.describe(Derived.class.getName());
+        AnnotationDescriber annotation = cls.getAnnotation(InheritedAnnotation.class.getName());
+        assertThat(((AnnotationString) annotation.getValue("value")).value, is("base"));
+        assertThat(cls.getAnnotation(TestAnnotation.class.getName()), is(nullValue()));
+        assertThat(Derived.class.getAnnotation(InheritedAnnotation.class).value(), is("base"));
+        assertThat(Derived.class.getAnnotation(TestAnnotation.class), is(nullValue()));
+    }
+
+    @Test
+    public void findsMethodBySignature() {
+        ClassDescriber cls = classFiles.describe(HashMap.class.getName());
+        for (MethodDescriber method : reflection.describe(HashMap.class.getName()).getMethods()) {
+            MethodDescriber found = cls.getMethod(method.getName(), method.getRawParameterTypes());
+            assertThat(dump(found), is(dump(method)));
+        }
+        assertThat(cls.getMethod("put"), is(nullValue()));
+    }
+
+    private static String dump(ClassDescriber cls) {
+        if (cls == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(cls.getName()).append(cls.isInterface() ? " interface" : " class");
+        dumpTypeVariables(cls.getTypeVariables(), sb);
+        sb.append(" extends ").append(format(cls.getSupertype()));
+        sb.append(" implements ").append(Arrays.stream(cls.getInterfaces())
+                .map(ClassFileClassDescriberRepositoryTest::format)
+                .collect(Collectors.joining(", ")));
+        sb.append(" annotations ").append(cls.getAnnotations().length).append('\n');
+        Arrays.stream(cls.getMethods())
+                .map(ClassFileClassDescriberRepositoryTest::dump)
+                .sorted()
+                .forEach(line -> sb.append("  ").append(line).append('\n'));
+        Arrays.stream(cls.getFields())
+                .map(field -> (field.isStatic() ? "static " : "") + format(field.getType()) + " " + field.getName()
+                        + " raw " + format(field.getRawType()) + " annotations " + field.getAnnotations().length)
+                .sorted()
+                .forEach(line -> sb.append("  ").append(line).append('\n'));
+        return sb.toString();
+    }
+
+    private static String dump(MethodDescriber method) {
+        if (method == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder();
+        if (method.isStatic()) {
+            sb.append("static ");
+        }
+        if (method.isAbstract()) {
+            sb.append("abstract ");
+        }
+        if (method.isVariableArgument()) {
+            sb.append("varargs ");
+        }
+        dumpTypeVariables(method.getTypeVariables(), sb);
+        sb.append(' ').append(format(method.getReturnType())).append(' ').append(method.getName());
+        sb.append(Arrays.stream(method.getParameterTypes())
+                .map(ClassFileClassDescriberRepositoryTest::format)
+                .collect(Collectors.joining(", ", "(", ")")));
+        sb.append(" raw ").append(format(method.getRawReturnType()));
+        sb.append(Arrays.stream(method.getRawParameterTypes())
+                .map(ClassFileClassDescriberRepositoryTest::format)
+                .collect(Collectors.joining(", ", "(", ")")));
+        sb.append(" annotations ").append(method.getAnnotations().length);
+        return sb.toString();
+    }
+
+    private static void dumpTypeVariables(TypeVar[] typeVariables, StringBuilder sb) {
+        sb.append('<');
+        for (TypeVar var : typeVariables) {
+            sb.append(var.getName()).append(" extends");
+            for (GenericType bound : var.getUpperBound()) {
+                sb.append(' ').append(format(bound));
+            }
+            sb.append(';');
+        }
+        sb.append('>');
+    }
+
+    private static String format(ValueType type) {
+        return type != null ? new ValueTypeFormatter().format(type) : "void";
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface TestAnnotation {
+        String value();
+
+        int number() default 23;
+
+        ElementType type() default ElementType.FIELD;
+
+        int[] list() default { 2, 3 };
+    }
+
+    @TestAnnotation("foo")
+    public static class Annotated {
+        @TestAnnotation("bar")
+        @SuppressWarnings("unused")
+        public int field;
+
+        @TestAnnotation(value = "baz", number = 42)
+        public <T extends Comparable<T>> T max(List<? extends T> list) {
+            return null;
+        }
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Inherited
+    public @interface InheritedAnnotation {
+        String value();
+    }
+
+    @InheritedAnnotation("base")
+    @TestAnnotation("base")
+    public static class Base {
+    }
+
+    public static class Derived extends Base {
+    }
+
+    public static class Outer<T> {
+        public class Inner<S> {
+            public Map<T, S> map;
+
+            public <U extends Comparable<S>> U convert(T value, U... others) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.expr.type.test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.teavm.flavour.expr.type.meta.ClassDescriberRepository;
+import org.teavm.flavour.expr.type.meta.ClassFingerprint;
+import org.teavm.flavour.expr.type.meta.ClassFileClassDescriberRepository;
+import org.teavm.flavour.expr.type.meta.ClassPathClassDescriberRepository;
+import org.teavm.flavour.expr.type.meta.RecordingClassDescriberRepository;
+import org.teavm.flavour.expr.type.test.ClassFileClassDescriberRepositoryTest.Annotated;
+import org.teavm.flavour.expr.type.test.ClassFileClassDescriberRepositoryTest.TestAnnotation;
+
+public class ClassFingerprintTest {
+    private ClassDescriberRepository classes = new ClassPathClassDescriberRepository();
+
+    @Test
+    public void sameForEquivalentRepositories() {
+        List<String> names = Arrays.asList(String.class.getName(), Annotated.class.getName());
+        List<String> annotations = Collections.singletonList(TestAnnotation.class.getName());
+        assertThat(Arrays.equals(ClassFingerprint.compute(classes, names, annotations),
+                ClassFingerprint.compute(new ClassFileClassDescriberRepository(), names, annotations)), is(true));
+    }
+
+    @Test
+    public void changesWithClasses() {
+        List<String> names = Collections.singletonList(Annotated.class.getName());
+        byte[] fingerprint = ClassFingerprint.compute(classes, names);
+        ClassDescriberRepository changed = name -> name.equals(Object.class.getName())
+                ? classes.describe(String.class.getName())
+                : classes.describe(name);
+        assertThat(Arrays.equals(fingerprint, ClassFingerprint.compute(changed, names)), is(false));
+
+        ClassDescriberRepository missing = name -> name.equals(Annotated.class.getName())
+                ? null
+                : classes.describe(name);
+        assertThat(Arrays.equals(fingerprint, ClassFingerprint.compute(missing, names)), is(false));
+    }
+
+    @Test
+    public void includesRequestedAnnotations() {
+        List<String> names = Collections.singletonList(Annotated.class.getName());
+        List<String> annotations = Collections.singletonList(TestAnnotation.class.getName());
+        assertThat(Arrays.equals(ClassFingerprint.compute(classes, names),
+                ClassFingerprint.compute(classes, names, annotations)), is(false));
+    }
+
+    @Test
+    public void recordsRequestedClasses() {
+        RecordingClassDescriberRepository recording = new RecordingClassDescriberRepository(classes);
+        recording.describe(String.class.getName());
+        recording.describe("org.teavm.flavour.NoSuchClass");
+        assertThat(recording.getRecordedClasses().size(), is(2));
+        assertThat(recording.getRecordedClasses().contains("org.teavm.flavour.NoSuchClass"), is(true));
+    }
+}
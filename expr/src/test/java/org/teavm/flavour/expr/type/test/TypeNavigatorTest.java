@@ -58,6 +58,21 @@ public class TypeNavigatorTest {
         assertThat(path, is(nullValue()));
     }
 
+    @Test
+    public void getsSubclassPathToObjectThroughSuperclasses() {
+        Set<String> describedClasses = new HashSet<>();
+        GenericTypeNavigator navigator = new GenericTypeNavigator(name -> {
+            describedClasses.add(name);
+            return classRepository.describe(name);
+        });
+        List<GenericClass> path = navigator.sublassPath(cls(A.class, cls(String.class)), Object.class.getName());
+        assertThat(path.get(1), is(cls(ArrayList.class, cls(Set.class, cls(String.class)))));
+        assertThat(path.get(path.size() - 1), is(cls(Object.class)));
+
+        navigator.sublassPath(cls(String.class), Object.class.getName());
+        assertThat(describedClasses, not(hasItem(CharSequence.class.getName())));
+    }
+
     @Test
     public void findsTrivialCommonSuperTypes() {
         Set<String> commonSupertypes = navigator.commonSupertypes(Collections.singleton(A.class.getName()),
@@ -65,6 +80,35 @@ public class TypeNavigatorTest {
         assertThat(commonSupertypes, hasItems(Object.class.getName(), Serializable.class.getName()));
     }
 
+    @Test
+    public void substitutesArgumentsIntoCachedSubclassPath() {
+        navigator.sublassPath(cls(A.class, cls(String.class)), Iterable.class.getName());
+        List<GenericClass> path = navigator.sublassPath(cls(A.class, cls(Integer.class)), Iterable.class.getName());
+        assertThat(path.get(path.size() - 1), is(cls(Iterable.class, cls(Set.class, cls(Integer.class)))));
+    }
+
+    @Test
+    public void findsInheritedMethods() {
+        navigator.findMethods(cls(A.class, cls(String.class)), "add", 1);
+        GenericMethod[] methods = navigator.findMethods(cls(A.class, cls(Integer.class)), "add", 1);
+        assertThat(methods.length, is(1));
+        assertThat(methods[0].getActualOwner().getArguments().get(0).getBound(), is(cls(Set.class,
+                cls(Integer.class))));
+        assertThat(methods[0].getActualParameterTypes()[0], is(cls(Set.class, cls(Integer.class))));
+    }
+
+    @Test
+    public void findsAllMethodsOnce() {
+        List<GenericMethod> methods = navigator.findAllMethods(Arrays.asList(cls(A.class, cls(String.class)),
+                cls(ArrayList.class, cls(String.class))), "size", false);
+        assertThat(methods.stream().map(method -> method.getActualOwner().getName()).collect(Collectors.toList()),
+                hasItems(ArrayList.class.getName(), Collection.class.getName(), List.class.getName()));
+        assertThat(methods.stream().filter(method -> method.getActualOwner().getName().equals(
+                ArrayList.class.getName())).count(), is(1L));
+        assertThat(navigator.findAllMethods(Collections.singleton(cls(A.class, cls(String.class))), "size", true),
+                is(empty()));
+    }
+
     private GenericClass cls(Class<?> javaClass, GenericType... args) {
         return new GenericClass(javaClass.getName(), Arrays.stream(args)
                 .map(TypeArgument::invariant)
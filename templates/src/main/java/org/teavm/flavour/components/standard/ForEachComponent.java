@@ -15,10 +15,12 @@
  */
 package org.teavm.flavour.components.standard;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import org.teavm.flavour.templates.AbstractComponent;
 import org.teavm.flavour.templates.BindAttribute;
@@ -30,14 +32,26 @@ import org.teavm.flavour.templates.OptionalBinding;
 import org.teavm.flavour.templates.Slot;
 import org.teavm.flavour.templates.Space;
 
+/**
+ * <p>Renders body for each item of collection. Items and components of previous rendering are kept in arrays,
+ * which only grow when collection does, so rendering unchanged collection does not allocate memory.
+ * Random access lists are read in place, other collections are copied to a reusable buffer.</p>
+ */
 @BindElement(name = "foreach")
 public class ForEachComponent<T> extends AbstractComponent {
+    private static final Object[] EMPTY = new Object[0];
     private Supplier<Iterable<T>> collection;
+    private Function<T, Object> key;
     private T elementVariable;
     private int indexVariable;
     private Fragment body;
-    private List<Component> childComponents = new LinkedList<>();
-    private List<T> computedCollection = new LinkedList<>();
+    private int count;
+    private Component[] childComponents = new Component[0];
+    private Object[] computedCollection = EMPTY;
+    private Object[] keys = EMPTY;
+    private List<T> newItemList;
+    private Object[] newItems = EMPTY;
+    private Object[] newKeys = EMPTY;
 
     public ForEachComponent(Slot slot) {
         super(slot);
@@ -48,6 +62,16 @@ public class ForEachComponent<T> extends AbstractComponent {
         this.collection = collection;
     }
 
+    /**
+     * <p>Sets function that identifies items. When items have keys, components are reused by key, therefore
+     * inserting, removing or reordering items moves existing components instead of rendering them anew.</p>
+     */
+    @BindAttribute(name = "key")
+    @OptionalBinding
+    public void setKey(Function<T, Object> key) {
+        this.key = key;
+    }
+
     @BindAttribute(name = "var")
     public T getElementVariable() {
         return elementVariable;
@@ -66,87 +90,194 @@ public class ForEachComponent<T> extends AbstractComponent {
 
     @Override
     public void render() {
-        List<T> newComputedCollection = initNewCollection();
-
-        ListIterator<T> lowerDataIterator = computedCollection.listIterator();
-        ListIterator<T> lowerNewDataIterator = newComputedCollection.listIterator();
-        ListIterator<Component> lowerComponentIterator = childComponents.listIterator();
-        ListIterator<T> upperDataIterator = computedCollection.listIterator(computedCollection.size());
-        ListIterator<T> upperNewDataIterator = newComputedCollection.listIterator(newComputedCollection.size());
-        ListIterator<Component> upperComponentIterator = childComponents.listIterator(childComponents.size());
-
-        findLastChangedItem(upperDataIterator, upperNewDataIterator, upperComponentIterator);
-        int dataLimit = upperDataIterator.nextIndex();
-        int newDataLimit = upperNewDataIterator.nextIndex();
-        while (lowerDataIterator.hasNext() && lowerDataIterator.nextIndex() < dataLimit
-                && lowerNewDataIterator.hasNext() && lowerNewDataIterator.nextIndex() < newDataLimit) {
-            Component component = lowerComponentIterator.next();
-            indexVariable = lowerDataIterator.nextIndex();
-            elementVariable = lowerNewDataIterator.next();
-            lowerDataIterator.next();
-            component.render();
+        int newCount = initNewCollection();
+        if (key != null) {
+            renderKeyed(newCount);
+        } else {
+            renderByPosition(newCount);
         }
+        storeNewCollection(newCount);
+    }
 
-        if (lowerDataIterator.hasNext() && lowerDataIterator.nextIndex() < dataLimit) {
-            while (lowerDataIterator.hasNext() && lowerDataIterator.nextIndex() < dataLimit) {
-                Component component = lowerComponentIterator.next();
-                lowerComponentIterator.remove();
-                component.destroy();
-                lowerDataIterator.next();
-                lowerDataIterator.remove();
-                --dataLimit;
+    /**
+     * <p>Reuses components by position. Trailing items that did not change are rendered by the same components,
+     * while the rest of components are either rendered with other items or created and destroyed.</p>
+     */
+    private void renderByPosition(int newCount) {
+        int oldEnd = count;
+        int newEnd = newCount;
+        while (oldEnd > 0 && newEnd > 0) {
+            T item = getNewItem(newEnd - 1);
+            if (item != computedCollection[oldEnd - 1]) {
+                break;
             }
-        } else if (lowerNewDataIterator.hasNext() && lowerNewDataIterator.nextIndex() < newDataLimit) {
-            Component nextComponent = upperComponentIterator.hasNext() ? upperComponentIterator.next() : null;
-            Space nextSlot = nextComponent != null ? nextComponent.getSlot() : null;
-            while (lowerNewDataIterator.hasNext() && lowerNewDataIterator.nextIndex() < newDataLimit) {
-                indexVariable = lowerNewDataIterator.nextIndex();
-                elementVariable = lowerNewDataIterator.next();
-                lowerDataIterator.add(elementVariable);
+            --oldEnd;
+            --newEnd;
+            indexVariable = newEnd;
+            elementVariable = item;
+            childComponents[oldEnd].render();
+        }
+
+        int common = Math.min(oldEnd, newEnd);
+        for (int i = 0; i < common; ++i) {
+            indexVariable = i;
+            elementVariable = getNewItem(i);
+            childComponents[i].render();
+        }
+
+        if (oldEnd > newEnd) {
+            for (int i = newEnd; i < oldEnd; ++i) {
+                childComponents[i].destroy();
+            }
+            System.arraycopy(childComponents, oldEnd, childComponents, newEnd, count - oldEnd);
+            Arrays.fill(childComponents, newCount, count, null);
+        } else if (newEnd > oldEnd) {
+            if (childComponents.length < newCount) {
+                childComponents = Arrays.copyOf(childComponents, Math.max(newCount, childComponents.length * 2));
+            }
+            System.arraycopy(childComponents, oldEnd, childComponents, newEnd, count - oldEnd);
+            Space nextSlot = newEnd < newCount ? childComponents[newEnd].getSlot() : null;
+            for (int i = oldEnd; i < newEnd; ++i) {
+                indexVariable = i;
+                elementVariable = getNewItem(i);
                 Component childComponent = body.create();
                 childComponent.render();
-                lowerComponentIterator.add(childComponent);
+                childComponents[i] = childComponent;
                 getSlot().insertBefore(childComponent.getSlot(), nextSlot);
             }
         }
     }
 
-    private List<T> initNewCollection() {
-        List<T> newComputedCollection;
+    private void renderKeyed(int newCount) {
+        if (newKeys.length < newCount) {
+            newKeys = new Object[Math.max(newCount, newKeys.length * 2)];
+        }
+        boolean sameKeys = newCount == count;
+        for (int i = 0; i < newCount; ++i) {
+            newKeys[i] = key.apply(getNewItem(i));
+            sameKeys = sameKeys && Objects.equals(newKeys[i], keys[i]);
+        }
+
+        if (sameKeys) {
+            for (int i = 0; i < newCount; ++i) {
+                indexVariable = i;
+                elementVariable = getNewItem(i);
+                childComponents[i].render();
+            }
+            Arrays.fill(newKeys, 0, newCount, null);
+            return;
+        }
+
+        int[] sources = KeyedReconciliation.match(Arrays.asList(keys).subList(0, count),
+                Arrays.asList(newKeys).subList(0, newCount));
+        boolean[] stable = KeyedReconciliation.findStable(sources);
+
+        boolean[] reused = new boolean[count];
+        for (int source : sources) {
+            if (source >= 0) {
+                reused[source] = true;
+            }
+        }
+        for (int i = count - 1; i >= 0; --i) {
+            if (!reused[i]) {
+                childComponents[i].destroy();
+            }
+        }
+
+        // Going backwards, every item is placed before its already placed successor
+        Component[] newComponents = new Component[Math.max(newCount, count)];
+        Space nextSlot = null;
+        for (int i = newCount - 1; i >= 0; --i) {
+            indexVariable = i;
+            elementVariable = getNewItem(i);
+            Component component;
+            if (sources[i] < 0) {
+                component = body.create();
+                component.render();
+                getSlot().insertBefore(component.getSlot(), nextSlot);
+            } else {
+                component = childComponents[sources[i]];
+                component.render();
+                if (!stable[i]) {
+                    component.getSlot().delete();
+                    getSlot().insertBefore(component.getSlot(), nextSlot);
+                }
+            }
+            newComponents[i] = component;
+            nextSlot = component.getSlot();
+        }
+        childComponents = newComponents;
+
+        Object[] oldKeys = keys;
+        keys = newKeys;
+        newKeys = oldKeys;
+        Arrays.fill(newKeys, 0, count, null);
+    }
+
+    private int initNewCollection() {
         Iterable<T> items = collection.get();
-        if (items instanceof List<?>) {
-            newComputedCollection = (List<T>) items;
-        } else if (items instanceof Collection<?>) {
+        if (items instanceof List<?> && items instanceof RandomAccess) {
+            newItemList = (List<T>) items;
+            return newItemList.size();
+        }
+        newItemList = null;
+        if (items instanceof Collection<?>) {
             Collection<T> safeItems = (Collection<T>) items;
-            newComputedCollection = new LinkedList<>(safeItems);
+            ensureNewItemsCapacity(safeItems.size());
+            int index = 0;
+            for (T item : safeItems) {
+                newItems[index++] = item;
+            }
+            return index;
         } else {
-            newComputedCollection = new LinkedList<>();
+            int index = 0;
             for (T item : items) {
-                newComputedCollection.add(item);
+                ensureNewItemsCapacity(index + 1);
+                newItems[index++] = item;
             }
+            return index;
         }
-        return newComputedCollection;
     }
 
-    private void findLastChangedItem(ListIterator<T> dataIterator, ListIterator<T> newDataIterator,
-            ListIterator<Component> componentIterator) {
-        while (dataIterator.hasPrevious() && newDataIterator.hasPrevious()) {
-            indexVariable = newDataIterator.previousIndex();
-            elementVariable = newDataIterator.previous();
-            if (elementVariable != dataIterator.previous()) {
-                dataIterator.next();
-                newDataIterator.next();
-                break;
+    private void ensureNewItemsCapacity(int capacity) {
+        if (newItems.length < capacity) {
+            newItems = Arrays.copyOf(newItems, Math.max(capacity, newItems.length * 2));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T getNewItem(int index) {
+        return newItemList != null ? newItemList.get(index) : (T) newItems[index];
+    }
+
+    private void storeNewCollection(int newCount) {
+        if (newItemList != null) {
+            if (computedCollection.length < newCount) {
+                computedCollection = Arrays.copyOf(computedCollection,
+                        Math.max(newCount, computedCollection.length * 2));
+            }
+            for (int i = 0; i < newCount; ++i) {
+                computedCollection[i] = newItemList.get(i);
+            }
+            newItemList = null;
+            // Don't keep items that are no longer rendered
+            if (newCount < count) {
+                Arrays.fill(computedCollection, newCount, count, null);
             }
-            Component component = componentIterator.previous();
-            component.render();
+        } else {
+            Object[] oldCollection = computedCollection;
+            computedCollection = newItems;
+            newItems = oldCollection;
+            Arrays.fill(newItems, 0, count, null);
         }
+        count = newCount;
     }
+
     @Override
     public void destroy() {
         super.destroy();
-        for (int i = childComponents.size() - 1; i >= 0; --i) {
-            childComponents.get(i).destroy();
+        for (int i = count - 1; i >= 0; --i) {
+            childComponents[i].destroy();
         }
     }
 }
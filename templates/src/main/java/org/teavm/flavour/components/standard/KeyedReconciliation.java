@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2015 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.components.standard;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>Matches items of old and new sequences by their keys and finds matched items that don't need to be moved,
+ * so that a sequence of components can be updated with minimal number of moves. This class does not depend
+ * on DOM, see {@link ForEachComponent} for how it is used.</p>
+ */
+public final class KeyedReconciliation {
+    private KeyedReconciliation() {
+    }
+
+    /**
+     * <p>Matches new keys to old keys. Each old key is matched at most once, so when keys repeat,
+     * extra items are considered new.</p>
+     *
+     * @return for each new key, index of the matching old key or <code>-1</code>.
+     */
+    public static int[] match(List<?> oldKeys, List<?> newKeys) {
+        int[] sources = new int[newKeys.size()];
+        int start = 0;
+        int oldEnd = oldKeys.size();
+        int newEnd = newKeys.size();
+        while (start < oldEnd && start < newEnd && Objects.equals(oldKeys.get(start), newKeys.get(start))) {
+            sources[start] = start;
+            ++start;
+        }
+        while (oldEnd > start && newEnd > start
+                && Objects.equals(oldKeys.get(oldEnd - 1), newKeys.get(newEnd - 1))) {
+            sources[--newEnd] = --oldEnd;
+        }
+
+        Map<Object, Integer> oldIndexes = new HashMap<>();
+        for (int i = start; i < oldEnd; ++i) {
+            oldIndexes.putIfAbsent(oldKeys.get(i), i);
+        }
+        for (int i = start; i < newEnd; ++i) {
+            Integer source = oldIndexes.remove(newKeys.get(i));
+            sources[i] = source != null ? source : -1;
+        }
+        return sources;
+    }
+
+    /**
+     * <p>Finds longest increasing subsequence of matched old indexes. Items of this subsequence keep
+     * their relative order, so only other matched items should be moved.</p>
+     *
+     * @param sources result of {@link #match(List, List)}.
+     * @return for each new item, whether it stays in place.
+     */
+    public static boolean[] findStable(int[] sources) {
+        int[] tails = new int[sources.length];
+        int[] predecessors = new int[sources.length];
+        int length = 0;
+        for (int i = 0; i < sources.length; ++i) {
+            int source = sources[i];
+            if (source < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            if (length > 0 && sources[tails[length - 1]] < source) {
+                low = length;
+            } else {
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (sources[tails[mid]] < source) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+            }
+            predecessors[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                ++length;
+            }
+        }
+
+        boolean[] stable = new boolean[sources.length];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = predecessors[i]) {
+            stable[i] = true;
+        }
+        return stable;
+    }
+}
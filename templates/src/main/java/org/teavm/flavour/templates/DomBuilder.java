@@ -48,14 +48,60 @@ public class DomBuilder {
     }
 
     private DomBuilder open(String tagName, boolean slot) {
-        Element elem = document.createElement(tagName);
+        push(document.createElement(tagName), slot);
+        return this;
+    }
+
+    /**
+     * <p>Opens element cloned from prototype, see {@link DomPrototype}.</p>
+     */
+    public DomBuilder openPrototype(String prototype) {
+        return openPrototype(prototype, false);
+    }
+
+    public DomBuilder openPrototypeSlot(String prototype) {
+        return openPrototype(prototype, true);
+    }
+
+    private DomBuilder openPrototype(String prototype, boolean slot) {
+        push(DomPrototype.instantiate(document, prototype), slot);
+        return this;
+    }
+
+    /**
+     * <p>Enters child node of current element, which already exists, so that modifiers and components can be
+     * added to it. Unlike {@link #close()}, {@link #leave()} does not append element once again.</p>
+     *
+     * @param index index of child node in the list of child nodes of current element.
+     */
+    public DomBuilder enter(int index) {
+        return enter(index, false);
+    }
+
+    public DomBuilder enterSlot(int index) {
+        return enter(index, true);
+    }
+
+    private DomBuilder enter(int index, boolean slot) {
+        if (stack.isEmpty()) {
+            throw new IllegalStateException("Can't enter child of root node");
+        }
+        push((Element) stack.peek().element.getChildNodes().get(index), slot);
+        return this;
+    }
+
+    public DomBuilder leave() {
+        stack.pop();
+        return this;
+    }
+
+    private void push(Element element, boolean slot) {
         Item item = new Item();
-        item.element = elem;
+        item.element = element;
         if (slot) {
-            item.slot = Slot.root(elem);
+            item.slot = Slot.root(element);
         }
         stack.push(item);
-        return this;
     }
 
     public DomBuilder close() {
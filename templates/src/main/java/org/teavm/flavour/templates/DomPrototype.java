@@ -0,0 +1,130 @@
+/*
+ *  Copyright 2015 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.templates;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import org.teavm.jso.dom.xml.Document;
+import org.teavm.jso.dom.xml.Element;
+import org.teavm.jso.dom.xml.Node;
+
+/**
+ * <p>Static DOM subtree of a template, which is created once and then cloned each time template is rendered.
+ * Subtree is described by a string, which {@link Writer} produces at compile time, so that generated code
+ * refers to a prototype by string constant.</p>
+ */
+public final class DomPrototype {
+    private static final char OPEN = '<';
+    private static final char ATTRIBUTE = '=';
+    private static final char TEXT = '"';
+    private static final char CLOSE = '>';
+    private static final char END = '\0';
+    private static final Map<String, Node> prototypes = new HashMap<>();
+
+    private DomPrototype() {
+    }
+
+    static Element instantiate(Document document, String description) {
+        Node prototype = prototypes.get(description);
+        if (prototype == null) {
+            prototype = create(document, description);
+            prototypes.put(description, prototype);
+        }
+        return (Element) prototype.cloneNode(true);
+    }
+
+    private static Element create(Document document, String description) {
+        Deque<Element> stack = new ArrayDeque<>();
+        Element root = null;
+        int index = 0;
+        while (index < description.length()) {
+            char command = description.charAt(index++);
+            switch (command) {
+                case OPEN: {
+                    int end = description.indexOf(END, index);
+                    Element element = document.createElement(description.substring(index, end));
+                    index = end + 1;
+                    if (stack.isEmpty()) {
+                        root = element;
+                    } else {
+                        stack.peek().appendChild(element);
+                    }
+                    stack.push(element);
+                    break;
+                }
+                case ATTRIBUTE: {
+                    int nameEnd = description.indexOf(END, index);
+                    int valueEnd = description.indexOf(END, nameEnd + 1);
+                    stack.peek().setAttribute(description.substring(index, nameEnd),
+                            description.substring(nameEnd + 1, valueEnd));
+                    index = valueEnd + 1;
+                    break;
+                }
+                case TEXT: {
+                    int end = description.indexOf(END, index);
+                    stack.peek().appendChild(document.createTextNode(description.substring(index, end)));
+                    index = end + 1;
+                    break;
+                }
+                case CLOSE:
+                    stack.pop();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid prototype description");
+            }
+        }
+        return root;
+    }
+
+    /**
+     * <p>Describes a prototype with calls similar to those of {@link DomBuilder}. Prototype must consist of
+     * a single root element.</p>
+     */
+    public static class Writer {
+        private StringBuilder sb = new StringBuilder();
+
+        public static boolean canWrite(String value) {
+            return value.indexOf(END) < 0;
+        }
+
+        public Writer open(String tagName) {
+            sb.append(OPEN).append(tagName).append(END);
+            return this;
+        }
+
+        public Writer attribute(String name, String value) {
+            sb.append(ATTRIBUTE).append(name).append(END).append(value).append(END);
+            return this;
+        }
+
+        public Writer text(String text) {
+            sb.append(TEXT).append(text).append(END);
+            return this;
+        }
+
+        public Writer close() {
+            sb.append(CLOSE);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+}
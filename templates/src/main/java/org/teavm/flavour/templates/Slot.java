@@ -71,19 +71,21 @@ public abstract class Slot extends Space {
         if (domNodes.getLength() == 0) {
             return;
         }
-        Node successorDomNode;
-        if (successor != null) {
-            successorDomNode = successor.getFirstNode();
-        } else {
-            Space ancestor = this;
-            successorDomNode = null;
-            while (ancestor != null) {
-                if (ancestor.next != null) {
-                    successorDomNode = ancestor.next.getFirstNode();
-                    break;
-                }
-                ancestor = ancestor.parent;
+        // Successor may have no DOM nodes, e.g. when it is a component that renders nothing,
+        // so look further through following spaces
+        Node successorDomNode = null;
+        Space following = successor;
+        Space ancestor = this;
+        while (successorDomNode == null) {
+            while (following != null && successorDomNode == null) {
+                successorDomNode = following.getFirstNode();
+                following = following.next;
+            }
+            if (ancestor == null || ancestor == root) {
+                break;
             }
+            following = ancestor.next;
+            ancestor = ancestor.parent;
         }
         for (int i = 0; i < domNodes.getLength(); ++i) {
             root.domNode.insertBefore(domNodes.get(i), successorDomNode);
@@ -51,28 +51,19 @@ public abstract class Space {
 
         deleteDom();
 
-        Space newPrevious = previous;
-        if (newPrevious != null) {
-            newPrevious = newPrevious.previous;
+        if (previous != null) {
+            previous.next = next;
         } else {
             parent.first = next;
         }
-        Space newNext = next;
-        if (newNext != null) {
-            newNext = newNext.next;
+        if (next != null) {
+            next.previous = previous;
         } else {
-            parent.previous = previous;
+            parent.last = previous;
         }
 
-        if (newPrevious != null) {
-            newPrevious.next = newNext;
-        }
-        if (newNext != null) {
-            newNext.previous = newPrevious;
-        }
-
-        next = newNext;
-        previous = newPrevious;
+        next = null;
+        previous = null;
         parent = null;
     }
 
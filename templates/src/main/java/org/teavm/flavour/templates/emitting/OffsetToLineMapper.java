@@ -15,8 +15,6 @@
  */
 package org.teavm.flavour.templates.emitting;
 
-import java.io.IOException;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -24,18 +22,12 @@ import java.util.List;
 class OffsetToLineMapper {
     int[] lines;
 
-    public void prepare(Reader reader) throws IOException {
+    public void prepare(CharSequence text) {
         List<Integer> lineList = new ArrayList<>();
         boolean cr = false;
         int offset = 0;
-        while (true) {
-            int code = reader.read();
-            if (code < 0) {
-                if (cr) {
-                    lineList.add(offset);
-                }
-                break;
-            }
+        for (int i = 0; i < text.length(); ++i) {
+            char code = text.charAt(i);
             ++offset;
             if (code == '\r') {
                 cr = true;
@@ -47,6 +39,9 @@ class OffsetToLineMapper {
                 lineList.add(offset - 1);
             }
         }
+        if (cr) {
+            lineList.add(offset);
+        }
         lines = new int[lineList.size()];
         for (int i = 0; i < lines.length; ++i) {
             lines[i] = lineList.get(i);
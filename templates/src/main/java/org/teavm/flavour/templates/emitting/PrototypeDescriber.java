@@ -0,0 +1,109 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.templates.emitting;
+
+import org.teavm.flavour.templates.DomPrototype;
+import org.teavm.flavour.templates.tree.ComponentBinding;
+import org.teavm.flavour.templates.tree.DOMAttribute;
+import org.teavm.flavour.templates.tree.DOMElement;
+import org.teavm.flavour.templates.tree.DOMText;
+import org.teavm.flavour.templates.tree.TemplateNode;
+
+/**
+ * <p>Decides which parts of template can be cloned from {@link DomPrototype} and describes them.</p>
+ */
+final class PrototypeDescriber {
+    private PrototypeDescriber() {
+    }
+
+    /**
+     * <p>Describes prototype of element, which includes static attributes and all static descendants.
+     * Prototype stops at elements that host components.</p>
+     *
+     * @return description or <code>null</code> if cloning prototype is not cheaper than building element,
+     * i.e. prototype contains nothing besides the element itself, or if element can't be described.
+     */
+    static String describe(DOMElement node) {
+        if (!canWrite(node) || node.getAttributes().isEmpty()
+                && (hasInnerComponents(node) || node.getChildNodes().isEmpty())) {
+            return null;
+        }
+        DomPrototype.Writer writer = new DomPrototype.Writer();
+        write(node, writer);
+        return writer.toString();
+    }
+
+    private static void write(DOMElement node, DomPrototype.Writer writer) {
+        writer.open(node.getName());
+        for (DOMAttribute attr : node.getAttributes()) {
+            writer.attribute(attr.getName(), attr.getValue());
+        }
+        if (!hasInnerComponents(node)) {
+            for (TemplateNode child : node.getChildNodes()) {
+                if (child instanceof DOMElement) {
+                    write((DOMElement) child, writer);
+                } else {
+                    writer.text(((DOMText) child).getValue());
+                }
+            }
+        }
+        writer.close();
+    }
+
+    private static boolean canWrite(DOMElement node) {
+        if (!DomPrototype.Writer.canWrite(node.getName())) {
+            return false;
+        }
+        for (DOMAttribute attr : node.getAttributes()) {
+            if (!DomPrototype.Writer.canWrite(attr.getName()) || !DomPrototype.Writer.canWrite(attr.getValue())) {
+                return false;
+            }
+        }
+        if (hasInnerComponents(node)) {
+            return true;
+        }
+        for (TemplateNode child : node.getChildNodes()) {
+            if (child instanceof DOMElement) {
+                if (!canWrite((DOMElement) child)) {
+                    return false;
+                }
+            } else if (!DomPrototype.Writer.canWrite(((DOMText) child).getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>Tells whether element is entirely included in prototype, so that emitted code does not have to enter
+     * it.</p>
+     */
+    static boolean isStatic(DOMElement node) {
+        if (!node.getAttributeComponents().isEmpty() || hasInnerComponents(node)) {
+            return false;
+        }
+        for (TemplateNode child : node.getChildNodes()) {
+            if (child instanceof DOMElement && !isStatic((DOMElement) child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean hasInnerComponents(DOMElement node) {
+        return node.getChildNodes().stream().anyMatch(child -> child instanceof ComponentBinding);
+    }
+}
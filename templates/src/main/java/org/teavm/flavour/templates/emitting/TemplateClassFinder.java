@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.templates.emitting;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.teavm.flavour.expr.type.meta.AnnotationDescriber;
+import org.teavm.flavour.expr.type.meta.AnnotationString;
+import org.teavm.flavour.expr.type.meta.ClassDescriber;
+import org.teavm.flavour.expr.type.meta.ClassDescriberRepository;
+import org.teavm.flavour.expr.type.meta.ClassFileClassDescriberRepository;
+import org.teavm.flavour.templates.BindTemplate;
+
+/**
+ * <p>Finds classes annotated with {@link BindTemplate} in given packages and their subpackages, without loading
+ * them. Packages are looked up in directories and JAR files of a class loader. Only class files that mention
+ * the annotation in their constant pool are read by class describer.</p>
+ */
+class TemplateClassFinder {
+    private static final byte[] ANNOTATION_DESCRIPTOR = ("L" + BindTemplate.class.getName().replace('.', '/')
+            + ";").getBytes(StandardCharsets.UTF_8);
+    private ClassLoader classLoader;
+    private ClassDescriberRepository classRepository;
+    private BiConsumer<String, String> consumer;
+
+    TemplateClassFinder(ClassLoader classLoader, BiConsumer<String, String> consumer) {
+        this.classLoader = classLoader;
+        classRepository = new ClassFileClassDescriberRepository(classLoader);
+        this.consumer = consumer;
+    }
+
+    /**
+     * <p>Reports name of every found class together with path to its template.</p>
+     *
+     * @param packageNames names of packages to look into.
+     */
+    void find(Collection<String> packageNames) throws IOException {
+        for (String packageName : packageNames) {
+            String packagePath = packageName.replace('.', '/');
+            Enumeration<URL> urls = classLoader.getResources(packagePath);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                if (url.getProtocol().equals("file")) {
+                    try {
+                        findInDirectory(Paths.get(url.toURI()), packagePath);
+                    } catch (URISyntaxException | IllegalArgumentException e) {
+                        throw new IOException("Can't access package at " + url, e);
+                    }
+                } else if (url.getProtocol().equals("jar")) {
+                    findInJar(url, packagePath);
+                }
+            }
+        }
+    }
+
+    private void findInDirectory(Path directory, String packagePath) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(directory)) {
+            files = stream.filter(file -> file.toString().endsWith(".class")).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            if (mentionsAnnotation(Files.readAllBytes(file))) {
+                StringBuilder name = new StringBuilder(packagePath);
+                for (Path part : directory.relativize(file)) {
+                    name.append('/').append(part);
+                }
+                check(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+            }
+        }
+    }
+
+    private void findInJar(URL url, String packagePath) throws IOException {
+        URLConnection connection = url.openConnection();
+        if (!(connection instanceof JarURLConnection)) {
+            return;
+        }
+        connection.setUseCaches(false);
+        String prefix = packagePath + "/";
+        try (JarFile jar = ((JarURLConnection) connection).getJarFile()) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (!name.startsWith(prefix) || !name.endsWith(".class")) {
+                    continue;
+                }
+                try (InputStream input = jar.getInputStream(entry)) {
+                    if (mentionsAnnotation(input.readAllBytes())) {
+                        check(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                    }
+                }
+            }
+        }
+    }
+
+    private void check(String className) {
+        ClassDescriber cls = classRepository.describe(className);
+        if (cls == null) {
+            return;
+        }
+        AnnotationDescriber annotation = cls.getAnnotation(BindTemplate.class.getName());
+        if (annotation != null && annotation.getValue("value") instanceof AnnotationString) {
+            consumer.accept(className, ((AnnotationString) annotation.getValue("value")).value);
+        }
+    }
+
+    private static boolean mentionsAnnotation(byte[] data) {
+        outer:
+        for (int i = 0; i <= data.length - ANNOTATION_DESCRIPTOR.length; ++i) {
+            for (int j = 0; j < ANNOTATION_DESCRIPTOR.length; ++j) {
+                if (data[i + j] != ANNOTATION_DESCRIPTOR[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
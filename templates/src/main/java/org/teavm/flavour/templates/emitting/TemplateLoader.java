@@ -0,0 +1,295 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.templates.emitting;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.teavm.flavour.expr.ClassPathClassResolver;
+import org.teavm.flavour.expr.Diagnostic;
+import org.teavm.flavour.expr.type.meta.ClassPathClassDescriberRepository;
+import org.teavm.flavour.templates.parsing.ClassPathResourceProvider;
+import org.teavm.flavour.templates.parsing.ComponentMetadataCache;
+import org.teavm.flavour.templates.parsing.Parser;
+import org.teavm.flavour.templates.parsing.TemplateCache;
+import org.teavm.flavour.templates.tree.TemplateNode;
+
+/**
+ * <p>Loads templates of a class loader. Class repository, class resolver, resource provider and component
+ * metadata are shared by all templates, while each template resource is read only once: both parser and
+ * line mapper work on its text in memory.</p>
+ *
+ * <p>When <code>flavour.templates.timing</code> system property is <code>true</code>, loader prints time
+ * spent to load and to parse each template to standard error stream. When <code>flavour.templates.cache</code>
+ * system property names a directory, parsed templates are kept there between builds.</p>
+ *
+ * <p>When <code>flavour.templates.packages</code> system property lists comma-separated packages and more than
+ * one thread is available, first request for a template starts a pre-pass, which finds classes bound to
+ * templates in these packages and their subpackages and parses their templates on a thread pool, so that
+ * templates are mostly ready by the time they are requested. Templates outside of these packages are parsed
+ * on request. Number of threads is taken from <code>flavour.templates.threads</code> system property and
+ * defaults to the number of processors.</p>
+ */
+class TemplateLoader {
+    private static final boolean TIMING = Boolean.getBoolean("flavour.templates.timing");
+    private static final String CACHE_DIRECTORY = System.getProperty("flavour.templates.cache");
+    private static final int THREADS = Integer.getInteger("flavour.templates.threads",
+            Runtime.getRuntime().availableProcessors());
+    private static final List<String> PACKAGES = parsePackages(System.getProperty("flavour.templates.packages", ""));
+    private static final AtomicInteger threadIndex = new AtomicInteger();
+    private static final Map<ClassLoader, SoftReference<TemplateLoader>> sharedLoaders = new WeakHashMap<>();
+    private ClassLoader classLoader;
+    private ClassPathClassDescriberRepository classRepository;
+    private ClassPathClassResolver classResolver;
+    private ClassPathResourceProvider resourceProvider;
+    private ComponentMetadataCache componentCache;
+    private TemplateCache templateCache;
+    private List<String> packages;
+    private AtomicInteger templateCount = new AtomicInteger();
+    private AtomicLong loadTime = new AtomicLong();
+    private AtomicLong parseTime = new AtomicLong();
+    private ThreadPoolExecutor executor;
+    private AtomicBoolean discoveryStarted = new AtomicBoolean();
+    private Map<String, FutureTask<ParsedTemplate>> parsedTemplates = new ConcurrentHashMap<>();
+    private AtomicReference<Exception> discoveryError = new AtomicReference<>();
+
+    TemplateLoader(ClassLoader classLoader, int threads, List<String> packages) {
+        this.classLoader = classLoader;
+        this.packages = packages;
+        classRepository = ClassPathClassDescriberRepository.forClassLoader(classLoader);
+        classResolver = new ClassPathClassResolver(classLoader);
+        resourceProvider = new ClassPathResourceProvider(classLoader);
+        componentCache = ComponentMetadataCache.forClassLoader(classLoader);
+        if (CACHE_DIRECTORY != null && !CACHE_DIRECTORY.isEmpty()) {
+            templateCache = new TemplateCache(Paths.get(CACHE_DIRECTORY), classRepository, resourceProvider);
+        }
+        if (threads > 1 && !packages.isEmpty()) {
+            executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "flavour-templates-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    static TemplateLoader forClassLoader(ClassLoader classLoader) {
+        synchronized (sharedLoaders) {
+            SoftReference<TemplateLoader> ref = sharedLoaders.get(classLoader);
+            TemplateLoader result = ref != null ? ref.get() : null;
+            if (result == null) {
+                result = new TemplateLoader(classLoader, THREADS, PACKAGES);
+                sharedLoaders.put(classLoader, new SoftReference<>(result));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * <p>Gets parsed template of a class. When template was not parsed by pre-pass yet, parses it in
+     * the calling thread. Since loader is shared by all builds that use the same class loader, template
+     * parsed by pre-pass is only returned when its text is the same as the text of resource now.</p>
+     *
+     * @param className name of class bound to template.
+     * @param path path to template resource.
+     * @return template or <code>null</code>, if resource was not found.
+     * @throws IOException if error occurred reading resource.
+     */
+    ParsedTemplate get(String className, String path) throws IOException {
+        if (executor == null) {
+            return parse(className, load(path));
+        }
+        if (discoveryStarted.compareAndSet(false, true)) {
+            executor.execute(this::discover);
+        }
+        Template template = load(path);
+        if (template == null) {
+            return null;
+        }
+        FutureTask<ParsedTemplate> task = schedule(className, () -> template);
+        // Does nothing when a worker has already started parsing
+        task.run();
+        ParsedTemplate result = await(task, path);
+        if (result == null || !result.source.text.equals(template.text)) {
+            ParsedTemplate current = parse(className, template);
+            FutureTask<ParsedTemplate> currentTask = new FutureTask<>(() -> current);
+            currentTask.run();
+            parsedTemplates.put(className, currentTask);
+            result = current;
+        }
+        return result;
+    }
+
+    private static ParsedTemplate await(FutureTask<ParsedTemplate> task, String path) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for template " + path, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
+    private FutureTask<ParsedTemplate> schedule(String className, Callable<Template> source) {
+        return parsedTemplates.computeIfAbsent(className,
+                key -> new FutureTask<>(() -> parse(className, source.call())));
+    }
+
+    void discover() {
+        try {
+            new TemplateClassFinder(classLoader, (className, path) -> executor.execute(
+                    schedule(className, () -> load(path)))).find(packages);
+        } catch (IOException | RuntimeException e) {
+            // Templates that were not found by pre-pass are parsed on request
+            discoveryError.set(e);
+        }
+    }
+
+    /**
+     * <p>Gets error that stopped pre-pass, so that it can be reported as a warning. Each error is returned
+     * only once.</p>
+     */
+    Exception takeDiscoveryError() {
+        return discoveryError.getAndSet(null);
+    }
+
+    boolean isParsed(String className) {
+        FutureTask<ParsedTemplate> task = parsedTemplates.get(className);
+        return task != null && task.isDone();
+    }
+
+    private static List<String> parsePackages(String value) {
+        List<String> result = new ArrayList<>();
+        for (String packageName : value.split(",")) {
+            packageName = packageName.trim();
+            if (!packageName.isEmpty()) {
+                result.add(packageName);
+            }
+        }
+        return result;
+    }
+
+    private ParsedTemplate parse(String className, Template template) {
+        if (template == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        ParsedTemplate result = new ParsedTemplate(template);
+        result.body = templateCache != null ? templateCache.get(className, template.text) : null;
+        if (result.body == null) {
+            Parser parser = new Parser(classRepository, classResolver, resourceProvider, componentCache);
+            result.body = parser.parse(template.text, className);
+            result.diagnostics = parser.getDiagnostics();
+            if (result.diagnostics.isEmpty() && templateCache != null) {
+                templateCache.put(className, template.text, result.body, parser.getDependencies(),
+                        parser.getComponentPackages());
+            }
+        }
+        reportTiming(template, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * <p>Reads template resource and prepares mapping of its offsets to lines.</p>
+     */
+    private Template load(String path) throws IOException {
+        long start = System.nanoTime();
+        InputStream input = classLoader.getResourceAsStream(path);
+        if (input == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[4096];
+            while (true) {
+                int count = reader.read(buffer);
+                if (count < 0) {
+                    break;
+                }
+                sb.append(buffer, 0, count);
+            }
+        }
+        Template template = new Template(path, sb.toString());
+        template.locationMapper.prepare(template.text);
+        template.loadTime = System.nanoTime() - start;
+        return template;
+    }
+
+    private void reportTiming(Template template, long templateParseTime) {
+        if (!TIMING) {
+            return;
+        }
+        int count = templateCount.incrementAndGet();
+        long totalLoadTime = loadTime.addAndGet(template.loadTime);
+        long totalParseTime = parseTime.addAndGet(templateParseTime);
+        System.err.println(String.format("Template %s: %d chars loaded in %.3f ms, parsed in %.3f ms; "
+                + "%d templates: loaded in %.3f ms, parsed in %.3f ms", template.path, template.text.length(),
+                template.loadTime / 1e6, templateParseTime / 1e6, count, totalLoadTime / 1e6, totalParseTime / 1e6));
+    }
+
+    static class Template {
+        final String path;
+        final String text;
+        final OffsetToLineMapper locationMapper = new OffsetToLineMapper();
+        long loadTime;
+
+        Template(String path, String text) {
+            this.path = path;
+            this.text = text;
+        }
+    }
+
+    static class ParsedTemplate {
+        final Template source;
+        List<TemplateNode> body;
+        List<Diagnostic> diagnostics = Collections.emptyList();
+
+        ParsedTemplate(Template source) {
+            this.source = source;
+        }
+    }
+}
@@ -66,8 +66,13 @@ class TemplateNodeEmitter implements TemplateNodeVisitor {
     public void visit(DOMElement node) {
         context.location(node.getLocation());
 
-        boolean hasInnerComponents = node.getChildNodes().stream()
-                .anyMatch(child -> child instanceof ComponentBinding);
+        String prototype = PrototypeDescriber.describe(node);
+        if (prototype != null) {
+            emitPrototype(node, prototype);
+            return;
+        }
+
+        boolean hasInnerComponents = PrototypeDescriber.hasInnerComponents(node);
         String tagName = node.getName();
         {
             Value<DomBuilder> tmpBuilder = builder;
@@ -103,6 +108,61 @@ class TemplateNodeEmitter implements TemplateNodeVisitor {
         }
     }
 
+    /**
+     * <p>Emits element by cloning prototype, see {@link PrototypeDescriber}. Content of elements that host
+     * components is emitted as usual. Then emitted code enters, by indexes of child nodes, elements that have
+     * attribute components or host components.</p>
+     */
+    private void emitPrototype(DOMElement node, String prototype) {
+        Value<DomBuilder> tmpBuilder = builder;
+        if (PrototypeDescriber.hasInnerComponents(node)) {
+            updateBuilder(emit(() -> tmpBuilder.get().openPrototypeSlot(prototype)));
+        } else {
+            updateBuilder(emit(() -> tmpBuilder.get().openPrototype(prototype)));
+        }
+
+        emitPrototypeContent(node);
+
+        Value<DomBuilder> closingBuilder = builder;
+        context.endLocation(node.getLocation());
+        updateBuilder(emit(() -> closingBuilder.get().close()));
+    }
+
+    private void emitPrototypeContent(DOMElement node) {
+        for (AttributeComponentBinding binding : node.getAttributeComponents()) {
+            Value<DomBuilder> tmpBuilder = builder;
+            Value<Modifier> modifier = emitAttributeComponent(binding);
+            updateBuilder(emit(() -> tmpBuilder.get().add(modifier.get())));
+        }
+
+        if (PrototypeDescriber.hasInnerComponents(node)) {
+            for (TemplateNode child : node.getChildNodes()) {
+                child.acceptVisitor(this);
+            }
+            return;
+        }
+
+        List<TemplateNode> childNodes = node.getChildNodes();
+        for (int i = 0; i < childNodes.size(); ++i) {
+            if (!(childNodes.get(i) instanceof DOMElement)
+                    || PrototypeDescriber.isStatic((DOMElement) childNodes.get(i))) {
+                continue;
+            }
+            DOMElement child = (DOMElement) childNodes.get(i);
+            context.location(child.getLocation());
+            int index = i;
+            Value<DomBuilder> tmpBuilder = builder;
+            if (PrototypeDescriber.hasInnerComponents(child)) {
+                updateBuilder(emit(() -> tmpBuilder.get().enterSlot(index)));
+            } else {
+                updateBuilder(emit(() -> tmpBuilder.get().enter(index)));
+            }
+            emitPrototypeContent(child);
+            Value<DomBuilder> leavingBuilder = builder;
+            updateBuilder(emit(() -> leavingBuilder.get().leave()));
+        }
+    }
+
     @Override
     public void visit(DOMText node) {
         context.location(node.getLocation());
@@ -20,17 +20,10 @@ import static org.teavm.metaprogramming.Metaprogramming.getClassLoader;
 import static org.teavm.metaprogramming.Metaprogramming.getDiagnostics;
 import static org.teavm.metaprogramming.Metaprogramming.unsupportedCase;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.util.List;
-import org.teavm.flavour.expr.ClassPathClassResolver;
 import org.teavm.flavour.expr.Diagnostic;
-import org.teavm.flavour.expr.type.meta.ClassPathClassDescriberRepository;
 import org.teavm.flavour.templates.BindTemplate;
 import org.teavm.flavour.templates.Fragment;
-import org.teavm.flavour.templates.parsing.ClassPathResourceProvider;
-import org.teavm.flavour.templates.parsing.Parser;
 import org.teavm.flavour.templates.tree.TemplateNode;
 import org.teavm.metaprogramming.Diagnostics;
 import org.teavm.metaprogramming.Metaprogramming;
@@ -58,45 +51,34 @@ public class TemplatingProxyGenerator {
         }
 
         String path = annot.value();
-        ClassLoader classLoader = getClassLoader();
-        ClassPathClassDescriberRepository classRepository = new ClassPathClassDescriberRepository(classLoader);
-        ClassPathClassResolver classResolver = new ClassPathClassResolver(classLoader);
-        ClassPathResourceProvider resourceProvider = new ClassPathResourceProvider(classLoader);
-        Parser parser = new Parser(classRepository, classResolver, resourceProvider);
-        List<TemplateNode> fragment;
-        try (InputStream input = classLoader.getResourceAsStream(path)) {
-            if (input == null) {
-                diagnostics.error(location, "Can't create template for {{c0}}: " + "template " + path
-                        + " was not found", cls.getName());
-                return null;
-            }
-            fragment = parser.parse(new InputStreamReader(input, "UTF-8"), cls.getName());
+        TemplateLoader loader = TemplateLoader.forClassLoader(getClassLoader());
+        TemplateLoader.ParsedTemplate template;
+        try {
+            template = loader.get(cls.getName(), path);
         } catch (IOException e) {
-            diagnostics.error(location, "Can't create template for {{c0}}: " + "template " + path
-                    + " was not found", cls.getName());
-            return null;
+            template = null;
         }
-
-        OffsetToLineMapper mapper = new OffsetToLineMapper();
-        try (Reader reader = new InputStreamReader(classLoader.getResourceAsStream(path), "UTF-8")) {
-            mapper.prepare(reader);
-        } catch (IOException e) {
-            diagnostics.error(location, "Can't create template for {{c0}}: template " + path
+        Exception discoveryError = loader.takeDiscoveryError();
+        if (discoveryError != null) {
+            diagnostics.warning(location, "Could not find templates ahead of time, they are parsed on request: "
+                    + discoveryError);
+        }
+        if (template == null) {
+            diagnostics.error(location, "Can't create template for {{c0}}: " + "template " + path
                     + " was not found", cls.getName());
             return null;
         }
 
-        if (!parser.getDiagnostics().isEmpty()) {
-            for (Diagnostic diagnostic : parser.getDiagnostics()) {
-                SourceLocation diagnosticLocation = location != null ? new SourceLocation(location.getMethod(), path,
-                        mapper.getLine(diagnostic.getStart()) + 1) : null;
-                diagnostics.error(diagnosticLocation, diagnostic.getMessage());
-            }
+        OffsetToLineMapper mapper = template.source.locationMapper;
+        for (Diagnostic diagnostic : template.diagnostics) {
+            SourceLocation diagnosticLocation = location != null ? new SourceLocation(location.getMethod(), path,
+                    mapper.getLine(diagnostic.getStart()) + 1) : null;
+            diagnostics.error(diagnosticLocation, diagnostic.getMessage());
         }
 
         TemplateInfo info = new TemplateInfo();
         info.sourceFileName = path;
-        info.body = fragment;
+        info.body = template.body;
         info.locationMapper = mapper;
         return info;
     }
@@ -0,0 +1,129 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.templates.parsing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.teavm.flavour.expr.type.meta.ClassDescriber;
+import org.teavm.flavour.expr.type.meta.ClassDescriberRepository;
+import org.teavm.flavour.expr.type.meta.RecordingClassDescriberRepository;
+
+/**
+ * <p>Remembers metadata of component packages, so that every template that uses a package does not read
+ * its list of components and parse component classes again. Metadata depends on classes and resources seen by
+ * parser, therefore a cache must only be shared by parsers that get them from the same class loader.
+ * This cache is thread-safe.</p>
+ *
+ * @see #forClassLoader(ClassLoader)
+ */
+public class ComponentMetadataCache {
+    private static final Map<ClassLoader, SoftReference<ComponentMetadataCache>> sharedCaches = new WeakHashMap<>();
+    private Map<String, ComponentPackage> packages = new ConcurrentHashMap<>();
+
+    /**
+     * <p>Gets cache shared by all parsers of the class loader. Cache is referenced softly, so it lives across
+     * templates of a build, yet it does not keep class loader from being collected.</p>
+     *
+     * @param classLoader class loader that provides classes and resources to parsers.
+     * @return shared cache.
+     */
+    public static ComponentMetadataCache forClassLoader(ClassLoader classLoader) {
+        synchronized (sharedCaches) {
+            SoftReference<ComponentMetadataCache> ref = sharedCaches.get(classLoader);
+            ComponentMetadataCache result = ref != null ? ref.get() : null;
+            if (result == null) {
+                result = new ComponentMetadataCache();
+                sharedCaches.put(classLoader, new SoftReference<>(result));
+            }
+            return result;
+        }
+    }
+
+    public void clear() {
+        packages.clear();
+    }
+
+    ComponentPackage get(String packageName, ClassDescriberRepository classRepository,
+            ResourceProvider resourceProvider) {
+        try {
+            return packages.computeIfAbsent(packageName, name -> load(name, classRepository, resourceProvider));
+        } catch (UncheckedIOException e) {
+            throw new RuntimeException("IO exception occurred reading component package " + packageName,
+                    e.getCause());
+        }
+    }
+
+    private static ComponentPackage load(String packageName, ClassDescriberRepository classRepository,
+            ResourceProvider resourceProvider) {
+        String resourceName = "META-INF/flavour/component-packages/" + packageName;
+        try (InputStream input = resourceProvider.openResource(resourceName)) {
+            if (input == null) {
+                return null;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input));
+            ComponentPackage result = new ComponentPackage();
+            RecordingClassDescriberRepository recordingRepository = new RecordingClassDescriberRepository(
+                    classRepository);
+            ComponentParser componentParser = new ComponentParser(recordingRepository, result.errors);
+            while (true) {
+                String line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String className = packageName + "." + line;
+
+                ClassDescriber cls = recordingRepository.describe(className);
+                if (cls == null) {
+                    result.errors.add("Class " + className + " declared by component package was not found");
+                    continue;
+                }
+
+                Object componentMetadata = componentParser.parse(cls);
+                if (componentMetadata instanceof ElementComponentMetadata) {
+                    result.components.add((ElementComponentMetadata) componentMetadata);
+                } else if (componentMetadata instanceof AttributeComponentMetadata) {
+                    result.attributeComponents.add((AttributeComponentMetadata) componentMetadata);
+                }
+            }
+            result.dependencies.addAll(recordingRepository.getRecordedClasses());
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static class ComponentPackage {
+        final List<ElementComponentMetadata> components = new ArrayList<>();
+        final List<AttributeComponentMetadata> attributeComponents = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        final Set<String> dependencies = new LinkedHashSet<>();
+    }
+}
@@ -22,8 +22,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import net.htmlparser.jericho.Segment;
-import org.teavm.flavour.expr.Diagnostic;
 import org.teavm.flavour.expr.type.GenericClass;
 import org.teavm.flavour.expr.type.GenericMethod;
 import org.teavm.flavour.expr.type.GenericReference;
@@ -55,14 +53,16 @@ import org.teavm.flavour.templates.Slot;
 
 class ComponentParser {
     private ClassDescriberRepository classRepository;
-    private List<Diagnostic> diagnostics;
-    private Segment segment;
+    private List<String> errors;
     private GenericTypeNavigator typeNavigator;
 
-    ComponentParser(ClassDescriberRepository classRepository, List<Diagnostic> diagnostics, Segment segment) {
+    /**
+     * <p>Creates parser of component classes. Metadata does not depend on the template which uses component,
+     * so errors are reported as plain messages, to be attached to the template later.</p>
+     */
+    ComponentParser(ClassDescriberRepository classRepository, List<String> errors) {
         this.classRepository = classRepository;
-        this.diagnostics = diagnostics;
-        this.segment = segment;
+        this.errors = errors;
         this.typeNavigator = new GenericTypeNavigator(classRepository);
     }
 
@@ -536,7 +536,7 @@ class ComponentParser {
     }
 
     private void error(String message) {
-        diagnostics.add(new Diagnostic(segment.getBegin(), segment.getEnd(), message));
+        errors.add(message);
     }
 
     static class MethodWithParams {
@@ -15,10 +15,7 @@
  */
 package org.teavm.flavour.templates.parsing;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -72,6 +69,7 @@ import org.teavm.flavour.expr.type.Variance;
 import org.teavm.flavour.expr.type.meta.ClassDescriber;
 import org.teavm.flavour.expr.type.meta.ClassDescriberRepository;
 import org.teavm.flavour.expr.type.meta.MethodDescriber;
+import org.teavm.flavour.expr.type.meta.RecordingClassDescriberRepository;
 import org.teavm.flavour.templates.OptionalBinding;
 import org.teavm.flavour.templates.SettingsObject;
 import org.teavm.flavour.templates.tree.AttributeComponentBinding;
@@ -84,10 +82,13 @@ import org.teavm.flavour.templates.tree.NestedComponentBinding;
 import org.teavm.flavour.templates.tree.TemplateNode;
 
 public class Parser {
-    private ClassDescriberRepository classRepository;
+    private RecordingClassDescriberRepository classRepository;
     private ImportingClassResolver classResolver;
     private ResourceProvider resourceProvider;
     private GenericTypeNavigator typeNavigator;
+    private ComponentMetadataCache componentCache;
+    private Set<String> componentDependencies = new LinkedHashSet<>();
+    private Set<String> componentPackages = new LinkedHashSet<>();
     private Map<String, List<ElementComponentMetadata>> avaliableComponents = new HashMap<>();
     private Map<String, List<AttributeComponentMetadata>> avaliableAttrComponents = new HashMap<>();
     private Map<String, ElementComponentMetadata> components = new HashMap<>();
@@ -99,11 +100,21 @@ public class Parser {
 
     public Parser(ClassDescriberRepository classRepository, ClassResolver classResolver,
             ResourceProvider resourceProvider) {
-        this.classRepository = classRepository;
+        this(classRepository, classResolver, resourceProvider, new ComponentMetadataCache());
+    }
+
+    /**
+     * <p>Creates parser that takes metadata of component packages from the given cache. Cache may be shared
+     * between parsers, as long as they get classes and resources from the same class loader.</p>
+     */
+    public Parser(ClassDescriberRepository classRepository, ClassResolver classResolver,
+            ResourceProvider resourceProvider, ComponentMetadataCache componentCache) {
+        this.classRepository = new RecordingClassDescriberRepository(classRepository);
         this.classResolver = new ImportingClassResolver(classResolver);
         this.resourceProvider = resourceProvider;
+        this.componentCache = componentCache;
         this.classResolver.importPackage("java.lang");
-        this.typeNavigator = new GenericTypeNavigator(classRepository);
+        this.typeNavigator = new GenericTypeNavigator(this.classRepository);
     }
 
     public List<Diagnostic> getDiagnostics() {
@@ -114,8 +125,36 @@ public class Parser {
         return diagnostics.isEmpty();
     }
 
+    /**
+     * <p>Gets names of all classes whose descriptions affected parsing, including classes of components.</p>
+     */
+    public Set<String> getDependencies() {
+        Set<String> result = new LinkedHashSet<>(classRepository.getRecordedClasses());
+        result.addAll(componentDependencies);
+        return result;
+    }
+
+    /**
+     * <p>Gets names of component packages used by parsed templates.</p>
+     */
+    public Set<String> getComponentPackages() {
+        return Collections.unmodifiableSet(componentPackages);
+    }
+
     public List<TemplateNode> parse(Reader reader, String className) throws IOException {
-        source = new Source(reader);
+        return parse(new Source(reader), className);
+    }
+
+    /**
+     * <p>Parses template which is already in memory. Offsets reported by diagnostics and locations
+     * are offsets of characters in <code>text</code>.</p>
+     */
+    public List<TemplateNode> parse(CharSequence text, String className) {
+        return parse(new Source(text), className);
+    }
+
+    private List<TemplateNode> parse(Source source, String className) {
+        this.source = source;
         use(source, "std", "org.teavm.flavour.components.standard");
         use(source, "event", "org.teavm.flavour.components.events");
         use(source, "attr", "org.teavm.flavour.components.attributes");
@@ -737,7 +776,7 @@ public class Parser {
 
     private TypedPlan compileExpr(Segment segment, Expr expr, GenericClass type) {
         boolean hasErrors = false;
-        Compiler compiler = new Compiler(classRepository, classResolver, new TemplateScope());
+        Compiler compiler = new Compiler(typeNavigator, classResolver, new TemplateScope());
         TypedPlan result = compiler.compileLambda(expr, type);
         PlanOffsetVisitor offsetVisitor = new PlanOffsetVisitor(segment.getBegin());
         result.getPlan().acceptVisitor(offsetVisitor);
@@ -757,7 +796,7 @@ public class Parser {
 
     private TypedPlan compileSettingsObject(Segment segment, ObjectExpr expr, GenericClass type) {
         boolean hasErrors = false;
-        Compiler compiler = new Compiler(classRepository, classResolver, new TemplateScope());
+        Compiler compiler = new Compiler(typeNavigator, classResolver, new TemplateScope());
 
         GenericMethod sam = typeNavigator.findSingleAbstractMethod(type);
         if (sam.getActualParameterTypes().length != 0 || !(sam.getActualReturnType() instanceof GenericClass)) {
@@ -953,47 +992,19 @@ public class Parser {
     }
 
     private void use(Segment segment, String prefix, String packageName) {
-        String resourceName = "META-INF/flavour/component-packages/" + packageName;
-        try (InputStream input = resourceProvider.openResource(resourceName)) {
-            if (input == null) {
-                error(segment, "Component package was not found: " + packageName);
-                return;
-            }
-            BufferedReader reader = new BufferedReader(new InputStreamReader(input));
-            List<ElementComponentMetadata> componentList = new ArrayList<>();
-            List<AttributeComponentMetadata> attributeComponentList = new ArrayList<>();
-            while (true) {
-                String line = reader.readLine();
-                if (line == null) {
-                    break;
-                }
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("#")) {
-                    continue;
-                }
-                String className = packageName + "." + line;
-
-                ClassDescriber cls = classRepository.describe(className);
-                if (cls == null) {
-                    error(segment, "Class " + className + " declared by component package was not found");
-                    continue;
-                }
-
-                ComponentParser componentParser = new ComponentParser(classRepository, diagnostics, segment);
-                Object componentMetadata = componentParser.parse(cls);
-                if (componentMetadata instanceof ElementComponentMetadata) {
-                    ElementComponentMetadata elemComponentMeta = (ElementComponentMetadata) componentMetadata;
-                    componentList.add(elemComponentMeta);
-                } else if (componentMetadata instanceof AttributeComponentMetadata) {
-                    AttributeComponentMetadata attrComponentMeta = (AttributeComponentMetadata) componentMetadata;
-                    attributeComponentList.add(attrComponentMeta);
-                }
-            }
-            avaliableComponents.put(prefix, componentList);
-            avaliableAttrComponents.put(prefix, attributeComponentList);
-        } catch (IOException e) {
-            throw new RuntimeException("IO exception occurred parsing HTML input", e);
+        ComponentMetadataCache.ComponentPackage componentPackage = componentCache.get(packageName, classRepository,
+                resourceProvider);
+        if (componentPackage == null) {
+            error(segment, "Component package was not found: " + packageName);
+            return;
+        }
+        for (String message : componentPackage.errors) {
+            error(segment, message);
         }
+        componentPackages.add(packageName);
+        componentDependencies.addAll(componentPackage.dependencies);
+        avaliableComponents.put(prefix, componentPackage.components);
+        avaliableAttrComponents.put(prefix, componentPackage.attributeComponents);
     }
 
     private String normalizeQualifiedName(String text) {
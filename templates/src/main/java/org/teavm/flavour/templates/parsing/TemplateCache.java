@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.templates.parsing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.teavm.flavour.expr.CacheDirectory;
+import org.teavm.flavour.expr.CodeFingerprint;
+import org.teavm.flavour.expr.type.meta.ClassDescriberRepository;
+import org.teavm.flavour.expr.type.meta.ClassFingerprint;
+import org.teavm.flavour.templates.BindAttribute;
+import org.teavm.flavour.templates.BindAttributeComponent;
+import org.teavm.flavour.templates.BindContent;
+import org.teavm.flavour.templates.BindElement;
+import org.teavm.flavour.templates.BindElementName;
+import org.teavm.flavour.templates.IgnoreContent;
+import org.teavm.flavour.templates.ModifierTarget;
+import org.teavm.flavour.templates.OptionalBinding;
+import org.teavm.flavour.templates.SettingsObject;
+import org.teavm.flavour.templates.tree.TemplateNode;
+
+/**
+ * <p>Keeps parsed templates in a directory, so that a build can skip parsing of templates that did not change
+ * since previous build. Each template is stored together with the fingerprint of signatures of all classes
+ * parser consulted, including component annotations, and of lists of component packages template uses.
+ * When any of them changes, stored template is ignored.</p>
+ *
+ * <p>Templates are identified by the name of the class they are bound to and by their text. Cache never fails
+ * parsing: unreadable entries are reported as missing and entries that can't be written are skipped.
+ * Only templates parsed without errors should be stored, since diagnostics are not kept.
+ * Cache may be used by several threads and several processes at once.</p>
+ *
+ * <p>Entries also carry version of the parser, by default {@link CodeFingerprint} of this library and of
+ * the expression library, so that templates parsed by another build are parsed again.</p>
+ */
+public class TemplateCache {
+    private static final int MAGIC = 0x464C5443;
+    private static final int VERSION = 2;
+    private static final String SUFFIX = ".template";
+    private static final List<String> ANNOTATION_TYPES = Arrays.asList(BindElement.class.getName(),
+            BindAttributeComponent.class.getName(), BindAttribute.class.getName(), BindContent.class.getName(),
+            BindElementName.class.getName(), IgnoreContent.class.getName(), ModifierTarget.class.getName(),
+            OptionalBinding.class.getName(), SettingsObject.class.getName());
+    private CacheDirectory directory;
+    private ClassDescriberRepository classRepository;
+    private ResourceProvider resourceProvider;
+
+    public TemplateCache(Path directory, ClassDescriberRepository classRepository,
+            ResourceProvider resourceProvider) {
+        this(directory, classRepository, resourceProvider, CodeFingerprint.of(TemplateCache.class) + ";"
+                + CodeFingerprint.of(CacheDirectory.class));
+    }
+
+    public TemplateCache(Path directory, ClassDescriberRepository classRepository,
+            ResourceProvider resourceProvider, String parserVersion) {
+        this.directory = new CacheDirectory(directory, MAGIC, SUFFIX, VERSION + ";" + parserVersion);
+        this.classRepository = classRepository;
+        this.resourceProvider = resourceProvider;
+    }
+
+    public List<TemplateNode> get(String className, String text) {
+        return directory.read(key(className, text), input -> {
+            List<String> classNames = CacheDirectory.readNames(input);
+            List<String> componentPackages = CacheDirectory.readNames(input);
+            if (!CacheDirectory.readDigest(input, fingerprint(classNames, componentPackages))) {
+                return null;
+            }
+            return new TemplateTreeReader(input).read();
+        });
+    }
+
+    /**
+     * <p>Stores parsed template.</p>
+     *
+     * @param classNames names of classes parser consulted, see {@link Parser#getDependencies()}.
+     * @param componentPackages names of component packages template uses,
+     * see {@link Parser#getComponentPackages()}.
+     */
+    public void put(String className, String text, List<TemplateNode> nodes, Collection<String> classNames,
+            Collection<String> componentPackages) {
+        List<String> classList = new ArrayList<>(new LinkedHashSet<>(classNames));
+        List<String> packageList = new ArrayList<>(new LinkedHashSet<>(componentPackages));
+        directory.write(key(className, text), output -> {
+            CacheDirectory.writeNames(output, classList);
+            CacheDirectory.writeNames(output, packageList);
+            CacheDirectory.writeDigest(output, fingerprint(classList, packageList));
+            new TemplateTreeWriter(output).write(nodes);
+        });
+    }
+
+    public long getHitCount() {
+        return directory.getHitCount();
+    }
+
+    public long getMissCount() {
+        return directory.getMissCount();
+    }
+
+    private static String key(String className, String text) {
+        return className + "\n" + text;
+    }
+
+    private byte[] fingerprint(List<String> classNames, List<String> componentPackages) throws IOException {
+        MessageDigest digest = CacheDirectory.sha256();
+        digest.update(ClassFingerprint.compute(classRepository, classNames, ANNOTATION_TYPES));
+        byte[] buffer = new byte[4096];
+        for (String componentPackage : componentPackages) {
+            digest.update(componentPackage.getBytes(StandardCharsets.UTF_8));
+            try (InputStream input = resourceProvider.openResource("META-INF/flavour/component-packages/"
+                    + componentPackage)) {
+                if (input == null) {
+                    digest.update((byte) 0);
+                    continue;
+                }
+                digest.update((byte) 1);
+                while (true) {
+                    int count = input.read(buffer);
+                    if (count < 0) {
+                        break;
+                    }
+                    digest.update(buffer, 0, count);
+                }
+            }
+        }
+        return digest.digest();
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.templates.parsing;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.teavm.flavour.expr.Location;
+import org.teavm.flavour.expr.plan.LambdaPlan;
+import org.teavm.flavour.expr.plan.PlanReader;
+import org.teavm.flavour.expr.type.GenericArray;
+import org.teavm.flavour.expr.type.GenericClass;
+import org.teavm.flavour.expr.type.GenericReference;
+import org.teavm.flavour.expr.type.GenericType;
+import org.teavm.flavour.expr.type.IntersectionType;
+import org.teavm.flavour.expr.type.NullType;
+import org.teavm.flavour.expr.type.Primitive;
+import org.teavm.flavour.expr.type.PrimitiveArray;
+import org.teavm.flavour.expr.type.TypeArgument;
+import org.teavm.flavour.expr.type.TypeVar;
+import org.teavm.flavour.expr.type.ValueType;
+import org.teavm.flavour.expr.type.Variance;
+import org.teavm.flavour.templates.tree.AttributeComponentBinding;
+import org.teavm.flavour.templates.tree.ComponentBinding;
+import org.teavm.flavour.templates.tree.ComponentFunctionBinding;
+import org.teavm.flavour.templates.tree.ComponentVariableBinding;
+import org.teavm.flavour.templates.tree.DOMElement;
+import org.teavm.flavour.templates.tree.DOMText;
+import org.teavm.flavour.templates.tree.NestedComponentBinding;
+import org.teavm.flavour.templates.tree.TemplateNode;
+
+/**
+ * <p>Reads templates written by {@link TemplateTreeWriter}. Malformed input, including counts and lengths out
+ * of range, is reported by {@link IOException}.</p>
+ */
+class TemplateTreeReader {
+    private static final int MAX_COUNT = 65536;
+    private static final int MAX_STRING_LENGTH = 1 << 24;
+    private static final Primitive[] PRIMITIVES = { Primitive.BOOLEAN, Primitive.CHAR, Primitive.BYTE,
+            Primitive.SHORT, Primitive.INT, Primitive.LONG, Primitive.FLOAT, Primitive.DOUBLE };
+    private static final Variance[] VARIANCES = Variance.values();
+    private DataInput input;
+    private PlanReader planReader;
+
+    TemplateTreeReader(DataInput input) {
+        this.input = input;
+        planReader = new PlanReader(input);
+    }
+
+    List<TemplateNode> read() throws IOException {
+        int count = readCount();
+        List<TemplateNode> nodes = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            nodes.add(readNode());
+        }
+        return nodes;
+    }
+
+    private TemplateNode readNode() throws IOException {
+        byte tag = input.readByte();
+        switch (tag) {
+            case TemplateTreeWriter.TEXT: {
+                Location location = readLocation();
+                DOMText text = new DOMText(readString());
+                text.setLocation(location);
+                return text;
+            }
+            case TemplateTreeWriter.ELEMENT: {
+                Location location = readLocation();
+                DOMElement element = new DOMElement(readString());
+                element.setLocation(location);
+                int attributeCount = readCount();
+                for (int i = 0; i < attributeCount; ++i) {
+                    String name = readString();
+                    String value = readString();
+                    element.setAttribute(name, value, readLocation());
+                }
+                int componentCount = readCount();
+                for (int i = 0; i < componentCount; ++i) {
+                    Location componentLocation = readLocation();
+                    String className = readString();
+                    AttributeComponentBinding component = new AttributeComponentBinding(className, readString());
+                    component.setLocation(componentLocation);
+                    component.setElementNameMethodName(readString());
+                    readVariables(component.getVariables());
+                    readFunctions(component.getFunctions());
+                    element.getAttributeComponents().add(component);
+                }
+                element.getChildNodes().addAll(read());
+                return element;
+            }
+            case TemplateTreeWriter.COMPONENT:
+                return readComponent();
+            default:
+                throw new IOException("Unknown template node tag: " + tag);
+        }
+    }
+
+    private ComponentBinding readComponent() throws IOException {
+        Location location = readLocation();
+        String className = readString();
+        ComponentBinding component = new ComponentBinding(className, readString());
+        component.setLocation(location);
+        component.setContentMethodName(readString());
+        component.setElementNameMethodName(readString());
+        readVariables(component.getVariables());
+        readFunctions(component.getComputations());
+        int nestedCount = readCount();
+        for (int i = 0; i < nestedCount; ++i) {
+            String methodOwner = readString();
+            String methodName = readString();
+            String componentType = readString();
+            NestedComponentBinding nested = new NestedComponentBinding(methodOwner, methodName, componentType,
+                    input.readBoolean());
+            int count = readCount();
+            for (int j = 0; j < count; ++j) {
+                nested.getComponents().add(readComponent());
+            }
+            component.getNestedComponents().add(nested);
+        }
+        component.getContentNodes().addAll(read());
+        return component;
+    }
+
+    private void readVariables(List<ComponentVariableBinding> variables) throws IOException {
+        int count = readCount();
+        for (int i = 0; i < count; ++i) {
+            String methodOwner = readString();
+            String methodName = readString();
+            String name = readString();
+            ValueType rawValueType = readType();
+            ValueType valueType = readType();
+            variables.add(new ComponentVariableBinding(methodOwner, methodName, name, rawValueType, valueType));
+        }
+    }
+
+    private void readFunctions(List<ComponentFunctionBinding> functions) throws IOException {
+        int count = readCount();
+        for (int i = 0; i < count; ++i) {
+            String methodOwner = readString();
+            String methodName = readString();
+            String lambdaType = readString();
+            LambdaPlan plan = (LambdaPlan) planReader.read();
+            functions.add(new ComponentFunctionBinding(methodOwner, methodName, plan, lambdaType));
+        }
+    }
+
+    private ValueType readType() throws IOException {
+        byte tag = input.readByte();
+        switch (tag) {
+            case TemplateTreeWriter.TYPE_NULL:
+                return null;
+            case TemplateTreeWriter.TYPE_PRIMITIVE:
+                return readElement(PRIMITIVES);
+            case TemplateTreeWriter.TYPE_CLASS: {
+                String name = readString();
+                int count = readCount();
+                List<TypeArgument> arguments = new ArrayList<>(count);
+                for (int i = 0; i < count; ++i) {
+                    Variance variance = readElement(VARIANCES);
+                    arguments.add(new TypeArgument(variance, (GenericType) readType()));
+                }
+                return new GenericClass(name, arguments);
+            }
+            case TemplateTreeWriter.TYPE_ARRAY:
+                return new GenericArray((GenericType) readType());
+            case TemplateTreeWriter.TYPE_PRIMITIVE_ARRAY:
+                return new PrimitiveArray(readElement(PRIMITIVES));
+            case TemplateTreeWriter.TYPE_REFERENCE:
+                return new GenericReference(new TypeVar(readString()));
+            case TemplateTreeWriter.TYPE_INTERSECTION: {
+                int count = readCount();
+                List<GenericType> types = new ArrayList<>(count);
+                for (int i = 0; i < count; ++i) {
+                    types.add((GenericType) readType());
+                }
+                return IntersectionType.of(types);
+            }
+            case TemplateTreeWriter.TYPE_NULL_TYPE:
+                return NullType.INSTANCE;
+            default:
+                throw new IOException("Unknown type tag: " + tag);
+        }
+    }
+
+    private Location readLocation() throws IOException {
+        if (!input.readBoolean()) {
+            return null;
+        }
+        int start = input.readInt();
+        return new Location(start, input.readInt());
+    }
+
+    private int readCount() throws IOException {
+        int count = input.readInt();
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IOException("Wrong count: " + count);
+        }
+        return count;
+    }
+
+    private <T> T readElement(T[] values) throws IOException {
+        int index = input.readUnsignedByte();
+        if (index >= values.length) {
+            throw new IOException("Wrong index " + index + " of " + values.getClass().getComponentType().getName());
+        }
+        return values[index];
+    }
+
+    private String readString() throws IOException {
+        int length = input.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("Wrong string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.templates.parsing;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.teavm.flavour.expr.Location;
+import org.teavm.flavour.expr.plan.PlanWriter;
+import org.teavm.flavour.expr.type.GenericArray;
+import org.teavm.flavour.expr.type.GenericClass;
+import org.teavm.flavour.expr.type.GenericReference;
+import org.teavm.flavour.expr.type.GenericType;
+import org.teavm.flavour.expr.type.IntersectionType;
+import org.teavm.flavour.expr.type.NullType;
+import org.teavm.flavour.expr.type.Primitive;
+import org.teavm.flavour.expr.type.PrimitiveArray;
+import org.teavm.flavour.expr.type.TypeArgument;
+import org.teavm.flavour.expr.type.ValueType;
+import org.teavm.flavour.templates.tree.AttributeComponentBinding;
+import org.teavm.flavour.templates.tree.ComponentBinding;
+import org.teavm.flavour.templates.tree.ComponentFunctionBinding;
+import org.teavm.flavour.templates.tree.ComponentVariableBinding;
+import org.teavm.flavour.templates.tree.DOMAttribute;
+import org.teavm.flavour.templates.tree.DOMElement;
+import org.teavm.flavour.templates.tree.DOMText;
+import org.teavm.flavour.templates.tree.NestedComponentBinding;
+import org.teavm.flavour.templates.tree.TemplateNode;
+
+/**
+ * <p>Writes parsed templates in binary form, which {@link TemplateTreeReader} reads back. Plans of component
+ * functions are written by {@link PlanWriter} into the same output.</p>
+ */
+class TemplateTreeWriter {
+    static final byte TEXT = 0;
+    static final byte ELEMENT = 1;
+    static final byte COMPONENT = 2;
+    static final byte TYPE_NULL = 0;
+    static final byte TYPE_PRIMITIVE = 1;
+    static final byte TYPE_CLASS = 2;
+    static final byte TYPE_ARRAY = 3;
+    static final byte TYPE_PRIMITIVE_ARRAY = 4;
+    static final byte TYPE_REFERENCE = 5;
+    static final byte TYPE_INTERSECTION = 6;
+    static final byte TYPE_NULL_TYPE = 7;
+    private DataOutput output;
+    private PlanWriter planWriter;
+
+    TemplateTreeWriter(DataOutput output) {
+        this.output = output;
+        planWriter = new PlanWriter(output);
+    }
+
+    void write(List<TemplateNode> nodes) throws IOException {
+        output.writeInt(nodes.size());
+        for (TemplateNode node : nodes) {
+            writeNode(node);
+        }
+    }
+
+    private void writeNode(TemplateNode node) throws IOException {
+        if (node instanceof DOMText) {
+            output.writeByte(TEXT);
+            writeLocation(node.getLocation());
+            writeString(((DOMText) node).getValue());
+        } else if (node instanceof DOMElement) {
+            DOMElement element = (DOMElement) node;
+            output.writeByte(ELEMENT);
+            writeLocation(element.getLocation());
+            writeString(element.getName());
+            output.writeInt(element.getAttributes().size());
+            for (DOMAttribute attribute : element.getAttributes()) {
+                writeString(attribute.getName());
+                writeString(attribute.getValue());
+                writeLocation(attribute.getLocation());
+            }
+            output.writeInt(element.getAttributeComponents().size());
+            for (AttributeComponentBinding component : element.getAttributeComponents()) {
+                writeLocation(component.getLocation());
+                writeString(component.getClassName());
+                writeString(component.getName());
+                writeString(component.getElementNameMethodName());
+                writeVariables(component.getVariables());
+                writeFunctions(component.getFunctions());
+            }
+            write(element.getChildNodes());
+        } else if (node instanceof ComponentBinding) {
+            output.writeByte(COMPONENT);
+            writeComponent((ComponentBinding) node);
+        } else {
+            throw new IllegalArgumentException("Unknown template node: " + node);
+        }
+    }
+
+    private void writeComponent(ComponentBinding component) throws IOException {
+        writeLocation(component.getLocation());
+        writeString(component.getClassName());
+        writeString(component.getName());
+        writeString(component.getContentMethodName());
+        writeString(component.getElementNameMethodName());
+        writeVariables(component.getVariables());
+        writeFunctions(component.getComputations());
+        output.writeInt(component.getNestedComponents().size());
+        for (NestedComponentBinding nested : component.getNestedComponents()) {
+            writeString(nested.getMethodOwner());
+            writeString(nested.getMethodName());
+            writeString(nested.getComponentType());
+            output.writeBoolean(nested.isMultiple());
+            output.writeInt(nested.getComponents().size());
+            for (ComponentBinding nestedComponent : nested.getComponents()) {
+                writeComponent(nestedComponent);
+            }
+        }
+        write(component.getContentNodes());
+    }
+
+    private void writeVariables(List<ComponentVariableBinding> variables) throws IOException {
+        output.writeInt(variables.size());
+        for (ComponentVariableBinding variable : variables) {
+            writeString(variable.getMethodOwner());
+            writeString(variable.getMethodName());
+            writeString(variable.getName());
+            writeType(variable.getRawValueType());
+            writeType(variable.getValueType());
+        }
+    }
+
+    private void writeFunctions(List<ComponentFunctionBinding> functions) throws IOException {
+        output.writeInt(functions.size());
+        for (ComponentFunctionBinding function : functions) {
+            writeString(function.getMethodOwner());
+            writeString(function.getMethodName());
+            writeString(function.getLambdaType());
+            planWriter.write(function.getPlan());
+        }
+    }
+
+    /**
+     * <p>Writes type. Type variables are written by name only, which is enough for emitter, since it
+     * does not use types of variables.</p>
+     */
+    private void writeType(ValueType type) throws IOException {
+        if (type == null) {
+            output.writeByte(TYPE_NULL);
+        } else if (type instanceof Primitive) {
+            output.writeByte(TYPE_PRIMITIVE);
+            output.writeByte(((Primitive) type).getKind().ordinal());
+        } else if (type instanceof GenericClass) {
+            GenericClass cls = (GenericClass) type;
+            output.writeByte(TYPE_CLASS);
+            writeString(cls.getName());
+            output.writeInt(cls.getArguments().size());
+            for (TypeArgument argument : cls.getArguments()) {
+                output.writeByte(argument.getVariance().ordinal());
+                writeType(argument.getBound());
+            }
+        } else if (type instanceof GenericArray) {
+            output.writeByte(TYPE_ARRAY);
+            writeType(((GenericArray) type).getElementType());
+        } else if (type instanceof PrimitiveArray) {
+            output.writeByte(TYPE_PRIMITIVE_ARRAY);
+            output.writeByte(((PrimitiveArray) type).getElementType().getKind().ordinal());
+        } else if (type instanceof GenericReference) {
+            output.writeByte(TYPE_REFERENCE);
+            writeString(((GenericReference) type).getVar().getName());
+        } else if (type instanceof IntersectionType) {
+            output.writeByte(TYPE_INTERSECTION);
+            output.writeInt(((IntersectionType) type).getTypes().size());
+            for (GenericType part : ((IntersectionType) type).getTypes()) {
+                writeType(part);
+            }
+        } else if (type instanceof NullType) {
+            output.writeByte(TYPE_NULL_TYPE);
+        } else {
+            throw new IllegalArgumentException("Unknown type: " + type);
+        }
+    }
+
+    private void writeLocation(Location location) throws IOException {
+        output.writeBoolean(location != null);
+        if (location != null) {
+            output.writeInt(location.getStart());
+            output.writeInt(location.getEnd());
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.components.standard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class KeyedReconciliationTest {
+    @Test
+    public void matchesSameKeys() {
+        assertEquals("[0, 1, 2]", match("abc", "abc"));
+        assertEquals("[true, true, true]", stable("abc", "abc"));
+    }
+
+    @Test
+    public void matchesEmptySequences() {
+        assertEquals("[]", match("", ""));
+        assertEquals("[-1, -1]", match("", "ab"));
+        assertEquals("[]", match("ab", ""));
+        assertEquals("[]", stable("", ""));
+    }
+
+    @Test
+    public void movesOnlyReorderedItem() {
+        assertEquals("[3, 0, 1, 2]", match("abcd", "dabc"));
+        assertEquals("[false, true, true, true]", stable("abcd", "dabc"));
+        assertEquals("[1, 2, 3, 0]", match("abcd", "bcda"));
+        assertEquals("[true, true, true, false]", stable("abcd", "bcda"));
+    }
+
+    @Test
+    public void keepsOneItemOfReversedSequence() {
+        assertEquals("[3, 2, 1, 0]", match("abcd", "dcba"));
+        assertEquals(1, count(stable("abcd", "dcba")));
+    }
+
+    @Test
+    public void matchesAroundInsertions() {
+        assertEquals("[0, -1, 1, 2]", match("abc", "axbc"));
+        assertEquals("[-1, 0, 1, 2, -1]", match("abc", "xabcy"));
+        assertEquals("[false, true, true, true, false]", stable("abc", "xabcy"));
+    }
+
+    @Test
+    public void matchesAroundDeletions() {
+        assertEquals("[0, 2, 3]", match("abcd", "acd"));
+        assertEquals("[1, 2]", match("abcd", "bc"));
+        assertEquals("[true, true]", stable("abcd", "bc"));
+    }
+
+    @Test
+    public void matchesEachOldDuplicateOnce() {
+        assertEquals("[0, 2, 1, -1]", match("aab", "abaa"));
+        assertEquals("[0, 1, -1]", match("aa", "aaa"));
+        assertEquals("[0]", match("aaa", "a"));
+    }
+
+    @Test
+    public void matchesNullKeys() {
+        List<String> oldKeys = Arrays.asList(null, "a", null);
+        List<String> newKeys = Arrays.asList("a", null, "b", null);
+        assertEquals("[1, 0, -1, 2]", Arrays.toString(KeyedReconciliation.match(oldKeys, newKeys)));
+        assertEquals("[-1, 0]", Arrays.toString(KeyedReconciliation.match(Arrays.asList(null, "a"),
+                Arrays.asList("b", null))));
+    }
+
+    @Test
+    public void ignoresNewItemsWhenFindingStable() {
+        assertEquals("[false, true, false, true]", Arrays.toString(
+                KeyedReconciliation.findStable(new int[] { -1, 0, -1, 1 })));
+        assertEquals("[false, false]", Arrays.toString(KeyedReconciliation.findStable(new int[] { -1, -1 })));
+    }
+
+    @Test
+    public void findsLongestIncreasingSubsequence() {
+        Random random = new Random(1);
+        for (int attempt = 0; attempt < 500; ++attempt) {
+            List<Integer> oldKeys = new ArrayList<>();
+            int size = random.nextInt(30);
+            for (int i = 0; i < size; ++i) {
+                oldKeys.add(i);
+            }
+            List<Integer> newKeys = new ArrayList<>(oldKeys);
+            Collections.shuffle(newKeys, random);
+            newKeys = new ArrayList<>(newKeys.subList(0, random.nextInt(size + 1)));
+            for (int i = random.nextInt(5); i > 0; --i) {
+                newKeys.add(random.nextInt(newKeys.size() + 1), size + i);
+            }
+
+            int[] sources = KeyedReconciliation.match(oldKeys, newKeys);
+            for (int i = 0; i < sources.length; ++i) {
+                assertEquals(newKeys.get(i) < size ? newKeys.get(i) : -1, sources[i]);
+            }
+            boolean[] stable = KeyedReconciliation.findStable(sources);
+            int last = -1;
+            int stableCount = 0;
+            for (int i = 0; i < stable.length; ++i) {
+                if (stable[i]) {
+                    assertTrue(sources[i] > last);
+                    last = sources[i];
+                    ++stableCount;
+                }
+            }
+            assertEquals(longestIncreasing(sources), stableCount);
+        }
+    }
+
+    private static String match(String oldKeys, String newKeys) {
+        return Arrays.toString(KeyedReconciliation.match(chars(oldKeys), chars(newKeys)));
+    }
+
+    private static String stable(String oldKeys, String newKeys) {
+        return Arrays.toString(KeyedReconciliation.findStable(KeyedReconciliation.match(chars(oldKeys),
+                chars(newKeys))));
+    }
+
+    private static int count(String flags) {
+        return flags.split("true", -1).length - 1;
+    }
+
+    private static List<Character> chars(String keys) {
+        List<Character> result = new ArrayList<>();
+        for (char c : keys.toCharArray()) {
+            result.add(c);
+        }
+        return result;
+    }
+
+    private static int longestIncreasing(int[] sources) {
+        int[] lengths = new int[sources.length];
+        int result = 0;
+        for (int i = 0; i < sources.length; ++i) {
+            if (sources[i] < 0) {
+                continue;
+            }
+            lengths[i] = 1;
+            for (int j = 0; j < i; ++j) {
+                if (sources[j] >= 0 && sources[j] < sources[i]) {
+                    lengths[i] = Math.max(lengths[i], lengths[j] + 1);
+                }
+            }
+            result = Math.max(result, lengths[i]);
+        }
+        return result;
+    }
+}
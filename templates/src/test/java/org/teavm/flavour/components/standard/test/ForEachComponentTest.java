@@ -0,0 +1,200 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.components.standard.test;
+
+import static org.junit.Assert.assertEquals;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.flavour.components.standard.ForEachComponent;
+import org.teavm.flavour.templates.AbstractComponent;
+import org.teavm.flavour.templates.NodeHolder;
+import org.teavm.flavour.templates.Slot;
+import org.teavm.jso.browser.Window;
+import org.teavm.jso.dom.html.HTMLDocument;
+import org.teavm.jso.dom.html.HTMLElement;
+import org.teavm.jso.dom.xml.NodeList;
+import org.teavm.junit.SkipJVM;
+import org.teavm.junit.TeaVMTestRunner;
+
+@RunWith(TeaVMTestRunner.class)
+@SkipJVM
+public class ForEachComponentTest {
+    private HTMLDocument document;
+    private HTMLElement root;
+    private ForEachComponent<Integer> component;
+    private List<Integer> items = new ArrayList<>();
+    private int createdCount;
+
+    public ForEachComponentTest() {
+        document = Window.current().getDocument();
+        root = document.createElement("div");
+        document.getBody().appendChild(root);
+        component = new ForEachComponent<>(Slot.create());
+        Slot.root(root).append(component.getSlot());
+        component.setBody(() -> new Item());
+    }
+
+    @Test
+    public void rendersRandomAccessList() {
+        component.setCollection(() -> items);
+        checkRandomChanges(false);
+    }
+
+    @Test
+    public void rendersSequentialList() {
+        component.setCollection(() -> new LinkedList<>(items));
+        checkRandomChanges(false);
+    }
+
+    @Test
+    public void rendersSet() {
+        component.setCollection(() -> new LinkedHashSet<>(items));
+        checkRandomChanges(false);
+    }
+
+    @Test
+    public void rendersKeyedRandomAccessList() {
+        component.setCollection(() -> items);
+        component.setKey(item -> item);
+        checkRandomChanges(true);
+    }
+
+    @Test
+    public void rendersKeyedSequentialList() {
+        component.setCollection(() -> new LinkedList<>(items));
+        component.setKey(item -> item);
+        checkRandomChanges(true);
+    }
+
+    @Test
+    public void rendersKeyedSet() {
+        component.setCollection(() -> new LinkedHashSet<>(items));
+        component.setKey(item -> item);
+        checkRandomChanges(true);
+    }
+
+    @Test
+    public void movesKeyedComponents() {
+        component.setCollection(() -> items);
+        component.setKey(item -> item);
+        items = Arrays.asList(1, 2, 3, 4);
+        component.render();
+        List<String> ids = getIds();
+
+        items = Arrays.asList(4, 2, 3, 1);
+        component.render();
+        assertEquals("[4, 2, 3, 1]", getValues().toString());
+        assertEquals(Arrays.asList(ids.get(3), ids.get(1), ids.get(2), ids.get(0)), getIds());
+        assertEquals(4, createdCount);
+    }
+
+    @Test
+    public void rendersEmptyCollection() {
+        component.setCollection(() -> items);
+        items = Arrays.asList(1, 2);
+        component.render();
+        items = Collections.emptyList();
+        component.render();
+        assertEquals(0, root.getElementsByTagName("span").getLength());
+        items = Arrays.asList(3);
+        component.render();
+        assertEquals("[3]", getValues().toString());
+    }
+
+    private void checkRandomChanges(boolean keyed) {
+        Random random = new Random(5);
+        int nextItem = 0;
+        for (int step = 0; step < 300; ++step) {
+            int operation = random.nextInt(6);
+            List<Integer> next = new ArrayList<>(items);
+            switch (operation) {
+                case 0:
+                    next.add(random.nextInt(next.size() + 1), nextItem++);
+                    break;
+                case 1:
+                    if (!next.isEmpty()) {
+                        next.remove(random.nextInt(next.size()));
+                    }
+                    break;
+                case 2:
+                    Collections.shuffle(next, random);
+                    break;
+                case 3:
+                    if (next.size() > 1) {
+                        Collections.swap(next, random.nextInt(next.size()), random.nextInt(next.size()));
+                    }
+                    break;
+                case 4:
+                    break;
+                default:
+                    if (next.size() > 20) {
+                        next = new ArrayList<>(next.subList(0, random.nextInt(next.size())));
+                    }
+                    break;
+            }
+            items = next;
+            int createdBefore = createdCount;
+            component.render();
+
+            assertEquals("Step " + step, items, getValues());
+            boolean reordered = operation >= 2 && operation <= 4;
+            if (operation == 4 || keyed && reordered) {
+                assertEquals("Components recreated at step " + step, createdBefore, createdCount);
+            }
+        }
+    }
+
+    private List<Integer> getValues() {
+        List<Integer> values = new ArrayList<>();
+        NodeList<? extends HTMLElement> nodes = root.getElementsByTagName("span");
+        for (int i = 0; i < nodes.getLength(); ++i) {
+            values.add(Integer.parseInt(nodes.get(i).getAttribute("data-value")));
+        }
+        return values;
+    }
+
+    private List<String> getIds() {
+        List<String> ids = new ArrayList<>();
+        NodeList<? extends HTMLElement> nodes = root.getElementsByTagName("span");
+        for (int i = 0; i < nodes.getLength(); ++i) {
+            ids.add(nodes.get(i).getAttribute("id"));
+        }
+        return ids;
+    }
+
+    class Item extends AbstractComponent {
+        private HTMLElement element;
+
+        Item() {
+            super(Slot.create());
+            element = document.createElement("span");
+            element.setAttribute("id", "item-" + createdCount++);
+            getSlot().append(new NodeHolder(element));
+        }
+
+        @Override
+        public void render() {
+            element.setAttribute("data-value", String.valueOf(component.getElementVariable()));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.templates.emitting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.teavm.flavour.templates.DomPrototype;
+import org.teavm.flavour.templates.tree.AttributeComponentBinding;
+import org.teavm.flavour.templates.tree.ComponentBinding;
+import org.teavm.flavour.templates.tree.DOMElement;
+import org.teavm.flavour.templates.tree.DOMText;
+
+public class PrototypeDescriberTest {
+    @Test
+    public void describesStaticSubtree() {
+        DOMElement div = element("div", "class", "main");
+        DOMElement span = element("span", "title", "t");
+        span.getChildNodes().add(new DOMText("foo"));
+        div.getChildNodes().add(span);
+        div.getChildNodes().add(new DOMText("bar"));
+
+        String expected = new DomPrototype.Writer()
+                .open("div").attribute("class", "main")
+                .open("span").attribute("title", "t").text("foo").close()
+                .text("bar")
+                .close()
+                .toString();
+        assertEquals(expected, PrototypeDescriber.describe(div));
+        assertTrue(PrototypeDescriber.isStatic(div));
+    }
+
+    @Test
+    public void stopsAtElementHostingComponent() {
+        DOMElement div = element("div", "class", "main");
+        DOMElement span = new DOMElement("span");
+        span.getChildNodes().add(new DOMText("foo"));
+        span.getChildNodes().add(new ComponentBinding("foo.Std", "std"));
+        div.getChildNodes().add(span);
+
+        String expected = new DomPrototype.Writer()
+                .open("div").attribute("class", "main")
+                .open("span").close()
+                .close()
+                .toString();
+        assertEquals(expected, PrototypeDescriber.describe(div));
+        assertFalse(PrototypeDescriber.isStatic(div));
+        assertFalse(PrototypeDescriber.isStatic(span));
+    }
+
+    @Test
+    public void includesStaticPartOfElementWithAttributeComponent() {
+        DOMElement div = new DOMElement("div");
+        DOMElement input = element("input", "type", "text");
+        input.getAttributeComponents().add(new AttributeComponentBinding("foo.Value", "value"));
+        DOMElement label = element("label", "for", "x");
+        div.getChildNodes().add(label);
+        div.getChildNodes().add(input);
+
+        String expected = new DomPrototype.Writer()
+                .open("div")
+                .open("label").attribute("for", "x").close()
+                .open("input").attribute("type", "text").close()
+                .close()
+                .toString();
+        assertEquals(expected, PrototypeDescriber.describe(div));
+        assertFalse(PrototypeDescriber.isStatic(div));
+        assertTrue(PrototypeDescriber.isStatic(label));
+        assertFalse(PrototypeDescriber.isStatic(input));
+    }
+
+    @Test
+    public void skipsElementWithoutStaticContent() {
+        assertNull(PrototypeDescriber.describe(new DOMElement("div")));
+
+        DOMElement div = new DOMElement("div");
+        div.getChildNodes().add(new DOMText("foo"));
+        div.getChildNodes().add(new ComponentBinding("foo.Std", "std"));
+        assertNull(PrototypeDescriber.describe(div));
+    }
+
+    @Test
+    public void describesAttributesOfElementHostingComponent() {
+        DOMElement div = element("div", "class", "main");
+        div.getChildNodes().add(new ComponentBinding("foo.Std", "std"));
+        div.getChildNodes().add(new DOMText("foo"));
+
+        String expected = new DomPrototype.Writer().open("div").attribute("class", "main").close().toString();
+        assertEquals(expected, PrototypeDescriber.describe(div));
+    }
+
+    @Test
+    public void skipsElementThatCantBeDescribed() {
+        DOMElement div = element("div", "class", "a\0b");
+        assertNull(PrototypeDescriber.describe(div));
+
+        div = element("div", "class", "main");
+        DOMElement span = new DOMElement("span");
+        span.getChildNodes().add(new DOMText("a\0b"));
+        div.getChildNodes().add(span);
+        assertNull(PrototypeDescriber.describe(div));
+    }
+
+    private static DOMElement element(String name, String attributeName, String attributeValue) {
+        DOMElement element = new DOMElement(name);
+        element.setAttribute(attributeName, attributeValue);
+        return element;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.templates.emitting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Enumeration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.teavm.flavour.templates.BindTemplate;
+import org.teavm.flavour.templates.emitting.discovered.DiscoveredModel;
+import org.teavm.flavour.templates.tree.DOMElement;
+
+public class TemplateLoaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private TemplateLoader loader = new TemplateLoader(TemplateLoaderTest.class.getClassLoader(), 2,
+            Collections.singletonList(DiscoveredModel.class.getPackage().getName()));
+
+    @Test
+    public void parsesDiscoveredTemplateAheadOfTime() throws IOException, InterruptedException {
+        loader.discover();
+        for (int i = 0; i < 1000 && !loader.isParsed(DiscoveredModel.class.getName()); ++i) {
+            Thread.sleep(10);
+        }
+        assertTrue(loader.isParsed(DiscoveredModel.class.getName()));
+        assertFalse(loader.isParsed(OnRequestModel.class.getName()));
+
+        TemplateLoader.ParsedTemplate template = loader.get(DiscoveredModel.class.getName(),
+                "templates/emitting/discovered.html");
+        assertEquals("div", ((DOMElement) template.body.get(0)).getName());
+        assertTrue(template.diagnostics.isEmpty());
+    }
+
+    @Test
+    public void parsesUndiscoveredTemplateOnRequest() throws IOException {
+        TemplateLoader.ParsedTemplate template = loader.get(OnRequestModel.class.getName(),
+                "templates/emitting/on-request.html");
+        assertEquals("on-request", ((DOMElement) template.body.get(0)).getAttribute("class").getValue());
+        assertTrue(template.diagnostics.isEmpty());
+        assertTrue(loader.isParsed(OnRequestModel.class.getName()));
+    }
+
+    @Test
+    public void reportsParseErrors() throws IOException {
+        TemplateLoader.ParsedTemplate template = loader.get(BrokenModel.class.getName(),
+                "templates/emitting/broken.html");
+        assertFalse(template.diagnostics.isEmpty());
+    }
+
+    @Test
+    public void reportsMissingTemplate() throws IOException {
+        assertNull(loader.get(OnRequestModel.class.getName(), "templates/emitting/missing.html"));
+    }
+
+    @Test
+    public void reparsesChangedTemplate() throws IOException {
+        File file = new File(folder.getRoot(), "templates/emitting/changing.html");
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), "<div class=\"before\"/>".getBytes(StandardCharsets.UTF_8));
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { folder.getRoot().toURI().toURL() },
+                TemplateLoaderTest.class.getClassLoader())) {
+            TemplateLoader loader = new TemplateLoader(classLoader, 2,
+                    Collections.singletonList(DiscoveredModel.class.getPackage().getName()));
+            TemplateLoader.ParsedTemplate template = loader.get(OnRequestModel.class.getName(),
+                    "templates/emitting/changing.html");
+            assertEquals("before", ((DOMElement) template.body.get(0)).getAttribute("class").getValue());
+
+            Files.write(file.toPath(), "<div class=\"after\"/>".getBytes(StandardCharsets.UTF_8));
+            template = loader.get(OnRequestModel.class.getName(), "templates/emitting/changing.html");
+            assertEquals("after", ((DOMElement) template.body.get(0)).getAttribute("class").getValue());
+        }
+    }
+
+    @Test
+    public void keepsDiscoveryErrorForReport() {
+        ClassLoader classLoader = new ClassLoader(TemplateLoaderTest.class.getClassLoader()) {
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException {
+                throw new IOException("Broken class path");
+            }
+        };
+        TemplateLoader loader = new TemplateLoader(classLoader, 2,
+                Collections.singletonList(DiscoveredModel.class.getPackage().getName()));
+        loader.discover();
+        assertNotNull(loader.takeDiscoveryError());
+        assertNull(loader.takeDiscoveryError());
+    }
+
+    @BindTemplate("templates/emitting/on-request.html")
+    public static class OnRequestModel {
+    }
+
+    @BindTemplate("templates/emitting/broken.html")
+    public static class BrokenModel {
+    }
+}
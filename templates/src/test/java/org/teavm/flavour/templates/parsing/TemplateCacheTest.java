@@ -0,0 +1,197 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.templates.parsing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.teavm.flavour.expr.Location;
+import org.teavm.flavour.expr.plan.LambdaPlan;
+import org.teavm.flavour.expr.plan.VariablePlan;
+import org.teavm.flavour.expr.type.GenericArray;
+import org.teavm.flavour.expr.type.GenericClass;
+import org.teavm.flavour.expr.type.GenericReference;
+import org.teavm.flavour.expr.type.IntersectionType;
+import org.teavm.flavour.expr.type.NullType;
+import org.teavm.flavour.expr.type.Primitive;
+import org.teavm.flavour.expr.type.PrimitiveArray;
+import org.teavm.flavour.expr.type.TypeArgument;
+import org.teavm.flavour.expr.type.TypeVar;
+import org.teavm.flavour.expr.type.meta.ClassPathClassDescriberRepository;
+import org.teavm.flavour.templates.tree.AttributeComponentBinding;
+import org.teavm.flavour.templates.tree.ComponentBinding;
+import org.teavm.flavour.templates.tree.ComponentFunctionBinding;
+import org.teavm.flavour.templates.tree.ComponentVariableBinding;
+import org.teavm.flavour.templates.tree.DOMElement;
+import org.teavm.flavour.templates.tree.DOMText;
+import org.teavm.flavour.templates.tree.NestedComponentBinding;
+import org.teavm.flavour.templates.tree.TemplateNode;
+
+public class TemplateCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private ClassPathClassDescriberRepository classes = new ClassPathClassDescriberRepository();
+    private String packageContent = "java.util.List";
+
+    @Test
+    public void writesAndReadsEveryNodeKind() throws IOException {
+        List<TemplateNode> nodes = createTemplate();
+        byte[] bytes = write(nodes);
+        List<TemplateNode> restored = new TemplateTreeReader(new DataInputStream(new ByteArrayInputStream(bytes)))
+                .read();
+        assertArrayEquals(bytes, write(restored));
+
+        assertEquals(2, restored.size());
+        DOMText text = (DOMText) restored.get(0);
+        assertEquals("hello", text.getValue());
+        assertEquals(3, text.getLocation().getEnd());
+        DOMElement element = (DOMElement) restored.get(1);
+        assertEquals("div", element.getName());
+        assertEquals("main", element.getAttribute("class").getValue());
+        assertNull(element.getAttribute("hidden").getLocation());
+        AttributeComponentBinding attributeComponent = element.getAttributeComponents().get(0);
+        assertEquals("title", attributeComponent.getName());
+        assertEquals("x", attributeComponent.getFunctions().get(0).getPlan().getBoundVars().get(0));
+
+        ComponentBinding component = (ComponentBinding) element.getChildNodes().get(0);
+        assertEquals("std", component.getName());
+        assertEquals("setContent", component.getContentMethodName());
+        assertEquals(7, component.getVariables().size());
+        NestedComponentBinding nested = component.getNestedComponents().get(0);
+        assertEquals(true, nested.isMultiple());
+        assertEquals(2, nested.getComponents().size());
+        assertEquals("text", ((DOMText) component.getContentNodes().get(0)).getValue());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsWrongCount() throws IOException {
+        byte[] bytes = { 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF };
+        new TemplateTreeReader(new DataInputStream(new ByteArrayInputStream(bytes))).read();
+    }
+
+    @Test
+    public void readsStoredTemplate() {
+        createCache("1").put("Foo", "<div/>", createTemplate(), Arrays.asList("java.util.List"),
+                Arrays.asList("foo"));
+        TemplateCache cache = createCache("1");
+        assertNotNull(cache.get("Foo", "<div/>"));
+        assertNull(cache.get("Foo", "<span/>"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void ignoresCorruptedEntry() throws IOException {
+        createCache("1").put("Foo", "<div/>", createTemplate(), Collections.emptyList(), Collections.emptyList());
+        Path entry;
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            entry = files.findFirst().get();
+        }
+        byte[] data = Files.readAllBytes(entry);
+        Files.write(entry, Arrays.copyOf(data, data.length - 10));
+
+        TemplateCache cache = createCache("1");
+        assertNull(cache.get("Foo", "<div/>"));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void ignoresStaleEntry() {
+        createCache("1").put("Foo", "<div/>", createTemplate(), Collections.emptyList(), Arrays.asList("foo"));
+        assertNull(createCache("2").get("Foo", "<div/>"));
+        assertNotNull(createCache("1").get("Foo", "<div/>"));
+
+        packageContent = "java.util.Map";
+        assertNull(createCache("1").get("Foo", "<div/>"));
+    }
+
+    private TemplateCache createCache(String version) {
+        return new TemplateCache(folder.getRoot().toPath(), classes,
+                path -> new ByteArrayInputStream(packageContent.getBytes(StandardCharsets.UTF_8)), version);
+    }
+
+    private static byte[] write(List<TemplateNode> nodes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new TemplateTreeWriter(new DataOutputStream(bytes)).write(nodes);
+        return bytes.toByteArray();
+    }
+
+    private static List<TemplateNode> createTemplate() {
+        DOMText text = new DOMText("hello");
+        text.setLocation(new Location(1, 3));
+
+        DOMElement element = new DOMElement("div");
+        element.setLocation(new Location(4, 20));
+        element.setAttribute("class", "main", new Location(5, 10));
+        element.setAttribute("hidden", "");
+        AttributeComponentBinding attributeComponent = new AttributeComponentBinding("foo.Title", "title");
+        attributeComponent.setElementNameMethodName("setElementName");
+        attributeComponent.getVariables().add(new ComponentVariableBinding("foo.Title", "setValue", "value",
+                Primitive.INT, Primitive.INT));
+        attributeComponent.getFunctions().add(createFunction());
+        element.getAttributeComponents().add(attributeComponent);
+
+        ComponentBinding component = new ComponentBinding("foo.Std", "std");
+        component.setLocation(new Location(11, 18));
+        component.setContentMethodName("setContent");
+        TypeVar var = new TypeVar("T");
+        GenericClass list = new GenericClass("java.util.List", TypeArgument.invariant(new GenericReference(var)));
+        GenericClass map = new GenericClass("java.util.Map", TypeArgument.covariant(list),
+                TypeArgument.contravariant(new GenericClass("java.lang.String")));
+        component.getVariables().add(new ComponentVariableBinding("foo.Std", "setList", "list", list, map));
+        component.getVariables().add(new ComponentVariableBinding("foo.Std", "setArray", "array",
+                new GenericArray(list), new PrimitiveArray(Primitive.DOUBLE)));
+        component.getVariables().add(new ComponentVariableBinding("foo.Std", "setBoth", "both",
+                IntersectionType.of(list, new GenericClass("java.lang.Runnable")), NullType.INSTANCE));
+        component.getVariables().add(new ComponentVariableBinding("foo.Std", "setRaw", "raw", null,
+                Primitive.BOOLEAN));
+        for (Primitive primitive : Arrays.asList(Primitive.CHAR, Primitive.LONG, Primitive.FLOAT)) {
+            component.getVariables().add(new ComponentVariableBinding("foo.Std", "set", "p", primitive,
+                    primitive));
+        }
+        component.getComputations().add(createFunction());
+        NestedComponentBinding nested = new NestedComponentBinding("foo.Std", "setItems", "foo.Item", true);
+        nested.getComponents().add(new ComponentBinding("foo.Item", "item"));
+        nested.getComponents().add(new ComponentBinding("foo.Item", "item"));
+        component.getNestedComponents().add(nested);
+        component.getContentNodes().add(new DOMText("text"));
+        element.getChildNodes().add(component);
+
+        return Arrays.asList(text, element);
+    }
+
+    private static ComponentFunctionBinding createFunction() {
+        LambdaPlan plan = new LambdaPlan(new VariablePlan("x"), "java.util.function.Supplier", "get",
+                "()Ljava/lang/Object;", Collections.singletonList("x"));
+        return new ComponentFunctionBinding("foo.Title", "setValue", plan, "java.util.function.Supplier");
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.templates.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.flavour.templates.AbstractComponent;
+import org.teavm.flavour.templates.DomBuilder;
+import org.teavm.flavour.templates.DomPrototype;
+import org.teavm.flavour.templates.NodeHolder;
+import org.teavm.flavour.templates.Slot;
+import org.teavm.jso.browser.Window;
+import org.teavm.jso.dom.html.HTMLDocument;
+import org.teavm.jso.dom.html.HTMLElement;
+import org.teavm.jso.dom.xml.Element;
+import org.teavm.jso.dom.xml.NodeList;
+import org.teavm.junit.SkipJVM;
+import org.teavm.junit.TeaVMTestRunner;
+
+@RunWith(TeaVMTestRunner.class)
+@SkipJVM
+public class DomBuilderTest {
+    private static final String PROTOTYPE = new DomPrototype.Writer()
+            .open("div").attribute("class", "main")
+            .text("a")
+            .open("span").close()
+            .open("p").text("b").close()
+            .close()
+            .toString();
+    private HTMLDocument document;
+    private HTMLElement root;
+
+    public DomBuilderTest() {
+        document = Window.current().getDocument();
+        root = document.createElement("div");
+        document.getBody().appendChild(root);
+    }
+
+    @Test
+    public void entersChildrenOfClonedPrototype() {
+        TextComponent component = new TextComponent("c");
+        DomBuilder builder = new DomBuilder(Slot.root(root));
+        builder.openPrototype(PROTOTYPE)
+                .enterSlot(1).add(component).leave()
+                .enter(2).attribute("title", "t").leave()
+                .close();
+
+        assertEquals(1, root.getChildNodes().getLength());
+        Element div = (Element) root.getChildNodes().get(0);
+        assertEquals("main", div.getAttribute("class"));
+        assertEquals(3, div.getChildNodes().getLength());
+        assertEquals("c", div.getChildNodes().get(1).getTextContent());
+        assertEquals("t", ((Element) div.getChildNodes().get(2)).getAttribute("title"));
+        assertEquals("acb", root.getTextContent());
+        assertEquals(1, component.renderCount);
+        assertEquals(1, builder.getRenderables().size());
+    }
+
+    @Test
+    public void clonesIndependentCopies() {
+        DomBuilder builder = new DomBuilder(Slot.root(root));
+        builder.openPrototype(PROTOTYPE)
+                .enterSlot(1).add(new TextComponent("c")).leave()
+                .enter(2).attribute("title", "t").leave()
+                .close();
+        builder.openPrototype(PROTOTYPE).close();
+
+        NodeList<? extends HTMLElement> paragraphs = root.getElementsByTagName("p");
+        assertEquals(2, paragraphs.getLength());
+        assertEquals("t", paragraphs.get(0).getAttribute("title"));
+        assertNull(paragraphs.get(1).getAttribute("title"));
+        assertEquals("acbab", root.getTextContent());
+    }
+
+    @Test
+    public void keepsComponentsInSlotOrder() {
+        String prototype = new DomPrototype.Writer().open("ul").attribute("class", "list").close().toString();
+        TextComponent second = new TextComponent("2");
+        DomBuilder builder = new DomBuilder(Slot.root(root));
+        builder.openPrototypeSlot(prototype)
+                .add(new TextComponent("1"))
+                .text("-")
+                .add(second)
+                .close();
+        assertEquals("1-2", root.getTextContent());
+
+        second.destroy();
+        assertEquals("1-", root.getTextContent());
+        assertEquals("list", ((Element) root.getChildNodes().get(0)).getAttribute("class"));
+    }
+
+    @Test
+    public void keepsStaticChildrenBeforeSlotContent() {
+        String prototype = new DomPrototype.Writer()
+                .open("div").attribute("class", "main")
+                .open("span").text("a").close()
+                .open("span").close()
+                .close()
+                .toString();
+        TextComponent first = new TextComponent("b");
+        DomBuilder builder = new DomBuilder(Slot.root(root));
+        builder.openPrototype(prototype)
+                .enterSlot(1).add(first).text("c").add(new TextComponent("d")).leave()
+                .close();
+        assertEquals("abcd", root.getTextContent());
+
+        first.destroy();
+        assertEquals("acd", root.getTextContent());
+        assertEquals(2, root.getChildNodes().get(0).getChildNodes().getLength());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsEnteringRoot() {
+        new DomBuilder(Slot.root(root)).enter(0);
+    }
+
+    static class TextComponent extends AbstractComponent {
+        int renderCount;
+
+        TextComponent(String text) {
+            super(Slot.create());
+            getSlot().append(new NodeHolder(Window.current().getDocument().createTextNode(text)));
+        }
+
+        @Override
+        public void render() {
+            ++renderCount;
+        }
+    }
+}
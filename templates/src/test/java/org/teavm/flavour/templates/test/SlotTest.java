@@ -0,0 +1,124 @@
+/*
+ *  Copyright 2026 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.flavour.templates.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.flavour.templates.NodeHolder;
+import org.teavm.flavour.templates.Slot;
+import org.teavm.jso.browser.Window;
+import org.teavm.jso.dom.html.HTMLDocument;
+import org.teavm.jso.dom.html.HTMLElement;
+import org.teavm.junit.SkipJVM;
+import org.teavm.junit.TeaVMTestRunner;
+
+@RunWith(TeaVMTestRunner.class)
+@SkipJVM
+public class SlotTest {
+    private HTMLDocument document;
+    private HTMLElement root;
+    private Slot rootSlot;
+
+    public SlotTest() {
+        document = Window.current().getDocument();
+        root = document.createElement("div");
+        document.getBody().appendChild(root);
+        rootSlot = Slot.root(root);
+    }
+
+    @Test
+    public void deletesSpaceFromMiddle() {
+        NodeHolder a = append("a");
+        NodeHolder b = append("b");
+        NodeHolder c = append("c");
+
+        b.delete();
+        assertEquals("ac", root.getTextContent());
+        assertSame(c, a.getNext());
+        assertSame(a, c.getPrevious());
+        assertNull(b.getParent());
+        assertNull(b.getPrevious());
+        assertNull(b.getNext());
+
+        rootSlot.insertBefore(b, c);
+        assertEquals("abc", root.getTextContent());
+        assertSame(b, a.getNext());
+        assertSame(b, c.getPrevious());
+    }
+
+    @Test
+    public void deletesFirstAndLastSpaces() {
+        NodeHolder a = append("a");
+        NodeHolder b = append("b");
+        NodeHolder c = append("c");
+
+        a.delete();
+        c.delete();
+        assertEquals("b", root.getTextContent());
+        assertNull(b.getPrevious());
+        assertNull(b.getNext());
+
+        rootSlot.append(c);
+        rootSlot.insertBefore(a, b);
+        assertEquals("abc", root.getTextContent());
+        assertSame(c, b.getNext());
+    }
+
+    @Test
+    public void movesSpace() {
+        NodeHolder a = append("a");
+        append("b");
+        NodeHolder c = append("c");
+
+        c.delete();
+        rootSlot.insertBefore(c, a);
+        assertEquals("cab", root.getTextContent());
+        assertNull(c.getPrevious());
+        assertSame(a, c.getNext());
+    }
+
+    @Test
+    public void insertsBeforeSuccessorWithoutNodes() {
+        append("a");
+        Slot empty = Slot.create();
+        rootSlot.append(empty);
+        append("c");
+
+        rootSlot.insertBefore(new NodeHolder(document.createTextNode("b")), empty);
+        assertEquals("abc", root.getTextContent());
+    }
+
+    @Test
+    public void insertsIntoNestedSlotFollowedBySlotWithoutNodes() {
+        Slot inner = Slot.create();
+        rootSlot.append(inner);
+        rootSlot.append(Slot.create());
+        append("c");
+
+        inner.append(new NodeHolder(document.createTextNode("a")));
+        inner.append(new NodeHolder(document.createTextNode("b")));
+        assertEquals("abc", root.getTextContent());
+    }
+
+    private NodeHolder append(String text) {
+        NodeHolder holder = new NodeHolder(document.createTextNode(text));
+        rootSlot.append(holder);
+        return holder;
+    }
+}